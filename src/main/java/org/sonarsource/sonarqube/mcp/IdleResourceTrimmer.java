@@ -0,0 +1,116 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import org.sonarsource.sonarqube.mcp.log.McpLogger;
+
+/**
+ * Releases the resources held by a long-lived server once no tool was called for a while, e.g. idle pooled connections or the
+ * analyzers. Each resource is responsible for allocating itself again when it is next needed.
+ * Resources are trimmed once per quiet period, the next tool call starts a new one.
+ * No collection is forced afterwards: the freed heap is given back to the system by the periodic collections of the JVM when enabled,
+ * e.g. with {@code -XX:G1PeriodicGCInterval}.
+ */
+public class IdleResourceTrimmer {
+
+  private static final McpLogger LOG = McpLogger.getInstance();
+  private static final Duration MAX_CHECK_PERIOD = Duration.ofMinutes(1);
+
+  private final Duration idleTimeout;
+  private final LongSupplier nanoClock;
+  private final List<Trimmer> trimmers = new ArrayList<>();
+  private final AtomicInteger activeCalls = new AtomicInteger();
+  private volatile long lastActivityNanos;
+  private volatile boolean isTrimmed;
+  private ScheduledExecutorService scheduler;
+
+  public IdleResourceTrimmer(Duration idleTimeout) {
+    this(idleTimeout, System::nanoTime);
+  }
+
+  IdleResourceTrimmer(Duration idleTimeout, LongSupplier nanoClock) {
+    this.idleTimeout = idleTimeout;
+    this.nanoClock = nanoClock;
+    this.lastActivityNanos = nanoClock.getAsLong();
+  }
+
+  /**
+   * Must be called before {@link #start()}.
+   */
+  public void register(String resourceName, Runnable trimmer) {
+    trimmers.add(new Trimmer(resourceName, trimmer));
+  }
+
+  public void start() {
+    var checkPeriod = idleTimeout.dividedBy(2).compareTo(MAX_CHECK_PERIOD) < 0 ? idleTimeout.dividedBy(2) : MAX_CHECK_PERIOD;
+    var checkPeriodMillis = Math.max(1, checkPeriod.toMillis());
+    scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("sonarqube-mcp-idle-trimmer").daemon(true).factory());
+    scheduler.scheduleWithFixedDelay(this::trimIfIdle, checkPeriodMillis, checkPeriodMillis, TimeUnit.MILLISECONDS);
+  }
+
+  public void onCallStarted() {
+    activeCalls.incrementAndGet();
+    lastActivityNanos = nanoClock.getAsLong();
+    isTrimmed = false;
+  }
+
+  public void onCallFinished() {
+    lastActivityNanos = nanoClock.getAsLong();
+    activeCalls.decrementAndGet();
+  }
+
+  /**
+   * @return whether the resources were trimmed
+   */
+  boolean trimIfIdle() {
+    if (isTrimmed || activeCalls.get() > 0 || nanoClock.getAsLong() - lastActivityNanos < idleTimeout.toNanos()) {
+      return false;
+    }
+    isTrimmed = true;
+    LOG.info("No tool called for " + idleTimeout.toSeconds() + " seconds, releasing idle resources");
+    for (var trimmer : trimmers) {
+      if (activeCalls.get() > 0) {
+        // a call started meanwhile, the remaining resources are likely needed
+        return true;
+      }
+      try {
+        trimmer.action().run();
+      } catch (Exception e) {
+        LOG.error("Unable to release the idle " + trimmer.resourceName(), e);
+      }
+    }
+    return true;
+  }
+
+  public void shutdown() {
+    if (scheduler != null) {
+      scheduler.shutdownNow();
+    }
+  }
+
+  private record Trimmer(String resourceName, Runnable action) {
+  }
+
+}
@@ -16,22 +16,34 @@
  */
 package org.sonarsource.sonarqube.mcp;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.modelcontextprotocol.server.McpAsyncServer;
+import io.modelcontextprotocol.server.McpAsyncServerExchange;
 import io.modelcontextprotocol.server.McpServer;
 import io.modelcontextprotocol.server.McpServerFeatures;
-import io.modelcontextprotocol.server.McpSyncServer;
-import io.modelcontextprotocol.server.McpSyncServerExchange;
 import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.spec.McpServerTransportProvider;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import javax.management.JMException;
+import javax.management.ObjectName;
 import org.sonarsource.sonarqube.mcp.configuration.McpServerLaunchConfiguration;
+import org.sonarsource.sonarqube.mcp.daemon.DaemonShim;
 import org.sonarsource.sonarqube.mcp.http.HttpClientProvider;
 import org.sonarsource.sonarqube.mcp.log.McpLogger;
 import org.sonarsource.sonarqube.mcp.plugins.PluginsSynchronizer;
+import org.sonarsource.sonarqube.mcp.serverapi.CircuitBreakers;
 import org.sonarsource.sonarqube.mcp.serverapi.EndpointParams;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApi;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApiHelper;
 import org.sonarsource.sonarqube.mcp.slcore.BackendService;
+import org.sonarsource.sonarqube.mcp.tools.ProgressReporter;
 import org.sonarsource.sonarqube.mcp.tools.Tool;
 import org.sonarsource.sonarqube.mcp.tools.ToolExecutor;
 import org.sonarsource.sonarqube.mcp.tools.analysis.AnalysisTool;
@@ -52,36 +64,99 @@ import org.sonarsource.sonarqube.mcp.tools.system.SystemInfoTool;
 import org.sonarsource.sonarqube.mcp.tools.system.SystemLogsTool;
 import org.sonarsource.sonarqube.mcp.tools.system.SystemPingTool;
 import org.sonarsource.sonarqube.mcp.tools.system.SystemStatusTool;
+import org.sonarsource.sonarqube.mcp.transport.HttpServerTransportProvider;
+import org.sonarsource.sonarqube.mcp.transport.RequestProgress;
 import org.sonarsource.sonarqube.mcp.transport.StdioServerTransportProvider;
+import org.sonarsource.sonarqube.mcp.transport.UnixSocketServerTransportProvider;
+import reactor.core.publisher.Mono;
+import reactor.util.context.ContextView;
 
 public class SonarQubeMcpServer {
 
   private static final McpLogger LOG = McpLogger.getInstance();
   private final BackendService backendService;
   private final ToolExecutor toolExecutor;
-  private final StdioServerTransportProvider transportProvider;
+  private final McpServerTransportProvider transportProvider;
   private final List<Tool> supportedTools = new ArrayList<>();
   private final McpServerLaunchConfiguration mcpConfiguration;
   private final HttpClientProvider httpClientProvider;
+  private final ServerApiHelper serverApiHelper;
   private final PluginsSynchronizer pluginsSynchronizer;
   private final SonarQubeVersionChecker sonarQubeVersionChecker;
-  private McpSyncServer syncServer;
+  private final IdleResourceTrimmer idleResourceTrimmer;
+  private McpAsyncServer asyncServer;
   private volatile boolean isShutdown = false;
-  private boolean logFileLocationLogged;
+  // one exchange per session, the log file location is notified once to each of them
+  private final Set<McpAsyncServerExchange> exchangesNotifiedOfLogFileLocation = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
 
   public static void main(String[] args) {
-    new SonarQubeMcpServer(new StdioServerTransportProvider(), System.getenv()).start();
+    var configuration = new McpServerLaunchConfiguration(System.getenv());
+    var virtualThreadParallelism = configuration.getVirtualThreadParallelism();
+    if (virtualThreadParallelism != null) {
+      // read once, when the first virtual thread starts
+      System.setProperty("jdk.virtualThreadScheduler.parallelism", String.valueOf(virtualThreadParallelism));
+    }
+    if (configuration.isDaemonShim()) {
+      runDaemonShim(configuration);
+      return;
+    }
+    McpServerTransportProvider transportProvider;
+    if (configuration.isUnixSocketTransport()) {
+      transportProvider = new UnixSocketServerTransportProvider(new ObjectMapper(), configuration.getDaemonSocketPath(), configuration.getTransportSettings());
+    } else if (configuration.isHttpTransport()) {
+      transportProvider = new HttpServerTransportProvider(new ObjectMapper(), configuration.getTransportSettings(), configuration.getHttpTransportSettings());
+    } else {
+      var stdioTransportProvider = new StdioServerTransportProvider(new ObjectMapper(), System.in, System.out, configuration.getTransportSettings());
+      registerMBean(stdioTransportProvider, "StdioTransport");
+      transportProvider = stdioTransportProvider;
+    }
+    var server = new SonarQubeMcpServer(transportProvider, configuration);
+    registerMBean(server.httpClientProvider, "HttpClient");
+    server.start();
   }
 
-  public SonarQubeMcpServer(StdioServerTransportProvider transportProvider, Map<String, String> environment) {
+  private static void runDaemonShim(McpServerLaunchConfiguration configuration) {
+    var daemonProcess = DaemonShim.daemonProcess(SonarQubeMcpServer.class, Map.of("TRANSPORT", "unix"));
+    try {
+      new DaemonShim(configuration.getDaemonSocketPath(), daemonProcess).run(System.in, System.out);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (IOException e) {
+      // stdout belongs to the client, and the shim does not log to a file
+      System.err.println(e.getMessage());
+      System.exit(1);
+    }
+  }
+
+  private static void registerMBean(Object mbean, String type) {
+    try {
+      ManagementFactory.getPlatformMBeanServer().registerMBean(mbean, new ObjectName("org.sonarsource.sonarqube.mcp:type=" + type));
+    } catch (JMException e) {
+      LOG.error("Unable to register the " + type + " metrics", e);
+    }
+  }
+
+  public SonarQubeMcpServer(McpServerTransportProvider transportProvider, Map<String, String> environment) {
+    this(transportProvider, new McpServerLaunchConfiguration(environment));
+  }
+
+  public SonarQubeMcpServer(McpServerTransportProvider transportProvider, McpServerLaunchConfiguration mcpConfiguration) {
     this.transportProvider = transportProvider;
-    this.mcpConfiguration = new McpServerLaunchConfiguration(environment);
+    this.mcpConfiguration = mcpConfiguration;
     this.backendService = new BackendService(mcpConfiguration);
-    this.httpClientProvider = new HttpClientProvider(mcpConfiguration.getUserAgent());
-    var serverApi = initializeServerApi(mcpConfiguration);
+    this.httpClientProvider = new HttpClientProvider(mcpConfiguration.getUserAgent(), mcpConfiguration.getHttpClientSettings());
+    this.serverApiHelper = initializeServerApiHelper(mcpConfiguration);
+    var serverApi = new ServerApi(serverApiHelper);
     this.sonarQubeVersionChecker = new SonarQubeVersionChecker(serverApi);
     this.pluginsSynchronizer = new PluginsSynchronizer(serverApi, mcpConfiguration.getStoragePath());
-    this.toolExecutor = new ToolExecutor(backendService);
+    this.toolExecutor = new ToolExecutor(backendService, mcpConfiguration.getToolExecutionSettings());
+    this.idleResourceTrimmer = new IdleResourceTrimmer(mcpConfiguration.getIdleTimeout());
+    idleResourceTrimmer.register("HTTP connections", httpClientProvider::evictIdleConnections);
+    idleResourceTrimmer.register("HTTP response cache", httpClientProvider::clearResponseCache);
+    idleResourceTrimmer.register("HTTP rate limiters", httpClientProvider::clearRateLimiters);
+    if (mcpConfiguration.isStopAnalyzersWhenIdle()) {
+      idleResourceTrimmer.register("analyzers", backendService::suspend);
+    }
 
     // SonarQube Server specific tools
     if (!mcpConfiguration.isSonarCloud()) {
@@ -111,43 +186,50 @@ public class SonarQubeMcpServer {
 
   public void start() {
     sonarQubeVersionChecker.failIfSonarQubeServerVersionIsNotSupported();
-    syncServer = McpServer.sync(transportProvider)
+    asyncServer = McpServer.async(transportProvider)
       .serverInfo(new McpSchema.Implementation("sonarqube-mcp-server", mcpConfiguration.getAppVersion()))
       .capabilities(McpSchema.ServerCapabilities.builder().tools(true).logging().build())
-      .tools(supportedTools.stream().map(this::toSpec).toArray(McpServerFeatures.SyncToolSpecification[]::new))
+      .tools(supportedTools.stream().map(this::toSpec).toArray(McpServerFeatures.AsyncToolSpecification[]::new))
       .build();
 
     var analyzers = pluginsSynchronizer.synchronizeAnalyzers();
     backendService.initialize(analyzers);
+    idleResourceTrimmer.start();
     Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown));
   }
 
-  private McpServerFeatures.SyncToolSpecification toSpec(Tool tool) {
-    return new McpServerFeatures.SyncToolSpecification(
+  private McpServerFeatures.AsyncToolSpecification toSpec(Tool tool) {
+    return new McpServerFeatures.AsyncToolSpecification(
       tool.definition(),
-      (exchange, argMap) -> {
-        logLogFileLocation(exchange);
-        return toolExecutor.execute(tool, argMap);
-      });
+      (exchange, argMap) -> logLogFileLocation(exchange)
+        .then(Mono.deferContextual(context -> Mono.fromFuture(() -> toolExecutor.executeAsync(tool, argMap, progressReporter(context)))))
+        .doFirst(idleResourceTrimmer::onCallStarted)
+        .doFinally(signal -> idleResourceTrimmer.onCallFinished()));
+  }
+
+  private static ProgressReporter progressReporter(ContextView context) {
+    return RequestProgress.from(context)
+      .map(requestProgress -> new ProgressReporter(requestProgress::notify))
+      .orElse(ProgressReporter.NONE);
   }
 
-  private void logLogFileLocation(McpSyncServerExchange exchange) {
-    if (!logFileLocationLogged) {
-      exchange.loggingNotification(new McpSchema.LoggingMessageNotification(McpSchema.LoggingLevel.INFO, "sonarqube-mcp-server",
+  private Mono<Void> logLogFileLocation(McpAsyncServerExchange exchange) {
+    if (exchangesNotifiedOfLogFileLocation.add(exchange)) {
+      return exchange.loggingNotification(new McpSchema.LoggingMessageNotification(McpSchema.LoggingLevel.INFO, "sonarqube-mcp-server",
         "Logs are redirected to " + mcpConfiguration.getLogFilePath().toAbsolutePath()));
-      logFileLocationLogged = true;
     }
+    return Mono.empty();
   }
 
-  private ServerApi initializeServerApi(McpServerLaunchConfiguration mcpConfiguration) {
+  private ServerApiHelper initializeServerApiHelper(McpServerLaunchConfiguration mcpConfiguration) {
     var organization = mcpConfiguration.getSonarqubeOrg();
     var token = mcpConfiguration.getSonarQubeToken();
     var url = mcpConfiguration.getSonarQubeUrl();
 
-    var httpClient = httpClientProvider.getHttpClient(token);
+    var httpClient = httpClientProvider.getHttpClient(token, organization);
 
-    var serverApiHelper = new ServerApiHelper(new EndpointParams(url, organization), httpClient);
-    return new ServerApi(serverApiHelper);
+    var circuitBreakers = new CircuitBreakers(mcpConfiguration.getCircuitBreakerSettings());
+    return new ServerApiHelper(new EndpointParams(url, organization), httpClient, circuitBreakers);
   }
 
   public void shutdown() {
@@ -155,18 +237,21 @@ public class SonarQubeMcpServer {
       return;
     }
     isShutdown = true;
+    idleResourceTrimmer.shutdown();
     try {
       httpClientProvider.shutdown();
     } catch (Exception e) {
       LOG.error("Error shutting down HTTP client", e);
     }
+    serverApiHelper.shutdown();
     try {
-      if (syncServer != null) {
-        syncServer.closeGracefully();
+      if (asyncServer != null) {
+        asyncServer.closeGracefully().block();
       }
     } catch (Exception e) {
       LOG.error("Error shutting down MCP server", e);
     }
+    toolExecutor.shutdown();
     try {
       backendService.shutdown();
     } catch (Exception e) {
@@ -16,13 +16,29 @@
  */
 package org.sonarsource.sonarqube.mcp.configuration;
 
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.jetbrains.annotations.NotNull;
 import org.sonarsource.sonarqube.mcp.SonarQubeMcpServer;
+import org.sonarsource.sonarqube.mcp.http.HttpClientSettings;
+import org.sonarsource.sonarqube.mcp.http.HttpConnectionSettings;
+import org.sonarsource.sonarqube.mcp.http.HttpRateLimitSettings;
+import org.sonarsource.sonarqube.mcp.http.HttpRetrySettings;
+import org.sonarsource.sonarqube.mcp.serverapi.CircuitBreakerSettings;
+import org.sonarsource.sonarqube.mcp.tools.ToolExecutionSettings;
+import org.sonarsource.sonarqube.mcp.transport.HttpTransportSettings;
+import org.sonarsource.sonarqube.mcp.transport.TransportSettings;
 
 import static java.util.Objects.requireNonNull;
 
@@ -35,6 +51,51 @@ public class McpServerLaunchConfiguration {
   private static final String SONARQUBE_ORG = "SONARQUBE_ORG";
   private static final String SONARQUBE_TOKEN = "SONARQUBE_TOKEN";
   private static final String TELEMETRY_DISABLED = "TELEMETRY_DISABLED";
+  private static final String TRANSPORT = "TRANSPORT";
+  private static final String TRANSPORT_STDIO = "stdio";
+  private static final String TRANSPORT_HTTP = "http";
+  private static final String TRANSPORT_DAEMON = "daemon";
+  private static final String TRANSPORT_UNIX = "unix";
+  private static final Set<String> SUPPORTED_TRANSPORTS = Set.of(TRANSPORT_STDIO, TRANSPORT_HTTP, TRANSPORT_DAEMON, TRANSPORT_UNIX);
+  private static final String TRANSPORT_HTTP_HOST = "TRANSPORT_HTTP_HOST";
+  private static final String TRANSPORT_HTTP_PORT = "TRANSPORT_HTTP_PORT";
+  private static final String TRANSPORT_HTTP_MAX_SESSIONS = "TRANSPORT_HTTP_MAX_SESSIONS";
+  private static final String TRANSPORT_HTTP_MAX_REQUESTS_PER_SESSION = "TRANSPORT_HTTP_MAX_REQUESTS_PER_SESSION";
+  private static final String TRANSPORT_HTTP_SESSION_IDLE_TIMEOUT_SECONDS = "TRANSPORT_HTTP_SESSION_IDLE_TIMEOUT_SECONDS";
+  private static final String TRANSPORT_MAX_FRAME_SIZE = "TRANSPORT_MAX_FRAME_SIZE";
+  private static final String TRANSPORT_OUTBOUND_QUEUE_CAPACITY = "TRANSPORT_OUTBOUND_QUEUE_CAPACITY";
+  private static final String TRANSPORT_MAX_PENDING_REQUESTS = "TRANSPORT_MAX_PENDING_REQUESTS";
+  private static final String TRANSPORT_MAX_PENDING_REQUEST_BYTES = "TRANSPORT_MAX_PENDING_REQUEST_BYTES";
+  private static final String TOOL_MAX_CONCURRENT_CALLS = "TOOL_MAX_CONCURRENT_CALLS";
+  private static final String TOOL_MAX_QUEUED_CALLS = "TOOL_MAX_QUEUED_CALLS";
+  private static final String TOOL_TIMEOUT_SECONDS = "TOOL_TIMEOUT_SECONDS";
+  private static final String TOOL_MAX_CONCURRENT_CALLS_PER_TOOL = "TOOL_MAX_CONCURRENT_CALLS_PER_TOOL";
+  private static final String TOOL_TIMEOUT_SECONDS_PER_TOOL = "TOOL_TIMEOUT_SECONDS_PER_TOOL";
+  private static final String TOOL_VIRTUAL_THREADS = "TOOL_VIRTUAL_THREADS";
+  private static final String TOOL_VIRTUAL_THREAD_PARALLELISM = "TOOL_VIRTUAL_THREAD_PARALLELISM";
+  private static final String IDLE_TIMEOUT_SECONDS = "IDLE_TIMEOUT_SECONDS";
+  private static final String IDLE_STOP_ANALYZERS = "IDLE_STOP_ANALYZERS";
+  private static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofMinutes(15);
+  private static final String HTTP_COMPLETION_THREADS = "HTTP_COMPLETION_THREADS";
+  private static final String HTTP_COMPRESSION_DISABLED = "HTTP_COMPRESSION_DISABLED";
+  private static final String HTTP_CACHE_MAX_BYTES = "HTTP_CACHE_MAX_BYTES";
+  private static final String HTTP_CACHE_DISABLED = "HTTP_CACHE_DISABLED";
+  private static final String HTTP_MAX_CONNECTIONS = "HTTP_MAX_CONNECTIONS";
+  private static final String HTTP_MAX_CONNECTIONS_PER_ROUTE = "HTTP_MAX_CONNECTIONS_PER_ROUTE";
+  private static final String HTTP_CONNECT_TIMEOUT_SECONDS = "HTTP_CONNECT_TIMEOUT_SECONDS";
+  private static final String HTTP_SOCKET_TIMEOUT_SECONDS = "HTTP_SOCKET_TIMEOUT_SECONDS";
+  private static final String HTTP_RESPONSE_TIMEOUT_SECONDS = "HTTP_RESPONSE_TIMEOUT_SECONDS";
+  private static final String HTTP_KEEP_ALIVE_SECONDS = "HTTP_KEEP_ALIVE_SECONDS";
+  private static final String HTTP_IDLE_CONNECTION_TIMEOUT_SECONDS = "HTTP_IDLE_CONNECTION_TIMEOUT_SECONDS";
+  private static final String HTTP_VERSION = "HTTP_VERSION";
+  private static final String HTTP_MAX_RETRIES = "HTTP_MAX_RETRIES";
+  private static final String HTTP_MAX_RETRIES_PER_ENDPOINT = "HTTP_MAX_RETRIES_PER_ENDPOINT";
+  private static final String HTTP_RETRY_INITIAL_BACKOFF_MILLIS = "HTTP_RETRY_INITIAL_BACKOFF_MILLIS";
+  private static final String HTTP_RETRY_MAX_BACKOFF_SECONDS = "HTTP_RETRY_MAX_BACKOFF_SECONDS";
+  private static final String HTTP_RATE_LIMIT_PER_SECOND = "HTTP_RATE_LIMIT_PER_SECOND";
+  private static final String HTTP_RATE_LIMIT_BURST = "HTTP_RATE_LIMIT_BURST";
+  private static final String HTTP_CIRCUIT_BREAKER_FAILURE_THRESHOLD = "HTTP_CIRCUIT_BREAKER_FAILURE_THRESHOLD";
+  private static final String HTTP_CIRCUIT_BREAKER_OPEN_SECONDS = "HTTP_CIRCUIT_BREAKER_OPEN_SECONDS";
 
   private final Path storagePath;
   private final String sonarqubeUrl;
@@ -45,6 +106,15 @@ public class McpServerLaunchConfiguration {
   private final String userAgent;
   private final boolean isTelemetryEnabled;
   private final boolean isSonarCloud;
+  private final String transport;
+  private final TransportSettings transportSettings;
+  private final HttpTransportSettings httpTransportSettings;
+  private final ToolExecutionSettings toolExecutionSettings;
+  private final int virtualThreadParallelism;
+  private final Duration idleTimeout;
+  private final boolean isStopAnalyzersWhenIdle;
+  private final HttpClientSettings httpClientSettings;
+  private final CircuitBreakerSettings circuitBreakerSettings;
 
   public McpServerLaunchConfiguration(Map<String, String> environment) {
     var storagePathString = getValueViaEnvOrPropertyOrDefault(environment, STORAGE_PATH, null);
@@ -69,6 +139,68 @@ public class McpServerLaunchConfiguration {
     this.appVersion = fetchAppVersion();
     this.userAgent = APP_NAME + " " + appVersion;
     this.isTelemetryEnabled = !Boolean.parseBoolean(getValueViaEnvOrPropertyOrDefault(environment, TELEMETRY_DISABLED, "false"));
+    this.transport = requireNonNull(getValueViaEnvOrPropertyOrDefault(environment, TRANSPORT, TRANSPORT_STDIO));
+    if (!SUPPORTED_TRANSPORTS.contains(transport)) {
+      throw new IllegalArgumentException("TRANSPORT environment variable or property must be one of 'stdio', 'http', 'daemon' or 'unix'");
+    }
+    this.httpTransportSettings = new HttpTransportSettings(
+      requireNonNull(getValueViaEnvOrPropertyOrDefault(environment, TRANSPORT_HTTP_HOST, HttpTransportSettings.DEFAULT_HOST)),
+      getNonNegativeIntValueViaEnvOrPropertyOrDefault(environment, TRANSPORT_HTTP_PORT, HttpTransportSettings.DEFAULT_PORT),
+      getPositiveIntValueViaEnvOrPropertyOrDefault(environment, TRANSPORT_HTTP_MAX_SESSIONS, HttpTransportSettings.DEFAULT_MAX_SESSIONS),
+      getPositiveIntValueViaEnvOrPropertyOrDefault(environment, TRANSPORT_HTTP_MAX_REQUESTS_PER_SESSION,
+        HttpTransportSettings.DEFAULT_MAX_REQUESTS_PER_SESSION),
+      Duration.ofSeconds(getPositiveIntValueViaEnvOrPropertyOrDefault(environment, TRANSPORT_HTTP_SESSION_IDLE_TIMEOUT_SECONDS,
+        (int) HttpTransportSettings.DEFAULT_SESSION_IDLE_TIMEOUT.toSeconds())));
+    this.transportSettings = new TransportSettings(
+      getPositiveIntValueViaEnvOrPropertyOrDefault(environment, TRANSPORT_MAX_FRAME_SIZE, TransportSettings.DEFAULT_MAX_FRAME_SIZE),
+      getPositiveIntValueViaEnvOrPropertyOrDefault(environment, TRANSPORT_OUTBOUND_QUEUE_CAPACITY, TransportSettings.DEFAULT_OUTBOUND_QUEUE_CAPACITY),
+      getPositiveIntValueViaEnvOrPropertyOrDefault(environment, TRANSPORT_MAX_PENDING_REQUESTS, TransportSettings.DEFAULT_MAX_PENDING_REQUESTS),
+      getPositiveIntValueViaEnvOrPropertyOrDefault(environment, TRANSPORT_MAX_PENDING_REQUEST_BYTES, TransportSettings.DEFAULT_MAX_PENDING_REQUEST_BYTES));
+    var maxConcurrentCallsPerTool = new HashMap<>(ToolExecutionSettings.DEFAULT_MAX_CONCURRENT_CALLS_PER_TOOL);
+    maxConcurrentCallsPerTool.putAll(getPositiveIntPerToolValueViaEnvOrProperty(environment, TOOL_MAX_CONCURRENT_CALLS_PER_TOOL));
+    var timeoutPerTool = new HashMap<String, Duration>();
+    getPositiveIntPerToolValueViaEnvOrProperty(environment, TOOL_TIMEOUT_SECONDS_PER_TOOL).forEach((toolName, seconds) -> timeoutPerTool.put(toolName, Duration.ofSeconds(seconds)));
+    var useVirtualThreads = Boolean.parseBoolean(getValueViaEnvOrPropertyOrDefault(environment, TOOL_VIRTUAL_THREADS, "false"));
+    this.virtualThreadParallelism = getPositiveIntValueViaEnvOrPropertyOrDefault(environment, TOOL_VIRTUAL_THREAD_PARALLELISM, 0);
+    this.toolExecutionSettings = new ToolExecutionSettings(
+      getPositiveIntValueViaEnvOrPropertyOrDefault(environment, TOOL_MAX_CONCURRENT_CALLS,
+        useVirtualThreads ? ToolExecutionSettings.DEFAULT_MAX_CONCURRENT_CALLS_ON_VIRTUAL_THREADS : ToolExecutionSettings.DEFAULT_MAX_CONCURRENT_CALLS),
+      getPositiveIntValueViaEnvOrPropertyOrDefault(environment, TOOL_MAX_QUEUED_CALLS, ToolExecutionSettings.DEFAULT_MAX_QUEUED_CALLS),
+      Duration.ofSeconds(getPositiveIntValueViaEnvOrPropertyOrDefault(environment, TOOL_TIMEOUT_SECONDS, (int) ToolExecutionSettings.DEFAULT_TIMEOUT.toSeconds())),
+      maxConcurrentCallsPerTool,
+      timeoutPerTool,
+      useVirtualThreads);
+    this.idleTimeout = Duration.ofSeconds(getPositiveIntValueViaEnvOrPropertyOrDefault(environment, IDLE_TIMEOUT_SECONDS,
+      (int) DEFAULT_IDLE_TIMEOUT.toSeconds()));
+    this.isStopAnalyzersWhenIdle = Boolean.parseBoolean(getValueViaEnvOrPropertyOrDefault(environment, IDLE_STOP_ANALYZERS, "false"));
+    this.httpClientSettings = HttpClientSettings.defaults()
+      .withCompletionThreads(getNonNegativeIntValueViaEnvOrPropertyOrDefault(environment, HTTP_COMPLETION_THREADS,
+        HttpClientSettings.DEFAULT_COMPLETION_THREADS))
+      .withCompressionEnabled(!Boolean.parseBoolean(getValueViaEnvOrPropertyOrDefault(environment, HTTP_COMPRESSION_DISABLED, "false")))
+      .withResponseCacheMaxBytes(Boolean.parseBoolean(getValueViaEnvOrPropertyOrDefault(environment, HTTP_CACHE_DISABLED, "false")) ? 0
+        : getPositiveIntValueViaEnvOrPropertyOrDefault(environment, HTTP_CACHE_MAX_BYTES, HttpClientSettings.DEFAULT_RESPONSE_CACHE_MAX_BYTES))
+      .withConnections(new HttpConnectionSettings(
+        getPositiveIntValueViaEnvOrPropertyOrDefault(environment, HTTP_MAX_CONNECTIONS, HttpConnectionSettings.DEFAULT_MAX_CONNECTIONS),
+        getPositiveIntValueViaEnvOrPropertyOrDefault(environment, HTTP_MAX_CONNECTIONS_PER_ROUTE, HttpConnectionSettings.DEFAULT_MAX_CONNECTIONS_PER_ROUTE),
+        getSecondsViaEnvOrPropertyOrDefault(environment, HTTP_CONNECT_TIMEOUT_SECONDS, HttpConnectionSettings.DEFAULT_CONNECT_TIMEOUT),
+        getSecondsViaEnvOrPropertyOrDefault(environment, HTTP_SOCKET_TIMEOUT_SECONDS, HttpConnectionSettings.DEFAULT_SOCKET_TIMEOUT),
+        getSecondsViaEnvOrPropertyOrDefault(environment, HTTP_RESPONSE_TIMEOUT_SECONDS, HttpConnectionSettings.DEFAULT_RESPONSE_TIMEOUT),
+        getSecondsViaEnvOrPropertyOrDefault(environment, HTTP_KEEP_ALIVE_SECONDS, HttpConnectionSettings.DEFAULT_KEEP_ALIVE),
+        getSecondsViaEnvOrPropertyOrDefault(environment, HTTP_IDLE_CONNECTION_TIMEOUT_SECONDS,
+          HttpConnectionSettings.DEFAULT_IDLE_CONNECTION_TIMEOUT)))
+      .withHttp2Negotiated(isHttp2Negotiated(environment))
+      .withRetries(new HttpRetrySettings(
+        getNonNegativeIntValueViaEnvOrPropertyOrDefault(environment, HTTP_MAX_RETRIES, HttpRetrySettings.DEFAULT_MAX_RETRIES),
+        getIntPerKeyValueViaEnvOrProperty(environment, HTTP_MAX_RETRIES_PER_ENDPOINT, "endpoint_family=non_negative_integer", 0),
+        Duration.ofMillis(getPositiveIntValueViaEnvOrPropertyOrDefault(environment, HTTP_RETRY_INITIAL_BACKOFF_MILLIS,
+          (int) HttpRetrySettings.DEFAULT_INITIAL_BACKOFF.toMillis())),
+        getSecondsViaEnvOrPropertyOrDefault(environment, HTTP_RETRY_MAX_BACKOFF_SECONDS, HttpRetrySettings.DEFAULT_MAX_BACKOFF)))
+      .withRateLimit(new HttpRateLimitSettings(
+        getNonNegativeIntValueViaEnvOrPropertyOrDefault(environment, HTTP_RATE_LIMIT_PER_SECOND, HttpRateLimitSettings.DEFAULT_MAX_REQUESTS_PER_SECOND),
+        getPositiveIntValueViaEnvOrPropertyOrDefault(environment, HTTP_RATE_LIMIT_BURST, HttpRateLimitSettings.DEFAULT_BURST)));
+    this.circuitBreakerSettings = new CircuitBreakerSettings(
+      getNonNegativeIntValueViaEnvOrPropertyOrDefault(environment, HTTP_CIRCUIT_BREAKER_FAILURE_THRESHOLD, CircuitBreakerSettings.DEFAULT_FAILURE_THRESHOLD),
+      getSecondsViaEnvOrPropertyOrDefault(environment, HTTP_CIRCUIT_BREAKER_OPEN_SECONDS, CircuitBreakerSettings.DEFAULT_OPEN_DURATION));
   }
 
   @NotNull
@@ -114,6 +246,79 @@ public class McpServerLaunchConfiguration {
     return isSonarCloud;
   }
 
+  public boolean isHttpTransport() {
+    return TRANSPORT_HTTP.equals(transport);
+  }
+
+  /**
+   * The process only relays stdio to a daemon, which is started on demand.
+   */
+  public boolean isDaemonShim() {
+    return TRANSPORT_DAEMON.equals(transport);
+  }
+
+  /**
+   * The process is the daemon, serving sessions over {@link #getDaemonSocketPath()}.
+   */
+  public boolean isUnixSocketTransport() {
+    return TRANSPORT_UNIX.equals(transport);
+  }
+
+  /**
+   * The socket name is derived from the connection settings and the version, so that a daemon never serves clients configured for
+   * another server, organization or token, and that an upgrade starts a new daemon. The socket lives in a directory of its own, which
+   * the daemon restricts to its owner.
+   */
+  @NotNull
+  public Path getDaemonSocketPath() {
+    try {
+      var digest = MessageDigest.getInstance("SHA-256")
+        .digest(String.join("|", sonarqubeUrl, sonarqubeOrg == null ? "" : sonarqubeOrg, sonarqubeToken, appVersion).getBytes(StandardCharsets.UTF_8));
+      return storagePath.resolve("daemon").resolve("mcp-" + HexFormat.of().formatHex(digest, 0, 8) + ".sock");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  public HttpTransportSettings getHttpTransportSettings() {
+    return httpTransportSettings;
+  }
+
+  public TransportSettings getTransportSettings() {
+    return transportSettings;
+  }
+
+  public ToolExecutionSettings getToolExecutionSettings() {
+    return toolExecutionSettings;
+  }
+
+  /**
+   * Number of platform threads carrying the virtual threads, applies to the whole JVM.
+   */
+  @CheckForNull
+  public Integer getVirtualThreadParallelism() {
+    return virtualThreadParallelism > 0 ? virtualThreadParallelism : null;
+  }
+
+  /**
+   * Quiet period without any tool call after which the idle resources are released.
+   */
+  public Duration getIdleTimeout() {
+    return idleTimeout;
+  }
+
+  public boolean isStopAnalyzersWhenIdle() {
+    return isStopAnalyzersWhenIdle;
+  }
+
+  public HttpClientSettings getHttpClientSettings() {
+    return httpClientSettings;
+  }
+
+  public CircuitBreakerSettings getCircuitBreakerSettings() {
+    return circuitBreakerSettings;
+  }
+
   @CheckForNull
   private static String getValueViaEnvOrPropertyOrDefault(Map<String, String> environment, String propertyName, @Nullable String defaultValue) {
     var property = environment.get(propertyName);
@@ -129,6 +334,80 @@ public class McpServerLaunchConfiguration {
     return property;
   }
 
+  private static int getPositiveIntValueViaEnvOrPropertyOrDefault(Map<String, String> environment, String propertyName, int defaultValue) {
+    return getIntValueViaEnvOrPropertyOrDefault(environment, propertyName, defaultValue, 1);
+  }
+
+  private static int getNonNegativeIntValueViaEnvOrPropertyOrDefault(Map<String, String> environment, String propertyName, int defaultValue) {
+    return getIntValueViaEnvOrPropertyOrDefault(environment, propertyName, defaultValue, 0);
+  }
+
+  private static int getIntValueViaEnvOrPropertyOrDefault(Map<String, String> environment, String propertyName, int defaultValue, int minValue) {
+    var property = getValueViaEnvOrPropertyOrDefault(environment, propertyName, null);
+    if (property == null) {
+      return defaultValue;
+    }
+    int value;
+    try {
+      value = Integer.parseInt(property.trim());
+    } catch (NumberFormatException e) {
+      value = minValue - 1;
+    }
+    if (value < minValue) {
+      throw new IllegalArgumentException(propertyName + " environment variable or property must be a " + integerKind(minValue));
+    }
+    return value;
+  }
+
+  private static String integerKind(int minValue) {
+    return minValue == 0 ? "non-negative integer" : "positive integer";
+  }
+
+  private static boolean isHttp2Negotiated(Map<String, String> environment) {
+    var httpVersion = requireNonNull(getValueViaEnvOrPropertyOrDefault(environment, HTTP_VERSION, "http1")).trim().toLowerCase(Locale.ROOT);
+    return switch (httpVersion) {
+      case "http1" -> false;
+      case "negotiate" -> true;
+      default -> throw new IllegalArgumentException(HTTP_VERSION + " environment variable or property must be one of: http1, negotiate");
+    };
+  }
+
+  private static Duration getSecondsViaEnvOrPropertyOrDefault(Map<String, String> environment, String propertyName, Duration defaultValue) {
+    return Duration.ofSeconds(getPositiveIntValueViaEnvOrPropertyOrDefault(environment, propertyName, (int) defaultValue.toSeconds()));
+  }
+
+  /**
+   * Parses values like {@code analyze_code_snippet=2,get_system_logs=1}.
+   */
+  private static Map<String, Integer> getPositiveIntPerToolValueViaEnvOrProperty(Map<String, String> environment, String propertyName) {
+    return getIntPerKeyValueViaEnvOrProperty(environment, propertyName, "tool_name=positive_integer", 1);
+  }
+
+  /**
+   * @param format how the expected values are described in the error message
+   */
+  private static Map<String, Integer> getIntPerKeyValueViaEnvOrProperty(Map<String, String> environment, String propertyName, String format, int minValue) {
+    var property = getValueViaEnvOrPropertyOrDefault(environment, propertyName, null);
+    if (property == null) {
+      return Map.of();
+    }
+    var valuePerKey = new HashMap<String, Integer>();
+    for (var entry : property.split(",")) {
+      var keyAndValue = entry.split("=", 2);
+      int value;
+      try {
+        value = keyAndValue.length == 2 ? Integer.parseInt(keyAndValue[1].trim()) : (minValue - 1);
+      } catch (NumberFormatException e) {
+        value = minValue - 1;
+      }
+      if (value < minValue || keyAndValue[0].isBlank()) {
+        throw new IllegalArgumentException(propertyName + " environment variable or property must be a comma-separated list of " + format);
+      }
+      valuePerKey.put(keyAndValue[0].trim(), value);
+    }
+    return valuePerKey;
+  }
+
   private static String fetchAppVersion() {
     var implementationVersion = SonarQubeMcpServer.class.getPackage().getImplementationVersion();
     if (implementationVersion == null) {
@@ -0,0 +1,154 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.daemon;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.CheckForNull;
+
+/**
+ * Thin stdio front-end of the daemon mode. It connects to the daemon listening on the Unix domain socket, starting it first if
+ * needed, then relays the client's stdin to the socket and the socket to the client's stdout until either side closes.
+ * The shim does not parse messages, so the session it opens behaves exactly like a stdio one.
+ */
+public class DaemonShim {
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private static final long CONNECT_RETRY_INTERVAL_MILLIS = 100;
+
+  private static final long EXITED_DAEMON_GRACE_MILLIS = 2_000;
+
+  private final Path socketPath;
+
+  private final ProcessBuilder daemonProcess;
+
+  private final long startupTimeoutMillis;
+
+  /**
+   * @param daemonProcess how to start the daemon when none is listening on the socket yet
+   */
+  public DaemonShim(Path socketPath, ProcessBuilder daemonProcess) {
+    this(socketPath, daemonProcess, TimeUnit.SECONDS.toMillis(60));
+  }
+
+  DaemonShim(Path socketPath, ProcessBuilder daemonProcess, long startupTimeoutMillis) {
+    this.socketPath = socketPath;
+    this.daemonProcess = daemonProcess;
+    this.startupTimeoutMillis = startupTimeoutMillis;
+  }
+
+  /**
+   * Builds the command starting the daemon with the same JVM, options and classpath as the current process.
+   * The daemon outlives the shim, so its standard streams are discarded, it logs to its own log file.
+   */
+  public static ProcessBuilder daemonProcess(Class<?> mainClass, Map<String, String> environment) {
+    var command = new ArrayList<String>();
+    command.add(ProcessHandle.current().info().command().orElse(Path.of(System.getProperty("java.home"), "bin", "java").toString()));
+    command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+    command.add("-cp");
+    command.add(System.getProperty("java.class.path"));
+    command.add(mainClass.getName());
+    var processBuilder = new ProcessBuilder(command)
+      .redirectInput(ProcessBuilder.Redirect.DISCARD)
+      .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+      .redirectError(ProcessBuilder.Redirect.DISCARD);
+    processBuilder.environment().putAll(environment);
+    return processBuilder;
+  }
+
+  /**
+   * Blocks until the daemon or the client closes the connection.
+   */
+  public void run(InputStream clientInput, OutputStream clientOutput) throws IOException, InterruptedException {
+    try (var channel = connectOrStartDaemon()) {
+      var inboundRelay = new Thread(() -> relayClientInput(clientInput, channel), "mcp-daemon-shim-inbound");
+      inboundRelay.setDaemon(true);
+      inboundRelay.start();
+      relay(Channels.newInputStream(channel), clientOutput);
+    }
+  }
+
+  private SocketChannel connectOrStartDaemon() throws IOException, InterruptedException {
+    var channel = tryConnect();
+    if (channel != null) {
+      return channel;
+    }
+    var process = daemonProcess.start();
+    var deadline = System.currentTimeMillis() + startupTimeoutMillis;
+    var isExitNoticed = false;
+    while (System.currentTimeMillis() < deadline) {
+      Thread.sleep(CONNECT_RETRY_INTERVAL_MILLIS);
+      channel = tryConnect();
+      if (channel != null) {
+        return channel;
+      }
+      if (!isExitNoticed && !process.isAlive()) {
+        // another shim may have started a daemon concurrently, ours then stops as the socket is taken, give it a moment to listen
+        isExitNoticed = true;
+        deadline = Math.min(deadline, System.currentTimeMillis() + EXITED_DAEMON_GRACE_MILLIS);
+      }
+    }
+    var exitMessage = process.isAlive() ? "is still starting" : ("exited with code " + process.exitValue());
+    process.destroy();
+    throw new IOException("Unable to connect to the daemon on " + socketPath + ", the daemon " + exitMessage +
+      ". Check the logs in " + socketPath.getParent().resolveSibling("logs"));
+  }
+
+  @CheckForNull
+  private SocketChannel tryConnect() throws IOException {
+    var channel = SocketChannel.open(StandardProtocolFamily.UNIX);
+    try {
+      channel.connect(UnixDomainSocketAddress.of(socketPath));
+      return channel;
+    } catch (IOException e) {
+      // no daemon is listening (yet)
+      channel.close();
+      return null;
+    }
+  }
+
+  private static void relayClientInput(InputStream clientInput, SocketChannel channel) {
+    try {
+      relay(clientInput, Channels.newOutputStream(channel));
+      // let the daemon close the session, the remaining responses are still relayed
+      channel.shutdownOutput();
+    } catch (IOException e) {
+      // the daemon closed the connection, the outbound relay terminates as well
+    }
+  }
+
+  private static void relay(InputStream from, OutputStream to) throws IOException {
+    var buffer = new byte[BUFFER_SIZE];
+    int read;
+    while ((read = from.read(buffer)) != -1) {
+      to.write(buffer, 0, read);
+      to.flush();
+    }
+  }
+
+}
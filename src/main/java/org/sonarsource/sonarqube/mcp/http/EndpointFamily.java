@@ -0,0 +1,60 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.http;
+
+import java.net.URI;
+import java.util.Locale;
+
+/**
+ * Groups the Web API endpoints by their first segment, e.g. {@code issues} for {@code /api/issues/search}, or {@code v2/analysis} for
+ * {@code /api/v2/analysis/engine}. Endpoints of a family are served by the same part of SonarQube, and usually fail together.
+ */
+public final class EndpointFamily {
+
+  public static final String OTHER = "other";
+  private static final String API_SEGMENT = "api";
+  private static final String V2_SEGMENT = "v2";
+
+  private EndpointFamily() {
+    // utility class
+  }
+
+  public static String of(String url) {
+    String path;
+    try {
+      path = URI.create(url).getPath();
+    } catch (IllegalArgumentException e) {
+      return OTHER;
+    }
+    if (path == null) {
+      return OTHER;
+    }
+    var segments = path.split("/");
+    // the server may be deployed under a context path, e.g. /sonarqube/api/issues/search
+    for (var i = 0; i < segments.length - 1; i++) {
+      if (API_SEGMENT.equals(segments[i])) {
+        var family = segments[i + 1].toLowerCase(Locale.ROOT);
+        if (V2_SEGMENT.equals(family) && i + 2 < segments.length) {
+          return family + "/" + segments[i + 2].toLowerCase(Locale.ROOT);
+        }
+        return family;
+      }
+    }
+    return OTHER;
+  }
+
+}
@@ -18,6 +18,7 @@ package org.sonarsource.sonarqube.mcp.http;
 
 import java.io.Closeable;
 import java.util.concurrent.CompletableFuture;
+import javax.annotation.CheckForNull;
 
 public interface HttpClient {
 
@@ -29,8 +30,23 @@ public interface HttpClient {
       return code() >= 200 && code() < 300;
     }
 
+    /**
+     * The first value of the header, if any.
+     */
+    @CheckForNull
+    String header(String name);
+
+    /**
+     * Same thread restriction as {@link #bodyAsStream()}.
+     */
     String bodyAsString();
 
+    /**
+     * The body is streamed while it is received, reads block until data arrives. Never read it from a stage that may run on the I/O thread
+     * completing the response, that thread is the one delivering the data.
+     *
+     * @throws IllegalStateException when called on an I/O thread while the body is still being received
+     */
     java.io.InputStream bodyAsStream();
 
     /**
@@ -42,10 +58,20 @@ public interface HttpClient {
     String url();
   }
 
+  /**
+   * The returned future may complete on the I/O thread of the client, dependent stages that read the body must run on an executor of
+   * their own, e.g. with {@link CompletableFuture#thenApplyAsync(java.util.function.Function, java.util.concurrent.Executor)}.
+   */
   CompletableFuture<Response> getAsync(String url);
 
+  /**
+   * Same as {@link #getAsync(String)}, without the token.
+   */
   CompletableFuture<Response> getAsyncAnonymous(String url);
 
+  /**
+   * Same completion thread as {@link #getAsync(String)}.
+   */
   CompletableFuture<Response> postAsync(String url, String contentType, String body);
 
 }
@@ -17,25 +17,62 @@
 package org.sonarsource.sonarqube.mcp.http;
 
 import java.net.URISyntaxException;
+import java.time.Duration;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import javax.annotation.Nullable;
 import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
-import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
 import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
+import org.apache.hc.client5.http.async.methods.SimpleRequestProducer;
 import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
 import org.apache.hc.core5.concurrent.FutureCallback;
 import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpStatus;
+import org.sonarsource.sonarqube.mcp.serverapi.exception.TooManyRequestsException;
 
 class HttpClientAdapter implements HttpClient {
 
   private static final String AUTHORIZATION_HEADER = "Authorization";
+  private static final String ACCEPT_ENCODING_HEADER = "Accept-Encoding";
   private final CloseableHttpAsyncClient apacheClient;
   private final String token;
+  @Nullable
+  private final String organization;
+  @Nullable
+  private final Executor completionExecutor;
+  private final HttpClientMetrics metrics;
+  private final boolean isCompressionEnabled;
+  @Nullable
+  private final ResponseCache responseCache;
+  private final RetryPolicy retryPolicy;
+  @Nullable
+  private final RateLimiters rateLimiters;
 
-  HttpClientAdapter(CloseableHttpAsyncClient apacheClient, String sonarqubeCloudToken) {
+  /**
+   * @param organization the rate limiter is chosen by token and organization
+   * @param completionExecutor runs the completion of the responses, and the dependent stages that don't provide their own executor.
+   *                           When null, the responses are completed on the I/O thread that received them.
+   * @param isCompressionEnabled whether to ask for compressed responses, they are decompressed while being read
+   * @param responseCache revalidates GET responses, shared by the clients of all tokens
+   * @param retryPolicy retries GET requests failing with a transient error, POST requests are never retried since they may not be
+   *                    idempotent
+   * @param rateLimiters paces all the requests, shared by the clients of all tokens
+   */
+  HttpClientAdapter(CloseableHttpAsyncClient apacheClient, String sonarqubeCloudToken, @Nullable String organization,
+    @Nullable Executor completionExecutor, HttpClientMetrics metrics, boolean isCompressionEnabled, @Nullable ResponseCache responseCache,
+    RetryPolicy retryPolicy, @Nullable RateLimiters rateLimiters) {
     this.apacheClient = apacheClient;
     this.token = sonarqubeCloudToken;
+    this.organization = organization;
+    this.completionExecutor = completionExecutor;
+    this.metrics = metrics;
+    this.isCompressionEnabled = isCompressionEnabled;
+    this.responseCache = responseCache;
+    this.retryPolicy = retryPolicy;
+    this.rateLimiters = rateLimiters;
   }
 
   @Override
@@ -43,40 +80,159 @@ class HttpClientAdapter implements HttpClient {
     var request = SimpleRequestBuilder.post(url)
       .setBody(body, ContentType.parse(contentType))
       .build();
-    return executeAsync(request, token);
+    return send(url, token, 0, () -> executeAsync(request, token, null));
   }
 
   @Override
   public CompletableFuture<Response> getAsync(String url) {
-    return executeAsync(SimpleRequestBuilder.get(url).build(), token);
+    return executeGetAsync(url, token);
   }
 
   @Override
   public CompletableFuture<Response> getAsyncAnonymous(String url) {
-    return executeAsync(SimpleRequestBuilder.get(url).build(), null);
+    return executeGetAsync(url, null);
+  }
+
+  private CompletableFuture<Response> executeGetAsync(String url, @Nullable String tokenToUse) {
+    var request = SimpleRequestBuilder.get(url).build();
+    var cacheLookup = responseCache == null || !ResponseCache.isCacheable(url) ? null : responseCache.lookup(new ResponseCache.Key(tokenToUse, url));
+    if (cacheLookup != null && cacheLookup.cached() != null) {
+      cacheLookup.cached().addValidators(request);
+    }
+    return send(url, tokenToUse, retryPolicy.maxRetries(EndpointFamily.of(url)), () -> executeAsync(request, tokenToUse, cacheLookup));
+  }
+
+  private CompletableFuture<Response> send(String url, @Nullable String tokenToUse, int maxRetries, Supplier<CompletableFuture<Response>> attempts) {
+    var rateLimiter = rateLimiters == null ? null : rateLimiters.get(tokenToUse, organization);
+    if (maxRetries == 0 && rateLimiter == null) {
+      return attempts.get();
+    }
+    var retryingFuture = new RetryingFuture(EndpointFamily.of(url), maxRetries, rateLimiter, attempts);
+    retryingFuture.attempt();
+    return retryingFuture;
+  }
+
+  /**
+   * Completes with the outcome of the last attempt, on the thread that completed it. Each attempt is delayed as long as the rate limiter
+   * asks for, or fails with {@link TooManyRequestsException} when that would be too long. Cancelling it cancels the ongoing attempt, or
+   * the pending one.
+   */
+  private class RetryingFuture extends CompletableFuture<Response> {
+
+    private final String endpointFamily;
+    private final int maxRetries;
+    @Nullable
+    private final RateLimiter rateLimiter;
+    private final Supplier<CompletableFuture<Response>> attempts;
+    private int retries;
+    @Nullable
+    private volatile CompletableFuture<Response> currentAttempt;
+
+    private RetryingFuture(String endpointFamily, int maxRetries, @Nullable RateLimiter rateLimiter, Supplier<CompletableFuture<Response>> attempts) {
+      this.endpointFamily = endpointFamily;
+      this.maxRetries = maxRetries;
+      this.rateLimiter = rateLimiter;
+      this.attempts = attempts;
+    }
+
+    private void attempt() {
+      if (isDone()) {
+        return;
+      }
+      Duration wait;
+      try {
+        wait = rateLimiter == null ? Duration.ZERO : rateLimiter.reserve();
+      } catch (TooManyRequestsException e) {
+        completeExceptionally(e);
+        return;
+      }
+      if (wait.isZero()) {
+        sendAttempt();
+      } else {
+        metrics.recordRateLimiterWait(wait);
+        delay(wait, this::sendAttempt);
+      }
+    }
+
+    private void sendAttempt() {
+      if (isDone()) {
+        return;
+      }
+      var attempt = attempts.get();
+      currentAttempt = attempt;
+      if (isCancelled()) {
+        attempt.cancel(true);
+        return;
+      }
+      attempt.whenComplete(this::onAttemptCompleted);
+    }
+
+    private void onAttemptCompleted(@Nullable Response response, @Nullable Throwable failure) {
+      if (response != null) {
+        if (response.code() == HttpStatus.SC_TOO_MANY_REQUESTS) {
+          metrics.recordThrottledResponse();
+        }
+        if (rateLimiter != null) {
+          rateLimiter.onResponse(response);
+        }
+      }
+      var retryDelay = retries < maxRetries && !isDone() ? retryPolicy.retryDelay(retries, response, failure) : null;
+      if (retryDelay == null) {
+        if (response == null) {
+          completeExceptionally(failure);
+        } else if (!complete(response)) {
+          // cancelled meanwhile, nobody will read the body
+          response.close();
+        }
+        return;
+      }
+      if (response != null) {
+        response.close();
+      }
+      retries++;
+      metrics.recordRetry(endpointFamily);
+      delay(retryDelay, this::attempt);
+    }
+
+    private static void delay(Duration delay, Runnable action) {
+      // sending the request doesn't block, it can run on the scheduler thread
+      CompletableFuture.delayedExecutor(delay.toMillis(), TimeUnit.MILLISECONDS, Runnable::run).execute(action);
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+      var cancelled = super.cancel(mayInterruptIfRunning);
+      var attempt = currentAttempt;
+      if (cancelled && attempt != null) {
+        attempt.cancel(mayInterruptIfRunning);
+      }
+      return cancelled;
+    }
   }
 
   private class CompletableFutureWrappingFuture extends CompletableFuture<Response> {
 
-    private final Future<SimpleHttpResponse> wrapped;
+    private final Future<Response> wrapped;
 
-    private CompletableFutureWrappingFuture(SimpleHttpRequest httpRequest) {
-      this.wrapped = apacheClient.execute(httpRequest, new FutureCallback<>() {
+    private CompletableFutureWrappingFuture(SimpleHttpRequest httpRequest, @Nullable ResponseCache.Lookup cacheLookup) {
+      var responseConsumer = new StreamingResponseConsumer(requestUri(httpRequest), StreamingResponseConsumer.DEFAULT_BUFFER_SIZE, metrics, cacheLookup);
+      this.wrapped = apacheClient.execute(SimpleRequestProducer.create(httpRequest), responseConsumer, new FutureCallback<>() {
         @Override
-        public void completed(SimpleHttpResponse result) {
-          try {
-            var uri = httpRequest.getUri().toString();
-            HttpClientAdapter.CompletableFutureWrappingFuture.this.completeAsync(() ->
-              new HttpResponse(uri, result));
-          } catch (URISyntaxException e) {
-            HttpClientAdapter.CompletableFutureWrappingFuture.this.completeAsync(() ->
-              new HttpResponse(httpRequest.getRequestUri(), result));
+        public void completed(Response response) {
+          if (completionExecutor == null) {
+            HttpClientAdapter.CompletableFutureWrappingFuture.this.complete(response);
+          } else {
+            HttpClientAdapter.CompletableFutureWrappingFuture.this.completeAsync(() -> response, completionExecutor);
           }
         }
 
         @Override
         public void failed(Exception ex) {
-          HttpClientAdapter.CompletableFutureWrappingFuture.this.completeExceptionally(ex);
+          if (completionExecutor == null) {
+            HttpClientAdapter.CompletableFutureWrappingFuture.this.completeExceptionally(ex);
+          } else {
+            completionExecutor.execute(() -> HttpClientAdapter.CompletableFutureWrappingFuture.this.completeExceptionally(ex));
+          }
         }
 
         @Override
@@ -96,17 +252,28 @@ class HttpClientAdapter implements HttpClient {
     }
   }
 
-  private CompletableFuture<Response> executeAsync(SimpleHttpRequest httpRequest, @Nullable String tokenToUse) {
+  private CompletableFuture<Response> executeAsync(SimpleHttpRequest httpRequest, @Nullable String tokenToUse, @Nullable ResponseCache.Lookup cacheLookup) {
     try {
       if (tokenToUse != null) {
         httpRequest.setHeader(AUTHORIZATION_HEADER, bearer(tokenToUse));
       }
-      return new CompletableFutureWrappingFuture(httpRequest);
+      if (isCompressionEnabled) {
+        httpRequest.setHeader(ACCEPT_ENCODING_HEADER, HttpResponse.ACCEPTED_ENCODINGS);
+      }
+      return new CompletableFutureWrappingFuture(httpRequest, cacheLookup);
     } catch (Exception e) {
       throw new IllegalStateException("Unable to execute request: " + e.getMessage(), e);
     }
   }
 
+  private static String requestUri(SimpleHttpRequest httpRequest) {
+    try {
+      return httpRequest.getUri().toString();
+    } catch (URISyntaxException e) {
+      return httpRequest.getRequestUri();
+    }
+  }
+
   private static String bearer(String token) {
     return String.format("Bearer %s", token);
   }
@@ -0,0 +1,96 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.http;
+
+import java.util.Map;
+
+/**
+ * Metrics of the HTTP client calling SonarQube, exported over JMX. Sizes are in bytes, see {@link HttpClientMetrics}.
+ */
+public interface HttpClientMXBean {
+
+  long getResponses();
+
+  long getCompressedResponses();
+
+  /**
+   * Body bytes received from the network, compressed or not.
+   */
+  long getReceivedBodyBytes();
+
+  /**
+   * Body bytes received from the network for the compressed responses.
+   */
+  long getCompressedBodyBytes();
+
+  /**
+   * Body bytes read from the compressed responses once decompressed.
+   */
+  long getDecompressedBodyBytes();
+
+  /**
+   * Responses answered from the cache after a {@code 304 Not Modified}.
+   */
+  long getCacheHits();
+
+  int getCacheEntries();
+
+  /**
+   * Size of the bodies in the cache, as received.
+   */
+  long getCacheBytes();
+
+  /**
+   * Pooled connections currently used by a request.
+   */
+  int getLeasedConnections();
+
+  /**
+   * Pooled connections kept alive, ready to be reused.
+   */
+  int getAvailableConnections();
+
+  /**
+   * Requests waiting for a connection because the pool is exhausted.
+   */
+  int getPendingConnectionRequests();
+
+  int getMaxConnections();
+
+  long getRetries();
+
+  /**
+   * Retries by endpoint family, e.g. {@code issues} for {@code /api/issues/search}.
+   */
+  Map<String, Long> getRetriesPerEndpoint();
+
+  /**
+   * {@code 429 Too Many Requests} responses, retried or not.
+   */
+  long getThrottledResponses();
+
+  /**
+   * Requests delayed by the rate limiter, to compare with {@link #getResponses()}.
+   */
+  long getRateLimitedRequests();
+
+  /**
+   * Total time the requests were delayed by the rate limiter, in milliseconds.
+   */
+  long getRateLimiterWaitMillis();
+
+}
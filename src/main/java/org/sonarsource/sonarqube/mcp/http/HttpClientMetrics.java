@@ -0,0 +1,147 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.http;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Traffic of the HTTP client calling SonarQube, recorded on the I/O threads and on the threads reading the bodies.
+ * Sizes are in bytes.
+ */
+public final class HttpClientMetrics {
+
+  private final LongAdder responses = new LongAdder();
+  private final LongAdder compressedResponses = new LongAdder();
+  private final LongAdder receivedBodyBytes = new LongAdder();
+  private final LongAdder compressedBodyBytes = new LongAdder();
+  private final LongAdder decompressedBodyBytes = new LongAdder();
+  private final LongAdder cacheHits = new LongAdder();
+  private final LongAdder retries = new LongAdder();
+  private final Map<String, LongAdder> retriesPerEndpoint = new ConcurrentHashMap<>();
+  private final LongAdder throttledResponses = new LongAdder();
+  private final LongAdder rateLimitedRequests = new LongAdder();
+  private final LongAdder rateLimiterWaitMillis = new LongAdder();
+
+  void recordResponse(boolean isCompressed) {
+    responses.increment();
+    if (isCompressed) {
+      compressedResponses.increment();
+    }
+  }
+
+  void recordReceivedBody(int size, boolean isCompressed) {
+    receivedBodyBytes.add(size);
+    if (isCompressed) {
+      compressedBodyBytes.add(size);
+    }
+  }
+
+  void recordDecompressedBody(int size) {
+    decompressedBodyBytes.add(size);
+  }
+
+  void recordCacheHit() {
+    cacheHits.increment();
+  }
+
+  void recordRetry(String endpointFamily) {
+    retries.increment();
+    retriesPerEndpoint.computeIfAbsent(endpointFamily, family -> new LongAdder()).increment();
+  }
+
+  void recordThrottledResponse() {
+    throttledResponses.increment();
+  }
+
+  void recordRateLimiterWait(Duration wait) {
+    rateLimitedRequests.increment();
+    rateLimiterWaitMillis.add(wait.toMillis());
+  }
+
+  public long getResponses() {
+    return responses.sum();
+  }
+
+  public long getCompressedResponses() {
+    return compressedResponses.sum();
+  }
+
+  /**
+   * Body bytes received from the network, compressed or not.
+   */
+  public long getReceivedBodyBytes() {
+    return receivedBodyBytes.sum();
+  }
+
+  /**
+   * Body bytes received from the network for the compressed responses.
+   */
+  public long getCompressedBodyBytes() {
+    return compressedBodyBytes.sum();
+  }
+
+  /**
+   * Body bytes read from the compressed responses once decompressed, to compare with {@link #getCompressedBodyBytes()}.
+   */
+  public long getDecompressedBodyBytes() {
+    return decompressedBodyBytes.sum();
+  }
+
+  /**
+   * Responses answered from the cache after a {@code 304 Not Modified}.
+   */
+  public long getCacheHits() {
+    return cacheHits.sum();
+  }
+
+  public long getRetries() {
+    return retries.sum();
+  }
+
+  /**
+   * Retries by {@link EndpointFamily}.
+   */
+  public Map<String, Long> getRetriesPerEndpoint() {
+    return retriesPerEndpoint.entrySet().stream().collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().sum()));
+  }
+
+  /**
+   * {@code 429 Too Many Requests} responses, retried or not.
+   */
+  public long getThrottledResponses() {
+    return throttledResponses.sum();
+  }
+
+  /**
+   * Requests delayed by the rate limiter.
+   */
+  public long getRateLimitedRequests() {
+    return rateLimitedRequests.sum();
+  }
+
+  /**
+   * Total time the requests were delayed by the rate limiter, in milliseconds.
+   */
+  public long getRateLimiterWaitMillis() {
+    return rateLimiterWaitMillis.sum();
+  }
+
+}
@@ -16,46 +16,224 @@
  */
 package org.sonarsource.sonarqube.mcp.http;
 
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.annotation.Nullable;
 import javax.net.ssl.SSLContext;
 import nl.altindag.ssl.SSLFactory;
 import org.apache.commons.lang3.SystemUtils;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
 import org.apache.hc.client5.http.config.TlsConfig;
+import org.apache.hc.client5.http.impl.DefaultConnectionKeepAliveStrategy;
 import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
 import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
 import org.apache.hc.client5.http.impl.auth.SystemDefaultCredentialsProvider;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
 import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
 import org.apache.hc.client5.http.ssl.DefaultClientTlsStrategy;
 import org.apache.hc.core5.http2.HttpVersionPolicy;
 import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
 
-public class HttpClientProvider {
+public class HttpClientProvider implements HttpClientMXBean {
 
   private final CloseableHttpAsyncClient httpClient;
+  private final PoolingAsyncClientConnectionManager connectionManager;
+  @Nullable
+  private final ExecutorService completionExecutor;
+  private final HttpClientMetrics metrics = new HttpClientMetrics();
+  private final boolean isCompressionEnabled;
+  @Nullable
+  private final ResponseCache responseCache;
+  private final RetryPolicy retryPolicy;
+  @Nullable
+  private final RateLimiters rateLimiters;
 
   public HttpClientProvider(String userAgent) {
-    var asyncConnectionManager = PoolingAsyncClientConnectionManagerBuilder.create()
+    this(userAgent, HttpClientSettings.defaults());
+  }
+
+  public HttpClientProvider(String userAgent, HttpClientSettings settings) {
+    this.isCompressionEnabled = settings.isCompressionEnabled();
+    this.responseCache = settings.responseCacheMaxBytes() > 0 ? new ResponseCache(settings.responseCacheMaxBytes()) : null;
+    this.retryPolicy = new RetryPolicy(settings.retries());
+    this.rateLimiters = settings.rateLimit().isEnabled() ? new RateLimiters(settings.rateLimit(), settings.retries().maxBackoff())
+      : null;
+    // completing on the I/O thread avoids bouncing every response through the common pool, a dedicated executor keeps slow
+    // dependent stages away from the I/O threads
+    this.completionExecutor = settings.completionThreads() > 0
+      ? Executors.newFixedThreadPool(settings.completionThreads(), Thread.ofPlatform().name("sonarqube-mcp-http-completion-", 1).daemon(true).factory())
+      : null;
+    var connections = settings.connections();
+    this.connectionManager = PoolingAsyncClientConnectionManagerBuilder.create()
+      .setMaxConnTotal(connections.maxConnections())
+      .setMaxConnPerRoute(connections.maxConnectionsPerRoute())
+      .setDefaultConnectionConfig(ConnectionConfig.custom()
+        .setConnectTimeout(Timeout.ofMilliseconds(connections.connectTimeout().toMillis()))
+        .setSocketTimeout(Timeout.ofMilliseconds(connections.socketTimeout().toMillis()))
+        .build())
       .setTlsStrategy(new DefaultClientTlsStrategy(configureSsl()))
       .setDefaultTlsConfig(TlsConfig.custom()
-        // Force HTTP/1 since we know SQ/SC don't support HTTP/2 ATM
-        .setVersionPolicy(HttpVersionPolicy.FORCE_HTTP_1)
+        // HTTP/1 unless opted in, not all SonarQube servers and proxies in front of them support HTTP/2. Plain HTTP connections always
+        // use HTTP/1.1
+        .setVersionPolicy(settings.isHttp2Negotiated() ? HttpVersionPolicy.NEGOTIATE : HttpVersionPolicy.FORCE_HTTP_1)
         .build())
       .build();
     this.httpClient = HttpAsyncClients.custom()
-      .setConnectionManager(asyncConnectionManager)
+      .setConnectionManager(connectionManager)
+      .setDefaultRequestConfig(RequestConfig.custom()
+        .setResponseTimeout(Timeout.ofMilliseconds(connections.responseTimeout().toMillis()))
+        .build())
+      // the server may ask for a shorter keep-alive, never for a longer one
+      .setKeepAliveStrategy((response, context) -> DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context)
+        .min(TimeValue.ofMilliseconds(connections.keepAlive().toMillis())))
+      .evictIdleConnections(TimeValue.ofMilliseconds(connections.idleConnectionTimeout().toMillis()))
       .addResponseInterceptorFirst(new RedirectInterceptor())
       .setUserAgent(userAgent)
       .setDefaultCredentialsProvider(new SystemDefaultCredentialsProvider())
+      // marked so that the streamed bodies can refuse to be read from them
+      .setThreadFactory(IoThreads.factory())
       .build();
 
     httpClient.start();
   }
 
   public HttpClient getHttpClient(String sonarqubeCloudToken) {
-    return new HttpClientAdapter(httpClient, sonarqubeCloudToken);
+    return getHttpClient(sonarqubeCloudToken, null);
+  }
+
+  /**
+   * @param organization the SonarQube Cloud organization the requests are sent for, they are paced together with the other requests of
+   *                     the same token and organization
+   */
+  public HttpClient getHttpClient(String sonarqubeCloudToken, @Nullable String organization) {
+    return new HttpClientAdapter(httpClient, sonarqubeCloudToken, organization, completionExecutor, metrics, isCompressionEnabled, responseCache,
+      retryPolicy, rateLimiters);
+  }
+
+  /**
+   * Closes the pooled connections that are not leased, new ones are opened on the next requests.
+   */
+  public void evictIdleConnections() {
+    connectionManager.closeExpired();
+    connectionManager.closeIdle(TimeValue.ZERO_MILLISECONDS);
+  }
+
+  /**
+   * The next requests are downloaded in full again.
+   */
+  public void clearResponseCache() {
+    if (responseCache != null) {
+      responseCache.clear();
+    }
+  }
+
+  /**
+   * The rates adapted to the server are forgotten.
+   */
+  public void clearRateLimiters() {
+    if (rateLimiters != null) {
+      rateLimiters.clear();
+    }
+  }
+
+  public HttpClientMetrics getMetrics() {
+    return metrics;
+  }
+
+  @Override
+  public long getResponses() {
+    return metrics.getResponses();
+  }
+
+  @Override
+  public long getCompressedResponses() {
+    return metrics.getCompressedResponses();
+  }
+
+  @Override
+  public long getReceivedBodyBytes() {
+    return metrics.getReceivedBodyBytes();
+  }
+
+  @Override
+  public long getCompressedBodyBytes() {
+    return metrics.getCompressedBodyBytes();
+  }
+
+  @Override
+  public long getDecompressedBodyBytes() {
+    return metrics.getDecompressedBodyBytes();
+  }
+
+  @Override
+  public long getCacheHits() {
+    return metrics.getCacheHits();
+  }
+
+  @Override
+  public int getCacheEntries() {
+    return responseCache == null ? 0 : responseCache.getEntries();
+  }
+
+  @Override
+  public long getCacheBytes() {
+    return responseCache == null ? 0 : responseCache.getBytes();
+  }
+
+  @Override
+  public int getLeasedConnections() {
+    return connectionManager.getTotalStats().getLeased();
+  }
+
+  @Override
+  public int getAvailableConnections() {
+    return connectionManager.getTotalStats().getAvailable();
+  }
+
+  @Override
+  public int getPendingConnectionRequests() {
+    return connectionManager.getTotalStats().getPending();
+  }
+
+  @Override
+  public int getMaxConnections() {
+    return connectionManager.getTotalStats().getMax();
+  }
+
+  @Override
+  public long getRetries() {
+    return metrics.getRetries();
+  }
+
+  @Override
+  public Map<String, Long> getRetriesPerEndpoint() {
+    return metrics.getRetriesPerEndpoint();
+  }
+
+  @Override
+  public long getThrottledResponses() {
+    return metrics.getThrottledResponses();
+  }
+
+  @Override
+  public long getRateLimitedRequests() {
+    return metrics.getRateLimitedRequests();
+  }
+
+  @Override
+  public long getRateLimiterWaitMillis() {
+    return metrics.getRateLimiterWaitMillis();
   }
 
   public void shutdown() {
     httpClient.close(CloseMode.IMMEDIATE);
+    if (completionExecutor != null) {
+      completionExecutor.shutdown();
+    }
   }
 
   private static SSLContext configureSsl() {
@@ -0,0 +1,78 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.http;
+
+/**
+ * Tuning of the HTTP client calling SonarQube. Start from {@link #defaults()} and change only what differs with the {@code with}
+ * methods, rather than listing every component.
+ *
+ * @param completionThreads number of threads completing the responses, 0 to complete them on the I/O thread that received them
+ * @param isCompressionEnabled whether to ask for gzip or deflate compressed responses
+ * @param responseCacheMaxBytes maximum size of the bodies kept to revalidate responses with conditional requests, 0 to disable the cache
+ * @param connections pooling and timeouts of the connections
+ * @param isHttp2Negotiated whether to offer HTTP/2 with ALPN on TLS connections, the server may still answer with HTTP/1.1. Requests to
+ *                          the same server are then multiplexed over a single connection
+ * @param retries retries of the GET requests failing with a transient error
+ * @param rateLimit pacing of the requests, by token and organization
+ */
+public record HttpClientSettings(int completionThreads, boolean isCompressionEnabled, long responseCacheMaxBytes, HttpConnectionSettings connections,
+  boolean isHttp2Negotiated, HttpRetrySettings retries, HttpRateLimitSettings rateLimit) {
+
+  public static final int DEFAULT_COMPLETION_THREADS = 0;
+  public static final int DEFAULT_RESPONSE_CACHE_MAX_BYTES = 16 * 1024 * 1024;
+
+  public static HttpClientSettings defaults() {
+    return new HttpClientSettings(DEFAULT_COMPLETION_THREADS, true, DEFAULT_RESPONSE_CACHE_MAX_BYTES, HttpConnectionSettings.defaults(), false,
+      HttpRetrySettings.defaults(), HttpRateLimitSettings.defaults());
+  }
+
+  public HttpClientSettings withCompletionThreads(int newCompletionThreads) {
+    return new HttpClientSettings(newCompletionThreads, isCompressionEnabled, responseCacheMaxBytes, connections,
+      isHttp2Negotiated, retries, rateLimit);
+  }
+
+  public HttpClientSettings withCompressionEnabled(boolean newIsCompressionEnabled) {
+    return new HttpClientSettings(completionThreads, newIsCompressionEnabled, responseCacheMaxBytes, connections,
+      isHttp2Negotiated, retries, rateLimit);
+  }
+
+  public HttpClientSettings withResponseCacheMaxBytes(long newResponseCacheMaxBytes) {
+    return new HttpClientSettings(completionThreads, isCompressionEnabled, newResponseCacheMaxBytes, connections,
+      isHttp2Negotiated, retries, rateLimit);
+  }
+
+  public HttpClientSettings withConnections(HttpConnectionSettings newConnections) {
+    return new HttpClientSettings(completionThreads, isCompressionEnabled, responseCacheMaxBytes, newConnections,
+      isHttp2Negotiated, retries, rateLimit);
+  }
+
+  public HttpClientSettings withHttp2Negotiated(boolean newIsHttp2Negotiated) {
+    return new HttpClientSettings(completionThreads, isCompressionEnabled, responseCacheMaxBytes, connections,
+      newIsHttp2Negotiated, retries, rateLimit);
+  }
+
+  public HttpClientSettings withRetries(HttpRetrySettings newRetries) {
+    return new HttpClientSettings(completionThreads, isCompressionEnabled, responseCacheMaxBytes, connections,
+      isHttp2Negotiated, newRetries, rateLimit);
+  }
+
+  public HttpClientSettings withRateLimit(HttpRateLimitSettings newRateLimit) {
+    return new HttpClientSettings(completionThreads, isCompressionEnabled, responseCacheMaxBytes, connections,
+      isHttp2Negotiated, retries, newRateLimit);
+  }
+
+}
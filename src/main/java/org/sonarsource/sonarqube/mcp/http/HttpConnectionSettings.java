@@ -0,0 +1,49 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.http;
+
+import java.time.Duration;
+
+/**
+ * Pooling and timeouts of the connections to SonarQube. Tools running in parallel mostly call the same server, so the per-route limit
+ * is the one usually reached: further requests wait for a connection to be released.
+ *
+ * @param maxConnections maximum number of connections, all servers included
+ * @param maxConnectionsPerRoute maximum number of connections to a single server
+ * @param connectTimeout maximum duration to establish a connection
+ * @param socketTimeout maximum duration without receiving any data on an established connection
+ * @param responseTimeout maximum duration to wait for the response once the request is sent
+ * @param keepAlive maximum duration a connection is kept for reuse, shortened when the server asks for less
+ * @param idleConnectionTimeout connections unused for this long are closed in the background
+ */
+public record HttpConnectionSettings(int maxConnections, int maxConnectionsPerRoute, Duration connectTimeout, Duration socketTimeout,
+  Duration responseTimeout, Duration keepAlive, Duration idleConnectionTimeout) {
+
+  public static final int DEFAULT_MAX_CONNECTIONS = 64;
+  public static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 32;
+  public static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(10);
+  public static final Duration DEFAULT_SOCKET_TIMEOUT = Duration.ofSeconds(60);
+  public static final Duration DEFAULT_RESPONSE_TIMEOUT = Duration.ofMinutes(2);
+  public static final Duration DEFAULT_KEEP_ALIVE = Duration.ofMinutes(1);
+  public static final Duration DEFAULT_IDLE_CONNECTION_TIMEOUT = Duration.ofSeconds(30);
+
+  public static HttpConnectionSettings defaults() {
+    return new HttpConnectionSettings(DEFAULT_MAX_CONNECTIONS, DEFAULT_MAX_CONNECTIONS_PER_ROUTE, DEFAULT_CONNECT_TIMEOUT, DEFAULT_SOCKET_TIMEOUT,
+      DEFAULT_RESPONSE_TIMEOUT, DEFAULT_KEEP_ALIVE, DEFAULT_IDLE_CONNECTION_TIMEOUT);
+  }
+
+}
@@ -0,0 +1,39 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.http;
+
+/**
+ * Pacing of the requests sent with a same token to a same organization, to stay below the rate limits of SonarQube Cloud instead of
+ * being throttled. The rate is halved on each {@code 429 Too Many Requests}, and grows back while requests succeed.
+ *
+ * @param maxRequestsPerSecond highest sustained rate, 0 to disable the rate limiter
+ * @param burst number of requests that can be sent at once after a quiet period
+ */
+public record HttpRateLimitSettings(int maxRequestsPerSecond, int burst) {
+
+  public static final int DEFAULT_MAX_REQUESTS_PER_SECOND = 20;
+  public static final int DEFAULT_BURST = 40;
+
+  public static HttpRateLimitSettings defaults() {
+    return new HttpRateLimitSettings(DEFAULT_MAX_REQUESTS_PER_SECOND, DEFAULT_BURST);
+  }
+
+  public boolean isEnabled() {
+    return maxRequestsPerSecond > 0;
+  }
+
+}
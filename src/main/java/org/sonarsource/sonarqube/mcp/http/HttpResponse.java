@@ -16,38 +16,126 @@
  */
 package org.sonarsource.sonarqube.mcp.http;
 
-import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
 import java.io.InputStream;
-import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import java.nio.charset.Charset;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.apache.hc.core5.http.MessageHeaders;
 
 class HttpResponse implements HttpClient.Response {
 
+  static final String ACCEPTED_ENCODINGS = "gzip, deflate";
+
   private final String requestUrl;
-  private final SimpleHttpResponse response;
+  private final int code;
+  private final MessageHeaders headers;
+  private final Charset charset;
+  @Nullable
+  private final String contentEncoding;
+  private final InputStream rawBody;
+  private final boolean isStreamed;
+  private final HttpClientMetrics metrics;
+  @Nullable
+  private InputStream body;
+  @Nullable
+  private String bodyAsString;
 
-  public HttpResponse(String requestUrl, SimpleHttpResponse response) {
+  /**
+   * @param rawBody the body as received, decompressed on the first read according to {@code contentEncoding}
+   * @param isStreamed whether {@code rawBody} is filled by the I/O threads while it is read, rather than already in memory
+   */
+  HttpResponse(String requestUrl, int code, MessageHeaders headers, Charset charset, @Nullable String contentEncoding, InputStream rawBody,
+    boolean isStreamed, HttpClientMetrics metrics) {
     this.requestUrl = requestUrl;
-    this.response = response;
+    this.code = code;
+    this.headers = headers;
+    this.charset = charset;
+    this.contentEncoding = contentEncoding;
+    this.rawBody = rawBody;
+    this.isStreamed = isStreamed;
+    this.metrics = metrics;
+  }
+
+  static boolean isCompressed(@Nullable String contentEncoding) {
+    return decoding(contentEncoding) != null;
+  }
+
+  @CheckForNull
+  private static Decoding decoding(@Nullable String contentEncoding) {
+    if (contentEncoding == null) {
+      return null;
+    }
+    return switch (contentEncoding.trim().toLowerCase(Locale.ROOT)) {
+      case "gzip", "x-gzip" -> Decoding.GZIP;
+      case "deflate" -> Decoding.DEFLATE;
+      default -> null;
+    };
   }
 
   @Override
   public int code() {
-    return response.getCode();
+    return code;
   }
 
+  @CheckForNull
   @Override
-  public String bodyAsString() {
-    return response.getBodyText();
+  public String header(String name) {
+    var header = headers.getFirstHeader(name);
+    return header == null ? null : header.getValue();
   }
 
+  /**
+   * Reads the whole body, can be called several times. Same thread restriction as {@link #bodyAsStream()}.
+   */
   @Override
-  public InputStream bodyAsStream() {
-    return new ByteArrayInputStream(response.getBodyBytes());
+  public synchronized String bodyAsString() {
+    if (bodyAsString == null) {
+      try (var stream = bodyAsStream()) {
+        bodyAsString = new String(stream.readAllBytes(), charset);
+      } catch (IOException e) {
+        throw new IllegalStateException("Unable to read the response body: " + e.getMessage(), e);
+      }
+    }
+    return bodyAsString;
   }
 
+  /**
+   * The gzip header is read when the stream is created, which must not happen on the I/O thread.
+   *
+   * @throws IllegalStateException when called on an I/O thread for a streamed body, the read would wait for data that only this thread
+   *   can deliver
+   */
   @Override
-  public void close() {
-    // nothing to do
+  public synchronized InputStream bodyAsStream() {
+    if (isStreamed && IoThreads.isCurrentThread()) {
+      throw new IllegalStateException("The body of " + requestUrl + " is streamed by the I/O thread, it must be read from another thread");
+    }
+    if (body == null) {
+      var decoding = decoding(contentEncoding);
+      try {
+        body = decoding == null ? rawBody : new DecompressedBodyInputStream(decoding.decode(rawBody), metrics);
+      } catch (IOException e) {
+        throw new IllegalStateException("Unable to decompress the response body: " + e.getMessage(), e);
+      }
+    }
+    return body;
+  }
+
+  /**
+   * Closing the decompressing stream also releases its inflater.
+   */
+  @Override
+  public synchronized void close() {
+    try {
+      (body == null ? rawBody : body).close();
+    } catch (IOException e) {
+      // the exchange is aborted anyway
+    }
   }
 
   @Override
@@ -55,4 +143,50 @@ class HttpResponse implements HttpClient.Response {
     return requestUrl;
   }
 
+  private enum Decoding {
+    GZIP {
+      @Override
+      InputStream decode(InputStream compressed) throws IOException {
+        return new GZIPInputStream(compressed);
+      }
+    },
+    DEFLATE {
+      @Override
+      InputStream decode(InputStream compressed) {
+        return new InflaterInputStream(compressed);
+      }
+    };
+
+    abstract InputStream decode(InputStream compressed) throws IOException;
+  }
+
+  private static class DecompressedBodyInputStream extends FilterInputStream {
+
+    private final HttpClientMetrics metrics;
+
+    private DecompressedBodyInputStream(InputStream decompressed, HttpClientMetrics metrics) {
+      super(decompressed);
+      this.metrics = metrics;
+    }
+
+    @Override
+    public int read() throws IOException {
+      var read = super.read();
+      if (read != -1) {
+        metrics.recordDecompressedBody(1);
+      }
+      return read;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      var read = super.read(b, off, len);
+      if (read > 0) {
+        metrics.recordDecompressedBody(read);
+      }
+      return read;
+    }
+
+  }
+
 }
@@ -0,0 +1,49 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.http;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Retries of the GET requests failing with a transient error: connection failures, {@code 429 Too Many Requests}, {@code 502 Bad Gateway},
+ * {@code 503 Service Unavailable} and {@code 504 Gateway Timeout}.
+ *
+ * @param defaultMaxRetries maximum number of retries of a request, unless overridden for its {@link EndpointFamily}, 0 to disable retries
+ * @param maxRetriesPerEndpoint overrides of the maximum number of retries, by endpoint family
+ * @param initialBackoff upper bound of the random delay before the first retry, doubled for each further retry
+ * @param maxBackoff upper bound of the delay between two attempts. Requests asked to retry after a longer delay are not retried
+ */
+public record HttpRetrySettings(int defaultMaxRetries, Map<String, Integer> maxRetriesPerEndpoint, Duration initialBackoff, Duration maxBackoff) {
+
+  public static final int DEFAULT_MAX_RETRIES = 3;
+  public static final Duration DEFAULT_INITIAL_BACKOFF = Duration.ofMillis(200);
+  public static final Duration DEFAULT_MAX_BACKOFF = Duration.ofSeconds(10);
+
+  public HttpRetrySettings {
+    maxRetriesPerEndpoint = Map.copyOf(maxRetriesPerEndpoint);
+  }
+
+  public static HttpRetrySettings defaults() {
+    return new HttpRetrySettings(DEFAULT_MAX_RETRIES, Map.of(), DEFAULT_INITIAL_BACKOFF, DEFAULT_MAX_BACKOFF);
+  }
+
+  public int maxRetries(String endpointFamily) {
+    return maxRetriesPerEndpoint.getOrDefault(endpointFamily, defaultMaxRetries);
+  }
+
+}
@@ -0,0 +1,53 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.http;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The I/O reactor threads of the client, they deliver the response bodies and complete the responses when no completion executor is
+ * configured. Blocking one of them on a body it is itself delivering would never return.
+ */
+final class IoThreads {
+
+  private IoThreads() {
+    // utility class
+  }
+
+  static ThreadFactory factory() {
+    var counter = new AtomicInteger();
+    return runnable -> {
+      var thread = new IoThread(runnable, "sonarqube-mcp-http-io-" + counter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  static boolean isCurrentThread() {
+    return Thread.currentThread() instanceof IoThread;
+  }
+
+  private static class IoThread extends Thread {
+
+    private IoThread(Runnable task, String name) {
+      super(task, name);
+    }
+
+  }
+
+}
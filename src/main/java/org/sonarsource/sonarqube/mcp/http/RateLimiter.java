@@ -0,0 +1,147 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.http;
+
+import java.time.Clock;
+import java.time.Duration;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpStatus;
+import org.sonarsource.sonarqube.mcp.serverapi.exception.TooManyRequestsException;
+
+/**
+ * Token bucket adapting its rate to the server: the rate is halved on {@code 429 Too Many Requests} and grows back linearly while
+ * requests succeed. The bucket is also paused until the time given by {@code Retry-After}, or by the reset header when the rate-limit
+ * headers tell that no request is left.
+ * <p>
+ * Permits are reserved rather than waited for: the caller delays its request by the returned duration, so that no thread is blocked. The
+ * wait is capped, requests that would have to wait longer fail instead of piling up behind the others.
+ */
+class RateLimiter {
+
+  static final double MIN_REQUESTS_PER_SECOND = 1;
+  private static final String[] REMAINING_HEADERS = {"X-RateLimit-Remaining", "RateLimit-Remaining"};
+  private static final String[] RESET_HEADERS = {"X-RateLimit-Reset", "RateLimit-Reset"};
+  // above this, the reset header is an epoch second rather than a number of seconds
+  private static final long EPOCH_SECONDS_THRESHOLD = 1_000_000_000L;
+
+  private final HttpRateLimitSettings settings;
+  private final Duration maxWait;
+  private final Clock clock;
+  private double requestsPerSecond;
+  private double permits;
+  // permits accrue from this time on, later than now while the bucket is paused
+  private long refilledAtMillis;
+
+  RateLimiter(HttpRateLimitSettings settings, Duration maxWait, Clock clock) {
+    this.settings = settings;
+    this.maxWait = maxWait;
+    this.clock = clock;
+    this.requestsPerSecond = settings.maxRequestsPerSecond();
+    this.permits = settings.burst();
+    this.refilledAtMillis = clock.millis();
+  }
+
+  /**
+   * @return how long to wait before sending the request
+   * @throws TooManyRequestsException when the wait would be longer than the maximum, no permit is then taken
+   */
+  synchronized Duration reserve() {
+    var now = clock.millis();
+    refill(now);
+    permits -= 1;
+    var pauseMillis = Math.max(0, refilledAtMillis - now);
+    var debtMillis = permits >= 0 ? 0 : (long) Math.ceil(-permits * 1000 / requestsPerSecond);
+    var wait = Duration.ofMillis(pauseMillis + debtMillis);
+    if (wait.compareTo(maxWait) > 0) {
+      permits += 1;
+      throw new TooManyRequestsException("Rate limit exceeded, the request would have to wait " + Math.max(1, wait.toSeconds())
+        + " seconds, please retry later");
+    }
+    return wait;
+  }
+
+  synchronized void onResponse(HttpClient.Response response) {
+    var now = clock.millis();
+    refill(now);
+    if (response.code() == HttpStatus.SC_TOO_MANY_REQUESTS) {
+      requestsPerSecond = Math.max(MIN_REQUESTS_PER_SECOND, requestsPerSecond / 2);
+      var retryAfter = RetryPolicy.retryAfter(response.header(HttpHeaders.RETRY_AFTER), clock.instant());
+      pause(now, retryAfter == null ? Duration.ZERO : retryAfter);
+    } else {
+      requestsPerSecond = Math.min(settings.maxRequestsPerSecond(), requestsPerSecond + settings.maxRequestsPerSecond() / 20.0);
+    }
+    if (isExhausted(response)) {
+      var reset = reset(firstHeader(response, RESET_HEADERS), now);
+      if (reset != null) {
+        pause(now, reset);
+      }
+    }
+  }
+
+  synchronized double getRequestsPerSecond() {
+    return requestsPerSecond;
+  }
+
+  private void refill(long now) {
+    if (now > refilledAtMillis) {
+      permits = Math.min(settings.burst(), permits + (now - refilledAtMillis) * requestsPerSecond / 1000);
+      refilledAtMillis = now;
+    }
+  }
+
+  private void pause(long now, Duration duration) {
+    permits = Math.min(permits, 0);
+    refilledAtMillis = Math.max(refilledAtMillis, now + duration.toMillis());
+  }
+
+  private static boolean isExhausted(HttpClient.Response response) {
+    var remaining = firstHeader(response, REMAINING_HEADERS);
+    try {
+      return remaining != null && Long.parseLong(remaining.trim()) <= 0;
+    } catch (NumberFormatException e) {
+      return false;
+    }
+  }
+
+  @CheckForNull
+  private static Duration reset(@Nullable String value, long now) {
+    if (value == null) {
+      return null;
+    }
+    try {
+      var seconds = Long.parseLong(value.trim());
+      var millis = seconds > EPOCH_SECONDS_THRESHOLD ? (seconds * 1000 - now) : (seconds * 1000);
+      return Duration.ofMillis(Math.max(0, millis));
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  @CheckForNull
+  private static String firstHeader(HttpClient.Response response, String[] names) {
+    for (var name : names) {
+      var value = response.header(name);
+      if (value != null) {
+        return value;
+      }
+    }
+    return null;
+  }
+
+}
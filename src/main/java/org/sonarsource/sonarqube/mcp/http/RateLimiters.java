@@ -0,0 +1,63 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.http;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nullable;
+
+/**
+ * One {@link RateLimiter} per token and organization, SonarQube Cloud rate limits being applied to them. Shared by the clients of all
+ * tokens, so that the tools running in parallel are paced together.
+ */
+class RateLimiters {
+
+  private final HttpRateLimitSettings settings;
+  private final Duration maxWait;
+  private final Clock clock;
+  private final Map<Key, RateLimiter> rateLimiters = new ConcurrentHashMap<>();
+
+  /**
+   * @param maxWait longest delay a request is made to wait, see {@link RateLimiter#reserve()}
+   */
+  RateLimiters(HttpRateLimitSettings settings, Duration maxWait) {
+    this(settings, maxWait, Clock.systemUTC());
+  }
+
+  RateLimiters(HttpRateLimitSettings settings, Duration maxWait, Clock clock) {
+    this.settings = settings;
+    this.maxWait = maxWait;
+    this.clock = clock;
+  }
+
+  private record Key(@Nullable String token, @Nullable String organization) {
+  }
+
+  RateLimiter get(@Nullable String token, @Nullable String organization) {
+    return rateLimiters.computeIfAbsent(new Key(token, organization), key -> new RateLimiter(settings, maxWait, clock));
+  }
+
+  /**
+   * The adapted rates are forgotten, they start again from the maximum.
+   */
+  void clear() {
+    rateLimiters.clear();
+  }
+
+}
@@ -0,0 +1,168 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.http;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.Charset;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.MessageHeaders;
+
+/**
+ * Bodies of the GET responses carrying an {@code ETag} or a {@code Last-Modified} validator, revalidated with a conditional request
+ * instead of being downloaded again. A {@code 304 Not Modified} is then answered with the stored body.
+ * <p>
+ * Entries are keyed by token and URL, the organization being part of the URL of the endpoints depending on it. The least recently used
+ * entries are evicted once the stored bodies exceed {@code maxBytes}. Bodies are stored as received, compressed when they were.
+ */
+final class ResponseCache {
+
+  // plugin jars are large and already kept on disk once downloaded
+  private static final String PLUGIN_DOWNLOAD_PATH = "/api/plugins/download";
+
+  private final long maxBytes;
+  private final long maxEntryBytes;
+  // access order, the eldest entry is the least recently used
+  private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private long bytes;
+
+  ResponseCache(long maxBytes) {
+    this.maxBytes = maxBytes;
+    // a single response must not flush the whole cache
+    this.maxEntryBytes = maxBytes / 4;
+  }
+
+  record Key(@Nullable String token, String url) {
+  }
+
+  record Entry(@Nullable String etag, @Nullable String lastModified, Charset charset, @Nullable String contentEncoding, byte[] body) {
+
+    void addValidators(HttpRequest request) {
+      if (etag != null) {
+        request.setHeader(HttpHeaders.IF_NONE_MATCH, etag);
+      }
+      if (lastModified != null) {
+        request.setHeader(HttpHeaders.IF_MODIFIED_SINCE, lastModified);
+      }
+    }
+
+    Entry withBody(byte[] newBody) {
+      return new Entry(etag, lastModified, charset, contentEncoding, newBody);
+    }
+
+    /**
+     * @param headers the headers of the {@code 304 Not Modified} response
+     */
+    HttpResponse toResponse(String requestUrl, MessageHeaders headers, HttpClientMetrics metrics) {
+      return new HttpResponse(requestUrl, HttpStatus.SC_OK, headers, charset, contentEncoding, new ByteArrayInputStream(body), false, metrics);
+    }
+  }
+
+  /**
+   * What is known about a request before it is sent.
+   *
+   * @param cached the entry the request was made conditional on, if any
+   */
+  record Lookup(ResponseCache cache, Key key, @Nullable Entry cached) {
+  }
+
+  Lookup lookup(Key key) {
+    return new Lookup(this, key, get(key));
+  }
+
+  @CheckForNull
+  synchronized Entry get(Key key) {
+    return entries.get(key);
+  }
+
+  boolean canStore(long bodySize) {
+    return bodySize <= maxEntryBytes;
+  }
+
+  /**
+   * Whether to record the body while it streams, until it is complete and stored. The recorded chunks stay in memory even once read, so
+   * only bodies announced small enough are recorded, or JSON bodies of unknown size, given up as soon as they get too large.
+   */
+  boolean canRecord(EntityDetails entityDetails) {
+    var contentLength = entityDetails.getContentLength();
+    if (contentLength >= 0) {
+      return canStore(contentLength);
+    }
+    var contentType = ContentType.parseLenient(entityDetails.getContentType());
+    return contentType != null && isJson(contentType.getMimeType());
+  }
+
+  private static boolean isJson(@Nullable String mimeType) {
+    return mimeType != null && (mimeType.equalsIgnoreCase(ContentType.APPLICATION_JSON.getMimeType())
+      || mimeType.toLowerCase(Locale.ROOT).endsWith("+json"));
+  }
+
+  /**
+   * Whether to look the URL up at all, some downloads are not worth the memory.
+   */
+  static boolean isCacheable(String url) {
+    return !url.contains(PLUGIN_DOWNLOAD_PATH);
+  }
+
+  synchronized void put(Key key, Entry entry) {
+    if (!canStore(entry.body().length)) {
+      return;
+    }
+    var previous = entries.put(key, entry);
+    if (previous != null) {
+      bytes -= previous.body().length;
+    }
+    bytes += entry.body().length;
+    var eldest = entries.entrySet().iterator();
+    while (bytes > maxBytes && eldest.hasNext()) {
+      bytes -= eldest.next().getValue().body().length;
+      eldest.remove();
+    }
+  }
+
+  synchronized void clear() {
+    entries.clear();
+    bytes = 0;
+  }
+
+  synchronized int getEntries() {
+    return entries.size();
+  }
+
+  synchronized long getBytes() {
+    return bytes;
+  }
+
+  /**
+   * Only successful responses with a validator are worth storing, and only if the server allows it.
+   */
+  static boolean isStorable(org.apache.hc.core5.http.HttpResponse response) {
+    if (response.getCode() != HttpStatus.SC_OK || (!response.containsHeader(HttpHeaders.ETAG) && !response.containsHeader(HttpHeaders.LAST_MODIFIED))) {
+      return false;
+    }
+    var cacheControl = response.getFirstHeader(HttpHeaders.CACHE_CONTROL);
+    return cacheControl == null || !cacheControl.getValue().toLowerCase(Locale.ROOT).contains("no-store");
+  }
+
+}
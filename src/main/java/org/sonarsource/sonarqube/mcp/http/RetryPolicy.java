@@ -0,0 +1,105 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.http;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpStatus;
+
+/**
+ * Decides whether a failed attempt is retried, and after which delay: a random delay up to an exponentially growing bound ("full jitter"),
+ * so that clients failing together don't retry together, unless the server tells when to retry with {@code Retry-After}.
+ */
+class RetryPolicy {
+
+  private static final Set<Integer> RETRIED_STATUSES = Set.of(HttpStatus.SC_TOO_MANY_REQUESTS, HttpStatus.SC_BAD_GATEWAY, HttpStatus.SC_SERVICE_UNAVAILABLE,
+    HttpStatus.SC_GATEWAY_TIMEOUT);
+
+  private final HttpRetrySettings settings;
+  private final Clock clock;
+
+  RetryPolicy(HttpRetrySettings settings) {
+    this(settings, Clock.systemUTC());
+  }
+
+  RetryPolicy(HttpRetrySettings settings, Clock clock) {
+    this.settings = settings;
+    this.clock = clock;
+  }
+
+  int maxRetries(String endpointFamily) {
+    return settings.maxRetries(endpointFamily);
+  }
+
+  /**
+   * @param retry number of the retry to come, starting at 0
+   * @return the delay before retrying, or null if the outcome of the attempt is final
+   */
+  @CheckForNull
+  Duration retryDelay(int retry, @Nullable HttpClient.Response response, @Nullable Throwable failure) {
+    if (response != null) {
+      if (!RETRIED_STATUSES.contains(response.code())) {
+        return null;
+      }
+      var retryAfter = retryAfter(response.header(HttpHeaders.RETRY_AFTER), clock.instant());
+      if (retryAfter != null) {
+        return retryAfter.compareTo(settings.maxBackoff()) <= 0 ? retryAfter : null;
+      }
+      return backoff(retry);
+    }
+    // timeouts already waited long enough, retrying would multiply the wait
+    return failure instanceof IOException && !(failure instanceof InterruptedIOException) ? backoff(retry) : null;
+  }
+
+  private Duration backoff(int retry) {
+    var bound = Math.min(settings.maxBackoff().toMillis(), settings.initialBackoff().toMillis() << Math.min(retry, 20));
+    return Duration.ofMillis(ThreadLocalRandom.current().nextLong(bound + 1));
+  }
+
+  /**
+   * Either a number of seconds or an HTTP date.
+   */
+  @CheckForNull
+  static Duration retryAfter(@Nullable String value, Instant now) {
+    if (value == null || value.isBlank()) {
+      return null;
+    }
+    try {
+      return Duration.ofSeconds(Math.max(0, Long.parseLong(value.trim())));
+    } catch (NumberFormatException e) {
+      // not a number of seconds
+    }
+    try {
+      var delay = Duration.between(now, ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant());
+      return delay.isNegative() ? Duration.ZERO : delay;
+    } catch (DateTimeParseException e) {
+      return null;
+    }
+  }
+
+}
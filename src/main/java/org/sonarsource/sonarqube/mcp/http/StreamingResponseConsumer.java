@@ -0,0 +1,324 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import javax.annotation.Nullable;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.nio.AsyncResponseConsumer;
+import org.apache.hc.core5.http.nio.CapacityChannel;
+import org.apache.hc.core5.http.protocol.HttpContext;
+
+/**
+ * Completes as soon as the status and the headers are received, the body is then read from {@link HttpClient.Response#bodyAsStream()}
+ * while it arrives. At most about {@code bufferSize} bytes are held in memory: the I/O reactor stops reading from the connection until
+ * the reader catches up.
+ * <p>
+ * Closing the response before the end of the body aborts the exchange, the connection is then discarded instead of being drained.
+ * Compressed bodies are buffered as received, and decompressed by the reader.
+ * <p>
+ * With a cache {@link ResponseCache.Lookup}, a {@code 304 Not Modified} completes with the stored body, and storable bodies are stored
+ * once fully received. Recording a body holds it until its end, so it only happens when {@link ResponseCache#canRecord} allows it.
+ */
+class StreamingResponseConsumer implements AsyncResponseConsumer<HttpClient.Response> {
+
+  static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+  private final String requestUrl;
+  private final int bufferSize;
+  private final HttpClientMetrics metrics;
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition changed = lock.newCondition();
+  private final Deque<ByteBuffer> chunks = new ArrayDeque<>();
+  private int bufferedBytes;
+  private boolean isEndOfStream;
+  private boolean isClosed;
+  @Nullable
+  private Exception failure;
+  // only set while the reactor waits for the reader to make room
+  @Nullable
+  private CapacityChannel exhaustedCapacityChannel;
+  private boolean isCompressed;
+  @Nullable
+  private final ResponseCache.Lookup cacheLookup;
+  // views of the received chunks, kept until the body is complete and stored
+  @Nullable
+  private List<ByteBuffer> recordedChunks;
+  private int recordedBytes;
+  // the validators and the encoding of the recorded body
+  @Nullable
+  private ResponseCache.Entry recordedEntry;
+
+  StreamingResponseConsumer(String requestUrl, int bufferSize, HttpClientMetrics metrics, @Nullable ResponseCache.Lookup cacheLookup) {
+    this.requestUrl = requestUrl;
+    this.bufferSize = bufferSize;
+    this.metrics = metrics;
+    this.cacheLookup = cacheLookup;
+  }
+
+  @Override
+  public void consumeResponse(org.apache.hc.core5.http.HttpResponse response, @Nullable EntityDetails entityDetails, HttpContext context,
+    FutureCallback<HttpClient.Response> resultCallback) {
+    var cached = cacheLookup == null ? null : cacheLookup.cached();
+    if (cached != null && response.getCode() == HttpStatus.SC_NOT_MODIFIED) {
+      markEndOfStream();
+      metrics.recordCacheHit();
+      resultCallback.completed(cached.toResponse(requestUrl, response, metrics));
+      return;
+    }
+    if (entityDetails == null) {
+      markEndOfStream();
+    }
+    var contentEncoding = entityDetails == null ? null : entityDetails.getContentEncoding();
+    isCompressed = HttpResponse.isCompressed(contentEncoding);
+    metrics.recordResponse(isCompressed);
+    var charset = charset(entityDetails);
+    if (cacheLookup != null && entityDetails != null && ResponseCache.isStorable(response) && cacheLookup.cache().canRecord(entityDetails)) {
+      recordedChunks = new ArrayList<>();
+      recordedEntry = new ResponseCache.Entry(headerValue(response, HttpHeaders.ETAG), headerValue(response, HttpHeaders.LAST_MODIFIED), charset,
+        contentEncoding, new byte[0]);
+    }
+    resultCallback.completed(new HttpResponse(requestUrl, response.getCode(), response, charset, contentEncoding, new BodyInputStream(), true,
+      metrics));
+  }
+
+  @Nullable
+  private static String headerValue(org.apache.hc.core5.http.HttpResponse response, String name) {
+    var header = response.getFirstHeader(name);
+    return header == null ? null : header.getValue();
+  }
+
+  private static Charset charset(@Nullable EntityDetails entityDetails) {
+    var contentType = entityDetails == null ? null : ContentType.parseLenient(entityDetails.getContentType());
+    var charset = contentType == null ? null : contentType.getCharset();
+    // SonarQube only answers UTF-8
+    return charset == null ? StandardCharsets.UTF_8 : charset;
+  }
+
+  @Override
+  public void informationResponse(org.apache.hc.core5.http.HttpResponse response, HttpContext context) {
+    // nothing to do
+  }
+
+  @Override
+  public void updateCapacity(CapacityChannel capacityChannel) throws IOException {
+    lock.lock();
+    try {
+      if (isClosed) {
+        // let the next chunk in, so that the exchange fails on it
+        capacityChannel.update(bufferSize);
+      } else if (bufferedBytes < bufferSize) {
+        capacityChannel.update(bufferSize - bufferedBytes);
+      } else {
+        exhaustedCapacityChannel = capacityChannel;
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void consume(ByteBuffer src) throws IOException {
+    lock.lock();
+    try {
+      if (isClosed) {
+        throw new IOException("The response body was closed before being fully read");
+      }
+      metrics.recordReceivedBody(src.remaining(), isCompressed);
+      var chunk = ByteBuffer.allocate(src.remaining());
+      chunk.put(src).flip();
+      chunks.add(chunk);
+      bufferedBytes += chunk.remaining();
+      record(chunk);
+      changed.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void record(ByteBuffer chunk) {
+    if (recordedChunks == null || cacheLookup == null) {
+      return;
+    }
+    recordedBytes += chunk.remaining();
+    if (cacheLookup.cache().canStore(recordedBytes)) {
+      // the reader moves the position of the chunk, not the one of its duplicate
+      recordedChunks.add(chunk.duplicate());
+    } else {
+      recordedChunks = null;
+    }
+  }
+
+  @Override
+  public void streamEnd(@Nullable List<? extends Header> trailers) {
+    markEndOfStream();
+    storeRecordedBody();
+  }
+
+  private void storeRecordedBody() {
+    List<ByteBuffer> chunksToStore;
+    lock.lock();
+    try {
+      chunksToStore = recordedChunks;
+      recordedChunks = null;
+    } finally {
+      lock.unlock();
+    }
+    if (chunksToStore == null || cacheLookup == null || recordedEntry == null) {
+      return;
+    }
+    var body = ByteBuffer.allocate(recordedBytes);
+    chunksToStore.forEach(body::put);
+    cacheLookup.cache().put(cacheLookup.key(), recordedEntry.withBody(body.array()));
+  }
+
+  private void markEndOfStream() {
+    lock.lock();
+    try {
+      isEndOfStream = true;
+      changed.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void failed(Exception cause) {
+    lock.lock();
+    try {
+      if (failure == null) {
+        failure = cause;
+      }
+      changed.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void releaseResources() {
+    lock.lock();
+    try {
+      if (!isEndOfStream && failure == null) {
+        failure = new IOException("The exchange ended before the end of the response body");
+      }
+      changed.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private class BodyInputStream extends InputStream {
+
+    @Override
+    public int read() throws IOException {
+      var singleByte = new byte[1];
+      var read = read(singleByte, 0, 1);
+      return read == -1 ? -1 : (singleByte[0] & 0xFF);
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (len == 0) {
+        return 0;
+      }
+      lock.lock();
+      try {
+        while (chunks.isEmpty() && !isEndOfStream && failure == null && !isClosed) {
+          changed.await();
+        }
+        if (isClosed) {
+          throw new IOException("The response body is closed");
+        }
+        if (chunks.isEmpty()) {
+          if (isEndOfStream) {
+            return -1;
+          }
+          throw new IOException("Unable to read the response body of " + requestUrl, failure);
+        }
+        var chunk = chunks.peek();
+        var read = Math.min(len, chunk.remaining());
+        chunk.get(b, off, read);
+        if (!chunk.hasRemaining()) {
+          chunks.poll();
+        }
+        bufferedBytes -= read;
+        releaseCapacity();
+        return read;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while reading the response body of " + requestUrl);
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    @Override
+    public int available() {
+      lock.lock();
+      try {
+        return bufferedBytes;
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      lock.lock();
+      try {
+        if (isClosed) {
+          return;
+        }
+        isClosed = true;
+        chunks.clear();
+        bufferedBytes = 0;
+        changed.signalAll();
+        if (!isEndOfStream) {
+          releaseCapacity();
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    private void releaseCapacity() throws IOException {
+      var capacityChannel = exhaustedCapacityChannel;
+      if (capacityChannel != null && (isClosed || bufferedBytes < bufferSize)) {
+        exhaustedCapacityChannel = null;
+        capacityChannel.update(isClosed ? bufferSize : (bufferSize - bufferedBytes));
+      }
+    }
+  }
+
+}
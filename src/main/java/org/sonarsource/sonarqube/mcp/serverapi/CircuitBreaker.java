@@ -0,0 +1,110 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.serverapi;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Opens after {@code failureThreshold} consecutive server failures: requests then fail fast instead of waiting for a timeout, and stop
+ * loading a server that is trying to recover. Once {@code openDuration} elapsed, the next request first checks the server status
+ * (half-open), the circuit closes if the server is up, and opens again otherwise.
+ * <p>
+ * Outcomes of the requests sent before the circuit opened are ignored, only the status check closes it.
+ */
+class CircuitBreaker {
+
+  enum Permit {
+    ALLOWED,
+    // the caller must check the server status and report it with onProbeCompleted
+    PROBE,
+    REJECTED
+  }
+
+  private enum State {
+    CLOSED,
+    OPEN,
+    HALF_OPEN
+  }
+
+  private final String name;
+  private final CircuitBreakerSettings settings;
+  private final Clock clock;
+  private State state = State.CLOSED;
+  private int consecutiveFailures;
+  private Instant openedAt = Instant.MIN;
+
+  CircuitBreaker(String name, CircuitBreakerSettings settings, Clock clock) {
+    this.name = name;
+    this.settings = settings;
+    this.clock = clock;
+  }
+
+  String name() {
+    return name;
+  }
+
+  synchronized Permit acquire() {
+    return switch (state) {
+      case CLOSED -> Permit.ALLOWED;
+      case OPEN -> {
+        if (clock.instant().isBefore(openedAt.plus(settings.openDuration()))) {
+          yield Permit.REJECTED;
+        }
+        state = State.HALF_OPEN;
+        yield Permit.PROBE;
+      }
+      case HALF_OPEN -> Permit.REJECTED;
+    };
+  }
+
+  synchronized void onSuccess() {
+    if (state == State.CLOSED) {
+      consecutiveFailures = 0;
+    }
+  }
+
+  synchronized void onFailure() {
+    if (state == State.CLOSED && settings.failureThreshold() > 0 && ++consecutiveFailures >= settings.failureThreshold()) {
+      open();
+    }
+  }
+
+  synchronized void onProbeCompleted(boolean isServerUp) {
+    if (isServerUp) {
+      state = State.CLOSED;
+      consecutiveFailures = 0;
+    } else {
+      open();
+    }
+  }
+
+  private void open() {
+    state = State.OPEN;
+    openedAt = clock.instant();
+  }
+
+  /**
+   * Time left before the server status is checked again.
+   */
+  synchronized Duration remainingOpenDuration() {
+    var remaining = Duration.between(clock.instant(), openedAt.plus(settings.openDuration()));
+    return remaining.isNegative() ? Duration.ZERO : remaining;
+  }
+
+}
@@ -0,0 +1,36 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.serverapi;
+
+import java.time.Duration;
+
+/**
+ * Tuning of the circuit breakers failing fast the requests to a SonarQube endpoint family that keeps failing.
+ *
+ * @param failureThreshold number of consecutive server failures opening the circuit, 0 to never open it
+ * @param openDuration time during which requests fail fast, before the server status is checked again
+ */
+public record CircuitBreakerSettings(int failureThreshold, Duration openDuration) {
+
+  public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+  public static final Duration DEFAULT_OPEN_DURATION = Duration.ofSeconds(30);
+
+  public static CircuitBreakerSettings defaults() {
+    return new CircuitBreakerSettings(DEFAULT_FAILURE_THRESHOLD, DEFAULT_OPEN_DURATION);
+  }
+
+}
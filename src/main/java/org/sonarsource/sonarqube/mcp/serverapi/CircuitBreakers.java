@@ -0,0 +1,58 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.serverapi;
+
+import java.net.URI;
+import java.time.Clock;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.sonarsource.sonarqube.mcp.http.EndpointFamily;
+
+/**
+ * One {@link CircuitBreaker} per server and {@link EndpointFamily}, shared by the {@link ServerApiHelper}s calling the same server: an
+ * endpoint failing for a token fails for the others too.
+ */
+public class CircuitBreakers {
+
+  private final CircuitBreakerSettings settings;
+  private final Clock clock;
+  private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+  public CircuitBreakers(CircuitBreakerSettings settings) {
+    this(settings, Clock.systemUTC());
+  }
+
+  CircuitBreakers(CircuitBreakerSettings settings, Clock clock) {
+    this.settings = settings;
+    this.clock = clock;
+  }
+
+  CircuitBreaker get(String url) {
+    var name = "the " + EndpointFamily.of(url) + " endpoints of " + authority(url);
+    return breakers.computeIfAbsent(name, key -> new CircuitBreaker(key, settings, clock));
+  }
+
+  private static String authority(String url) {
+    try {
+      var authority = URI.create(url).getAuthority();
+      return authority == null ? "" : authority;
+    } catch (IllegalArgumentException e) {
+      return "";
+    }
+  }
+
+}
@@ -16,28 +16,63 @@
  */
 package org.sonarsource.sonarqube.mcp.serverapi;
 
+import com.google.gson.Gson;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonParser;
+import java.io.IOException;
 import java.net.HttpURLConnection;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.hc.core5.http.HttpStatus;
 import org.sonarsource.sonarqube.mcp.http.HttpClient;
 import org.sonarsource.sonarqube.mcp.serverapi.exception.ForbiddenException;
 import org.sonarsource.sonarqube.mcp.serverapi.exception.NotFoundException;
 import org.sonarsource.sonarqube.mcp.serverapi.exception.ServerInternalErrorException;
+import org.sonarsource.sonarqube.mcp.serverapi.exception.ServerUnavailableException;
+import org.sonarsource.sonarqube.mcp.serverapi.exception.TooManyRequestsException;
 import org.sonarsource.sonarqube.mcp.serverapi.exception.UnauthorizedException;
+import org.sonarsource.sonarqube.mcp.serverapi.system.SystemApi;
+import org.sonarsource.sonarqube.mcp.serverapi.system.response.StatusResponse;
 
 public class ServerApiHelper {
 
+  private static final Gson GSON = new Gson();
+
   private final HttpClient client;
   private final EndpointParams endpointParams;
+  private final CircuitBreakers circuitBreakers;
+  // bodies are streamed, reading them blocks until the data arrives, which must not happen on the I/O thread completing the response
+  private final ExecutorService bodyReaders = Executors.newVirtualThreadPerTaskExecutor();
 
   public ServerApiHelper(EndpointParams endpointParams, HttpClient client) {
+    this(endpointParams, client, new CircuitBreakers(CircuitBreakerSettings.defaults()));
+  }
+
+  /**
+   * @param circuitBreakers shared by the helpers calling the same server
+   */
+  public ServerApiHelper(EndpointParams endpointParams, HttpClient client, CircuitBreakers circuitBreakers) {
     this.endpointParams = endpointParams;
     this.client = client;
+    this.circuitBreakers = circuitBreakers;
+  }
+
+  /**
+   * The bodies being read are read to the end, the requests sent afterward can't be parsed anymore.
+   */
+  public void shutdown() {
+    bodyReaders.shutdown();
   }
 
   @CheckForNull
@@ -69,19 +104,208 @@ public class ServerApiHelper {
     return response;
   }
 
+  /**
+   * Non-blocking variant of {@link #get(String)}, the future fails with the same exceptions as {@link #handleError(HttpClient.Response)}.
+   * Cancelling the returned future aborts the request.
+   */
+  public CompletableFuture<HttpClient.Response> getAsync(String path) {
+    return checkedAsync(sendGet(path));
+  }
+
+  /**
+   * Parses the JSON body of a successful response into {@code responseType}, or returns it as is for {@code String.class}, and closes
+   * the response.
+   */
+  public <T> CompletableFuture<T> getAsync(String path, Class<T> responseType) {
+    return parseAsync(sendGet(path), responseType);
+  }
+
+  public CompletableFuture<HttpClient.Response> getAnonymousAsync(String path) {
+    return checkedAsync(sendGetAnonymous(path));
+  }
+
+  public <T> CompletableFuture<T> getAnonymousAsync(String path, Class<T> responseType) {
+    return parseAsync(sendGetAnonymous(path), responseType);
+  }
+
+  public CompletableFuture<HttpClient.Response> postAsync(String path, String contentType, String body) {
+    return checkedAsync(sendPost(buildEndpointUrl(path), contentType, body));
+  }
+
   /**
    * Execute GET and don't check response
    */
   public HttpClient.Response rawGet(String relativePath) {
-    return client.getAsync(buildEndpointUrl(relativePath)).join();
+    return await(sendGet(relativePath));
   }
 
   public HttpClient.Response rawGetAnonymous(String relativePath) {
-    return client.getAsyncAnonymous(buildEndpointUrl(relativePath)).join();
+    return await(sendGetAnonymous(relativePath));
   }
 
   private HttpClient.Response rawPost(String url, String contentType, String body) {
-    return client.postAsync(url, contentType, body).join();
+    return await(sendPost(url, contentType, body));
+  }
+
+  private CompletableFuture<HttpClient.Response> sendGet(String relativePath) {
+    var url = buildEndpointUrl(relativePath);
+    return send(url, () -> client.getAsync(url));
+  }
+
+  private CompletableFuture<HttpClient.Response> sendGetAnonymous(String relativePath) {
+    var url = buildEndpointUrl(relativePath);
+    return send(url, () -> client.getAsyncAnonymous(url));
+  }
+
+  private CompletableFuture<HttpClient.Response> sendPost(String url, String contentType, String body) {
+    return send(url, () -> client.postAsync(url, contentType, body));
+  }
+
+  /**
+   * Goes through the circuit breaker of the endpoint: while it is open, the future fails with {@link ServerUnavailableException} without
+   * sending the request.
+   */
+  private CompletableFuture<HttpClient.Response> send(String url, Supplier<CompletableFuture<HttpClient.Response>> request) {
+    var circuitBreaker = circuitBreakers.get(url);
+    return switch (circuitBreaker.acquire()) {
+      case ALLOWED -> recordOutcome(circuitBreaker, request.get());
+      case PROBE -> checkServerStatusThenSend(circuitBreaker, request);
+      case REJECTED -> CompletableFuture.failedFuture(unavailable(circuitBreaker));
+    };
+  }
+
+  private static CompletableFuture<HttpClient.Response> recordOutcome(CircuitBreaker circuitBreaker,
+    CompletableFuture<HttpClient.Response> responseFuture) {
+    responseFuture.whenComplete((response, failure) -> {
+      if (response != null ? isServerFailure(response.code()) : (failure instanceof IOException)) {
+        circuitBreaker.onFailure();
+      } else if (response != null) {
+        // even an error response shows that the server is up
+        circuitBreaker.onSuccess();
+      }
+    });
+    return responseFuture;
+  }
+
+  /**
+   * Only the errors telling that the server, or a proxy in front of it, can not answer right now. A {@code 500} is rather caused by the
+   * request itself, e.g. a bad query, and must not make the whole endpoint family fail fast for everyone.
+   */
+  private static boolean isServerFailure(int code) {
+    return code == HttpURLConnection.HTTP_BAD_GATEWAY || code == HttpURLConnection.HTTP_UNAVAILABLE
+      || code == HttpURLConnection.HTTP_GATEWAY_TIMEOUT;
+  }
+
+  private CompletableFuture<HttpClient.Response> checkServerStatusThenSend(CircuitBreaker circuitBreaker,
+    Supplier<CompletableFuture<HttpClient.Response>> request) {
+    var result = new CompletableFuture<HttpClient.Response>();
+    isServerUp().thenAccept(isServerUp -> {
+      circuitBreaker.onProbeCompleted(isServerUp);
+      if (!isServerUp) {
+        result.completeExceptionally(unavailable(circuitBreaker));
+        return;
+      }
+      if (result.isDone()) {
+        // cancelled while checking the status
+        return;
+      }
+      CompletableFuture<HttpClient.Response> responseFuture;
+      try {
+        responseFuture = recordOutcome(circuitBreaker, request.get());
+      } catch (RuntimeException e) {
+        result.completeExceptionally(e);
+        return;
+      }
+      result.whenComplete((response, failure) -> {
+        if (result.isCancelled()) {
+          responseFuture.cancel(true);
+        }
+      });
+      responseFuture.whenComplete((response, failure) -> {
+        if (response == null) {
+          result.completeExceptionally(failure);
+        } else if (!result.complete(response)) {
+          response.close();
+        }
+      });
+    });
+    return result;
+  }
+
+  /**
+   * The half-open probe of the circuit breakers, never fails.
+   */
+  private CompletableFuture<Boolean> isServerUp() {
+    return client.getAsyncAnonymous(buildEndpointUrl(SystemApi.STATUS_PATH))
+      .thenApplyAsync(toBeClosed -> {
+        try (var response = toBeClosed) {
+          return response.isSuccessful() && "UP".equals(GSON.fromJson(response.bodyAsString(), StatusResponse.class).status());
+        }
+      }, bodyReaders)
+      .exceptionally(failure -> false);
+  }
+
+  private static ServerUnavailableException unavailable(CircuitBreaker circuitBreaker) {
+    return new ServerUnavailableException("SonarQube is not answering requests to " + circuitBreaker.name() + ", they are suspended for "
+      + Math.max(1, circuitBreaker.remainingOpenDuration().toSeconds()) + " seconds before checking the server status again");
+  }
+
+  /**
+   * Unlike {@link CompletableFuture#join()}, the wait can be interrupted, e.g. when the tool call is cancelled by the client.
+   * The request is then aborted, which releases its connection.
+   */
+  private static HttpClient.Response await(CompletableFuture<HttpClient.Response> responseFuture) {
+    try {
+      return responseFuture.get();
+    } catch (InterruptedException e) {
+      responseFuture.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new CancellationException("The request was cancelled");
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof ServerUnavailableException unavailable) {
+        throw unavailable;
+      }
+      if (e.getCause() instanceof TooManyRequestsException rateLimited) {
+        throw rateLimited;
+      }
+      throw new CompletionException(e.getCause());
+    }
+  }
+
+  private CompletableFuture<HttpClient.Response> checkedAsync(CompletableFuture<HttpClient.Response> responseFuture) {
+    return thenApplyCancellable(responseFuture, response -> {
+      if (!response.isSuccessful()) {
+        throw handleError(response);
+      }
+      return response;
+    });
+  }
+
+  private <T> CompletableFuture<T> parseAsync(CompletableFuture<HttpClient.Response> responseFuture, Class<T> responseType) {
+    return thenApplyCancellable(responseFuture, toBeClosed -> {
+      try (var response = toBeClosed) {
+        if (!response.isSuccessful()) {
+          throw handleError(response);
+        }
+        var body = response.bodyAsString();
+        return responseType == String.class ? responseType.cast(body) : GSON.fromJson(body, responseType);
+      }
+    });
+  }
+
+  /**
+   * Runs {@code fn} on a virtual thread, since it may read the body. Dependent futures don't cancel the stage they depend on, the request
+   * would keep its connection until the response arrives.
+   */
+  private <T> CompletableFuture<T> thenApplyCancellable(CompletableFuture<HttpClient.Response> responseFuture, Function<HttpClient.Response, T> fn) {
+    var result = responseFuture.thenApplyAsync(fn, bodyReaders);
+    result.whenComplete((value, error) -> {
+      if (result.isCancelled() && !responseFuture.cancel(true)) {
+        // the response arrived first, its body would otherwise never be released
+        responseFuture.thenAccept(HttpClient.Response::close);
+      }
+    });
+    return result;
   }
 
   private String buildEndpointUrl(String relativePath) {
@@ -106,6 +330,10 @@ public class ServerApiHelper {
       if (failedResponse.code() == HttpURLConnection.HTTP_NOT_FOUND) {
         return new NotFoundException(formatHttpFailedResponse(failedResponse, null));
       }
+      if (failedResponse.code() == HttpStatus.SC_TOO_MANY_REQUESTS) {
+        // the HTTP client already retried as long as it was allowed to
+        return new TooManyRequestsException(formatHttpFailedResponse(failedResponse, "rate limit exceeded, please retry later"));
+      }
       if (failedResponse.code() >= HttpURLConnection.HTTP_INTERNAL_ERROR) {
         return new ServerInternalErrorException(formatHttpFailedResponse(failedResponse, null));
       }
@@ -17,6 +17,7 @@
 package org.sonarsource.sonarqube.mcp.serverapi.components;
 
 import com.google.gson.Gson;
+import java.util.concurrent.CompletableFuture;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApiHelper;
 import org.sonarsource.sonarqube.mcp.serverapi.UrlBuilder;
 import org.sonarsource.sonarqube.mcp.serverapi.components.response.SearchResponse;
@@ -32,6 +33,17 @@ public class ComponentsApi {
   }
 
   public SearchResponse searchProjectsInMyOrg(int page) {
+    try (var response = helper.get(buildSearchPath(page))) {
+      var responseStr = response.bodyAsString();
+      return new Gson().fromJson(responseStr, SearchResponse.class);
+    }
+  }
+
+  public CompletableFuture<SearchResponse> searchProjectsInMyOrgAsync(int page) {
+    return helper.getAsync(buildSearchPath(page), SearchResponse.class);
+  }
+
+  private String buildSearchPath(int page) {
     var builder = new UrlBuilder(COMPONENTS_SEARCH_PATH)
       .addParam("p", Integer.toString(page));
     if (helper.getOrganization() != null) {
@@ -39,11 +51,7 @@ public class ComponentsApi {
     } else {
       builder.addParam("qualifiers", "TRK");
     }
-
-    try (var response = helper.get(builder.build())) {
-      var responseStr = response.bodyAsString();
-      return new Gson().fromJson(responseStr, SearchResponse.class);
-    }
+    return builder.build();
   }
 
 }
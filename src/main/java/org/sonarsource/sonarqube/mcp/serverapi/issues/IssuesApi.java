@@ -18,7 +18,9 @@ package org.sonarsource.sonarqube.mcp.serverapi.issues;
 
 import com.google.gson.Gson;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import javax.annotation.Nullable;
+import org.sonarsource.sonarqube.mcp.http.HttpClient;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApiHelper;
 import org.sonarsource.sonarqube.mcp.serverapi.UrlBuilder;
 import org.sonarsource.sonarqube.mcp.serverapi.issues.response.SearchResponse;
@@ -45,12 +47,22 @@ public class IssuesApi {
     }
   }
 
+  public CompletableFuture<SearchResponse> searchAsync(@Nullable List<String> projects, @Nullable String pullRequestId, @Nullable Integer page,
+    @Nullable Integer pageSize) {
+    return helper.getAsync(buildPath(projects, pullRequestId, page, pageSize), SearchResponse.class);
+  }
+
   public void doTransition(String issueKey, Transition transition) {
     var body = "issue=" + urlEncode(issueKey) + "&transition=" + urlEncode(transition.getStatus());
     var response = helper.post("/api/issues/do_transition", FORM_URL_ENCODED_CONTENT_TYPE, body);
     response.close();
   }
 
+  public CompletableFuture<Void> doTransitionAsync(String issueKey, Transition transition) {
+    var body = "issue=" + urlEncode(issueKey) + "&transition=" + urlEncode(transition.getStatus());
+    return helper.postAsync("/api/issues/do_transition", FORM_URL_ENCODED_CONTENT_TYPE, body).thenAccept(HttpClient.Response::close);
+  }
+
   private String buildPath(@Nullable List<String> projects, @Nullable String pullRequestId, @Nullable Integer page, @Nullable Integer pageSize) {
     var builder = new UrlBuilder(SEARCH_PATH)
       .addParam("projects", projects)
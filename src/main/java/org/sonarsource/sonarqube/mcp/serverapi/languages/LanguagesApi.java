@@ -17,6 +17,7 @@
 package org.sonarsource.sonarqube.mcp.serverapi.languages;
 
 import com.google.gson.Gson;
+import java.util.concurrent.CompletableFuture;
 import javax.annotation.Nullable;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApiHelper;
 import org.sonarsource.sonarqube.mcp.serverapi.UrlBuilder;
@@ -39,6 +40,10 @@ public class LanguagesApi {
     }
   }
 
+  public CompletableFuture<ListResponse> listAsync(@Nullable String query) {
+    return helper.getAsync(buildListPath(query), ListResponse.class);
+  }
+
   private static String buildListPath(@Nullable String query) {
     return new UrlBuilder(LIST_PATH)
       .addParam("q", query)
@@ -18,6 +18,7 @@ package org.sonarsource.sonarqube.mcp.serverapi.measures;
 
 import com.google.gson.Gson;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import javax.annotation.Nullable;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApiHelper;
 import org.sonarsource.sonarqube.mcp.serverapi.UrlBuilder;
@@ -41,6 +42,11 @@ public class MeasuresApi {
     }
   }
 
+  public CompletableFuture<ComponentMeasuresResponse> getComponentMeasuresAsync(@Nullable String component, @Nullable String branch,
+    @Nullable List<String> metricKeys, @Nullable String pullRequest) {
+    return helper.getAsync(buildPath(component, branch, metricKeys, pullRequest), ComponentMeasuresResponse.class);
+  }
+
   private static String buildPath(@Nullable String component, @Nullable String branch, 
     @Nullable List<String> metricKeys, @Nullable String pullRequest) {
     return new UrlBuilder(COMPONENT_PATH)
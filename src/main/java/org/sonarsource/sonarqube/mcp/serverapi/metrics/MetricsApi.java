@@ -17,6 +17,7 @@
 package org.sonarsource.sonarqube.mcp.serverapi.metrics;
 
 import com.google.gson.Gson;
+import java.util.concurrent.CompletableFuture;
 import javax.annotation.Nullable;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApiHelper;
 import org.sonarsource.sonarqube.mcp.serverapi.UrlBuilder;
@@ -39,6 +40,10 @@ public class MetricsApi {
     }
   }
 
+  public CompletableFuture<SearchMetricsResponse> searchMetricsAsync(@Nullable Integer page, @Nullable Integer pageSize) {
+    return helper.getAsync(buildSearchPath(page, pageSize), SearchMetricsResponse.class);
+  }
+
   private static String buildSearchPath(@Nullable Integer page, @Nullable Integer pageSize) {
     return new UrlBuilder(SEARCH_PATH)
       .addParam("p", page)
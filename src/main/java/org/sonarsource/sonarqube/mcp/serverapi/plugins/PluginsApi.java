@@ -17,6 +17,7 @@
 package org.sonarsource.sonarqube.mcp.serverapi.plugins;
 
 import com.google.gson.Gson;
+import java.util.concurrent.CompletableFuture;
 import org.sonarsource.sonarqube.mcp.http.HttpClient;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApiHelper;
 import org.sonarsource.sonarqube.mcp.serverapi.plugins.response.InstalledPluginsResponse;
@@ -39,6 +40,10 @@ public class PluginsApi {
     }
   }
 
+  public CompletableFuture<InstalledPluginsResponse> getInstalledAsync() {
+    return helper.getAsync(INSTALLED_PLUGINS_PATH, InstalledPluginsResponse.class);
+  }
+
   public HttpClient.Response downloadPlugin(String pluginKey) {
     var downloadPath = DOWNLOAD_PLUGINS_PATH + "?plugin=" + pluginKey;
     return helper.rawGet(downloadPath);
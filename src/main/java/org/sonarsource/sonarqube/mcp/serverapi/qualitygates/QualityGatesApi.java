@@ -17,6 +17,7 @@
 package org.sonarsource.sonarqube.mcp.serverapi.qualitygates;
 
 import com.google.gson.Gson;
+import java.util.concurrent.CompletableFuture;
 import javax.annotation.Nullable;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApiHelper;
 import org.sonarsource.sonarqube.mcp.serverapi.UrlBuilder;
@@ -42,6 +43,11 @@ public class QualityGatesApi {
     }
   }
 
+  public CompletableFuture<ProjectStatusResponse> getProjectQualityGateStatusAsync(@Nullable String analysisId, @Nullable String branchKey,
+    @Nullable String projectId, @Nullable String projectKey, @Nullable String pullRequest) {
+    return helper.getAsync(buildStatusPath(analysisId, branchKey, projectId, projectKey, pullRequest), ProjectStatusResponse.class);
+  }
+
   private static String buildStatusPath(@Nullable String analysisId, @Nullable String branchKey,
     @Nullable String projectId, @Nullable String projectKey, @Nullable String pullRequest) {
     return new UrlBuilder(PROJECT_STATUS_PATH)
@@ -60,6 +66,10 @@ public class QualityGatesApi {
     }
   }
 
+  public CompletableFuture<ListResponse> listAsync() {
+    return helper.getAsync(buildListPath(helper.getOrganization()), ListResponse.class);
+  }
+
   private static String buildListPath(@Nullable String organization) {
     var builder = new UrlBuilder(LIST_PATH);
     if (organization != null) {
@@ -17,6 +17,7 @@
 package org.sonarsource.sonarqube.mcp.serverapi.qualityprofiles;
 
 import com.google.gson.Gson;
+import java.util.concurrent.CompletableFuture;
 import javax.annotation.Nullable;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApiHelper;
 import org.sonarsource.sonarqube.mcp.serverapi.UrlBuilder;
@@ -33,6 +34,17 @@ public class QualityProfilesApi {
   }
 
   public SearchResponse getQualityProfiles(@Nullable String projectKey) {
+    try (var response = helper.get(buildSearchPath(projectKey))) {
+      var responseStr = response.bodyAsString();
+      return new Gson().fromJson(responseStr, SearchResponse.class);
+    }
+  }
+
+  public CompletableFuture<SearchResponse> getQualityProfilesAsync(@Nullable String projectKey) {
+    return helper.getAsync(buildSearchPath(projectKey), SearchResponse.class);
+  }
+
+  private String buildSearchPath(@Nullable String projectKey) {
     var url = new UrlBuilder(SEARCH_PATH);
     url.addParam("organization", helper.getOrganization());
     if (projectKey != null) {
@@ -40,10 +52,7 @@ public class QualityProfilesApi {
     } else {
       url.addParam("defaults", "true");
     }
-    try (var response = helper.get(url.build())) {
-      var responseStr = response.bodyAsString();
-      return new Gson().fromJson(responseStr, SearchResponse.class);
-    }
+    return url.build();
   }
 
 }
@@ -17,6 +17,7 @@
 package org.sonarsource.sonarqube.mcp.serverapi.rules;
 
 import com.google.gson.Gson;
+import java.util.concurrent.CompletableFuture;
 import javax.annotation.Nullable;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApiHelper;
 import org.sonarsource.sonarqube.mcp.serverapi.UrlBuilder;
@@ -45,6 +46,10 @@ public class RulesApi {
     }
   }
 
+  public CompletableFuture<ShowResponse> showRuleAsync(String ruleKey) {
+    return helper.getAsync(buildPath(ruleKey), ShowResponse.class);
+  }
+
   private String buildPath(String ruleKey) {
     var builder = new UrlBuilder(SHOW_PATH)
       .addParam("key", ruleKey);
@@ -61,6 +66,10 @@ public class RulesApi {
     }
   }
 
+  public CompletableFuture<RepositoriesResponse> getRepositoriesAsync(@Nullable String language, @Nullable String query) {
+    return helper.getAsync(buildRepositoriesPath(language, query), RepositoriesResponse.class);
+  }
+
   private static String buildRepositoriesPath(@Nullable String language, @Nullable String query) {
     return new UrlBuilder(REPOSITORIES_PATH)
       .addParam("language", language)
@@ -69,16 +78,23 @@ public class RulesApi {
   }
 
   public SearchResponse search(String qualityProfileKey, int page) {
-    var url = new UrlBuilder(SEARCH_PATH)
+    try (var response = helper.get(buildSearchPath(qualityProfileKey, page))) {
+      var responseStr = response.bodyAsString();
+      return new Gson().fromJson(responseStr, SearchResponse.class);
+    }
+  }
+
+  public CompletableFuture<SearchResponse> searchAsync(String qualityProfileKey, int page) {
+    return helper.getAsync(buildSearchPath(qualityProfileKey, page), SearchResponse.class);
+  }
+
+  private String buildSearchPath(String qualityProfileKey, int page) {
+    return new UrlBuilder(SEARCH_PATH)
       .addParam("qprofile", qualityProfileKey)
       .addParam("organization", helper.getOrganization())
       .addParam("activation", "true")
       .addParam("f", "templateKey,actives")
       .addParam("p", page)
       .build();
-    try (var response = helper.get(url)) {
-      var responseStr = response.bodyAsString();
-      return new Gson().fromJson(responseStr, SearchResponse.class);
-    }
   }
 }
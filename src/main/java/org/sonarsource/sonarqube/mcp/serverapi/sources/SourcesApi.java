@@ -17,6 +17,7 @@
 package org.sonarsource.sonarqube.mcp.serverapi.sources;
 
 import com.google.gson.Gson;
+import java.util.concurrent.CompletableFuture;
 import javax.annotation.Nullable;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApiHelper;
 import org.sonarsource.sonarqube.mcp.serverapi.UrlBuilder;
@@ -34,29 +35,41 @@ public class SourcesApi {
   }
 
   public String getRawSource(String key, @Nullable String branch, @Nullable String pullRequest) {
-    var url = new UrlBuilder(SOURCES_RAW_PATH)
+    try (var response = helper.get(buildRawSourcePath(key, branch, pullRequest))) {
+      return response.bodyAsString();
+    }
+  }
+
+  public CompletableFuture<String> getRawSourceAsync(String key, @Nullable String branch, @Nullable String pullRequest) {
+    return helper.getAsync(buildRawSourcePath(key, branch, pullRequest), String.class);
+  }
+
+  private static String buildRawSourcePath(String key, @Nullable String branch, @Nullable String pullRequest) {
+    return new UrlBuilder(SOURCES_RAW_PATH)
       .addParam("key", key)
       .addParam("branch", branch)
       .addParam("pullRequest", pullRequest)
       .build();
+  }
 
-    try (var response = helper.get(url)) {
-      return response.bodyAsString();
+  public ScmResponse getScmInfo(String key, @Nullable Boolean commitsByLine, @Nullable Integer from, @Nullable Integer to) {
+    try (var response = helper.get(buildScmPath(key, commitsByLine, from, to))) {
+      var responseStr = response.bodyAsString();
+      return new Gson().fromJson(responseStr, ScmResponse.class);
     }
   }
 
-  public ScmResponse getScmInfo(String key, @Nullable Boolean commitsByLine, @Nullable Integer from, @Nullable Integer to) {
-    var url = new UrlBuilder(SOURCES_SCM_PATH)
+  public CompletableFuture<ScmResponse> getScmInfoAsync(String key, @Nullable Boolean commitsByLine, @Nullable Integer from, @Nullable Integer to) {
+    return helper.getAsync(buildScmPath(key, commitsByLine, from, to), ScmResponse.class);
+  }
+
+  private static String buildScmPath(String key, @Nullable Boolean commitsByLine, @Nullable Integer from, @Nullable Integer to) {
+    return new UrlBuilder(SOURCES_SCM_PATH)
       .addParam("key", key)
       .addParam("commits_by_line", commitsByLine)
       .addParam("from", from)
       .addParam("to", to)
       .build();
-
-    try (var response = helper.get(url)) {
-      var responseStr = response.bodyAsString();
-      return new Gson().fromJson(responseStr, ScmResponse.class);
-    }
   }
 
 }
@@ -17,6 +17,7 @@
 package org.sonarsource.sonarqube.mcp.serverapi.system;
 
 import com.google.gson.Gson;
+import java.util.concurrent.CompletableFuture;
 import javax.annotation.Nullable;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApiHelper;
 import org.sonarsource.sonarqube.mcp.serverapi.UrlBuilder;
@@ -45,6 +46,10 @@ public class SystemApi {
     }
   }
 
+  public CompletableFuture<HealthResponse> getHealthAsync() {
+    return helper.getAsync(HEALTH_PATH, HealthResponse.class);
+  }
+
   public InfoResponse getInfo() {
     try (var response = helper.get(INFO_PATH)) {
       var responseStr = response.bodyAsString();
@@ -52,18 +57,30 @@ public class SystemApi {
     }
   }
 
+  public CompletableFuture<InfoResponse> getInfoAsync() {
+    return helper.getAsync(INFO_PATH, InfoResponse.class);
+  }
+
   public String getLogs(@Nullable String name) {
     try (var response = helper.get(buildLogsPath(name))) {
       return response.bodyAsString();
     }
   }
 
+  public CompletableFuture<String> getLogsAsync(@Nullable String name) {
+    return helper.getAsync(buildLogsPath(name), String.class);
+  }
+
   public String getPing() {
     try (var response = helper.getAnonymous(PING_PATH)) {
       return response.bodyAsString();
     }
   }
 
+  public CompletableFuture<String> getPingAsync() {
+    return helper.getAnonymousAsync(PING_PATH, String.class);
+  }
+
   public StatusResponse getStatus() {
     try (var response = helper.getAnonymous(STATUS_PATH)) {
       var responseStr = response.bodyAsString();
@@ -71,6 +88,10 @@ public class SystemApi {
     }
   }
 
+  public CompletableFuture<StatusResponse> getStatusAsync() {
+    return helper.getAnonymousAsync(STATUS_PATH, StatusResponse.class);
+  }
+
   private static String buildLogsPath(@Nullable String name) {
     var builder = new UrlBuilder(LOGS_PATH);
     if (name != null) {
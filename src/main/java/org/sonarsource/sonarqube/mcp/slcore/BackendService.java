@@ -20,6 +20,7 @@ import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.core.rolling.RollingFileAppender;
 import ch.qos.logback.core.rolling.TimeBasedRollingPolicy;
+import java.io.IOException;
 import java.io.PipedInputStream;
 import java.io.PipedOutputStream;
 import java.net.URI;
@@ -32,6 +33,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
@@ -61,6 +63,7 @@ import org.sonarsource.sonarqube.mcp.configuration.McpServerLaunchConfiguration;
 import org.sonarsource.sonarqube.mcp.log.McpLogger;
 
 import static java.util.Collections.emptyMap;
+import static java.util.Objects.requireNonNull;
 import static java.util.Collections.emptySet;
 
 public class BackendService {
@@ -68,14 +71,22 @@ public class BackendService {
   public static final String PROJECT_ID = "sonarqube-mcp-server";
   private static final McpLogger LOG = McpLogger.getInstance();
 
-  private final CompletableFuture<SonarLintRpcServer> backendFuture = new CompletableFuture<>();
+  private volatile CompletableFuture<SonarLintRpcServer> backendFuture = new CompletableFuture<>();
   private final Path storagePath;
   private final Path logFilePath;
   private final String appVersion;
   private final String userAgent;
   private final String appName;
+  private final Callable<ClientJsonRpcLauncher> launcherFactory;
   private boolean isTelemetryEnabled;
+  @Nullable
   private ClientJsonRpcLauncher clientLauncher;
+  private boolean isFileLoggingConfigured;
+  @Nullable
+  private AnalyzersAndLanguagesEnabled analyzers;
+  private boolean isSuspended;
+  /** Number of operations using the backend, which cannot be suspended under them */
+  private int users;
 
   public BackendService(McpServerLaunchConfiguration mcpConfiguration) {
     this.storagePath = mcpConfiguration.getStoragePath();
@@ -84,11 +95,12 @@ public class BackendService {
     this.userAgent = mcpConfiguration.getUserAgent();
     this.appName = mcpConfiguration.getAppName();
     this.isTelemetryEnabled = mcpConfiguration.isTelemetryEnabled();
+    this.launcherFactory = this::launchBackend;
   }
 
   // For tests
-  BackendService(ClientJsonRpcLauncher launcher, Path storagePath, String appVersion, String appName) {
-    this.clientLauncher = launcher;
+  BackendService(Callable<ClientJsonRpcLauncher> launcherFactory, Path storagePath, String appVersion, String appName) {
+    this.launcherFactory = launcherFactory;
     this.storagePath = storagePath;
     this.logFilePath = storagePath.resolve("mcp.log");
     this.appVersion = appVersion;
@@ -96,14 +108,41 @@ public class BackendService {
     this.appName = appName;
   }
 
+  /**
+   * Cancelling the returned future cancels the analysis in the backend, which frees its analysis worker.
+   */
   public CompletableFuture<AnalyzeFilesResponse> analyzeFilesAndTrack(UUID analysisId, List<URI> filesToAnalyze, Long startTime) {
-    return backendFuture.thenComposeAsync(server -> server.getAnalysisService().analyzeFilesAndTrack(
-      new AnalyzeFilesAndTrackParams(PROJECT_ID, analysisId, filesToAnalyze, Map.of(), false, startTime)));
+    var backend = acquireBackend();
+    var result = new CompletableFuture<AnalyzeFilesResponse>();
+    result.whenComplete((response, error) -> releaseBackend());
+    backend.thenAcceptAsync(server -> {
+      var analysis = server.getAnalysisService().analyzeFilesAndTrack(
+        new AnalyzeFilesAndTrackParams(PROJECT_ID, analysisId, filesToAnalyze, Map.of(), false, startTime));
+      result.whenComplete((response, error) -> {
+        if (result.isCancelled()) {
+          analysis.cancel(true);
+        }
+      });
+      analysis.whenComplete((response, error) -> {
+        if (error != null) {
+          result.completeExceptionally(error);
+        } else {
+          result.complete(response);
+        }
+      });
+    }).exceptionally(error -> {
+      result.completeExceptionally(error);
+      return null;
+    });
+    return result;
   }
 
   public void addFile(ClientFileDto clientFileDto) {
     LOG.info("Adding file " + clientFileDto.getUri());
-    backendFuture.thenAcceptAsync(server -> server.getFileService().didUpdateFileSystem(new DidUpdateFileSystemParams(List.of(clientFileDto), List.of(), List.of())));
+    acquireBackend()
+      .thenAcceptAsync(server -> server.getFileService()
+        .didUpdateFileSystem(new DidUpdateFileSystemParams(List.of(clientFileDto), List.of(), List.of())))
+      .whenComplete((result, error) -> releaseBackend());
   }
 
   public ClientFileDto toClientFileDto(Path filePath, String content, @Nullable Language language) {
@@ -113,9 +152,14 @@ public class BackendService {
 
   public void removeFile(URI file) {
     LOG.info("Removing file " + file);
-    backendFuture.thenAcceptAsync(server -> server.getFileService().didUpdateFileSystem(new DidUpdateFileSystemParams(List.of(), List.of(), List.of(file))));
+    acquireBackend()
+      .thenAcceptAsync(server -> server.getFileService().didUpdateFileSystem(new DidUpdateFileSystemParams(List.of(), List.of(), List.of(file))))
+      .whenComplete((result, error) -> releaseBackend());
   }
 
+  /**
+   * Does not restart a suspended backend, the notification is sent once it is restarted.
+   */
   public void notifyToolCalled(String toolName, boolean succeeded) {
     backendFuture.thenAcceptAsync(server -> server.getTelemetryService().toolCalled(new ToolCalledParams(toolName, succeeded)));
   }
@@ -125,47 +169,119 @@ public class BackendService {
   }
 
   public void initialize(AnalyzersAndLanguagesEnabled analyzers) {
+    CompletableFuture<SonarLintRpcServer> future;
+    synchronized (this) {
+      this.analyzers = analyzers;
+      future = backendFuture;
+    }
+    start(future, analyzers);
+  }
+
+  /**
+   * Does not hold the lock while the backend initializes, the callers of {@link #acquireBackend()} only wait for the future.
+   */
+  private void start(CompletableFuture<SonarLintRpcServer> future, AnalyzersAndLanguagesEnabled analyzers) {
     try {
       LOG.info("Starting backend service");
-      if (clientLauncher == null) {
-        var clientToServerOutputStream = new PipedOutputStream();
-        var clientToServerInputStream = new PipedInputStream(clientToServerOutputStream);
-        var serverToClientOutputStream = new PipedOutputStream();
-        var serverToClientInputStream = new PipedInputStream(serverToClientOutputStream);
-        new BackendJsonRpcLauncher(clientToServerInputStream, serverToClientOutputStream);
-        var rootLogger = (ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME);
-        rootLogger.detachAndStopAllAppenders();
-        var fileAppender = new RollingFileAppender<ILoggingEvent>();
-        fileAppender.setContext(rootLogger.getLoggerContext());
-        fileAppender.setName("FILE");
-        fileAppender.setFile(logFilePath.toAbsolutePath().toString());
-        var policy = new TimeBasedRollingPolicy<ILoggingEvent>();
-        policy.setContext(rootLogger.getLoggerContext());
-        policy.setFileNamePattern(storagePath.toAbsolutePath() + "/logs/mcp.%d{yyyy-MM-dd}.log");
-        policy.setMaxHistory(10);
-        policy.setParent(fileAppender);
-        policy.start();
-        fileAppender.setRollingPolicy(policy);
-        var encoder = new PatternLayoutEncoder();
-        encoder.setContext(rootLogger.getLoggerContext());
-        encoder.setPattern("%d{HH:mm:ss.SSS} [%thread] %-5level %logger{36} - %msg%n");
-        encoder.start();
-
-        fileAppender.setEncoder(encoder);
-        fileAppender.start();
-        rootLogger.addAppender(fileAppender);
-        clientLauncher = new ClientJsonRpcLauncher(serverToClientInputStream, clientToServerOutputStream, new McpSonarLintRpcClient());
+      var launcher = launcherFactory.call();
+      synchronized (this) {
+        clientLauncher = launcher;
       }
-      var backend = clientLauncher.getServerProxy();
+      var backend = launcher.getServerProxy();
       initRpcServer(backend, analyzers).get(1, TimeUnit.MINUTES);
-      backendFuture.complete(backend);
+      future.complete(backend);
       LOG.info("Backend service initialized");
-      projectOpened();
+      projectOpened(future);
     } catch (InterruptedException e) {
       Thread.currentThread().interrupt();
+      future.cancel(true);
     } catch (Exception e) {
-      backendFuture.cancel(true);
+      future.cancel(true);
+    }
+  }
+
+  private ClientJsonRpcLauncher launchBackend() throws IOException {
+    var clientToServerOutputStream = new PipedOutputStream();
+    var clientToServerInputStream = new PipedInputStream(clientToServerOutputStream);
+    var serverToClientOutputStream = new PipedOutputStream();
+    var serverToClientInputStream = new PipedInputStream(serverToClientOutputStream);
+    new BackendJsonRpcLauncher(clientToServerInputStream, serverToClientOutputStream);
+    configureFileLogging();
+    return new ClientJsonRpcLauncher(serverToClientInputStream, clientToServerOutputStream, new McpSonarLintRpcClient());
+  }
+
+  private synchronized void configureFileLogging() {
+    if (isFileLoggingConfigured) {
+      return;
+    }
+    isFileLoggingConfigured = true;
+    var rootLogger = (ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME);
+    rootLogger.detachAndStopAllAppenders();
+    var fileAppender = new RollingFileAppender<ILoggingEvent>();
+    fileAppender.setContext(rootLogger.getLoggerContext());
+    fileAppender.setName("FILE");
+    fileAppender.setFile(logFilePath.toAbsolutePath().toString());
+    var policy = new TimeBasedRollingPolicy<ILoggingEvent>();
+    policy.setContext(rootLogger.getLoggerContext());
+    policy.setFileNamePattern(storagePath.toAbsolutePath() + "/logs/mcp.%d{yyyy-MM-dd}.log");
+    policy.setMaxHistory(10);
+    policy.setParent(fileAppender);
+    policy.start();
+    fileAppender.setRollingPolicy(policy);
+    var encoder = new PatternLayoutEncoder();
+    encoder.setContext(rootLogger.getLoggerContext());
+    encoder.setPattern("%d{HH:mm:ss.SSS} [%thread] %-5level %logger{36} - %msg%n");
+    encoder.start();
+
+    fileAppender.setEncoder(encoder);
+    fileAppender.start();
+    rootLogger.addAppender(fileAppender);
+  }
+
+  /**
+   * Stops the backend, which unloads the analyzers, until the next analysis restarts it.
+   * Does nothing while an operation is using the backend.
+   */
+  public void suspend() {
+    SonarLintRpcServer aliveBackend;
+    ClientJsonRpcLauncher launcher;
+    synchronized (this) {
+      if (users > 0 || isSuspended || !backendFuture.isDone() || backendFuture.isCompletedExceptionally()) {
+        return;
+      }
+      LOG.info("Stopping backend service until the next analysis");
+      aliveBackend = backendFuture.join();
+      backendFuture = new CompletableFuture<>();
+      isSuspended = true;
+      // a new launcher is created on restart
+      launcher = clientLauncher;
+      clientLauncher = null;
     }
+    stop(aliveBackend, launcher);
+  }
+
+  /**
+   * Restarts a suspended backend in the background, the returned future completes once it is initialized.
+   * The backend is not suspended until the caller releases it with {@link #releaseBackend()}.
+   */
+  private CompletableFuture<SonarLintRpcServer> acquireBackend() {
+    CompletableFuture<SonarLintRpcServer> future;
+    AnalyzersAndLanguagesEnabled analyzersToLoad;
+    synchronized (this) {
+      users++;
+      future = backendFuture;
+      if (!isSuspended) {
+        return future;
+      }
+      isSuspended = false;
+      analyzersToLoad = requireNonNull(analyzers);
+    }
+    Thread.ofPlatform().name("sonarqube-mcp-backend-start").daemon(true).start(() -> start(future, analyzersToLoad));
+    return future;
+  }
+
+  private synchronized void releaseBackend() {
+    users--;
   }
 
   private CompletableFuture<Void> initRpcServer(SonarLintRpcServer rpcServer, AnalyzersAndLanguagesEnabled analyzersInStorage) {
@@ -204,7 +320,7 @@ public class BackendService {
         null));
   }
 
-  private void projectOpened() {
+  private static void projectOpened(CompletableFuture<SonarLintRpcServer> backendFuture) {
     backendFuture.thenAcceptAsync(server -> server
       .getConfigurationService()
       .didAddConfigurationScopes(new DidAddConfigurationScopesParams(
@@ -212,8 +328,21 @@ public class BackendService {
   }
 
   public void shutdown() {
+    SonarLintRpcServer aliveBackend = null;
+    ClientJsonRpcLauncher launcher;
+    synchronized (this) {
+      try {
+        aliveBackend = backendFuture.getNow(null);
+      } catch (Exception e) {
+        // the backend failed to start, only the launcher needs to be stopped
+      }
+      launcher = clientLauncher;
+    }
+    stop(aliveBackend, launcher);
+  }
+
+  private static void stop(@Nullable SonarLintRpcServer aliveBackend, @Nullable ClientJsonRpcLauncher launcher) {
     try {
-      var aliveBackend = backendFuture.getNow(null);
       if (aliveBackend != null) {
         aliveBackend.shutdown().get(10, TimeUnit.SECONDS);
       }
@@ -223,7 +352,9 @@ public class BackendService {
       LOG.error("Unable to shutdown the MCP backend", e);
     } finally {
       try {
-        clientLauncher.close();
+        if (launcher != null) {
+          launcher.close();
+        }
       } catch (Exception e) {
         LOG.error("Unable to stop the MCP backend launcher", e);
       }
@@ -231,7 +362,7 @@ public class BackendService {
   }
 
   public void updateRulesConfiguration(Map<String, StandaloneRuleConfigDto> ruleConfigurationByKey) {
-    backendFuture.thenAccept(server -> {
+    acquireBackend().thenAccept(server -> {
       var newActiveRules = new HashMap<String, StandaloneRuleConfigDto>();
       server.getRulesService().listAllStandaloneRulesDefinitions().join().getRulesByKey().forEach((key, value) ->
       // disable all standalone rules
@@ -239,7 +370,7 @@ public class BackendService {
       // enable custom ones
       newActiveRules.putAll(ruleConfigurationByKey);
       server.getRulesService().updateStandaloneRulesConfiguration(new UpdateStandaloneRulesConfigurationParams(newActiveRules));
-    });
+    }).whenComplete((result, error) -> releaseBackend());
   }
 
   public record AnalyzersAndLanguagesEnabled(Set<Path> analyzerPaths, EnumSet<Language> enabledLanguages) {
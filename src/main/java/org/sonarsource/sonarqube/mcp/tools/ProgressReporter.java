@@ -0,0 +1,71 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.tools;
+
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nullable;
+
+/**
+ * Lets a long-running tool tell the client how far it is.
+ * Reports are sent as MCP progress notifications, they are dropped when the client did not ask for progress, or once the call is over.
+ */
+public class ProgressReporter {
+
+  public static final ProgressReporter NONE = new ProgressReporter(null);
+
+  @FunctionalInterface
+  public interface Listener {
+    void onProgress(long progress, @Nullable Long total, @Nullable String message);
+  }
+
+  @Nullable
+  private final Listener listener;
+
+  private final AtomicLong lastProgress = new AtomicLong();
+
+  private volatile boolean isClosed;
+
+  public ProgressReporter(@Nullable Listener listener) {
+    this.listener = listener;
+  }
+
+  /**
+   * Whether reports reach the client, so that a tool can skip building them otherwise.
+   */
+  public boolean isEnabled() {
+    return listener != null && !isClosed;
+  }
+
+  /**
+   * @param progress must increase with each report, reports that do not are dropped
+   * @param total null if unknown
+   */
+  public void progress(long progress, @Nullable Long total, @Nullable String message) {
+    if (!isEnabled()) {
+      return;
+    }
+    var previous = lastProgress.getAndAccumulate(progress, Math::max);
+    if (progress > previous) {
+      listener.onProgress(progress, total, message);
+    }
+  }
+
+  void close() {
+    isClosed = true;
+  }
+
+}
@@ -35,6 +35,13 @@ public abstract class Tool {
 
   public abstract Result execute(Arguments arguments);
 
+  /**
+   * Long-running tools override this variant to report their progress.
+   */
+  public Result execute(Arguments arguments, ProgressReporter progressReporter) {
+    return execute(arguments);
+  }
+
   public static class Arguments {
     private final Map<String, Object> argumentsMap;
 
@@ -0,0 +1,63 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.tools;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Tuning of the tool execution engine. Each tool runs in its own bulkhead, so that slow tools cannot starve the others.
+ *
+ * @param defaultMaxConcurrentCalls maximum number of calls to a single tool running at the same time, unless overridden for this tool
+ * @param maxQueuedCalls maximum number of calls to a single tool waiting for a slot, further calls are rejected
+ * @param defaultTimeout maximum duration of a tool call, unless overridden for this tool
+ * @param maxConcurrentCallsPerTool overrides of the maximum number of concurrent calls, by tool name
+ * @param timeoutPerTool overrides of the timeout, by tool name
+ * @param useVirtualThreads whether tool calls run on virtual threads. Tools mostly wait for SonarQube, a virtual thread waiting on
+ *                          an HTTP call does not hold a platform thread, so many more calls can run at once
+ */
+public record ToolExecutionSettings(int defaultMaxConcurrentCalls, int maxQueuedCalls, Duration defaultTimeout,
+  Map<String, Integer> maxConcurrentCallsPerTool, Map<String, Duration> timeoutPerTool, boolean useVirtualThreads) {
+
+  public static final int DEFAULT_MAX_CONCURRENT_CALLS = Math.max(4, Runtime.getRuntime().availableProcessors());
+  public static final int DEFAULT_MAX_CONCURRENT_CALLS_ON_VIRTUAL_THREADS = 256;
+  public static final int DEFAULT_MAX_QUEUED_CALLS = 32;
+  public static final Duration DEFAULT_TIMEOUT = Duration.ofMinutes(10);
+  /**
+   * Analyses are CPU and memory intensive, they are capped unless configured otherwise.
+   */
+  public static final Map<String, Integer> DEFAULT_MAX_CONCURRENT_CALLS_PER_TOOL = Map.of("analyze_code_snippet", 2);
+
+  public ToolExecutionSettings {
+    maxConcurrentCallsPerTool = Map.copyOf(maxConcurrentCallsPerTool);
+    timeoutPerTool = Map.copyOf(timeoutPerTool);
+  }
+
+  public static ToolExecutionSettings defaults() {
+    return new ToolExecutionSettings(DEFAULT_MAX_CONCURRENT_CALLS, DEFAULT_MAX_QUEUED_CALLS, DEFAULT_TIMEOUT, DEFAULT_MAX_CONCURRENT_CALLS_PER_TOOL, Map.of(),
+      false);
+  }
+
+  public int maxConcurrentCalls(String toolName) {
+    return maxConcurrentCallsPerTool.getOrDefault(toolName, defaultMaxConcurrentCalls);
+  }
+
+  public Duration timeout(String toolName) {
+    return timeoutPerTool.getOrDefault(toolName, defaultTimeout);
+  }
+
+}
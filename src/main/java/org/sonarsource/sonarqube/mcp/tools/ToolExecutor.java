@@ -18,23 +18,77 @@ package org.sonarsource.sonarqube.mcp.tools;
 
 import io.modelcontextprotocol.spec.McpSchema;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import org.eclipse.lsp4j.jsonrpc.ResponseErrorException;
 import org.sonarsource.sonarqube.mcp.log.McpLogger;
 import org.sonarsource.sonarqube.mcp.serverapi.exception.NotFoundException;
 import org.sonarsource.sonarqube.mcp.slcore.BackendService;
 
+/**
+ * Runs tool calls concurrently. Each tool gets its own bulkhead: a bounded number of threads and a bounded queue of waiting calls.
+ * A heavy tool can then only exhaust its own resources, and cheap calls keep a low latency while heavy ones are in flight.
+ */
 public class ToolExecutor {
+  private static final long BULKHEAD_THREAD_KEEP_ALIVE_SECONDS = 60;
+
   private final McpLogger logger = McpLogger.getInstance();
   private final BackendService backendService;
+  private final ToolExecutionSettings settings;
+  private final Map<String, ThreadPoolExecutor> bulkheads = new ConcurrentHashMap<>();
 
   public ToolExecutor(BackendService backendService) {
+    this(backendService, ToolExecutionSettings.defaults());
+  }
+
+  public ToolExecutor(BackendService backendService, ToolExecutionSettings settings) {
     this.backendService = backendService;
+    this.settings = settings;
   }
 
   public McpSchema.CallToolResult execute(Tool tool, Map<String, Object> arguments) {
-    Tool.Result result;
+    return executeAsync(tool, arguments).join();
+  }
+
+  public CompletableFuture<McpSchema.CallToolResult> executeAsync(Tool tool, Map<String, Object> arguments) {
+    return executeAsync(tool, arguments, ProgressReporter.NONE);
+  }
+
+  /**
+   * Cancelling the returned future interrupts the tool execution. The progress reports stop once the future is complete.
+   */
+  public CompletableFuture<McpSchema.CallToolResult> executeAsync(Tool tool, Map<String, Object> arguments, ProgressReporter progressReporter) {
+    var toolName = tool.definition().name();
+    var execution = new CompletableFuture<Tool.Result>();
+    Future<?> task;
+    try {
+      task = bulkheads.computeIfAbsent(toolName, this::createBulkhead).submit(() -> execution.complete(run(tool, arguments, progressReporter)));
+    } catch (RejectedExecutionException e) {
+      logger.error("Rejecting a call to the tool '" + toolName + "', too many calls are in progress", e);
+      return CompletableFuture.completedFuture(notifyToolCalled(tool,
+        Tool.Result.failure("An error occurred during the tool execution: too many calls to this tool are in progress, retry later.")));
+    }
+    var timeout = settings.timeout(toolName);
+    execution.completeOnTimeout(Tool.Result.failure("An error occurred during the tool execution: the tool did not complete within " + timeout.toSeconds() + " seconds."),
+      timeout.toMillis(), TimeUnit.MILLISECONDS);
+    var callResult = execution.thenApply(result -> notifyToolCalled(tool, result));
+    // interrupts the task if it is still running after a timeout or a cancellation
+    callResult.whenComplete((result, error) -> {
+      progressReporter.close();
+      task.cancel(true);
+    });
+    return callResult;
+  }
+
+  private Tool.Result run(Tool tool, Map<String, Object> arguments, ProgressReporter progressReporter) {
     try {
-      result = tool.execute(new Tool.Arguments(arguments));
+      return tool.execute(new Tool.Arguments(arguments), progressReporter);
     } catch (Exception e) {
       String message;
       if (e instanceof NotFoundException) {
@@ -42,10 +96,34 @@ public class ToolExecutor {
       } else {
         message = e instanceof ResponseErrorException responseErrorException ? responseErrorException.getResponseError().getMessage() : e.getMessage();
       }
-      result = Tool.Result.failure("An error occurred during the tool execution: " + message);
       logger.error("An error occurred during the tool execution", e);
+      return Tool.Result.failure("An error occurred during the tool execution: " + message);
     }
+  }
+
+  private McpSchema.CallToolResult notifyToolCalled(Tool tool, Tool.Result result) {
     backendService.notifyToolCalled("mcp_" + tool.definition().name(), !result.isError());
     return result.toCallToolResult();
   }
+
+  private ThreadPoolExecutor createBulkhead(String toolName) {
+    var maxConcurrentCalls = settings.maxConcurrentCalls(toolName);
+    var threadNamePrefix = "sonarqube-mcp-tool-" + toolName + "-";
+    ThreadFactory threadFactory;
+    if (settings.useVirtualThreads()) {
+      // the pool only bounds the concurrency, its virtual threads are cheap to create and to keep blocked
+      threadFactory = Thread.ofVirtual().name(threadNamePrefix, 1).factory();
+    } else {
+      threadFactory = Thread.ofPlatform().name(threadNamePrefix, 1).daemon(true).factory();
+    }
+    var bulkhead = new ThreadPoolExecutor(maxConcurrentCalls, maxConcurrentCalls, BULKHEAD_THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+      new LinkedBlockingQueue<>(settings.maxQueuedCalls()), threadFactory);
+    bulkhead.allowCoreThreadTimeOut(true);
+    return bulkhead;
+  }
+
+  public void shutdown() {
+    bulkheads.values().forEach(ThreadPoolExecutor::shutdownNow);
+  }
+
 }
@@ -23,6 +23,7 @@ import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -32,6 +33,7 @@ import org.sonarsource.sonarlint.core.rpc.protocol.backend.rules.StandaloneRuleC
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApi;
 import org.sonarsource.sonarqube.mcp.serverapi.rules.response.SearchResponse;
 import org.sonarsource.sonarqube.mcp.slcore.BackendService;
+import org.sonarsource.sonarqube.mcp.tools.ProgressReporter;
 import org.sonarsource.sonarqube.mcp.tools.SchemaToolBuilder;
 import org.sonarsource.sonarqube.mcp.tools.Tool;
 
@@ -63,6 +65,11 @@ public class AnalysisTool extends Tool {
 
   @Override
   public Result execute(Arguments arguments) {
+    return execute(arguments, ProgressReporter.NONE);
+  }
+
+  @Override
+  public Result execute(Arguments arguments, ProgressReporter progressReporter) {
     var projectKey = arguments.getOptionalString(PROJECT_KEY_PROPERTY);
     var codeSnippet = arguments.getStringOrThrow(SNIPPET_PROPERTY);
     var language = arguments.getOptionalString(LANGUAGE_PROPERTY);
@@ -72,22 +79,31 @@ public class AnalysisTool extends Tool {
       sonarLanguage = SonarLanguage.SECRETS;
     }
 
-    applyRulesFromProject(projectKey);
+    var progress = applyRulesFromProject(projectKey, progressReporter);
 
     var analysisId = UUID.randomUUID();
     Path tmpFile = null;
+    CompletableFuture<AnalyzeFilesResponse> analysis = null;
     try {
       tmpFile = createTemporaryFileForLanguage(analysisId.toString(), backendService.getWorkDir(), codeSnippet,
         sonarLanguage);
       var clientFileDto = backendService.toClientFileDto(tmpFile, codeSnippet, mapSonarLanguageToLanguage(sonarLanguage));
       backendService.addFile(clientFileDto);
       var startTime = System.currentTimeMillis();
-      var response = backendService.analyzeFilesAndTrack(analysisId, List.of(tmpFile.toUri()), startTime).get(30,
-        TimeUnit.SECONDS);
+      progressReporter.progress(progress + 1, null, "Analyzing the code snippet");
+      analysis = backendService.analyzeFilesAndTrack(analysisId, List.of(tmpFile.toUri()), startTime);
+      var response = analysis.get(30, TimeUnit.SECONDS);
       return Tool.Result.success(buildResponseFromAnalysisResults(response));
-    } catch (IOException | ExecutionException | TimeoutException e) {
+    } catch (IOException | ExecutionException e) {
+      return Tool.Result.failure("Error while analyzing the code snippet: " + e.getMessage());
+    } catch (TimeoutException e) {
+      analysis.cancel(true);
       return Tool.Result.failure("Error while analyzing the code snippet: " + e.getMessage());
     } catch (InterruptedException e) {
+      // the tool call was cancelled or timed out, nobody waits for the analysis anymore
+      if (analysis != null) {
+        analysis.cancel(true);
+      }
       Thread.currentThread().interrupt();
       return Tool.Result.failure("Error while analyzing the code snippet: " + e.getMessage());
     } finally {
@@ -102,22 +118,30 @@ public class AnalysisTool extends Tool {
     }
   }
 
-  private void applyRulesFromProject(@Nullable String projectKey) {
+  /**
+   * Reports one step per page of rules, the pages of all quality profiles can take a while to fetch on big instances.
+   * @return the number of steps reported
+   */
+  private long applyRulesFromProject(@Nullable String projectKey, ProgressReporter progressReporter) {
     var activeRules = new HashMap<String, StandaloneRuleConfigDto>();
-    serverApi.qualityProfilesApi().getQualityProfiles(projectKey).profiles()
-      .forEach(profile -> {
-        var count = 0;
-        var page = 1;
-        SearchResponse searchResponse;
-        do {
-          searchResponse = serverApi.rulesApi().search(profile.key(), page);
-          page++;
-          count += searchResponse.ps();
-          searchResponse.actives().forEach((ruleKey, actives) -> activeRules.put(ruleKey,
-            new StandaloneRuleConfigDto(true, actives.getFirst().params().stream().collect(toMap(SearchResponse.RuleParameter::key, SearchResponse.RuleParameter::value)))));
-        } while (count < searchResponse.total());
-      });
+    var fetchedPages = 0L;
+    for (var profile : serverApi.qualityProfilesApi().getQualityProfiles(projectKey).profiles()) {
+      var count = 0;
+      var page = 1;
+      SearchResponse searchResponse;
+      do {
+        searchResponse = serverApi.rulesApi().search(profile.key(), page);
+        page++;
+        count += searchResponse.ps();
+        searchResponse.actives().forEach((ruleKey, actives) -> activeRules.put(ruleKey,
+          new StandaloneRuleConfigDto(true, actives.getFirst().params().stream().collect(toMap(SearchResponse.RuleParameter::key, SearchResponse.RuleParameter::value)))));
+        fetchedPages++;
+        progressReporter.progress(fetchedPages, null, "Fetched " + Math.min(count, searchResponse.total()) + "/" + searchResponse.total() +
+          " rules of the quality profile " + profile.key());
+      } while (count < searchResponse.total());
+    }
     backendService.updateRulesConfiguration(activeRules);
+    return fetchedPages;
   }
 
   private static String buildResponseFromAnalysisResults(AnalyzeFilesResponse response) {
@@ -0,0 +1,102 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.transport;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free distribution of non-negative values, e.g. sizes or durations, cheap enough to be recorded for every message.
+ * Each power of two is split into {@value #SUB_BUCKETS} buckets, so percentiles are reported with a relative error below 12.5%.
+ */
+class Histogram {
+
+  private static final int SUB_BUCKET_BITS = 3;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final LongAdder count = new LongAdder();
+  private final LongAdder sum = new LongAdder();
+  private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+  void record(long value) {
+    var positiveValue = Math.max(0, value);
+    counts.incrementAndGet(bucketIndex(positiveValue));
+    count.increment();
+    sum.add(positiveValue);
+    max.accumulate(positiveValue);
+  }
+
+  HistogramSnapshot snapshot() {
+    var snapshotCounts = new long[BUCKETS];
+    var total = 0L;
+    for (var i = 0; i < BUCKETS; i++) {
+      snapshotCounts[i] = counts.get(i);
+      total += snapshotCounts[i];
+    }
+    var snapshotMax = max.get();
+    return new HistogramSnapshot(total, total == 0 ? 0 : (sum.sum() / (double) total), snapshotMax,
+      percentile(snapshotCounts, total, 0.5, snapshotMax),
+      percentile(snapshotCounts, total, 0.9, snapshotMax),
+      percentile(snapshotCounts, total, 0.99, snapshotMax));
+  }
+
+  long getCount() {
+    return count.sum();
+  }
+
+  /**
+   * @return the upper bound of the bucket holding the value of the given rank, which never exceeds the maximum recorded value
+   */
+  private static long percentile(long[] counts, long total, double quantile, long max) {
+    if (total == 0) {
+      return 0;
+    }
+    var rank = (long) Math.ceil(quantile * total);
+    var seen = 0L;
+    for (var i = 0; i < counts.length; i++) {
+      seen += counts[i];
+      if (seen >= rank) {
+        return Math.min(bucketUpperBound(i), max);
+      }
+    }
+    return max;
+  }
+
+  static int bucketIndex(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    var exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+    var subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+    return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+  }
+
+  static long bucketUpperBound(int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    var exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+    var subBucket = index % SUB_BUCKETS;
+    var width = 1L << (exponent - SUB_BUCKET_BITS);
+    var lowerBound = (long) (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+    return lowerBound + width - 1;
+  }
+
+}
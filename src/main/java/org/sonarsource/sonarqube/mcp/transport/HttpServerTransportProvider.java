@@ -0,0 +1,676 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.transport;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.spec.McpSchema.JSONRPCMessage;
+import io.modelcontextprotocol.spec.McpSchema.JSONRPCNotification;
+import io.modelcontextprotocol.spec.McpSchema.JSONRPCRequest;
+import io.modelcontextprotocol.spec.McpSchema.JSONRPCResponse;
+import io.modelcontextprotocol.spec.McpServerSession;
+import io.modelcontextprotocol.spec.McpServerTransport;
+import io.modelcontextprotocol.spec.McpServerTransportProvider;
+import io.modelcontextprotocol.util.Assert;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Implementation of the MCP Streamable HTTP transport, see https://modelcontextprotocol.io/specification/2025-03-26/basic/transports#streamable-http.
+ * A single endpoint serves many concurrent sessions from one process, all of them sharing the tools, the backend and the HTTP
+ * connection pool of the server.
+ * <ul>
+ *   <li>A POST carries one JSON-RPC message. JSON-RPC batches (arrays) are not supported, they are answered with an invalid request
+ *   error, like the later revisions of the specification which dropped them. Requests are answered on a Server-Sent Events stream
+ *   when the client accepts it, or as a plain JSON body otherwise. The progress notifications of a request are sent on its event
+ *   stream. Notifications and responses are acknowledged with 202 Accepted. When a request is cancelled, its response ends without a
+ *   message, or with 204 No Content for a JSON body.</li>
+ *   <li>A GET opens a stream on which the server sends messages that are not related to a request, e.g. log notifications.</li>
+ *   <li>A DELETE terminates the session.</li>
+ * </ul>
+ * The session is created by the initialize request, its identifier is returned in the {@value #SESSION_ID_HEADER} header and must be
+ * sent back with every subsequent HTTP request. Idle sessions are closed after a while.
+ * Each HTTP request is handled on its own virtual thread, for as long as its response is open. The number of HTTP requests handled
+ * concurrently is bounded per session, and overall by the maximum number of sessions, further requests are answered with
+ * 503 Service Unavailable and a {@link StdioServerTransportProvider#SERVER_OVERLOADED} error.
+ */
+public class HttpServerTransportProvider implements McpServerTransportProvider {
+
+  public static final String ENDPOINT = "/mcp";
+
+  public static final String SESSION_ID_HEADER = "Mcp-Session-Id";
+
+  private static final Logger logger = LoggerFactory.getLogger(HttpServerTransportProvider.class);
+
+  private static final String EVENT_STREAM = "text/event-stream";
+
+  private static final String APPLICATION_JSON = "application/json";
+
+  private static final long STREAM_POLL_TIMEOUT_MILLIS = 1000;
+
+  private static final long KEEP_ALIVE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(15);
+
+  private static final long MAX_EVICTION_PERIOD_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+  private final ObjectMapper objectMapper;
+
+  private final TransportSettings transportSettings;
+
+  private final HttpTransportSettings httpSettings;
+
+  private final InboundAdmissionControl admissionControl;
+
+  private final ResponseCache responseCache;
+
+  private final Map<String, HttpSessionTransport> sessions = new ConcurrentHashMap<>();
+
+  private final AtomicBoolean isClosing = new AtomicBoolean(false);
+
+  /** Bounds the number of HTTP requests handled concurrently, whatever their session */
+  private final Semaphore requestPermits;
+
+  private McpServerSession.Factory sessionFactory;
+
+  private HttpServer httpServer;
+
+  private ExecutorService requestExecutor;
+
+  private ScheduledExecutorService evictionExecutor;
+
+  public HttpServerTransportProvider(ObjectMapper objectMapper, TransportSettings transportSettings, HttpTransportSettings httpSettings) {
+    Assert.notNull(objectMapper, "The ObjectMapper can not be null");
+    Assert.notNull(transportSettings, "The TransportSettings can not be null");
+    Assert.notNull(httpSettings, "The HttpTransportSettings can not be null");
+
+    this.objectMapper = objectMapper;
+    this.transportSettings = transportSettings;
+    this.httpSettings = httpSettings;
+    this.admissionControl = new InboundAdmissionControl(transportSettings.maxPendingRequests(), transportSettings.maxPendingRequestBytes());
+    this.responseCache = new ResponseCache(objectMapper);
+    var maxRequests = (long) httpSettings.maxSessions() * httpSettings.maxRequestsPerSession();
+    this.requestPermits = new Semaphore((int) Math.min(Integer.MAX_VALUE, maxRequests));
+  }
+
+  @Override
+  public void setSessionFactory(McpServerSession.Factory sessionFactory) {
+    this.sessionFactory = sessionFactory;
+    start();
+  }
+
+  private void start() {
+    try {
+      httpServer = HttpServer.create(new InetSocketAddress(httpSettings.host(), httpSettings.port()), 0);
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to listen on " + httpSettings.host() + ":" + httpSettings.port(), e);
+    }
+    requestExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("mcp-http-request-", 1).factory());
+    httpServer.setExecutor(requestExecutor);
+    httpServer.createContext(ENDPOINT, this::handle);
+    httpServer.start();
+
+    var evictionPeriod = Math.min(MAX_EVICTION_PERIOD_MILLIS, Math.max(1, httpSettings.sessionIdleTimeout().toMillis() / 2));
+    evictionExecutor = Executors.newSingleThreadScheduledExecutor(daemonThreadFactory("mcp-http-session-eviction-"));
+    evictionExecutor.scheduleWithFixedDelay(this::closeIdleSessions, evictionPeriod, evictionPeriod, TimeUnit.MILLISECONDS);
+    logger.info("Listening on http://{}:{}{}", httpSettings.host(), getPort(), ENDPOINT);
+  }
+
+  public int getPort() {
+    return httpServer.getAddress().getPort();
+  }
+
+  public int getSessionCount() {
+    return sessions.size();
+  }
+
+  public long getPendingInboundRequests() {
+    return admissionControl.getPendingRequests();
+  }
+
+  @Override
+  public Mono<Void> notifyClients(String method, Object params) {
+    responseCache.onNotification(method);
+    return Flux.fromIterable(sessions.values())
+      .flatMap(session -> session.mcpSession.sendNotification(method, params)
+        .doOnError(e -> logger.error("Failed to send notification for {} to session {}", method, session.id, e))
+        .onErrorComplete())
+      .then();
+  }
+
+  @Override
+  public Mono<Void> closeGracefully() {
+    return Mono.fromRunnable(() -> isClosing.set(true))
+      .then(Flux.fromIterable(sessions.values()).flatMap(session -> session.mcpSession.closeGracefully()).then())
+      .then(Mono.fromRunnable(this::stop));
+  }
+
+  private void stop() {
+    if (httpServer != null) {
+      httpServer.stop(0);
+      requestExecutor.shutdownNow();
+      evictionExecutor.shutdownNow();
+    }
+  }
+
+  private void closeIdleSessions() {
+    var idleSince = System.nanoTime() - httpSettings.sessionIdleTimeout().toNanos();
+    sessions.values().stream()
+      .filter(session -> session.isIdleSince(idleSince))
+      .forEach(session -> {
+        logger.debug("Closing idle session {}", session.id);
+        session.mcpSession.closeGracefully().subscribe();
+      });
+  }
+
+  private void handle(HttpExchange exchange) {
+    if (!requestPermits.tryAcquire()) {
+      logger.warn("Rejecting HTTP request, too many requests are handled concurrently");
+      trySendOverloaded(exchange);
+      exchange.close();
+      return;
+    }
+    try {
+      if (!isOriginAllowed(exchange)) {
+        sendError(exchange, 403, "Forbidden origin");
+        return;
+      }
+      switch (exchange.getRequestMethod()) {
+        case "POST" -> handlePost(exchange);
+        case "GET" -> handleGet(exchange);
+        case "DELETE" -> handleDelete(exchange);
+        default -> {
+          exchange.getResponseHeaders().set("Allow", "GET, POST, DELETE");
+          sendError(exchange, 405, "Method not allowed");
+        }
+      }
+    } catch (IOException e) {
+      logger.debug("Client disconnected", e);
+    } catch (Exception e) {
+      logger.error("Error handling HTTP request", e);
+      trySendError(exchange, 500, "Internal error");
+    } finally {
+      requestPermits.release();
+      exchange.close();
+    }
+  }
+
+  private void handlePost(HttpExchange exchange) throws IOException {
+    var body = exchange.getRequestBody().readNBytes(transportSettings.maxFrameSize() + 1);
+    if (body.length > transportSettings.maxFrameSize()) {
+      sendError(exchange, 413, "Message too large");
+      return;
+    }
+    if (JsonRpcMessageParser.isBatch(body, 0, body.length)) {
+      sendError(exchange, 400, "Invalid request, JSON-RPC batches are not supported by the HTTP transport");
+      return;
+    }
+    JSONRPCMessage message;
+    try {
+      message = JsonRpcMessageParser.parse(objectMapper, body, 0, body.length);
+    } catch (IOException | IllegalArgumentException e) {
+      sendError(exchange, 400, McpSchema.ErrorCodes.PARSE_ERROR, "Parse error");
+      return;
+    }
+
+    HttpSessionTransport session;
+    var sessionId = exchange.getRequestHeaders().getFirst(SESSION_ID_HEADER);
+    if (sessionId == null) {
+      if (!(message instanceof JSONRPCRequest request && McpSchema.METHOD_INITIALIZE.equals(request.method()))) {
+        sendError(exchange, 400, "Missing " + SESSION_ID_HEADER + " header");
+        return;
+      }
+      session = createSession();
+      if (session == null) {
+        sendError(exchange, 503, "Too many sessions");
+        return;
+      }
+      exchange.getResponseHeaders().set(SESSION_ID_HEADER, session.id);
+    } else {
+      session = sessions.get(sessionId);
+      if (session == null) {
+        sendError(exchange, 404, "Session not found");
+        return;
+      }
+    }
+    session.touch();
+
+    if (!session.tryStartRequest()) {
+      logger.warn("Rejecting HTTP request, too many requests of session {} are handled concurrently", session.id);
+      sendOverloaded(exchange, message instanceof JSONRPCRequest request ? request.id() : null);
+      return;
+    }
+    try {
+      handleMessage(exchange, session, message, body.length);
+    } finally {
+      session.endRequest();
+    }
+  }
+
+  private void handleMessage(HttpExchange exchange, HttpSessionTransport session, JSONRPCMessage message, int length) throws IOException {
+    if (InFlightRequests.isCancellation(message)) {
+      session.inFlightRequests.cancel((JSONRPCNotification) message);
+      exchange.sendResponseHeaders(202, -1);
+      return;
+    }
+    if (!(message instanceof JSONRPCRequest request)) {
+      session.mcpSession.handle(message).subscribe(null, e -> logger.error("Error handling message in session {}", session.id, e));
+      exchange.sendResponseHeaders(202, -1);
+      return;
+    }
+    var stream = session.openResponseStream(request.id(), accepts(exchange, EVENT_STREAM));
+    if (stream == null) {
+      // responses are routed by id, the response of the request in flight could otherwise end up on this HTTP response
+      var error = new JSONRPCResponse.JSONRPCError(McpSchema.ErrorCodes.INVALID_REQUEST,
+        "Invalid request, id " + request.id() + " is already in use", null);
+      sendJson(exchange, new JSONRPCResponse(McpSchema.JSONRPC_VERSION, request.id(), null, error));
+      return;
+    }
+    try {
+      if (!admissionControl.tryAdmit(length)) {
+        logger.warn("Rejecting request '{}' with id {}, the server is overloaded", request.method(), request.id());
+        var error = new JSONRPCResponse.JSONRPCError(StdioServerTransportProvider.SERVER_OVERLOADED, "Server overloaded, retry later", null);
+        sendJson(exchange, new JSONRPCResponse(McpSchema.JSONRPC_VERSION, request.id(), null, error));
+        return;
+      }
+      var handling = RequestProgress.bind(request, notification -> stream.isEventStream() ? Mono.fromRunnable(() -> stream.messages().offer(notification))
+        : session.sendMessage(notification), session.mcpSession.handle(request));
+      session.inFlightRequests.track(request, handling.doOnCancel(() -> stream.isCancelled().set(true)))
+        .doFinally(signal -> admissionControl.release(length))
+        .subscribe(null, e -> logger.error("Error handling request in session {}", session.id, e));
+      if (stream.isEventStream) {
+        writeEventStream(exchange, session, stream);
+      } else {
+        var response = stream.awaitResponse(session);
+        if (response != null) {
+          sendJson(exchange, response);
+        } else if (stream.isCancelled().get()) {
+          exchange.sendResponseHeaders(204, -1);
+        }
+      }
+    } finally {
+      session.closeStream(stream);
+    }
+  }
+
+  private void handleGet(HttpExchange exchange) throws IOException {
+    if (!accepts(exchange, EVENT_STREAM)) {
+      sendError(exchange, 406, "Only " + EVENT_STREAM + " is supported");
+      return;
+    }
+    var session = getSessionOrSendError(exchange);
+    if (session == null) {
+      return;
+    }
+    if (!session.tryStartRequest()) {
+      logger.warn("Rejecting HTTP request, too many requests of session {} are handled concurrently", session.id);
+      sendOverloaded(exchange, null);
+      return;
+    }
+    try {
+      var stream = session.openStandaloneStream();
+      if (stream == null) {
+        sendError(exchange, 409, "A stream is already open for this session");
+        return;
+      }
+      try {
+        writeEventStream(exchange, session, stream);
+      } finally {
+        session.closeStream(stream);
+        session.touch();
+      }
+    } finally {
+      session.endRequest();
+    }
+  }
+
+  private void handleDelete(HttpExchange exchange) throws IOException {
+    var session = getSessionOrSendError(exchange);
+    if (session == null) {
+      return;
+    }
+    session.mcpSession.closeGracefully().block();
+    exchange.sendResponseHeaders(204, -1);
+  }
+
+  @CheckForNull
+  private HttpSessionTransport getSessionOrSendError(HttpExchange exchange) throws IOException {
+    var sessionId = exchange.getRequestHeaders().getFirst(SESSION_ID_HEADER);
+    if (sessionId == null) {
+      sendError(exchange, 400, "Missing " + SESSION_ID_HEADER + " header");
+      return null;
+    }
+    var session = sessions.get(sessionId);
+    if (session == null) {
+      sendError(exchange, 404, "Session not found");
+    }
+    return session;
+  }
+
+  @CheckForNull
+  private HttpSessionTransport createSession() {
+    if (isClosing.get() || sessions.size() >= httpSettings.maxSessions()) {
+      return null;
+    }
+    var transport = new HttpSessionTransport(UUID.randomUUID().toString());
+    transport.mcpSession = sessionFactory.create(transport);
+    sessions.put(transport.id, transport);
+    logger.debug("Session {} created", transport.id);
+    return transport;
+  }
+
+  /**
+   * Writes the messages of the stream as Server-Sent Events until the stream is complete, the session is closed or the client disconnects.
+   * Comments are sent periodically to detect clients that went away.
+   */
+  private void writeEventStream(HttpExchange exchange, HttpSessionTransport session, ResponseStream stream) throws IOException {
+    exchange.getResponseHeaders().set("Content-Type", EVENT_STREAM);
+    exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+    exchange.sendResponseHeaders(200, 0);
+    var output = exchange.getResponseBody();
+    var lastWrite = System.nanoTime();
+    while (!session.closed && !isClosing.get() && !stream.isCancelled().get()) {
+      JSONRPCMessage message;
+      try {
+        message = stream.messages.poll(STREAM_POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+      if (message != null) {
+        writeEvent(output, message);
+        lastWrite = System.nanoTime();
+        if (stream.isResponse(message)) {
+          return;
+        }
+      } else if (System.nanoTime() - lastWrite > KEEP_ALIVE_INTERVAL_NANOS) {
+        output.write(": keep-alive\n\n".getBytes(StandardCharsets.UTF_8));
+        output.flush();
+        lastWrite = System.nanoTime();
+      }
+    }
+  }
+
+  private void writeEvent(OutputStream output, JSONRPCMessage message) throws IOException {
+    output.write("event: message\ndata: ".getBytes(StandardCharsets.UTF_8));
+    output.write(objectMapper.writeValueAsBytes(message));
+    output.write("\n\n".getBytes(StandardCharsets.UTF_8));
+    output.flush();
+  }
+
+  private void sendJson(HttpExchange exchange, JSONRPCMessage message) throws IOException {
+    sendJson(exchange, 200, message);
+  }
+
+  private void sendJson(HttpExchange exchange, int status, JSONRPCMessage message) throws IOException {
+    var bytes = objectMapper.writeValueAsBytes(message);
+    exchange.getResponseHeaders().set("Content-Type", APPLICATION_JSON);
+    exchange.sendResponseHeaders(status, bytes.length);
+    exchange.getResponseBody().write(bytes);
+  }
+
+  private void sendOverloaded(HttpExchange exchange, @Nullable Object requestId) throws IOException {
+    var error = new JSONRPCResponse.JSONRPCError(StdioServerTransportProvider.SERVER_OVERLOADED, "Server overloaded, retry later", null);
+    sendJson(exchange, 503, new JSONRPCResponse(McpSchema.JSONRPC_VERSION, requestId, null, error));
+  }
+
+  private void trySendOverloaded(HttpExchange exchange) {
+    try {
+      sendOverloaded(exchange, null);
+    } catch (IOException e) {
+      logger.debug("Client disconnected", e);
+    }
+  }
+
+  private void sendError(HttpExchange exchange, int status, String message) throws IOException {
+    sendError(exchange, status, McpSchema.ErrorCodes.INVALID_REQUEST, message);
+  }
+
+  private void sendError(HttpExchange exchange, int status, int code, String message) throws IOException {
+    var bytes = objectMapper.writeValueAsBytes(new JSONRPCResponse(McpSchema.JSONRPC_VERSION, null, null, new JSONRPCResponse.JSONRPCError(code, message, null)));
+    exchange.getResponseHeaders().set("Content-Type", APPLICATION_JSON);
+    exchange.sendResponseHeaders(status, bytes.length);
+    exchange.getResponseBody().write(bytes);
+  }
+
+  private void trySendError(HttpExchange exchange, int status, String message) {
+    try {
+      sendError(exchange, status, message);
+    } catch (Exception e) {
+      // the response was probably already started
+      logger.debug("Unable to send error response", e);
+    }
+  }
+
+  private static boolean accepts(HttpExchange exchange, String mediaType) {
+    var accept = exchange.getRequestHeaders().getFirst("Accept");
+    return accept != null && (accept.contains(mediaType) || accept.contains("*/*"));
+  }
+
+  /**
+   * Protects against DNS rebinding attacks: when listening on the loopback address, browsers may only call from a local page.
+   */
+  private boolean isOriginAllowed(HttpExchange exchange) {
+    var origin = exchange.getRequestHeaders().getFirst("Origin");
+    if (origin == null || !exchange.getLocalAddress().getAddress().isLoopbackAddress()) {
+      return true;
+    }
+    try {
+      var host = new URI(origin).getHost();
+      return host != null && ("localhost".equals(host) || InetAddress.getByName(host).isLoopbackAddress());
+    } catch (URISyntaxException | IOException e) {
+      return false;
+    }
+  }
+
+  private static ThreadFactory daemonThreadFactory(String namePrefix) {
+    var threadCount = new AtomicInteger();
+    return runnable -> {
+      var thread = new Thread(runnable, namePrefix + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  /**
+   * Messages to be written on an HTTP response.
+   * @param requestId the request answered on this stream, null for the stream opened by a GET
+   * @param isCancelled whether the request was cancelled, the stream then ends without a response
+   */
+  private record ResponseStream(@Nullable Object requestId, boolean isEventStream, BlockingQueue<JSONRPCMessage> messages, AtomicBoolean isCancelled) {
+
+    private ResponseStream(@Nullable Object requestId, boolean isEventStream) {
+      this(requestId, isEventStream, new LinkedBlockingQueue<>(), new AtomicBoolean(false));
+    }
+
+    boolean isResponse(JSONRPCMessage message) {
+      return requestId != null && message instanceof JSONRPCResponse response && requestId.equals(response.id());
+    }
+
+    @CheckForNull
+    JSONRPCMessage awaitResponse(HttpSessionTransport session) {
+      while (!session.closed && !isCancelled.get()) {
+        try {
+          var message = messages.poll(STREAM_POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+          if (message != null && isResponse(message)) {
+            return message;
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return null;
+        }
+      }
+      return null;
+    }
+  }
+
+  /**
+   * Transport of a single session. Responses are routed to the HTTP response of their request. Other messages go to the stream opened
+   * by a GET if any, otherwise to one of the open event streams.
+   */
+  private class HttpSessionTransport implements McpServerTransport {
+
+    private final String id;
+
+    private final Map<Object, ResponseStream> pendingResponses = new ConcurrentHashMap<>();
+
+    private final Set<ResponseStream> openEventStreams = ConcurrentHashMap.newKeySet();
+
+    private final AtomicBoolean hasStandaloneStream = new AtomicBoolean(false);
+
+    private final InFlightRequests inFlightRequests = new InFlightRequests();
+
+    private final AtomicInteger activeRequests = new AtomicInteger();
+
+    private McpServerSession mcpSession;
+
+    @Nullable
+    private volatile ResponseStream standaloneStream;
+
+    private volatile long lastActivityNanos = System.nanoTime();
+
+    private volatile boolean closed;
+
+    private HttpSessionTransport(String id) {
+      this.id = id;
+    }
+
+    private void touch() {
+      lastActivityNanos = System.nanoTime();
+    }
+
+    private boolean tryStartRequest() {
+      if (activeRequests.incrementAndGet() > httpSettings.maxRequestsPerSession()) {
+        activeRequests.decrementAndGet();
+        return false;
+      }
+      return true;
+    }
+
+    private void endRequest() {
+      activeRequests.decrementAndGet();
+    }
+
+    private boolean isIdleSince(long nanos) {
+      return lastActivityNanos - nanos < 0 && pendingResponses.isEmpty() && openEventStreams.isEmpty();
+    }
+
+    /**
+     * @return null if a request of the session with the same id is still in flight
+     */
+    @CheckForNull
+    private ResponseStream openResponseStream(Object requestId, boolean isEventStream) {
+      var stream = new ResponseStream(requestId, isEventStream);
+      if (pendingResponses.putIfAbsent(requestId, stream) != null) {
+        return null;
+      }
+      if (isEventStream) {
+        openEventStreams.add(stream);
+      }
+      return stream;
+    }
+
+    @CheckForNull
+    private ResponseStream openStandaloneStream() {
+      if (!hasStandaloneStream.compareAndSet(false, true)) {
+        return null;
+      }
+      var stream = new ResponseStream(null, true);
+      standaloneStream = stream;
+      openEventStreams.add(stream);
+      return stream;
+    }
+
+    private void closeStream(ResponseStream stream) {
+      openEventStreams.remove(stream);
+      if (stream.requestId() == null) {
+        standaloneStream = null;
+        hasStandaloneStream.set(false);
+      } else {
+        pendingResponses.remove(stream.requestId(), stream);
+      }
+    }
+
+    @Override
+    public Mono<Void> sendMessage(JSONRPCMessage originalMessage) {
+      return Mono.fromRunnable(() -> {
+        var message = responseCache.apply(originalMessage);
+        if (message instanceof JSONRPCResponse response && response.id() != null) {
+          var stream = pendingResponses.get(response.id());
+          if (stream != null) {
+            stream.messages.offer(response);
+            return;
+          }
+        }
+        var stream = standaloneStream;
+        if (stream == null) {
+          stream = openEventStreams.stream().findFirst().orElse(null);
+        }
+        if (stream == null) {
+          logger.debug("No open stream in session {}, dropping message {}", id, message);
+          return;
+        }
+        stream.messages.offer(message);
+      });
+    }
+
+    @Override
+    public <T> T unmarshalFrom(Object data, TypeReference<T> typeRef) {
+      return objectMapper.convertValue(data, typeRef);
+    }
+
+    @Override
+    public Mono<Void> closeGracefully() {
+      return Mono.fromRunnable(this::close);
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+      if (sessions.remove(id, this)) {
+        logger.debug("Session {} closed", id);
+      }
+    }
+  }
+
+}
@@ -0,0 +1,43 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.transport;
+
+import java.time.Duration;
+
+/**
+ * Tuning of the Streamable HTTP transport.
+ *
+ * @param host address to listen on, the loopback address by default so that the server is only reachable locally
+ * @param port port to listen on, 0 to pick a free port
+ * @param maxSessions maximum number of concurrent sessions, further clients are rejected until a session ends
+ * @param maxRequestsPerSession maximum number of HTTP requests of a session handled concurrently, event streams included, further
+ *                              requests of the session are answered with 503 Service Unavailable until one ends
+ * @param sessionIdleTimeout sessions without activity and without open stream for this long are closed
+ */
+public record HttpTransportSettings(String host, int port, int maxSessions, int maxRequestsPerSession, Duration sessionIdleTimeout) {
+
+  public static final String DEFAULT_HOST = "127.0.0.1";
+  public static final int DEFAULT_PORT = 8080;
+  public static final int DEFAULT_MAX_SESSIONS = 100;
+  public static final int DEFAULT_MAX_REQUESTS_PER_SESSION = 16;
+  public static final Duration DEFAULT_SESSION_IDLE_TIMEOUT = Duration.ofMinutes(30);
+
+  public static HttpTransportSettings defaults() {
+    return new HttpTransportSettings(DEFAULT_HOST, DEFAULT_PORT, DEFAULT_MAX_SESSIONS, DEFAULT_MAX_REQUESTS_PER_SESSION, DEFAULT_SESSION_IDLE_TIMEOUT);
+  }
+
+}
@@ -0,0 +1,82 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.transport;
+
+import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.spec.McpSchema.JSONRPCMessage;
+import io.modelcontextprotocol.spec.McpSchema.JSONRPCNotification;
+import io.modelcontextprotocol.spec.McpSchema.JSONRPCRequest;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Requests of a session that are being handled, so that a {@code notifications/cancelled} from the client can stop them.
+ * Cancelling the handling of a request cancels the tool call future, which interrupts the tool and aborts its HTTP calls or analysis.
+ * As required by the protocol, no response is sent for a cancelled request.
+ */
+class InFlightRequests {
+
+  static final String METHOD_NOTIFICATION_CANCELLED = "notifications/cancelled";
+
+  private static final Logger logger = LoggerFactory.getLogger(InFlightRequests.class);
+
+  private final Map<Object, Sinks.One<Boolean>> cancellations = new ConcurrentHashMap<>();
+
+  static boolean isCancellation(JSONRPCMessage message) {
+    return message instanceof JSONRPCNotification notification && METHOD_NOTIFICATION_CANCELLED.equals(notification.method());
+  }
+
+  /**
+   * @return the handling of the request, interrupted if the request gets cancelled
+   */
+  Mono<Void> track(JSONRPCRequest request, Mono<Void> handling) {
+    var cancellation = Sinks.<Boolean>one();
+    if (request.id() == null || cancellations.putIfAbsent(request.id(), cancellation) != null) {
+      // ids must be unique among in-flight requests, a duplicate can not be told apart
+      return handling;
+    }
+    return handling
+      .takeUntilOther(cancellation.asMono())
+      .doFinally(signal -> cancellations.remove(request.id(), cancellation));
+  }
+
+  /**
+   * @return whether a request was cancelled, false if it is unknown or already answered
+   */
+  boolean cancel(JSONRPCNotification notification) {
+    if (!(notification.params() instanceof Map<?, ?> params) || params.get("requestId") == null) {
+      logger.debug("Ignoring malformed cancellation {}", notification);
+      return false;
+    }
+    var requestId = params.get("requestId");
+    var cancellation = cancellations.remove(requestId);
+    if (cancellation == null) {
+      return false;
+    }
+    logger.debug("Cancelling request {}, reason: {}", requestId, params.get("reason"));
+    return cancellation.tryEmitValue(true).isSuccess();
+  }
+
+  int size() {
+    return cancellations.size();
+  }
+
+}
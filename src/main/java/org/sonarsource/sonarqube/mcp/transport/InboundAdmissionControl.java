@@ -0,0 +1,73 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.transport;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounds the inbound requests that are queued or being handled, by count and by size in bytes.
+ * A request is admitted only if both budgets can accommodate it, and gives its share back once handled.
+ * Rejecting a request right away is preferred to letting the queue, and the heap, grow without bound.
+ */
+class InboundAdmissionControl {
+
+  private final int maxPendingRequests;
+  private final long maxPendingBytes;
+  private final AtomicLong pendingRequests = new AtomicLong();
+  private final AtomicLong pendingBytes = new AtomicLong();
+  private final AtomicLong rejectedRequests = new AtomicLong();
+
+  InboundAdmissionControl(int maxPendingRequests, long maxPendingBytes) {
+    this.maxPendingRequests = maxPendingRequests;
+    this.maxPendingBytes = maxPendingBytes;
+  }
+
+  boolean tryAdmit(int sizeInBytes) {
+    if (pendingRequests.incrementAndGet() > maxPendingRequests) {
+      pendingRequests.decrementAndGet();
+      rejectedRequests.incrementAndGet();
+      return false;
+    }
+    // a single request bigger than the whole budget is still admitted when nothing else is pending, the frame size limit applies to it
+    var newPendingBytes = pendingBytes.addAndGet(sizeInBytes);
+    if (newPendingBytes > maxPendingBytes && newPendingBytes != sizeInBytes) {
+      pendingBytes.addAndGet(-sizeInBytes);
+      pendingRequests.decrementAndGet();
+      rejectedRequests.incrementAndGet();
+      return false;
+    }
+    return true;
+  }
+
+  void release(int sizeInBytes) {
+    pendingBytes.addAndGet(-sizeInBytes);
+    pendingRequests.decrementAndGet();
+  }
+
+  long getPendingRequests() {
+    return pendingRequests.get();
+  }
+
+  long getPendingBytes() {
+    return pendingBytes.get();
+  }
+
+  long getRejectedRequests() {
+    return rejectedRequests.get();
+  }
+
+}
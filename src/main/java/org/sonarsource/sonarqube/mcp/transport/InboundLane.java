@@ -0,0 +1,51 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.transport;
+
+import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.spec.McpSchema.JSONRPCMessage;
+import io.modelcontextprotocol.spec.McpSchema.JSONRPCRequest;
+import java.util.Set;
+
+/**
+ * Inbound messages are handled in two lanes, so that protocol control messages are never queued behind tool calls.
+ * The control lane handles the lifecycle, keepalive and listing requests, which are answered right away, as well as all notifications
+ * and responses. Any other request might run for a long time, e.g. an analysis, and goes to the work lane.
+ * The lanes do not keep the order between each other, so the work lane only starts once the initialize request was handled.
+ */
+enum InboundLane {
+
+  CONTROL,
+  WORK;
+
+  private static final Set<String> CONTROL_METHODS = Set.of(
+    McpSchema.METHOD_INITIALIZE,
+    McpSchema.METHOD_PING,
+    McpSchema.METHOD_TOOLS_LIST,
+    McpSchema.METHOD_RESOURCES_LIST,
+    McpSchema.METHOD_RESOURCES_TEMPLATES_LIST,
+    McpSchema.METHOD_PROMPT_LIST,
+    McpSchema.METHOD_LOGGING_SET_LEVEL);
+
+  static InboundLane of(JSONRPCMessage message) {
+    if (message instanceof JSONRPCRequest request && !CONTROL_METHODS.contains(request.method())) {
+      return WORK;
+    }
+    return CONTROL;
+  }
+
+}
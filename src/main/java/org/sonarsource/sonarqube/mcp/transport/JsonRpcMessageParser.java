@@ -0,0 +1,155 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.transport;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.spec.McpSchema.JSONRPCMessage;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.Nullable;
+
+/**
+ * Byte-level equivalent of {@link McpSchema#deserializeJsonRpcMessage(ObjectMapper, String)}.
+ * The frame is fed to a Jackson streaming parser directly from the read buffer, so no intermediate String is built for the whole message.
+ * No {@code JsonNode} tree is built either: the tokens of a message are buffered while its top-level field names are looked at, which
+ * tells its type, then the message is bound from the buffered tokens.
+ */
+class JsonRpcMessageParser {
+
+  private JsonRpcMessageParser() {
+    // utility class
+  }
+
+  /**
+   * @param message null if the element is not a valid JSON-RPC message
+   * @param failure why the element is not a valid JSON-RPC message
+   */
+  record BatchElement(@Nullable JSONRPCMessage message, @Nullable Exception failure) {
+  }
+
+  /**
+   * Whether the frame is a JSON-RPC batch (array) rather than a single message (object), from its first significant byte.
+   */
+  static boolean isBatch(byte[] buffer, int offset, int length) {
+    for (var i = offset; i < offset + length; i++) {
+      if (!Character.isWhitespace(buffer[i])) {
+        return buffer[i] == '[';
+      }
+    }
+    return false;
+  }
+
+  static JSONRPCMessage parse(ObjectMapper objectMapper, byte[] buffer, int offset, int length) throws IOException {
+    try (var parser = objectMapper.getFactory().createParser(buffer, offset, length)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        throw new IllegalArgumentException("Cannot deserialize JSONRPCMessage: expected a JSON object or array");
+      }
+      return bind(objectMapper, bufferObject(parser));
+    }
+  }
+
+  /**
+   * Elements that are not valid JSON-RPC messages are returned with their failure, so that they can be answered individually. A frame
+   * that is not valid JSON fails as a whole.
+   */
+  static List<BatchElement> parseBatch(ObjectMapper objectMapper, byte[] buffer, int offset, int length) throws IOException {
+    var elements = new ArrayList<BatchElement>();
+    try (var parser = objectMapper.getFactory().createParser(buffer, offset, length)) {
+      if (parser.nextToken() != JsonToken.START_ARRAY) {
+        throw new IllegalArgumentException("Cannot deserialize JSONRPCMessage: expected a JSON array");
+      }
+      JsonToken token;
+      while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+        if (token == null) {
+          throw new IOException("Unexpected end of the JSON-RPC batch");
+        }
+        if (token != JsonToken.START_OBJECT) {
+          parser.skipChildren();
+          elements.add(new BatchElement(null, new IllegalArgumentException("Cannot deserialize JSONRPCMessage: expected a JSON object")));
+          continue;
+        }
+        elements.add(readElement(objectMapper, parser));
+      }
+    }
+    return elements;
+  }
+
+  private static BatchElement readElement(ObjectMapper objectMapper, JsonParser parser) throws IOException {
+    var tokens = bufferObject(parser);
+    try {
+      return new BatchElement(bind(objectMapper, tokens), null);
+    } catch (IOException | IllegalArgumentException e) {
+      return new BatchElement(null, e);
+    }
+  }
+
+  /**
+   * The tokens of an object, and which of the top-level fields that tell the type of the message it has.
+   */
+  private record BufferedObject(TokenBuffer tokens, boolean hasMethod, boolean hasId, boolean hasResult) {
+  }
+
+  /**
+   * Copies the object the parser is on. Only its top-level field names are looked at, nested values are copied as they are.
+   */
+  private static BufferedObject bufferObject(JsonParser parser) throws IOException {
+    var tokens = new TokenBuffer(parser);
+    var hasMethod = false;
+    var hasId = false;
+    var hasResult = false;
+    tokens.writeStartObject();
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      var name = parser.currentName();
+      switch (name) {
+        case "method" -> hasMethod = true;
+        case "id" -> hasId = true;
+        case "result", "error" -> hasResult = true;
+        default -> {
+          // other fields do not change the type
+        }
+      }
+      tokens.writeFieldName(name);
+      parser.nextToken();
+      tokens.copyCurrentStructure(parser);
+    }
+    tokens.writeEndObject();
+    return new BufferedObject(tokens, hasMethod, hasId, hasResult);
+  }
+
+  private static JSONRPCMessage bind(ObjectMapper objectMapper, BufferedObject object) throws IOException {
+    // Determine message type based on specific JSON structure, same as the SDK does
+    Class<? extends JSONRPCMessage> type;
+    if (object.hasMethod() && object.hasId()) {
+      type = McpSchema.JSONRPCRequest.class;
+    } else if (object.hasMethod()) {
+      type = McpSchema.JSONRPCNotification.class;
+    } else if (object.hasResult()) {
+      type = McpSchema.JSONRPCResponse.class;
+    } else {
+      throw new IllegalArgumentException("Cannot deserialize JSONRPCMessage: unknown message structure");
+    }
+    try (var tokens = object.tokens().asParser(objectMapper)) {
+      return objectMapper.readValue(tokens, type);
+    }
+  }
+
+}
@@ -0,0 +1,107 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.transport;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import javax.annotation.CheckForNull;
+
+/**
+ * Bounded lock-free queue supporting many concurrent producers and a single consumer.
+ * Producers claim a slot by incrementing the producer index with a CAS, then publish the element in the slot.
+ * The consumer owns the consumer index and waits for a claimed slot to be published before moving on, which keeps the FIFO order.
+ */
+class MpscRingBuffer<E> {
+
+  private final int capacity;
+  private final int mask;
+  private final AtomicReferenceArray<E> slots;
+  private final AtomicLong producerIndex = new AtomicLong();
+  private final AtomicLong consumerIndex = new AtomicLong();
+
+  MpscRingBuffer(int requestedCapacity) {
+    if (requestedCapacity <= 0) {
+      throw new IllegalArgumentException("Capacity must be positive");
+    }
+    this.capacity = roundToPowerOfTwo(requestedCapacity);
+    this.mask = capacity - 1;
+    this.slots = new AtomicReferenceArray<>(capacity);
+  }
+
+  /**
+   * Can be called concurrently by any thread.
+   * @return false if the queue is full
+   */
+  boolean offer(E element) {
+    long index;
+    do {
+      index = producerIndex.get();
+      if (index - consumerIndex.get() >= capacity) {
+        return false;
+      }
+    } while (!producerIndex.compareAndSet(index, index + 1));
+    slots.lazySet((int) index & mask, element);
+    return true;
+  }
+
+  /**
+   * Must only be called by the consumer thread.
+   * @return the oldest element, or null if the queue is empty
+   */
+  @CheckForNull
+  E poll() {
+    var index = consumerIndex.get();
+    var slot = (int) index & mask;
+    var element = slots.get(slot);
+    if (element == null) {
+      if (index == producerIndex.get()) {
+        return null;
+      }
+      // a producer claimed the slot but did not publish the element yet, it is about to
+      do {
+        Thread.onSpinWait();
+        element = slots.get(slot);
+      } while (element == null);
+    }
+    slots.lazySet(slot, null);
+    consumerIndex.lazySet(index + 1);
+    return element;
+  }
+
+  boolean isEmpty() {
+    return consumerIndex.get() == producerIndex.get();
+  }
+
+  int size() {
+    // read the consumer index first so that the difference is never negative
+    var consumed = consumerIndex.get();
+    var produced = producerIndex.get();
+    return (int) Math.min(produced - consumed, capacity);
+  }
+
+  int capacity() {
+    return capacity;
+  }
+
+  private static int roundToPowerOfTwo(int value) {
+    if (value > (1 << 30)) {
+      throw new IllegalArgumentException("Capacity must not exceed " + (1 << 30));
+    }
+    return value == 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+  }
+
+}
@@ -0,0 +1,95 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.transport;
+
+import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.spec.McpSchema.JSONRPCMessage;
+import io.modelcontextprotocol.spec.McpSchema.JSONRPCRequest;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+import reactor.util.context.ContextView;
+
+/**
+ * Sends the progress notifications of a request whose client asked for them by setting a {@code progressToken} in its {@code _meta}.
+ * The SDK does not expose the request metadata to the handlers, so the transport makes it available in the Reactor context of the
+ * request handling, where handlers can look it up with {@link #from(ContextView)}.
+ */
+public final class RequestProgress {
+
+  static final String METHOD_NOTIFICATION_PROGRESS = "notifications/progress";
+
+  private static final Logger logger = LoggerFactory.getLogger(RequestProgress.class);
+
+  private static final String CONTEXT_KEY = RequestProgress.class.getName();
+
+  private final Object progressToken;
+
+  private final Function<JSONRPCMessage, Mono<Void>> sender;
+
+  private RequestProgress(Object progressToken, Function<JSONRPCMessage, Mono<Void>> sender) {
+    this.progressToken = progressToken;
+    this.sender = sender;
+  }
+
+  /**
+   * @param sender sends notifications to the client, ideally on the same stream as the response to the request
+   */
+  static Mono<Void> bind(JSONRPCRequest request, Function<JSONRPCMessage, Mono<Void>> sender, Mono<Void> handling) {
+    var progressToken = progressToken(request);
+    if (progressToken == null) {
+      return handling;
+    }
+    return handling.contextWrite(context -> context.put(CONTEXT_KEY, new RequestProgress(progressToken, sender)));
+  }
+
+  @CheckForNull
+  private static Object progressToken(JSONRPCRequest request) {
+    if (request.params() instanceof Map<?, ?> params && params.get("_meta") instanceof Map<?, ?> meta) {
+      return meta.get("progressToken");
+    }
+    return null;
+  }
+
+  public static Optional<RequestProgress> from(ContextView context) {
+    return context.getOrEmpty(CONTEXT_KEY);
+  }
+
+  /**
+   * Does not wait for the notification to be sent, a failure is only logged.
+   */
+  public void notify(long progress, @Nullable Long total, @Nullable String message) {
+    var params = new HashMap<String, Object>();
+    params.put("progressToken", progressToken);
+    params.put("progress", progress);
+    if (total != null) {
+      params.put("total", total);
+    }
+    if (message != null) {
+      params.put("message", message);
+    }
+    sender.apply(new McpSchema.JSONRPCNotification(McpSchema.JSONRPC_VERSION, METHOD_NOTIFICATION_PROGRESS, params))
+      .subscribe(null, e -> logger.debug("Failed to send progress notification", e));
+  }
+
+}
@@ -0,0 +1,73 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.transport;
+
+import io.modelcontextprotocol.spec.McpSchema.JSONRPCResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Collects the responses to the requests of a JSON-RPC batch, so they are written back together as a single array.
+ * The batch is complete once every element was dispatched and every request was handled, whether it got a response or was cancelled.
+ * A batch of notifications only has no response at all, as per the JSON-RPC specification.
+ */
+class ResponseBatch {
+
+  private final List<JSONRPCResponse> responses = new ArrayList<>();
+
+  private final AtomicInteger pendingElements;
+
+  private final Consumer<List<JSONRPCResponse>> writer;
+
+  /**
+   * @param elementCount number of elements in the batch, each one must be marked as done, and {@link #seal()} called once all of them
+   *                     were dispatched
+   */
+  ResponseBatch(int elementCount, Consumer<List<JSONRPCResponse>> writer) {
+    // one more to prevent writing the batch before all its elements are dispatched
+    this.pendingElements = new AtomicInteger(elementCount + 1);
+    this.writer = writer;
+  }
+
+  void add(JSONRPCResponse response) {
+    synchronized (responses) {
+      responses.add(response);
+    }
+  }
+
+  /**
+   * Called once the element does not expect a response, or once its response was added.
+   */
+  void elementDone() {
+    if (pendingElements.decrementAndGet() == 0) {
+      List<JSONRPCResponse> completed;
+      synchronized (responses) {
+        completed = List.copyOf(responses);
+      }
+      if (!completed.isEmpty()) {
+        writer.accept(completed);
+      }
+    }
+  }
+
+  void seal() {
+    elementDone();
+  }
+
+}
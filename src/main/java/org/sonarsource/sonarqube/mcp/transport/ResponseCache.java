@@ -0,0 +1,105 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.transport;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.util.RawValue;
+import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.spec.McpSchema.JSONRPCMessage;
+import io.modelcontextprotocol.spec.McpSchema.JSONRPCResponse;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Results of the responses that do not change during the lifetime of the server: the initialization result and the tool list.
+ * Agent frameworks request them over and over, so they are serialized once and then written as raw UTF-8 JSON, without walking the
+ * schema object graph again.
+ * Serialized results are keyed by method, plus the protocol version for the initialization, rather than by the result itself: the SDK
+ * builds a new result for each request, and comparing it would walk the whole graph. The tool list may only change along with a
+ * {@code notifications/tools/list_changed} notification, which drops the cache.
+ */
+class ResponseCache {
+
+  private static final Logger logger = LoggerFactory.getLogger(ResponseCache.class);
+
+  private final ObjectWriter objectWriter;
+
+  private final Map<String, RawValue> serializedResults = new ConcurrentHashMap<>();
+
+  ResponseCache(ObjectMapper objectMapper) {
+    this.objectWriter = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+  }
+
+  /**
+   * @return the message itself, or an equivalent one carrying the serialized result
+   */
+  JSONRPCMessage apply(JSONRPCMessage message) {
+    if (!(message instanceof JSONRPCResponse response)) {
+      return message;
+    }
+    var key = key(response.result());
+    if (key == null) {
+      return message;
+    }
+    var serializedResult = serializedResults.get(key);
+    if (serializedResult == null) {
+      try {
+        serializedResult = new RawValue(new SerializedString(objectWriter.writeValueAsString(response.result())));
+      } catch (JsonProcessingException e) {
+        logger.debug("Unable to serialize {}", response.result(), e);
+        return message;
+      }
+      serializedResults.put(key, serializedResult);
+    }
+    return new JSONRPCResponse(response.jsonrpc(), response.id(), serializedResult, null);
+  }
+
+  @CheckForNull
+  private static String key(@Nullable Object result) {
+    if (result instanceof McpSchema.InitializeResult initializeResult) {
+      return McpSchema.METHOD_INITIALIZE + ":" + initializeResult.protocolVersion();
+    }
+    // a page of a paginated list would be answered for the other pages
+    if (result instanceof McpSchema.ListToolsResult listToolsResult && listToolsResult.nextCursor() == null) {
+      return McpSchema.METHOD_TOOLS_LIST;
+    }
+    return null;
+  }
+
+  void onNotification(String method) {
+    if (McpSchema.METHOD_NOTIFICATION_TOOLS_LIST_CHANGED.equals(method)) {
+      invalidate();
+    }
+  }
+
+  void invalidate() {
+    serializedResults.clear();
+  }
+
+  int size() {
+    return serializedResults.size();
+  }
+
+}
@@ -0,0 +1,168 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.transport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import javax.annotation.CheckForNull;
+
+/**
+ * Splits a byte stream into newline-delimited frames without decoding them to Strings.
+ * The same backing buffer is reused across frames and only grows when a frame does not fit, up to the configured maximum frame size.
+ * A returned {@link Frame} is only valid until the next call to {@link #nextFrame()}.
+ */
+class StdioFrameReader {
+
+  static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+
+  private final InputStream inputStream;
+  private final int maxFrameSize;
+  private byte[] buffer;
+  // start of the data not consumed yet
+  private int start;
+  // end of the data read from the stream
+  private int end;
+  // position from which to look for the next delimiter, to avoid scanning the same bytes twice
+  private int scanPosition;
+
+  StdioFrameReader(InputStream inputStream, int maxFrameSize) {
+    this.inputStream = inputStream;
+    this.maxFrameSize = maxFrameSize;
+    this.buffer = new byte[Math.min(INITIAL_BUFFER_SIZE, maxFrameSize + 1)];
+  }
+
+  /**
+   * @return the next non-empty frame, or null when the end of the stream has been reached
+   * @throws FrameTooLargeException if a frame exceeds the maximum size. The frame is discarded and the reader can still be used.
+   */
+  @CheckForNull
+  Frame nextFrame() throws IOException {
+    while (true) {
+      var delimiterIndex = indexOfDelimiter();
+      if (delimiterIndex >= 0) {
+        var frameStart = start;
+        var frameEnd = delimiterIndex;
+        start = delimiterIndex + 1;
+        scanPosition = start;
+        if (frameEnd > frameStart && buffer[frameEnd - 1] == '\r') {
+          frameEnd--;
+        }
+        if (frameEnd > frameStart) {
+          return new Frame(buffer, frameStart, frameEnd - frameStart);
+        }
+        continue;
+      }
+      if (end - start > maxFrameSize) {
+        var discarded = discardUntilDelimiter();
+        throw new FrameTooLargeException("Inbound message is larger than the maximum frame size of " + maxFrameSize + " bytes, " + discarded + " bytes discarded");
+      }
+      if (!fill()) {
+        return remainingFrame();
+      }
+    }
+  }
+
+  private int indexOfDelimiter() {
+    for (var i = scanPosition; i < end; i++) {
+      if (buffer[i] == '\n') {
+        return i;
+      }
+    }
+    scanPosition = end;
+    return -1;
+  }
+
+  /**
+   * Reads more bytes from the stream, compacting or growing the buffer if needed.
+   * @return false if the end of the stream has been reached
+   */
+  private boolean fill() throws IOException {
+    if (end == buffer.length) {
+      if (start > 0) {
+        compact();
+      } else {
+        grow();
+      }
+    }
+    var read = inputStream.read(buffer, end, buffer.length - end);
+    if (read < 0) {
+      return false;
+    }
+    end += read;
+    return true;
+  }
+
+  private void compact() {
+    var length = end - start;
+    System.arraycopy(buffer, start, buffer, 0, length);
+    scanPosition -= start;
+    start = 0;
+    end = length;
+  }
+
+  private void grow() {
+    // one extra byte to be able to detect frames that are exactly one byte too large
+    var newSize = (int) Math.min((long) buffer.length * 2, (long) maxFrameSize + 1);
+    var newBuffer = new byte[newSize];
+    System.arraycopy(buffer, 0, newBuffer, 0, end);
+    buffer = newBuffer;
+  }
+
+  private long discardUntilDelimiter() throws IOException {
+    long discarded = 0;
+    while (true) {
+      for (var i = start; i < end; i++) {
+        if (buffer[i] == '\n') {
+          discarded += i - start;
+          start = i + 1;
+          scanPosition = start;
+          return discarded;
+        }
+      }
+      discarded += end - start;
+      start = 0;
+      end = 0;
+      scanPosition = 0;
+      var read = inputStream.read(buffer, 0, buffer.length);
+      if (read < 0) {
+        return discarded;
+      }
+      end = read;
+    }
+  }
+
+  @CheckForNull
+  private Frame remainingFrame() {
+    if (start == end) {
+      return null;
+    }
+    var frame = new Frame(buffer, start, end - start);
+    start = end;
+    scanPosition = end;
+    return frame;
+  }
+
+  record Frame(byte[] buffer, int offset, int length) {
+  }
+
+  static class FrameTooLargeException extends IOException {
+    FrameTooLargeException(String message) {
+      super(message);
+    }
+  }
+
+}
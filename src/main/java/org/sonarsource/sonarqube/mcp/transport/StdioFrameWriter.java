@@ -0,0 +1,90 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.transport;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Serializes JSON-RPC messages straight into a buffered UTF-8 stream, one message per line.
+ * Jackson escapes control characters inside strings, so as long as no pretty printing is applied the output of a message never spans
+ * several lines and no post-processing is needed.
+ * Nothing reaches the underlying stream before {@link #flush()} is called or the buffer is full, which lets the caller coalesce flushes.
+ * Not thread-safe, meant to be used by the single outbound thread.
+ */
+class StdioFrameWriter {
+
+  static final int BUFFER_SIZE = 64 * 1024;
+
+  private final JsonFactory jsonFactory;
+  private final ObjectWriter objectWriter;
+  private final CountingOutputStream outputStream;
+
+  StdioFrameWriter(ObjectMapper objectMapper, OutputStream outputStream) {
+    this.jsonFactory = objectMapper.getFactory();
+    this.objectWriter = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+    this.outputStream = new CountingOutputStream(outputStream);
+  }
+
+  /**
+   * @return the size of the frame in bytes, including the line delimiter
+   */
+  int write(Object message) throws IOException {
+    var writtenBefore = outputStream.written;
+    try (var generator = jsonFactory.createGenerator(outputStream, JsonEncoding.UTF8)) {
+      generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+      generator.disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+      objectWriter.writeValue(generator, message);
+    }
+    outputStream.write('\n');
+    return (int) (outputStream.written - writtenBefore);
+  }
+
+  void flush() throws IOException {
+    outputStream.flush();
+  }
+
+  private static class CountingOutputStream extends BufferedOutputStream {
+
+    private long written;
+
+    CountingOutputStream(OutputStream outputStream) {
+      super(outputStream, BUFFER_SIZE);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      super.write(b);
+      written++;
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+      super.write(bytes, offset, length);
+      written += length;
+    }
+
+  }
+
+}
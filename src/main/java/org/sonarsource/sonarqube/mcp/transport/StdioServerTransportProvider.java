@@ -16,41 +16,32 @@
  */
 package org.sonarsource.sonarqube.mcp.transport;
 
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.modelcontextprotocol.spec.McpError;
-import io.modelcontextprotocol.spec.McpSchema;
-import io.modelcontextprotocol.spec.McpSchema.JSONRPCMessage;
 import io.modelcontextprotocol.spec.McpServerSession;
-import io.modelcontextprotocol.spec.McpServerTransport;
 import io.modelcontextprotocol.spec.McpServerTransportProvider;
 import io.modelcontextprotocol.util.Assert;
-import java.io.BufferedReader;
-import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.OutputStream;
-import java.nio.charset.StandardCharsets;
-import java.util.concurrent.Executors;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.function.Function;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.publisher.Sinks;
-import reactor.core.scheduler.Scheduler;
-import reactor.core.scheduler.Schedulers;
 
 /**
  * Implementation copied from the Java MCP SDK to workaround this issue: https://github.com/modelcontextprotocol/java-sdk/issues/304
  * Implementation of the MCP Stdio transport provider for servers that communicates using
  * standard input/output streams. Messages are exchanged as newline-delimited JSON-RPC
  * messages over stdin/stdout, with errors and debug information sent to stderr.
+ * The messages of the single session are exchanged by a {@link StreamSessionTransport}.
  *
  * @author Christian Tzolov
  */
-public class StdioServerTransportProvider implements McpServerTransportProvider {
+public class StdioServerTransportProvider implements McpServerTransportProvider, StdioTransportMXBean {
+
+  /**
+   * JSON-RPC error code, in the range reserved for implementation-defined server errors.
+   */
+  public static final int SERVER_OVERLOADED = -32000;
 
   private static final Logger logger = LoggerFactory.getLogger(StdioServerTransportProvider.class);
 
@@ -60,11 +51,17 @@ public class StdioServerTransportProvider implements McpServerTransportProvider
 
   private final OutputStream outputStream;
 
-  private McpServerSession session;
+  private final TransportSettings transportSettings;
+
+  private final InboundAdmissionControl admissionControl;
 
-  private final AtomicBoolean isClosing = new AtomicBoolean(false);
+  private final ResponseCache responseCache;
 
-  private final Sinks.One<Void> inboundReady = Sinks.one();
+  private final TransportMetrics metrics = new TransportMetrics();
+
+  private McpServerSession session;
+
+  private StreamSessionTransport sessionTransport;
 
   /**
    * Creates a new StdioServerTransportProvider with a default ObjectMapper and System
@@ -91,227 +88,127 @@ public class StdioServerTransportProvider implements McpServerTransportProvider
    * @param outputStream The output stream to write to
    */
   public StdioServerTransportProvider(ObjectMapper objectMapper, InputStream inputStream, OutputStream outputStream) {
+    this(objectMapper, inputStream, outputStream, TransportSettings.defaults());
+  }
+
+  /**
+   * Creates a new StdioServerTransportProvider with the specified ObjectMapper,
+   * streams and settings.
+   * @param objectMapper The ObjectMapper to use for JSON serialization/deserialization
+   * @param inputStream The input stream to read from
+   * @param outputStream The output stream to write to
+   * @param transportSettings The transport tuning, e.g. the maximum inbound frame size
+   */
+  public StdioServerTransportProvider(ObjectMapper objectMapper, InputStream inputStream, OutputStream outputStream, TransportSettings transportSettings) {
     Assert.notNull(objectMapper, "The ObjectMapper can not be null");
     Assert.notNull(inputStream, "The InputStream can not be null");
     Assert.notNull(outputStream, "The OutputStream can not be null");
+    Assert.notNull(transportSettings, "The TransportSettings can not be null");
 
     this.objectMapper = objectMapper;
     this.inputStream = inputStream;
     this.outputStream = outputStream;
+    this.transportSettings = transportSettings;
+    this.admissionControl = new InboundAdmissionControl(transportSettings.maxPendingRequests(), transportSettings.maxPendingRequestBytes());
+    this.responseCache = new ResponseCache(objectMapper);
   }
 
   @Override
   public void setSessionFactory(McpServerSession.Factory sessionFactory) {
     // Create a single session for the stdio connection
-    var transport = new StdioMcpSessionTransport();
+    var transport = new StreamSessionTransport(objectMapper, inputStream, outputStream, transportSettings, admissionControl, responseCache, metrics, () -> {
+    });
     this.session = sessionFactory.create(transport);
-    transport.initProcessing();
+    this.sessionTransport = transport;
+    transport.start(session);
   }
 
   @Override
-  public Mono<Void> notifyClients(String method, Object params) {
-    if (this.session == null) {
-      return Mono.error(new McpError("No session to close"));
-    }
-    return this.session.sendNotification(method, params)
-      .doOnError(e -> logger.error("Failed to send notification for {} and params {}", method, params, e));
+  public long getPendingInboundRequests() {
+    return admissionControl.getPendingRequests();
   }
 
   @Override
-  public Mono<Void> closeGracefully() {
-    if (this.session == null) {
-      return Mono.empty();
-    }
-    return this.session.closeGracefully();
+  public long getPendingInboundBytes() {
+    return admissionControl.getPendingBytes();
   }
 
-  /**
-   * Implementation of McpServerTransport for the stdio session.
-   */
-  private class StdioMcpSessionTransport implements McpServerTransport {
-
-    private final Sinks.Many<JSONRPCMessage> inboundSink;
-
-    private final Sinks.Many<JSONRPCMessage> outboundSink;
-
-    private final AtomicBoolean isStarted = new AtomicBoolean(false);
-
-    /** Scheduler for handling inbound messages */
-    private Scheduler inboundScheduler;
+  @Override
+  public long getRejectedInboundRequests() {
+    return admissionControl.getRejectedRequests();
+  }
 
-    /** Scheduler for handling outbound messages */
-    private Scheduler outboundScheduler;
+  @Override
+  public int getOutboundQueueDepth() {
+    var transport = this.sessionTransport;
+    return transport == null ? 0 : transport.getOutboundQueueDepth();
+  }
 
-    private final Sinks.One<Void> outboundReady = Sinks.one();
+  public TransportMetrics getMetrics() {
+    return metrics;
+  }
 
-    public StdioMcpSessionTransport() {
+  @Override
+  public long getInboundFrames() {
+    return metrics.getInboundFrames();
+  }
 
-      this.inboundSink = Sinks.many().unicast().onBackpressureBuffer();
-      this.outboundSink = Sinks.many().unicast().onBackpressureBuffer();
+  @Override
+  public long getInboundBytes() {
+    return metrics.getInboundBytes();
+  }
 
-      // Use bounded schedulers for better resource management
-      this.inboundScheduler = Schedulers.fromExecutorService(Executors.newSingleThreadExecutor(),
-        "stdio-inbound");
-      this.outboundScheduler = Schedulers.fromExecutorService(Executors.newSingleThreadExecutor(),
-        "stdio-outbound");
-    }
+  @Override
+  public long getOutboundFrames() {
+    return metrics.getOutboundFrames();
+  }
 
-    @Override
-    public Mono<Void> sendMessage(JSONRPCMessage message) {
-      return Mono.when(inboundReady.asMono(), outboundReady.asMono()).then(Mono.defer(() -> {
-
-        Sinks.EmitResult emitResult;
-        // XXX workaround for https://github.com/modelcontextprotocol/java-sdk/issues/304
-        synchronized (StdioMcpSessionTransport.this) {
-          emitResult = outboundSink.tryEmitNext(message);
-        }
-        if (emitResult.isSuccess()) {
-          return Mono.empty();
-        } else {
-          return Mono.error(new RuntimeException("Failed to enqueue message"));
-        }
-      }));
-    }
+  @Override
+  public long getOutboundBytes() {
+    return metrics.getOutboundBytes();
+  }
 
-    @Override
-    public <T> T unmarshalFrom(Object data, TypeReference<T> typeRef) {
-      return objectMapper.convertValue(data, typeRef);
-    }
+  @Override
+  public HistogramSnapshot getInboundFrameSizes() {
+    return metrics.getInboundFrameSizes();
+  }
 
-    @Override
-    public Mono<Void> closeGracefully() {
-      return Mono.fromRunnable(() -> {
-        isClosing.set(true);
-        logger.debug("Session transport closing gracefully");
-        inboundSink.tryEmitComplete();
-      });
-    }
+  @Override
+  public HistogramSnapshot getOutboundFrameSizes() {
+    return metrics.getOutboundFrameSizes();
+  }
 
-    @Override
-    public void close() {
-      isClosing.set(true);
-      logger.debug("Session transport closed");
-    }
+  @Override
+  public HistogramSnapshot getDeserializationNanos() {
+    return metrics.getDeserializationNanos();
+  }
 
-    private void initProcessing() {
-      handleIncomingMessages();
-      startInboundProcessing();
-      startOutboundProcessing();
-    }
+  @Override
+  public HistogramSnapshot getSerializationNanos() {
+    return metrics.getSerializationNanos();
+  }
 
-    private void handleIncomingMessages() {
-      this.inboundSink.asFlux().flatMap(message -> session.handle(message)).doOnTerminate(() -> {
-        // The outbound processing will dispose its scheduler upon completion
-        this.outboundSink.tryEmitComplete();
-        this.inboundScheduler.dispose();
-      }).subscribe();
-    }
+  @Override
+  public HistogramSnapshot getFlushNanos() {
+    return metrics.getFlushNanos();
+  }
 
-    /**
-     * Starts the inbound processing thread that reads JSON-RPC messages from stdin.
-     * Messages are deserialized and passed to the session for handling.
-     */
-    private void startInboundProcessing() {
-      if (isStarted.compareAndSet(false, true)) {
-        this.inboundScheduler.schedule(() -> {
-          inboundReady.tryEmitValue(null);
-          BufferedReader reader = null;
-          try {
-            reader = new BufferedReader(new InputStreamReader(inputStream));
-            while (!isClosing.get()) {
-              try {
-                String line = reader.readLine();
-                if (line == null || isClosing.get()) {
-                  break;
-                }
-
-                logger.debug("Received JSON message: {}", line);
-
-                try {
-                  JSONRPCMessage message = McpSchema.deserializeJsonRpcMessage(objectMapper,
-                    line);
-                  if (!this.inboundSink.tryEmitNext(message).isSuccess()) {
-                    // logIfNotClosing("Failed to enqueue message");
-                    break;
-                  }
-
-                } catch (Exception e) {
-                  logIfNotClosing("Error processing inbound message", e);
-                  break;
-                }
-              } catch (IOException e) {
-                logIfNotClosing("Error reading from stdin", e);
-                break;
-              }
-            }
-          } catch (Exception e) {
-            logIfNotClosing("Error in inbound processing", e);
-          } finally {
-            isClosing.set(true);
-            if (session != null) {
-              session.close();
-            }
-            inboundSink.tryEmitComplete();
-          }
-        });
-      }
+  @Override
+  public Mono<Void> notifyClients(String method, Object params) {
+    if (this.session == null) {
+      return Mono.error(new McpError("No session to close"));
     }
+    responseCache.onNotification(method);
+    return this.session.sendNotification(method, params)
+      .doOnError(e -> logger.error("Failed to send notification for {} and params {}", method, params, e));
+  }
 
-    /**
-     * Starts the outbound processing thread that writes JSON-RPC messages to stdout.
-     * Messages are serialized to JSON and written with a newline delimiter.
-     */
-    private void startOutboundProcessing() {
-      Function<Flux<JSONRPCMessage>, Flux<JSONRPCMessage>> outboundConsumer = messages -> messages // @formatter:off
-        .doOnSubscribe(subscription -> outboundReady.tryEmitValue(null))
-        .publishOn(outboundScheduler)
-        .handle((message, sink) -> {
-          if (message != null && !isClosing.get()) {
-            try {
-              String jsonMessage = objectMapper.writeValueAsString(message);
-              // Escape any embedded newlines in the JSON message as per spec
-              jsonMessage = jsonMessage.replace("\r\n", "\\n").replace("\n", "\\n").replace("\r", "\\n");
-
-              synchronized (outputStream) {
-                outputStream.write(jsonMessage.getBytes(StandardCharsets.UTF_8));
-                outputStream.write("\n".getBytes(StandardCharsets.UTF_8));
-                outputStream.flush();
-              }
-              sink.next(message);
-            } catch (IOException e) {
-              if (!isClosing.get()) {
-                logger.error("Error writing message", e);
-                sink.error(new RuntimeException(e));
-              } else {
-                logger.debug("Stream closed during shutdown", e);
-              }
-            }
-          } else if (isClosing.get()) {
-            sink.complete();
-          }
-        })
-        .doOnComplete(() -> {
-          isClosing.set(true);
-          outboundScheduler.dispose();
-        })
-        .doOnError(e -> {
-          if (!isClosing.get()) {
-            logger.error("Error in outbound processing", e);
-            isClosing.set(true);
-            outboundScheduler.dispose();
-          }
-        })
-        .map(msg -> (JSONRPCMessage) msg);
-
-      outboundConsumer.apply(outboundSink.asFlux()).subscribe();
-    } // @formatter:on
-
-    private void logIfNotClosing(String message, Exception e) {
-      if (!isClosing.get()) {
-        logger.error(message, e);
-      }
+  @Override
+  public Mono<Void> closeGracefully() {
+    if (this.session == null) {
+      return Mono.empty();
     }
-
+    return this.session.closeGracefully();
   }
 
 }
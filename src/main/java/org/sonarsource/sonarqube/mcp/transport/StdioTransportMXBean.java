@@ -0,0 +1,73 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.transport;
+
+/**
+ * Queue-depth gauges and traffic metrics of the stdio transport, exported over JMX.
+ * Distributions are exported as composite values holding the count, mean, max and percentiles. Sizes are in bytes and durations in
+ * nanoseconds, see {@link TransportMetrics}.
+ */
+public interface StdioTransportMXBean {
+
+  /**
+   * Inbound requests queued or being handled.
+   */
+  long getPendingInboundRequests();
+
+  /**
+   * Size in bytes of the inbound requests queued or being handled.
+   */
+  long getPendingInboundBytes();
+
+  /**
+   * Inbound requests rejected because the server was overloaded, since the start.
+   */
+  long getRejectedInboundRequests();
+
+  /**
+   * Outbound messages waiting to be written.
+   */
+  int getOutboundQueueDepth();
+
+  long getInboundFrames();
+
+  long getInboundBytes();
+
+  long getOutboundFrames();
+
+  long getOutboundBytes();
+
+  HistogramSnapshot getInboundFrameSizes();
+
+  HistogramSnapshot getOutboundFrameSizes();
+
+  /**
+   * Time to parse an inbound frame into JSON-RPC messages.
+   */
+  HistogramSnapshot getDeserializationNanos();
+
+  /**
+   * Time to serialize an outbound message into the write buffer.
+   */
+  HistogramSnapshot getSerializationNanos();
+
+  /**
+   * Time to write the buffered messages to stdout.
+   */
+  HistogramSnapshot getFlushNanos();
+
+}
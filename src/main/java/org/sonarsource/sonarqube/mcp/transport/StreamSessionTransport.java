@@ -0,0 +1,552 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.transport;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.spec.McpSchema.JSONRPCMessage;
+import io.modelcontextprotocol.spec.McpSchema.JSONRPCNotification;
+import io.modelcontextprotocol.spec.McpSchema.JSONRPCRequest;
+import io.modelcontextprotocol.spec.McpSchema.JSONRPCResponse;
+import io.modelcontextprotocol.spec.McpServerSession;
+import io.modelcontextprotocol.spec.McpServerTransport;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Session transport exchanging newline-delimited JSON-RPC messages over a pair of streams, e.g. stdin/stdout or a socket.
+ * Inbound frames are located directly in a reusable byte buffer and parsed without building intermediate Strings.
+ * Outbound messages go through a bounded lock-free queue to a single writer thread. They are serialized straight into a buffered
+ * stream, which is only flushed once the outbound queue is drained.
+ * Inbound requests are subject to the admission control, requests over budget are immediately answered with a
+ * {@link StdioServerTransportProvider#SERVER_OVERLOADED} error. Notifications and responses are always accepted, cancellations stop
+ * the handling of their request.
+ * A JSON-RPC batch (array) is dispatched element by element, so its requests are handled concurrently, and the responses are written
+ * back as a single array once all of them were handled. Responses are routed by request id, so a request reusing the id of a request
+ * still in flight, in a batch or not, is answered with an invalid request error.
+ * Control messages (see {@link InboundLane}) are handled straight from the reading thread, while the other requests are handed over to
+ * a separate thread. A tool call that is slow to start can thus never delay a ping, which keeps the client from timing out during an
+ * analysis. The other requests are only handed over once the initialize request was handled, so that they cannot overtake it.
+ */
+class StreamSessionTransport implements McpServerTransport {
+
+  private static final Logger logger = LoggerFactory.getLogger(StreamSessionTransport.class);
+
+  private static final long ENQUEUE_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  private static final long ENQUEUE_BACKOFF_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+  private static final long OUTBOUND_PARK_TIMEOUT_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+  private final ObjectMapper objectMapper;
+
+  private final InputStream inputStream;
+
+  private final OutputStream outputStream;
+
+  private final TransportSettings transportSettings;
+
+  private final InboundAdmissionControl admissionControl;
+
+  private final ResponseCache responseCache;
+
+  private final TransportMetrics metrics;
+
+  private final Runnable terminationListener;
+
+  private final AtomicBoolean isClosing = new AtomicBoolean(false);
+
+  private final InFlightRequests inFlightRequests = new InFlightRequests();
+
+  private final Sinks.One<Void> inboundReady = Sinks.one();
+
+  private McpServerSession session;
+
+  private final Sinks.Many<InboundMessage> controlSink;
+
+  private final Sinks.Many<InboundMessage> workSink;
+
+  /** Holds the work lane back until the session is initialized, so that a tool call cannot overtake the initialize request */
+  private final Sinks.Empty<Void> workLaneOpening = Sinks.empty();
+
+  /** Holds JSON-RPC messages, and lists of responses to batches */
+  private final MpscRingBuffer<Object> outboundQueue;
+
+  /** Requests dispatched and not answered yet, by id, since responses are routed by id alone */
+  private final Map<Object, PendingRequest> pendingRequests = new ConcurrentHashMap<>();
+
+  private final AtomicBoolean isStarted = new AtomicBoolean(false);
+
+  /** Scheduler for handling inbound messages */
+  private Scheduler inboundScheduler;
+
+  /** Scheduler starting the handling of the requests of the work lane */
+  private final Scheduler workScheduler;
+
+  /** Single writer thread, consumer of the outbound queue */
+  private final ExecutorService outboundExecutor;
+
+  private volatile Thread outboundThread;
+
+  private volatile boolean outboundThreadParked;
+
+  private final Sinks.One<Void> outboundReady = Sinks.one();
+
+  StreamSessionTransport(ObjectMapper objectMapper, InputStream inputStream, OutputStream outputStream, TransportSettings transportSettings,
+    InboundAdmissionControl admissionControl, ResponseCache responseCache, TransportMetrics metrics, Runnable terminationListener) {
+    this.objectMapper = objectMapper;
+    this.inputStream = inputStream;
+    this.outputStream = outputStream;
+    this.transportSettings = transportSettings;
+    this.admissionControl = admissionControl;
+    this.responseCache = responseCache;
+    this.metrics = metrics;
+    this.terminationListener = terminationListener;
+    this.controlSink = Sinks.many().unicast().onBackpressureBuffer();
+    this.workSink = Sinks.many().unicast().onBackpressureBuffer();
+    this.outboundQueue = new MpscRingBuffer<>(transportSettings.outboundQueueCapacity());
+
+    // Use bounded schedulers for better resource management
+    this.inboundScheduler = Schedulers.fromExecutorService(Executors.newSingleThreadExecutor(),
+      "mcp-inbound");
+    this.workScheduler = Schedulers.fromExecutorService(Executors.newSingleThreadExecutor(), "mcp-inbound-work");
+    this.outboundExecutor = Executors.newSingleThreadExecutor();
+  }
+
+  @Override
+  public Mono<Void> sendMessage(JSONRPCMessage message) {
+    return Mono.when(inboundReady.asMono(), outboundReady.asMono()).then(Mono.defer(() -> {
+      if (message instanceof JSONRPCResponse response && collectInBatch(response)) {
+        return Mono.empty();
+      }
+      if (enqueue(responseCache.apply(message))) {
+        return Mono.empty();
+      }
+      if (message instanceof JSONRPCNotification notification) {
+        // notifications are informational, the client does not wait for them
+        logIfNotClosing("Dropping notification '" + notification.method() + "'", new IllegalStateException("Outbound queue is full"));
+        return Mono.empty();
+      }
+      return Mono.error(new IllegalStateException("Failed to enqueue message, the outbound queue is full"));
+    }));
+  }
+
+  /**
+   * Lock-free, many tool completions and notifications can be enqueued concurrently.
+   * When the queue is full, a producer running on a non-blocking Reactor thread is refused right away. Other producers, e.g. tools
+   * running on the bounded elastic scheduler, back off until the writer thread catches up, for a short while only.
+   */
+  private boolean enqueue(Object message) {
+    var deadline = System.nanoTime() + ENQUEUE_TIMEOUT_NANOS;
+    while (!outboundQueue.offer(message)) {
+      if (isClosing.get() || Schedulers.isInNonBlockingThread() || System.nanoTime() - deadline > 0) {
+        return false;
+      }
+      wakeUpOutboundThread();
+      LockSupport.parkNanos(ENQUEUE_BACKOFF_NANOS);
+    }
+    wakeUpOutboundThread();
+    return true;
+  }
+
+  private boolean collectInBatch(JSONRPCResponse response) {
+    // the id is released before the client can get the response and reuse it
+    var pendingRequest = response.id() == null ? null : pendingRequests.remove(response.id());
+    if (pendingRequest == null || pendingRequest.batch() == null) {
+      return false;
+    }
+    pendingRequest.batch().add((JSONRPCResponse) responseCache.apply(response));
+    return true;
+  }
+
+  private void writeBatch(List<JSONRPCResponse> responses) {
+    if (!enqueue(responses)) {
+      logIfNotClosing("Failed to enqueue batch response", new IllegalStateException("Outbound queue is full"));
+    }
+  }
+
+  @Override
+  public <T> T unmarshalFrom(Object data, TypeReference<T> typeRef) {
+    return objectMapper.convertValue(data, typeRef);
+  }
+
+  @Override
+  public Mono<Void> closeGracefully() {
+    return Mono.fromRunnable(() -> {
+      isClosing.set(true);
+      logger.debug("Session transport closing gracefully");
+      completeInbound();
+    });
+  }
+
+  @Override
+  public void close() {
+    isClosing.set(true);
+    logger.debug("Session transport closed");
+  }
+
+  /**
+   * Starts reading and writing messages for the given session, which was created with this transport.
+   */
+  void start(McpServerSession session) {
+    this.session = session;
+    handleIncomingMessages();
+    startInboundProcessing();
+    startOutboundProcessing();
+  }
+
+  private void handleIncomingMessages() {
+    var control = this.controlSink.asFlux().flatMap(this::handle, Integer.MAX_VALUE);
+    var work = this.workSink.asFlux().delaySubscription(workLaneOpening.asMono()).publishOn(workScheduler).flatMap(this::handle);
+    Flux.merge(control, work).doOnTerminate(() -> {
+      // All the messages were handled, so no response is on its way anymore. The outbound processing will write what is left in the
+      // queue, then shut its executor down
+      isClosing.set(true);
+      if (session != null) {
+        session.close();
+      }
+      wakeUpOutboundThread();
+      this.inboundScheduler.dispose();
+      this.workScheduler.dispose();
+    }).subscribe();
+  }
+
+  private Mono<Void> handle(InboundMessage inbound) {
+    return inbound.handling().doFinally(signal -> {
+      release(inbound);
+      completeRequest(inbound);
+      if (inbound.message() instanceof JSONRPCRequest request && McpSchema.METHOD_INITIALIZE.equals(request.method())) {
+        openWorkLane();
+      }
+    });
+  }
+
+  private void openWorkLane() {
+    workLaneOpening.tryEmitEmpty();
+  }
+
+  private void completeInbound() {
+    controlSink.tryEmitComplete();
+    workSink.tryEmitComplete();
+    // the requests waiting for the initialization must still be handled for the transport to terminate
+    openWorkLane();
+  }
+
+  private Mono<Void> handle(JSONRPCMessage message) {
+    if (message instanceof JSONRPCRequest request) {
+      return inFlightRequests.track(request, RequestProgress.bind(request, this::sendMessage, session.handle(request)));
+    }
+    return session.handle(message);
+  }
+
+  /**
+   * Starts the inbound processing thread that reads JSON-RPC messages from stdin.
+   * Messages are deserialized and passed to the session for handling.
+   */
+  private void startInboundProcessing() {
+    if (isStarted.compareAndSet(false, true)) {
+      this.inboundScheduler.schedule(() -> {
+        inboundReady.tryEmitValue(null);
+        try {
+          var frameReader = new StdioFrameReader(inputStream, transportSettings.maxFrameSize());
+          while (!isClosing.get()) {
+            StdioFrameReader.Frame frame;
+            try {
+              frame = frameReader.nextFrame();
+            } catch (StdioFrameReader.FrameTooLargeException e) {
+              logIfNotClosing("Discarding inbound message", e);
+              continue;
+            } catch (IOException e) {
+              logIfNotClosing("Error reading from stdin", e);
+              break;
+            }
+            if (frame == null || isClosing.get()) {
+              break;
+            }
+
+            if (logger.isDebugEnabled()) {
+              logger.debug("Received JSON message: {}", new String(frame.buffer(), frame.offset(), frame.length(), StandardCharsets.UTF_8));
+            }
+
+            try {
+              var parseStart = System.nanoTime();
+              boolean dispatched;
+              if (JsonRpcMessageParser.isBatch(frame.buffer(), frame.offset(), frame.length())) {
+                var elements = JsonRpcMessageParser.parseBatch(objectMapper, frame.buffer(), frame.offset(), frame.length());
+                metrics.recordInboundFrame(frame.length(), System.nanoTime() - parseStart);
+                dispatched = dispatchBatch(elements, frame.length());
+              } else {
+                var message = JsonRpcMessageParser.parse(objectMapper, frame.buffer(), frame.offset(), frame.length());
+                metrics.recordInboundFrame(frame.length(), System.nanoTime() - parseStart);
+                dispatched = dispatch(message, frame.length(), null);
+              }
+              if (!dispatched) {
+                break;
+              }
+            } catch (Exception e) {
+              logIfNotClosing("Error processing inbound message", e);
+              break;
+            }
+          }
+        } catch (Exception e) {
+          logIfNotClosing("Error in inbound processing", e);
+        } finally {
+          // no more input, but the messages already dispatched are still handled and answered before the transport closes
+          completeInbound();
+        }
+      });
+    }
+  }
+
+  /**
+   * Runs the outbound processing thread that writes JSON-RPC messages to stdout.
+   * Messages are serialized to JSON and written with a newline delimiter.
+   * The output is flushed only when no other message is waiting to be written, then the thread parks until a producer wakes it up.
+   * Once the transport is closing, the thread drains the queue and flushes the output before it ends.
+   */
+  private void startOutboundProcessing() {
+    this.outboundExecutor.execute(() -> {
+      outboundThread = Thread.currentThread();
+      outboundReady.tryEmitValue(null);
+      var frameWriter = new StdioFrameWriter(objectMapper, outputStream);
+      var hasUnflushedData = false;
+      try {
+        while (true) {
+          var message = outboundQueue.poll();
+          if (message != null) {
+            var serializationStart = System.nanoTime();
+            var frameSize = frameWriter.write(message);
+            metrics.recordOutboundFrame(frameSize, System.nanoTime() - serializationStart);
+            hasUnflushedData = true;
+          } else if (hasUnflushedData) {
+            var flushStart = System.nanoTime();
+            frameWriter.flush();
+            metrics.recordFlush(System.nanoTime() - flushStart);
+            hasUnflushedData = false;
+          } else if (isClosing.get()) {
+            break;
+          } else {
+            parkUntilMessageIsAvailable();
+          }
+        }
+      } catch (IOException e) {
+        if (!isClosing.get()) {
+          logger.error("Error in outbound processing", e);
+        } else {
+          logger.debug("Stream closed during shutdown", e);
+        }
+      } finally {
+        isClosing.set(true);
+        outboundExecutor.shutdown();
+        // nothing will be written anymore, the streams can be released
+        terminationListener.run();
+      }
+    });
+  }
+
+  private void parkUntilMessageIsAvailable() {
+    outboundThreadParked = true;
+    // check again after publishing the parked flag, a producer might have enqueued a message in between
+    if (outboundQueue.isEmpty() && !isClosing.get()) {
+      LockSupport.parkNanos(OUTBOUND_PARK_TIMEOUT_NANOS);
+    }
+    outboundThreadParked = false;
+  }
+
+  private void wakeUpOutboundThread() {
+    var thread = outboundThread;
+    if (outboundThreadParked && thread != null) {
+      LockSupport.unpark(thread);
+    }
+  }
+
+  /**
+   * @return false if the message could not be handed over to the session, which means the transport is terminating
+   */
+  private boolean dispatch(JSONRPCMessage message, int length, @Nullable ResponseBatch batch) {
+    if (batch != null && !(message instanceof JSONRPCRequest)) {
+      // only requests are answered, and thus awaited by the batch
+      batch.elementDone();
+      return dispatch(message, length, null);
+    }
+    if (InFlightRequests.isCancellation(message)) {
+      // applied right away rather than queued behind the requests being handled
+      inFlightRequests.cancel((JSONRPCNotification) message);
+      return true;
+    }
+    var admittedBytes = 0;
+    PendingRequest pendingRequest = null;
+    if (message instanceof JSONRPCRequest request) {
+      pendingRequest = new PendingRequest(batch);
+      if (request.id() != null && pendingRequests.putIfAbsent(request.id(), pendingRequest) != null) {
+        // its response could not be told apart from the one of the other request
+        reject(request, batch, McpSchema.ErrorCodes.INVALID_REQUEST, "Invalid request, id " + request.id() + " is already in use");
+        return true;
+      }
+      if (!admissionControl.tryAdmit(length)) {
+        logger.warn("Rejecting request '{}' with id {}, the server is overloaded", request.method(), request.id());
+        forget(request, pendingRequest);
+        reject(request, batch, StdioServerTransportProvider.SERVER_OVERLOADED, "Server overloaded, retry later");
+        return true;
+      }
+      admittedBytes = length;
+    }
+    // built right away, so that the request can be cancelled while waiting for its lane
+    var inbound = new InboundMessage(message, handle(message), admittedBytes, pendingRequest);
+    var sink = InboundLane.of(message) == InboundLane.CONTROL ? controlSink : workSink;
+    if (!sink.tryEmitNext(inbound).isSuccess()) {
+      release(inbound);
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Elements that are not valid JSON-RPC messages are answered with an invalid request error in the batch response. An empty batch is
+   * answered with a single invalid request error.
+   * The frame length is evenly shared between the elements for the admission control.
+   */
+  private boolean dispatchBatch(List<JsonRpcMessageParser.BatchElement> elements, int frameLength) {
+    if (elements.isEmpty()) {
+      sendMessage(invalidRequest()).subscribe(null, e -> logIfNotClosing("Failed to send invalid request error", e));
+      return true;
+    }
+    var batch = new ResponseBatch(elements.size(), this::writeBatch);
+    var lengthPerElement = Math.max(1, frameLength / elements.size());
+    try {
+      for (var element : elements) {
+        var message = element.message();
+        if (message == null) {
+          logger.debug("Invalid message in batch", element.failure());
+          batch.add(invalidRequest());
+          batch.elementDone();
+          continue;
+        }
+        if (!dispatch(message, lengthPerElement, batch)) {
+          return false;
+        }
+      }
+    } finally {
+      batch.seal();
+    }
+    return true;
+  }
+
+  private static JSONRPCResponse invalidRequest() {
+    var error = new JSONRPCResponse.JSONRPCError(McpSchema.ErrorCodes.INVALID_REQUEST, "Invalid request", null);
+    return new JSONRPCResponse(McpSchema.JSONRPC_VERSION, null, null, error);
+  }
+
+  private void completeRequest(InboundMessage inbound) {
+    var pendingRequest = inbound.pendingRequest();
+    if (pendingRequest == null) {
+      return;
+    }
+    // a cancelled request has no response, stop waiting for it
+    forget((JSONRPCRequest) inbound.message(), pendingRequest);
+    if (pendingRequest.batch() != null) {
+      pendingRequest.batch().elementDone();
+    }
+  }
+
+  private void forget(JSONRPCRequest request, PendingRequest pendingRequest) {
+    if (request.id() != null) {
+      // a later request may already reuse the id
+      pendingRequests.remove(request.id(), pendingRequest);
+    }
+  }
+
+  /**
+   * The error is written without going through {@link #sendMessage(JSONRPCMessage)}, which would route it by id to another request.
+   */
+  private void reject(JSONRPCRequest request, @Nullable ResponseBatch batch, int code, String errorMessage) {
+    var response = new JSONRPCResponse(McpSchema.JSONRPC_VERSION, request.id(), null, new JSONRPCResponse.JSONRPCError(code, errorMessage, null));
+    if (batch != null) {
+      batch.add(response);
+      batch.elementDone();
+    } else if (!enqueue(response)) {
+      logIfNotClosing("Failed to enqueue error response", new IllegalStateException("Outbound queue is full"));
+    }
+  }
+
+  private void release(InboundMessage inbound) {
+    if (inbound.admittedBytes() > 0) {
+      admissionControl.release(inbound.admittedBytes());
+    }
+  }
+
+  int getOutboundQueueDepth() {
+    return outboundQueue.size();
+  }
+
+  private void logIfNotClosing(String message, Throwable e) {
+    if (!isClosing.get()) {
+      logger.error(message, e);
+    }
+  }
+
+  /**
+   * @param handling handling of the message by the session, not subscribed yet
+   * @param admittedBytes share of the admission budget held by the message until handled, 0 if it is not subject to admission control
+   * @param pendingRequest null if the message is not a request
+   */
+  private record InboundMessage(JSONRPCMessage message, Mono<Void> handling, int admittedBytes, @Nullable PendingRequest pendingRequest) {
+  }
+
+  /**
+   * Compared by identity, so that a request completing late does not unregister a later request reusing its id.
+   */
+  private static final class PendingRequest {
+
+    @Nullable
+    private final ResponseBatch batch;
+
+    private PendingRequest(@Nullable ResponseBatch batch) {
+      this.batch = batch;
+    }
+
+    /**
+     * @return batch awaiting the response to the request, if it was part of one
+     */
+    @CheckForNull
+    ResponseBatch batch() {
+      return batch;
+    }
+
+  }
+
+}
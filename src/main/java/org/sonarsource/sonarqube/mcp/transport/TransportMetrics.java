@@ -0,0 +1,97 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.transport;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cost of the transport itself: traffic, frame sizes, and the time spent parsing, serializing and flushing messages.
+ * Recorded on the reading and writing threads, readable at any time from any thread.
+ * Sizes are in bytes and durations in nanoseconds.
+ */
+public final class TransportMetrics {
+
+  private final LongAdder inboundBytes = new LongAdder();
+  private final LongAdder outboundBytes = new LongAdder();
+  private final Histogram inboundFrameSizes = new Histogram();
+  private final Histogram outboundFrameSizes = new Histogram();
+  private final Histogram deserializationNanos = new Histogram();
+  private final Histogram serializationNanos = new Histogram();
+  private final Histogram flushNanos = new Histogram();
+
+  void recordInboundFrame(int size, long deserializationTimeNanos) {
+    inboundBytes.add(size);
+    inboundFrameSizes.record(size);
+    deserializationNanos.record(deserializationTimeNanos);
+  }
+
+  void recordOutboundFrame(int size, long serializationTimeNanos) {
+    outboundBytes.add(size);
+    outboundFrameSizes.record(size);
+    serializationNanos.record(serializationTimeNanos);
+  }
+
+  void recordFlush(long flushTimeNanos) {
+    flushNanos.record(flushTimeNanos);
+  }
+
+  public long getInboundFrames() {
+    return inboundFrameSizes.getCount();
+  }
+
+  public long getInboundBytes() {
+    return inboundBytes.sum();
+  }
+
+  public long getOutboundFrames() {
+    return outboundFrameSizes.getCount();
+  }
+
+  public long getOutboundBytes() {
+    return outboundBytes.sum();
+  }
+
+  public HistogramSnapshot getInboundFrameSizes() {
+    return inboundFrameSizes.snapshot();
+  }
+
+  public HistogramSnapshot getOutboundFrameSizes() {
+    return outboundFrameSizes.snapshot();
+  }
+
+  /**
+   * Time to parse an inbound frame into JSON-RPC messages.
+   */
+  public HistogramSnapshot getDeserializationNanos() {
+    return deserializationNanos.snapshot();
+  }
+
+  /**
+   * Time to serialize an outbound message into the write buffer.
+   */
+  public HistogramSnapshot getSerializationNanos() {
+    return serializationNanos.snapshot();
+  }
+
+  /**
+   * Time to write the buffered messages to the output stream, once the outbound queue is drained.
+   */
+  public HistogramSnapshot getFlushNanos() {
+    return flushNanos.snapshot();
+  }
+
+}
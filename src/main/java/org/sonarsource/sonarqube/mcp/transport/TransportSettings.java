@@ -0,0 +1,38 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.transport;
+
+/**
+ * Tuning of the MCP transport.
+ *
+ * @param maxFrameSize maximum size in bytes of a single inbound JSON-RPC message
+ * @param outboundQueueCapacity maximum number of outbound messages waiting to be written, rounded up to a power of two
+ * @param maxPendingRequests maximum number of inbound requests queued or being handled, further requests are rejected
+ * @param maxPendingRequestBytes maximum size in bytes of the inbound requests queued or being handled, further requests are rejected
+ */
+public record TransportSettings(int maxFrameSize, int outboundQueueCapacity, int maxPendingRequests, int maxPendingRequestBytes) {
+
+  public static final int DEFAULT_MAX_FRAME_SIZE = 32 * 1024 * 1024;
+  public static final int DEFAULT_OUTBOUND_QUEUE_CAPACITY = 4096;
+  public static final int DEFAULT_MAX_PENDING_REQUESTS = 64;
+  public static final int DEFAULT_MAX_PENDING_REQUEST_BYTES = 64 * 1024 * 1024;
+
+  public static TransportSettings defaults() {
+    return new TransportSettings(DEFAULT_MAX_FRAME_SIZE, DEFAULT_OUTBOUND_QUEUE_CAPACITY, DEFAULT_MAX_PENDING_REQUESTS, DEFAULT_MAX_PENDING_REQUEST_BYTES);
+  }
+
+}
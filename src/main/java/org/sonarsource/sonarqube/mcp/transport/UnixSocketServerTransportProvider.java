@@ -0,0 +1,253 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.transport;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.modelcontextprotocol.spec.McpServerSession;
+import io.modelcontextprotocol.spec.McpServerTransportProvider;
+import io.modelcontextprotocol.util.Assert;
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Serves many MCP sessions over a Unix domain socket, one session per connection. This is the daemon side of the daemon mode: the
+ * process stays warm between client launches, and each client reaches it through a thin stdio relay.
+ * Connections exchange newline-delimited JSON-RPC messages, exactly like stdio.
+ * Only one daemon may listen on a given socket, which is guarded by a lock file next to it. Only the owner of the process may connect:
+ * the socket is created in a directory only the owner can access, and failing to restrict it prevents the daemon from starting.
+ */
+public class UnixSocketServerTransportProvider implements McpServerTransportProvider {
+
+  private static final Logger logger = LoggerFactory.getLogger(UnixSocketServerTransportProvider.class);
+  private static final Set<PosixFilePermission> DIRECTORY_PERMISSIONS = PosixFilePermissions.fromString("rwx------");
+  private static final Set<PosixFilePermission> SOCKET_PERMISSIONS = PosixFilePermissions.fromString("rw-------");
+  private static final long ACCEPT_THREAD_JOIN_TIMEOUT_MILLIS = 5000;
+
+  private final ObjectMapper objectMapper;
+
+  private final Path socketPath;
+
+  private final TransportSettings transportSettings;
+
+  private final InboundAdmissionControl admissionControl;
+
+  private final ResponseCache responseCache;
+
+  private final TransportMetrics metrics = new TransportMetrics();
+
+  private final Set<McpServerSession> sessions = ConcurrentHashMap.newKeySet();
+
+  private final AtomicBoolean isClosing = new AtomicBoolean(false);
+
+  private McpServerSession.Factory sessionFactory;
+
+  private FileChannel lockChannel;
+
+  private ServerSocketChannel serverChannel;
+
+  private Thread acceptThread;
+
+  public UnixSocketServerTransportProvider(ObjectMapper objectMapper, Path socketPath, TransportSettings transportSettings) {
+    Assert.notNull(objectMapper, "The ObjectMapper can not be null");
+    Assert.notNull(socketPath, "The socket path can not be null");
+    Assert.notNull(transportSettings, "The TransportSettings can not be null");
+
+    this.objectMapper = objectMapper;
+    this.socketPath = socketPath;
+    this.transportSettings = transportSettings;
+    this.admissionControl = new InboundAdmissionControl(transportSettings.maxPendingRequests(), transportSettings.maxPendingRequestBytes());
+    this.responseCache = new ResponseCache(objectMapper);
+  }
+
+  public static Path lockPath(Path socketPath) {
+    return socketPath.resolveSibling(socketPath.getFileName() + ".lock");
+  }
+
+  @Override
+  public void setSessionFactory(McpServerSession.Factory sessionFactory) {
+    this.sessionFactory = sessionFactory;
+    try {
+      listen();
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to listen on " + socketPath, e);
+    }
+    acceptThread = new Thread(this::acceptConnections, "mcp-unix-socket-acceptor");
+    // must not keep the JVM alive if the server is not closed, e.g. when it fails to start
+    acceptThread.setDaemon(true);
+    acceptThread.start();
+    logger.info("Listening on {}", socketPath);
+  }
+
+  private void listen() throws IOException {
+    // the socket gets the default permissions when bound, the directory keeps other local users away until it is restricted too
+    var directory = socketPath.getParent();
+    try {
+      Files.createDirectories(directory, PosixFilePermissions.asFileAttribute(DIRECTORY_PERMISSIONS));
+    } catch (UnsupportedOperationException e) {
+      throw new IOException("Unable to restrict the access to " + directory + ", the file system does not support POSIX permissions", e);
+    }
+    // the directory may already exist, e.g. created by an earlier version
+    restrictToOwner(directory, DIRECTORY_PERMISSIONS);
+    lockChannel = FileChannel.open(lockPath(socketPath), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    FileLock lock;
+    try {
+      lock = lockChannel.tryLock();
+    } catch (OverlappingFileLockException e) {
+      // held by this very process
+      lock = null;
+    } catch (IOException e) {
+      lockChannel.close();
+      throw e;
+    }
+    if (lock == null) {
+      lockChannel.close();
+      throw new IllegalStateException("Another daemon is already listening on " + socketPath);
+    }
+    // the lock is ours, so the socket file, if any, was left by a daemon that did not stop cleanly
+    Files.deleteIfExists(socketPath);
+    serverChannel = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+    serverChannel.bind(UnixDomainSocketAddress.of(socketPath));
+    restrictToOwner(socketPath, SOCKET_PERMISSIONS);
+  }
+
+  private static void restrictToOwner(Path path, Set<PosixFilePermission> permissions) throws IOException {
+    try {
+      Files.setPosixFilePermissions(path, permissions);
+    } catch (UnsupportedOperationException e) {
+      throw new IOException("Unable to restrict the access to " + path + ", the file system does not support POSIX permissions", e);
+    }
+  }
+
+  private void acceptConnections() {
+    while (!isClosing.get()) {
+      try {
+        openSession(serverChannel.accept());
+      } catch (AsynchronousCloseException e) {
+        return;
+      } catch (IOException e) {
+        if (!isClosing.get()) {
+          logger.error("Error accepting connection", e);
+        }
+        return;
+      }
+    }
+  }
+
+  private void openSession(SocketChannel channel) {
+    var sessionReference = new AtomicReference<McpServerSession>();
+    var transport = new StreamSessionTransport(objectMapper, Channels.newInputStream(channel), Channels.newOutputStream(channel), transportSettings,
+      admissionControl, responseCache, metrics, () -> {
+        sessions.remove(sessionReference.get());
+        closeQuietly(channel);
+        logger.debug("Connection closed, {} remaining", sessions.size());
+      });
+    var session = sessionFactory.create(transport);
+    sessionReference.set(session);
+    sessions.add(session);
+    transport.start(session);
+    logger.debug("Connection accepted, {} open", sessions.size());
+  }
+
+  /**
+   * Aggregated over all the connections.
+   */
+  public TransportMetrics getMetrics() {
+    return metrics;
+  }
+
+  public int getSessionCount() {
+    return sessions.size();
+  }
+
+  @Override
+  public Mono<Void> notifyClients(String method, Object params) {
+    responseCache.onNotification(method);
+    return Flux.fromIterable(sessions)
+      .flatMap(session -> session.sendNotification(method, params)
+        .doOnError(e -> logger.error("Failed to send notification for {}", method, e))
+        .onErrorComplete())
+      .then();
+  }
+
+  @Override
+  public Mono<Void> closeGracefully() {
+    return Mono.fromRunnable(() -> {
+      isClosing.set(true);
+      closeQuietly(serverChannel);
+      awaitAcceptThread();
+    })
+      .then(Flux.fromIterable(sessions).flatMap(McpServerSession::closeGracefully).then())
+      .then(Mono.fromRunnable(this::releaseSocket));
+  }
+
+  /**
+   * Closing the server channel interrupts the pending accept, no session can be opened once the thread ended.
+   */
+  private void awaitAcceptThread() {
+    if (acceptThread == null) {
+      return;
+    }
+    try {
+      acceptThread.join(ACCEPT_THREAD_JOIN_TIMEOUT_MILLIS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void releaseSocket() {
+    try {
+      Files.deleteIfExists(socketPath);
+    } catch (IOException e) {
+      logger.debug("Unable to delete {}", socketPath, e);
+    }
+    closeQuietly(lockChannel);
+  }
+
+  private static void closeQuietly(@Nullable AutoCloseable closeable) {
+    if (closeable == null) {
+      return;
+    }
+    try {
+      closeable.close();
+    } catch (Exception e) {
+      logger.debug("Unable to close {}", closeable, e);
+    }
+  }
+
+}
@@ -0,0 +1,97 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IdleResourceTrimmerTest {
+
+  private static final Duration IDLE_TIMEOUT = Duration.ofMinutes(10);
+
+  private final AtomicLong nanoTime = new AtomicLong();
+  private final AtomicInteger trimCount = new AtomicInteger();
+  private IdleResourceTrimmer trimmer;
+
+  @BeforeEach
+  void prepare() {
+    trimmer = new IdleResourceTrimmer(IDLE_TIMEOUT, nanoTime::get);
+    trimmer.register("resource", trimCount::incrementAndGet);
+  }
+
+  @Test
+  void it_should_trim_resources_after_the_idle_timeout() {
+    elapse(IDLE_TIMEOUT.minusSeconds(1));
+    assertThat(trimmer.trimIfIdle()).isFalse();
+
+    elapse(Duration.ofSeconds(1));
+
+    assertThat(trimmer.trimIfIdle()).isTrue();
+    assertThat(trimCount).hasValue(1);
+  }
+
+  @Test
+  void it_should_trim_resources_only_once_per_quiet_period() {
+    elapse(IDLE_TIMEOUT);
+    trimmer.trimIfIdle();
+    elapse(IDLE_TIMEOUT);
+    assertThat(trimmer.trimIfIdle()).isFalse();
+
+    trimmer.onCallStarted();
+    trimmer.onCallFinished();
+    elapse(IDLE_TIMEOUT);
+
+    assertThat(trimmer.trimIfIdle()).isTrue();
+    assertThat(trimCount).hasValue(2);
+  }
+
+  @Test
+  void it_should_not_trim_resources_while_a_call_is_running() {
+    trimmer.onCallStarted();
+    elapse(IDLE_TIMEOUT.multipliedBy(2));
+
+    assertThat(trimmer.trimIfIdle()).isFalse();
+
+    trimmer.onCallFinished();
+    assertThat(trimmer.trimIfIdle()).isFalse();
+    elapse(IDLE_TIMEOUT);
+    assertThat(trimmer.trimIfIdle()).isTrue();
+  }
+
+  @Test
+  void it_should_trim_the_other_resources_when_one_fails() {
+    trimmer = new IdleResourceTrimmer(IDLE_TIMEOUT, nanoTime::get);
+    trimmer.register("failing", () -> {
+      throw new IllegalStateException("failure");
+    });
+    trimmer.register("resource", trimCount::incrementAndGet);
+    elapse(IDLE_TIMEOUT);
+
+    assertThat(trimmer.trimIfIdle()).isTrue();
+    assertThat(trimCount).hasValue(1);
+  }
+
+  private void elapse(Duration duration) {
+    nanoTime.addAndGet(duration.toNanos());
+  }
+
+}
@@ -17,9 +17,18 @@
 package org.sonarsource.sonarqube.mcp.configuration;
 
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Map;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
+import org.sonarsource.sonarqube.mcp.http.HttpClientSettings;
+import org.sonarsource.sonarqube.mcp.http.HttpConnectionSettings;
+import org.sonarsource.sonarqube.mcp.http.HttpRateLimitSettings;
+import org.sonarsource.sonarqube.mcp.http.HttpRetrySettings;
+import org.sonarsource.sonarqube.mcp.serverapi.CircuitBreakerSettings;
+import org.sonarsource.sonarqube.mcp.tools.ToolExecutionSettings;
+import org.sonarsource.sonarqube.mcp.transport.HttpTransportSettings;
+import org.sonarsource.sonarqube.mcp.transport.TransportSettings;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -70,4 +79,306 @@ class McpServerLaunchConfigurationTest {
       .hasMessage("SONARQUBE_ORG environment variable must be set when using SonarQube Cloud");
   }
 
+  @Test
+  void should_use_default_transport_settings(@TempDir Path tempDir) {
+    var configuration = new McpServerLaunchConfiguration(Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org"));
+
+    assertThat(configuration.getTransportSettings()).isEqualTo(TransportSettings.defaults());
+  }
+
+  @Test
+  void should_read_inbound_budget(@TempDir Path tempDir) {
+    var configuration = new McpServerLaunchConfiguration(Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org",
+      "TRANSPORT_MAX_PENDING_REQUESTS", "8", "TRANSPORT_MAX_PENDING_REQUEST_BYTES", "4096"));
+
+    assertThat(configuration.getTransportSettings().maxPendingRequests()).isEqualTo(8);
+    assertThat(configuration.getTransportSettings().maxPendingRequestBytes()).isEqualTo(4096);
+  }
+
+  @Test
+  void should_use_stdio_transport_by_default(@TempDir Path tempDir) {
+    var configuration = new McpServerLaunchConfiguration(Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org"));
+
+    assertThat(configuration.isHttpTransport()).isFalse();
+    assertThat(configuration.getHttpTransportSettings()).isEqualTo(HttpTransportSettings.defaults());
+  }
+
+  @Test
+  void should_read_http_transport_settings(@TempDir Path tempDir) {
+    var configuration = new McpServerLaunchConfiguration(Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org",
+      "TRANSPORT", "http", "TRANSPORT_HTTP_HOST", "0.0.0.0", "TRANSPORT_HTTP_PORT", "9000", "TRANSPORT_HTTP_MAX_SESSIONS", "5",
+      "TRANSPORT_HTTP_MAX_REQUESTS_PER_SESSION", "4", "TRANSPORT_HTTP_SESSION_IDLE_TIMEOUT_SECONDS", "60"));
+
+    assertThat(configuration.isHttpTransport()).isTrue();
+    assertThat(configuration.getHttpTransportSettings()).isEqualTo(new HttpTransportSettings("0.0.0.0", 9000, 5, 4, Duration.ofSeconds(60)));
+  }
+
+  @Test
+  void should_allow_picking_a_free_http_transport_port(@TempDir Path tempDir) {
+    var configuration = new McpServerLaunchConfiguration(Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org",
+      "TRANSPORT", "http", "TRANSPORT_HTTP_PORT", "0"));
+
+    assertThat(configuration.getHttpTransportSettings().port()).isZero();
+  }
+
+  @Test
+  void should_throw_error_if_transport_is_unknown(@TempDir Path tempDir) {
+    var arg = Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org", "TRANSPORT", "sse");
+
+    assertThatThrownBy(() -> new McpServerLaunchConfiguration(arg))
+      .isInstanceOf(IllegalArgumentException.class)
+      .hasMessage("TRANSPORT environment variable or property must be one of 'stdio', 'http', 'daemon' or 'unix'");
+  }
+
+  @Test
+  void should_read_daemon_transport(@TempDir Path tempDir) {
+    var shim = new McpServerLaunchConfiguration(Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org",
+      "TRANSPORT", "daemon"));
+    var daemon = new McpServerLaunchConfiguration(Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org",
+      "TRANSPORT", "unix"));
+
+    assertThat(shim.isDaemonShim()).isTrue();
+    assertThat(shim.isUnixSocketTransport()).isFalse();
+    assertThat(daemon.isUnixSocketTransport()).isTrue();
+    assertThat(daemon.getDaemonSocketPath()).isEqualTo(shim.getDaemonSocketPath());
+    assertThat(shim.getDaemonSocketPath().getParent()).isEqualTo(tempDir.resolve("daemon"));
+    assertThat(shim.getDaemonSocketPath().getFileName().toString()).matches("mcp-[0-9a-f]{16}\\.sock");
+  }
+
+  @Test
+  void should_use_a_distinct_daemon_socket_per_token(@TempDir Path tempDir) {
+    var first = new McpServerLaunchConfiguration(Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org"));
+    var second = new McpServerLaunchConfiguration(Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "other", "SONARQUBE_ORG", "org"));
+
+    assertThat(first.getDaemonSocketPath()).isNotEqualTo(second.getDaemonSocketPath());
+  }
+
+  @Test
+  void should_run_tools_on_virtual_threads_when_enabled(@TempDir Path tempDir) {
+    var configuration = new McpServerLaunchConfiguration(Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org",
+      "TOOL_VIRTUAL_THREADS", "true", "TOOL_VIRTUAL_THREAD_PARALLELISM", "3"));
+
+    assertThat(configuration.getToolExecutionSettings().useVirtualThreads()).isTrue();
+    assertThat(configuration.getToolExecutionSettings().defaultMaxConcurrentCalls()).isEqualTo(ToolExecutionSettings.DEFAULT_MAX_CONCURRENT_CALLS_ON_VIRTUAL_THREADS);
+    assertThat(configuration.getToolExecutionSettings().maxConcurrentCalls("analyze_code_snippet")).isEqualTo(2);
+    assertThat(configuration.getVirtualThreadParallelism()).isEqualTo(3);
+  }
+
+  @Test
+  void should_not_use_virtual_threads_by_default(@TempDir Path tempDir) {
+    var configuration = new McpServerLaunchConfiguration(Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org"));
+
+    assertThat(configuration.getToolExecutionSettings().useVirtualThreads()).isFalse();
+    assertThat(configuration.getVirtualThreadParallelism()).isNull();
+  }
+
+  @Test
+  void should_release_idle_resources_after_the_default_idle_timeout(@TempDir Path tempDir) {
+    var configuration = new McpServerLaunchConfiguration(Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org"));
+
+    assertThat(configuration.getIdleTimeout()).isEqualTo(Duration.ofMinutes(15));
+    assertThat(configuration.isStopAnalyzersWhenIdle()).isFalse();
+  }
+
+  @Test
+  void should_read_idle_settings(@TempDir Path tempDir) {
+    var configuration = new McpServerLaunchConfiguration(Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org",
+      "IDLE_TIMEOUT_SECONDS", "60", "IDLE_STOP_ANALYZERS", "true"));
+
+    assertThat(configuration.getIdleTimeout()).isEqualTo(Duration.ofSeconds(60));
+    assertThat(configuration.isStopAnalyzersWhenIdle()).isTrue();
+  }
+
+  @Test
+  void should_complete_http_responses_on_the_io_threads_by_default(@TempDir Path tempDir) {
+    var configuration = new McpServerLaunchConfiguration(Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org"));
+
+    assertThat(configuration.getHttpClientSettings()).isEqualTo(HttpClientSettings.defaults());
+  }
+
+  @Test
+  void should_read_http_completion_threads(@TempDir Path tempDir) {
+    var configuration = new McpServerLaunchConfiguration(Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org",
+      "HTTP_COMPLETION_THREADS", "4"));
+
+    assertThat(configuration.getHttpClientSettings().completionThreads()).isEqualTo(4);
+  }
+
+  @Test
+  void should_accept_completing_http_responses_on_the_io_threads_explicitly(@TempDir Path tempDir) {
+    var configuration = new McpServerLaunchConfiguration(Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org",
+      "HTTP_COMPLETION_THREADS", "0"));
+
+    assertThat(configuration.getHttpClientSettings().completionThreads()).isZero();
+  }
+
+  @Test
+  void should_disable_http_compression(@TempDir Path tempDir) {
+    var configuration = new McpServerLaunchConfiguration(Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org",
+      "HTTP_COMPRESSION_DISABLED", "true"));
+
+    assertThat(configuration.getHttpClientSettings().isCompressionEnabled()).isFalse();
+  }
+
+  @Test
+  void should_read_http_cache_max_bytes(@TempDir Path tempDir) {
+    var configuration = new McpServerLaunchConfiguration(Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org",
+      "HTTP_CACHE_MAX_BYTES", "1024"));
+
+    assertThat(configuration.getHttpClientSettings().responseCacheMaxBytes()).isEqualTo(1024);
+  }
+
+  @Test
+  void should_read_http_connection_settings(@TempDir Path tempDir) {
+    var configuration = new McpServerLaunchConfiguration(Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org",
+      "HTTP_MAX_CONNECTIONS", "10", "HTTP_MAX_CONNECTIONS_PER_ROUTE", "5", "HTTP_CONNECT_TIMEOUT_SECONDS", "1", "HTTP_SOCKET_TIMEOUT_SECONDS", "2",
+      "HTTP_RESPONSE_TIMEOUT_SECONDS", "3", "HTTP_KEEP_ALIVE_SECONDS", "4", "HTTP_IDLE_CONNECTION_TIMEOUT_SECONDS", "5"));
+
+    assertThat(configuration.getHttpClientSettings().connections())
+      .isEqualTo(new HttpConnectionSettings(10, 5, Duration.ofSeconds(1), Duration.ofSeconds(2), Duration.ofSeconds(3), Duration.ofSeconds(4),
+        Duration.ofSeconds(5)));
+  }
+
+  @Test
+  void should_reject_invalid_http_response_timeout(@TempDir Path tempDir) {
+    var environment = Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org", "HTTP_RESPONSE_TIMEOUT_SECONDS", "0");
+
+    assertThatThrownBy(() -> new McpServerLaunchConfiguration(environment))
+      .isInstanceOf(IllegalArgumentException.class)
+      .hasMessage("HTTP_RESPONSE_TIMEOUT_SECONDS environment variable or property must be a positive integer");
+  }
+
+  @Test
+  void should_negotiate_http_2_when_configured(@TempDir Path tempDir) {
+    var configuration = new McpServerLaunchConfiguration(Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org",
+      "HTTP_VERSION", "NEGOTIATE"));
+
+    assertThat(configuration.getHttpClientSettings().isHttp2Negotiated()).isTrue();
+  }
+
+  @Test
+  void should_reject_unknown_http_version(@TempDir Path tempDir) {
+    var environment = Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org", "HTTP_VERSION", "http3");
+
+    assertThatThrownBy(() -> new McpServerLaunchConfiguration(environment))
+      .isInstanceOf(IllegalArgumentException.class)
+      .hasMessage("HTTP_VERSION environment variable or property must be one of: http1, negotiate");
+  }
+
+  @Test
+  void should_read_http_retry_settings(@TempDir Path tempDir) {
+    var configuration = new McpServerLaunchConfiguration(Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org",
+      "HTTP_MAX_RETRIES", "5", "HTTP_MAX_RETRIES_PER_ENDPOINT", "system=0, issues=2", "HTTP_RETRY_INITIAL_BACKOFF_MILLIS", "50",
+      "HTTP_RETRY_MAX_BACKOFF_SECONDS", "3"));
+
+    assertThat(configuration.getHttpClientSettings().retries())
+      .isEqualTo(new HttpRetrySettings(5, Map.of("system", 0, "issues", 2), Duration.ofMillis(50), Duration.ofSeconds(3)));
+  }
+
+  @Test
+  void should_allow_disabling_http_retries(@TempDir Path tempDir) {
+    var configuration = new McpServerLaunchConfiguration(Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org",
+      "HTTP_MAX_RETRIES", "0"));
+
+    assertThat(configuration.getHttpClientSettings().retries().maxRetries("issues")).isZero();
+  }
+
+  @Test
+  void should_reject_invalid_http_retries_per_endpoint(@TempDir Path tempDir) {
+    var environment = Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org",
+      "HTTP_MAX_RETRIES_PER_ENDPOINT", "issues=-1");
+
+    assertThatThrownBy(() -> new McpServerLaunchConfiguration(environment))
+      .isInstanceOf(IllegalArgumentException.class)
+      .hasMessage("HTTP_MAX_RETRIES_PER_ENDPOINT environment variable or property must be a comma-separated list of endpoint_family=non_negative_integer");
+  }
+
+  @Test
+  void should_read_http_rate_limit_settings(@TempDir Path tempDir) {
+    var configuration = new McpServerLaunchConfiguration(Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org",
+      "HTTP_RATE_LIMIT_PER_SECOND", "5", "HTTP_RATE_LIMIT_BURST", "10"));
+
+    assertThat(configuration.getHttpClientSettings().rateLimit()).isEqualTo(new HttpRateLimitSettings(5, 10));
+  }
+
+  @Test
+  void should_allow_disabling_http_rate_limit(@TempDir Path tempDir) {
+    var configuration = new McpServerLaunchConfiguration(Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org",
+      "HTTP_RATE_LIMIT_PER_SECOND", "0"));
+
+    assertThat(configuration.getHttpClientSettings().rateLimit().isEnabled()).isFalse();
+  }
+
+  @Test
+  void should_read_circuit_breaker_settings(@TempDir Path tempDir) {
+    var configuration = new McpServerLaunchConfiguration(Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org",
+      "HTTP_CIRCUIT_BREAKER_FAILURE_THRESHOLD", "10", "HTTP_CIRCUIT_BREAKER_OPEN_SECONDS", "5"));
+
+    assertThat(configuration.getCircuitBreakerSettings()).isEqualTo(new CircuitBreakerSettings(10, Duration.ofSeconds(5)));
+  }
+
+  @Test
+  void should_use_default_circuit_breaker_settings(@TempDir Path tempDir) {
+    var configuration = new McpServerLaunchConfiguration(Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org"));
+
+    assertThat(configuration.getCircuitBreakerSettings()).isEqualTo(CircuitBreakerSettings.defaults());
+  }
+
+  @Test
+  void should_disable_http_cache(@TempDir Path tempDir) {
+    var configuration = new McpServerLaunchConfiguration(Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org",
+      "HTTP_CACHE_DISABLED", "true"));
+
+    assertThat(configuration.getHttpClientSettings().responseCacheMaxBytes()).isZero();
+  }
+
+  @Test
+  void should_use_default_tool_execution_settings(@TempDir Path tempDir) {
+    var configuration = new McpServerLaunchConfiguration(Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org"));
+
+    assertThat(configuration.getToolExecutionSettings()).isEqualTo(ToolExecutionSettings.defaults());
+  }
+
+  @Test
+  void should_read_tool_execution_settings(@TempDir Path tempDir) {
+    var configuration = new McpServerLaunchConfiguration(Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org",
+      "TOOL_MAX_CONCURRENT_CALLS", "3", "TOOL_MAX_QUEUED_CALLS", "5", "TOOL_TIMEOUT_SECONDS", "60",
+      "TOOL_MAX_CONCURRENT_CALLS_PER_TOOL", "get_system_logs=1, search_sonar_issues_in_projects = 8", "TOOL_TIMEOUT_SECONDS_PER_TOOL", "analyze_code_snippet=120"));
+
+    var settings = configuration.getToolExecutionSettings();
+    assertThat(settings.maxQueuedCalls()).isEqualTo(5);
+    assertThat(settings.maxConcurrentCalls("list_languages")).isEqualTo(3);
+    assertThat(settings.maxConcurrentCalls("get_system_logs")).isEqualTo(1);
+    assertThat(settings.maxConcurrentCalls("search_sonar_issues_in_projects")).isEqualTo(8);
+    assertThat(settings.maxConcurrentCalls("analyze_code_snippet")).isEqualTo(2);
+    assertThat(settings.timeout("list_languages")).isEqualTo(Duration.ofSeconds(60));
+    assertThat(settings.timeout("analyze_code_snippet")).isEqualTo(Duration.ofSeconds(120));
+  }
+
+  @Test
+  void should_throw_error_if_per_tool_setting_is_malformed(@TempDir Path tempDir) {
+    var arg = Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org", "TOOL_TIMEOUT_SECONDS_PER_TOOL", "analyze_code_snippet");
+
+    assertThatThrownBy(() -> new McpServerLaunchConfiguration(arg))
+      .isInstanceOf(IllegalArgumentException.class)
+      .hasMessage("TOOL_TIMEOUT_SECONDS_PER_TOOL environment variable or property must be a comma-separated list of tool_name=positive_integer");
+  }
+
+  @Test
+  void should_read_max_frame_size(@TempDir Path tempDir) {
+    var configuration = new McpServerLaunchConfiguration(Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org",
+      "TRANSPORT_MAX_FRAME_SIZE", "1024"));
+
+    assertThat(configuration.getTransportSettings().maxFrameSize()).isEqualTo(1024);
+  }
+
+  @Test
+  void should_throw_error_if_max_frame_size_is_not_a_positive_integer(@TempDir Path tempDir) {
+    var arg = Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org", "TRANSPORT_MAX_FRAME_SIZE", "-1");
+
+    assertThatThrownBy(() -> new McpServerLaunchConfiguration(arg))
+      .isInstanceOf(IllegalArgumentException.class)
+      .hasMessage("TRANSPORT_MAX_FRAME_SIZE environment variable or property must be a positive integer");
+  }
+
 }
@@ -0,0 +1,160 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.daemon;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.spec.McpServerSession;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sonarsource.sonarqube.mcp.transport.TransportSettings;
+import org.sonarsource.sonarqube.mcp.transport.UnixSocketServerTransportProvider;
+import reactor.core.publisher.Mono;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DaemonShimTest {
+
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+  @TempDir
+  private Path tempDir;
+  private UnixSocketServerTransportProvider daemon;
+
+  @AfterEach
+  void cleanup() {
+    if (daemon != null) {
+      daemon.closeGracefully().block();
+    }
+  }
+
+  @Test
+  void it_should_relay_messages_to_a_running_daemon() throws Exception {
+    startDaemon();
+    var shim = new DaemonShim(socketPath(), new ProcessBuilder("false"));
+
+    try (var client = new Client(shim)) {
+      client.send(new McpSchema.JSONRPCRequest(McpSchema.JSONRPC_VERSION, McpSchema.METHOD_INITIALIZE, 1,
+        new McpSchema.InitializeRequest(McpSchema.LATEST_PROTOCOL_VERSION, McpSchema.ClientCapabilities.builder().build(),
+          new McpSchema.Implementation("client", "1.0"))));
+      assertThat(client.receive().id()).isEqualTo(1);
+      client.send(new McpSchema.JSONRPCNotification(McpSchema.JSONRPC_VERSION, McpSchema.METHOD_NOTIFICATION_INITIALIZED, null));
+      client.send(new McpSchema.JSONRPCRequest(McpSchema.JSONRPC_VERSION, McpSchema.METHOD_TOOLS_CALL, 2, Map.of("key", "value")));
+
+      assertThat(client.receive().result()).isEqualTo(Map.of("key", "value"));
+    }
+  }
+
+  @Test
+  void it_should_stop_when_the_client_closes_its_input() throws Exception {
+    startDaemon();
+    var client = new Client(new DaemonShim(socketPath(), new ProcessBuilder("false")));
+
+    client.close();
+
+    client.shimRun.get(10, TimeUnit.SECONDS);
+  }
+
+  @Test
+  void it_should_wait_for_the_daemon_it_starts() throws Exception {
+    // the process stands for a daemon that needs some time before listening
+    var shim = new DaemonShim(socketPath(), new ProcessBuilder("sleep", "10"));
+
+    try (var client = new Client(shim)) {
+      Thread.sleep(500);
+      startDaemon();
+      client.send(new McpSchema.JSONRPCRequest(McpSchema.JSONRPC_VERSION, McpSchema.METHOD_INITIALIZE, 1,
+        new McpSchema.InitializeRequest(McpSchema.LATEST_PROTOCOL_VERSION, McpSchema.ClientCapabilities.builder().build(),
+          new McpSchema.Implementation("client", "1.0"))));
+
+      assertThat(client.receive().id()).isEqualTo(1);
+    }
+  }
+
+  @Test
+  void it_should_fail_when_the_daemon_exits_without_listening() {
+    var shim = new DaemonShim(socketPath(), new ProcessBuilder("false"));
+
+    assertThatThrownBy(() -> shim.run(new PipedInputStream(), new PipedOutputStream()))
+      .isInstanceOf(IOException.class)
+      .hasMessageContaining("the daemon exited with code 1");
+  }
+
+  private void startDaemon() {
+    daemon = new UnixSocketServerTransportProvider(OBJECT_MAPPER, socketPath(), TransportSettings.defaults());
+    daemon.setSessionFactory(transport -> new McpServerSession("id", transport,
+      request -> Mono.just(new McpSchema.InitializeResult(McpSchema.LATEST_PROTOCOL_VERSION, McpSchema.ServerCapabilities.builder().build(),
+        new McpSchema.Implementation("server", "1.0"), null)),
+      Mono::empty,
+      Map.of(McpSchema.METHOD_TOOLS_CALL, (exchange, params) -> Mono.just(params)),
+      Map.of()));
+  }
+
+  private Path socketPath() {
+    return tempDir.resolve("daemon").resolve("mcp.sock");
+  }
+
+  /**
+   * Plays the MCP client, talking to the shim through pipes standing for its stdin and stdout.
+   */
+  private static class Client implements AutoCloseable {
+    private final PipedOutputStream shimInput = new PipedOutputStream();
+    private final BufferedReader shimOutput;
+    private final CompletableFuture<Void> shimRun;
+
+    Client(DaemonShim shim) throws IOException {
+      var shimInputSource = new PipedInputStream(shimInput);
+      var shimOutputSink = new PipedOutputStream();
+      shimOutput = new BufferedReader(new InputStreamReader(new PipedInputStream(shimOutputSink, 64 * 1024), StandardCharsets.UTF_8));
+      shimRun = CompletableFuture.runAsync(() -> {
+        try {
+          shim.run(shimInputSource, shimOutputSink);
+        } catch (IOException e) {
+          throw new IllegalStateException(e);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      });
+    }
+
+    void send(McpSchema.JSONRPCMessage message) throws IOException {
+      shimInput.write((OBJECT_MAPPER.writeValueAsString(message) + "\n").getBytes(StandardCharsets.UTF_8));
+      shimInput.flush();
+    }
+
+    McpSchema.JSONRPCResponse receive() throws IOException {
+      return (McpSchema.JSONRPCResponse) McpSchema.deserializeJsonRpcMessage(OBJECT_MAPPER, shimOutput.readLine());
+    }
+
+    @Override
+    public void close() throws IOException {
+      shimInput.close();
+    }
+  }
+
+}
@@ -0,0 +1,38 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.http;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EndpointFamilyTests {
+
+  @Test
+  void it_should_group_endpoints_by_their_first_segment() {
+    assertThat(EndpointFamily.of("https://sonarcloud.io/api/issues/search?organization=org")).isEqualTo("issues");
+    assertThat(EndpointFamily.of("https://sonarqube.example.com/sonarqube/api/system/status")).isEqualTo("system");
+    assertThat(EndpointFamily.of("https://sonarqube.example.com/api/v2/analysis/engine")).isEqualTo("v2/analysis");
+  }
+
+  @Test
+  void it_should_group_other_urls_together() {
+    assertThat(EndpointFamily.of("https://sonarqube.example.com/batch/index")).isEqualTo(EndpointFamily.OTHER);
+    assertThat(EndpointFamily.of("not a url")).isEqualTo(EndpointFamily.OTHER);
+  }
+
+}
@@ -17,14 +17,24 @@
 package org.sonarsource.sonarqube.mcp.http;
 
 import com.github.tomakehurst.wiremock.junit5.WireMockExtension;
+import com.github.tomakehurst.wiremock.stubbing.Scenario;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.zip.GZIPOutputStream;
 import org.apache.hc.core5.http.HttpStatus;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.absent;
 import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
 import static com.github.tomakehurst.wiremock.client.WireMock.get;
 import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
@@ -33,6 +43,8 @@ import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
 import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
 import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 class HttpClientProviderTests {
@@ -133,4 +145,289 @@ class HttpClientProviderTests {
     sonarqubeMock.verify(postRequestedFor(urlEqualTo("/test")));
   }
 
+  @Test
+  void it_should_complete_responses_on_the_io_thread_by_default() {
+    sonarqubeMock.stubFor(get("/delayed").willReturn(aResponse().withFixedDelay(200)));
+    var underTest = new HttpClientProvider(USER_AGENT);
+
+    var completingThread = underTest.getHttpClient("token").getAsync(sonarqubeMock.url("/delayed"))
+      .thenApply(response -> Thread.currentThread().getName())
+      .join();
+
+    assertThat(completingThread).startsWith("sonarqube-mcp-http-io-");
+    underTest.shutdown();
+  }
+
+  @Test
+  void it_should_complete_responses_on_the_dedicated_threads_when_configured() {
+    sonarqubeMock.stubFor(get("/delayed").willReturn(aResponse().withFixedDelay(200)));
+    var underTest = new HttpClientProvider(USER_AGENT, HttpClientSettings.defaults().withCompletionThreads(2));
+
+    var completingThread = underTest.getHttpClient("token").getAsync(sonarqubeMock.url("/delayed"))
+      .thenApply(response -> Thread.currentThread().getName())
+      .join();
+
+    assertThat(completingThread).startsWith("sonarqube-mcp-http-completion-");
+    underTest.shutdown();
+  }
+
+  @Test
+  void it_should_stream_bodies_larger_than_the_buffer() throws IOException {
+    var body = new byte[10 * StreamingResponseConsumer.DEFAULT_BUFFER_SIZE];
+    Arrays.fill(body, (byte) 'a');
+    sonarqubeMock.stubFor(get("/large").willReturn(aResponse().withBody(body)));
+    var underTest = new HttpClientProvider(USER_AGENT);
+
+    try (var response = underTest.getHttpClient("token").getAsync(sonarqubeMock.url("/large")).join();
+      var stream = response.bodyAsStream()) {
+      assertThat(stream.readAllBytes()).isEqualTo(body);
+    }
+    underTest.shutdown();
+  }
+
+  @Test
+  void it_should_serve_next_requests_after_a_body_is_closed_before_its_end() {
+    sonarqubeMock.stubFor(get("/large").willReturn(aResponse().withBody(new byte[10 * StreamingResponseConsumer.DEFAULT_BUFFER_SIZE])));
+    sonarqubeMock.stubFor(get("/test").willReturn(aResponse().withBody("ok")));
+    var underTest = new HttpClientProvider(USER_AGENT);
+    var httpClient = underTest.getHttpClient("token");
+
+    httpClient.getAsync(sonarqubeMock.url("/large")).join().close();
+
+    try (var response = httpClient.getAsync(sonarqubeMock.url("/test")).join()) {
+      assertThat(response.bodyAsString()).isEqualTo("ok");
+    }
+    underTest.shutdown();
+  }
+
+  @Test
+  void it_should_decompress_gzip_responses() throws IOException {
+    var json = "{\"issues\": [" + "{\"key\": \"issue\"},".repeat(1000) + "{}]}";
+    sonarqubeMock.stubFor(get("/compressed").willReturn(aResponse().withHeader("Content-Encoding", "gzip").withBody(gzip(json))));
+    var underTest = new HttpClientProvider(USER_AGENT);
+
+    try (var response = underTest.getHttpClient("token").getAsync(sonarqubeMock.url("/compressed")).join()) {
+      assertThat(response.bodyAsString()).isEqualTo(json);
+    }
+
+    sonarqubeMock.verify(getRequestedFor(urlEqualTo("/compressed")).withHeader("Accept-Encoding", equalTo("gzip, deflate")));
+    var metrics = underTest.getMetrics();
+    assertThat(metrics.getCompressedResponses()).isEqualTo(1);
+    assertThat(metrics.getDecompressedBodyBytes()).isEqualTo(json.length());
+    assertThat(metrics.getCompressedBodyBytes()).isPositive().isLessThan(json.length() / 10);
+    underTest.shutdown();
+  }
+
+  @Test
+  void it_should_not_ask_for_compression_when_disabled() {
+    var underTest = new HttpClientProvider(USER_AGENT, HttpClientSettings.defaults().withCompressionEnabled(false));
+
+    try (var ignored = underTest.getHttpClient("token").getAsync(sonarqubeMock.url("/test")).join()) {
+      // nothing
+    }
+
+    sonarqubeMock.verify(getRequestedFor(urlEqualTo("/test")).withHeader("Accept-Encoding", absent()));
+    underTest.shutdown();
+  }
+
+  @Test
+  void it_should_answer_not_modified_responses_from_the_cache() {
+    sonarqubeMock.stubFor(get("/cached").withHeader("If-None-Match", absent())
+      .willReturn(aResponse().withHeader("ETag", "\"v1\"").withHeader("Content-Type", "application/json").withBody("cached body")));
+    sonarqubeMock.stubFor(get("/cached").withHeader("If-None-Match", equalTo("\"v1\"")).willReturn(aResponse().withStatus(304)));
+    var underTest = new HttpClientProvider(USER_AGENT);
+    var httpClient = underTest.getHttpClient("token");
+
+    try (var response = httpClient.getAsync(sonarqubeMock.url("/cached")).join()) {
+      assertThat(response.bodyAsString()).isEqualTo("cached body");
+    }
+    try (var response = httpClient.getAsync(sonarqubeMock.url("/cached")).join()) {
+      assertThat(response.code()).isEqualTo(200);
+      assertThat(response.bodyAsString()).isEqualTo("cached body");
+    }
+
+    sonarqubeMock.verify(getRequestedFor(urlEqualTo("/cached")).withHeader("If-None-Match", equalTo("\"v1\"")));
+    assertThat(underTest.getCacheHits()).isEqualTo(1);
+    assertThat(underTest.getCacheEntries()).isEqualTo(1);
+    underTest.shutdown();
+  }
+
+  @Test
+  void it_should_not_share_cached_responses_between_tokens() {
+    sonarqubeMock.stubFor(get("/cached")
+      .willReturn(aResponse().withHeader("ETag", "\"v1\"").withHeader("Content-Type", "application/json").withBody("cached body")));
+    var underTest = new HttpClientProvider(USER_AGENT);
+
+    try (var ignored = underTest.getHttpClient("token").getAsync(sonarqubeMock.url("/cached")).join()) {
+      // nothing
+    }
+    try (var ignored = underTest.getHttpClient("other token").getAsync(sonarqubeMock.url("/cached")).join()) {
+      // nothing
+    }
+
+    sonarqubeMock.verify(0, getRequestedFor(urlEqualTo("/cached")).withHeader("If-None-Match", equalTo("\"v1\"")));
+    underTest.shutdown();
+  }
+
+  @Test
+  void it_should_not_send_conditional_requests_when_the_cache_is_disabled() {
+    sonarqubeMock.stubFor(get("/cached")
+      .willReturn(aResponse().withHeader("ETag", "\"v1\"").withHeader("Content-Type", "application/json").withBody("cached body")));
+    var underTest = new HttpClientProvider(USER_AGENT, HttpClientSettings.defaults().withResponseCacheMaxBytes(0));
+    var httpClient = underTest.getHttpClient("token");
+
+    for (var i = 0; i < 2; i++) {
+      try (var response = httpClient.getAsync(sonarqubeMock.url("/cached")).join()) {
+        assertThat(response.bodyAsString()).isEqualTo("cached body");
+      }
+    }
+
+    sonarqubeMock.verify(0, getRequestedFor(urlEqualTo("/cached")).withHeader("If-None-Match", equalTo("\"v1\"")));
+    assertThat(underTest.getCacheEntries()).isZero();
+    underTest.shutdown();
+  }
+
+  @Test
+  void it_should_not_cache_plugin_downloads() {
+    sonarqubeMock.stubFor(get("/api/plugins/download?plugin=java").willReturn(aResponse().withHeader("ETag", "\"v1\"").withBody("jar")));
+    var underTest = new HttpClientProvider(USER_AGENT);
+    var httpClient = underTest.getHttpClient("token");
+
+    for (var i = 0; i < 2; i++) {
+      try (var response = httpClient.getAsync(sonarqubeMock.url("/api/plugins/download?plugin=java")).join()) {
+        assertThat(response.bodyAsString()).isEqualTo("jar");
+      }
+    }
+
+    sonarqubeMock.verify(0, getRequestedFor(urlEqualTo("/api/plugins/download?plugin=java")).withHeader("If-None-Match", equalTo("\"v1\"")));
+    assertThat(underTest.getCacheEntries()).isZero();
+    underTest.shutdown();
+  }
+
+  @Test
+  void it_should_fail_requests_exceeding_the_response_timeout() {
+    sonarqubeMock.stubFor(get("/hung").willReturn(aResponse().withFixedDelay(5_000)));
+    var connections = new HttpConnectionSettings(4, 2, Duration.ofSeconds(1), Duration.ofMillis(200), Duration.ofMillis(200), Duration.ofMinutes(1),
+      Duration.ofSeconds(30));
+    var underTest = new HttpClientProvider(USER_AGENT, HttpClientSettings.defaults().withConnections(connections));
+
+    var response = underTest.getHttpClient("token").getAsync(sonarqubeMock.url("/hung"));
+
+    assertThatThrownBy(response::join).hasRootCauseInstanceOf(SocketTimeoutException.class);
+    underTest.shutdown();
+  }
+
+  @Test
+  void it_should_expose_the_connection_pool_gauges() {
+    sonarqubeMock.stubFor(get("/large").willReturn(aResponse().withBody(new byte[10 * StreamingResponseConsumer.DEFAULT_BUFFER_SIZE])));
+    var underTest = new HttpClientProvider(USER_AGENT);
+
+    // the connection stays leased until the body is read
+    try (var ignored = underTest.getHttpClient("token").getAsync(sonarqubeMock.url("/large")).join()) {
+      assertThat(underTest.getLeasedConnections()).isEqualTo(1);
+    }
+
+    assertThat(underTest.getMaxConnections()).isEqualTo(HttpConnectionSettings.DEFAULT_MAX_CONNECTIONS);
+    assertThat(underTest.getPendingConnectionRequests()).isZero();
+    underTest.shutdown();
+  }
+
+  @Test
+  void it_should_fall_back_to_http_1_on_plain_connections_when_negotiating_http_2() {
+    sonarqubeMock.stubFor(get("/test").willReturn(aResponse().withBody("ok")));
+    var underTest = new HttpClientProvider(USER_AGENT, HttpClientSettings.defaults().withHttp2Negotiated(true));
+
+    try (var response = underTest.getHttpClient("token").getAsync(sonarqubeMock.url("/test")).join()) {
+      assertThat(response.bodyAsString()).isEqualTo("ok");
+    }
+    underTest.shutdown();
+  }
+
+  @Test
+  void it_should_count_the_retries_per_endpoint_family() {
+    sonarqubeMock.stubFor(get("/api/issues/search").inScenario("transient").whenScenarioStateIs(Scenario.STARTED)
+      .willReturn(aResponse().withStatus(HttpStatus.SC_BAD_GATEWAY)).willSetStateTo("recovered"));
+    sonarqubeMock.stubFor(get("/api/issues/search").inScenario("transient").whenScenarioStateIs("recovered").willReturn(aResponse().withBody("ok")));
+    var underTest = new HttpClientProvider(USER_AGENT);
+
+    try (var response = underTest.getHttpClient("token").getAsync(sonarqubeMock.url("/api/issues/search")).join()) {
+      assertThat(response.bodyAsString()).isEqualTo("ok");
+    }
+
+    assertThat(underTest.getRetries()).isEqualTo(1);
+    assertThat(underTest.getRetriesPerEndpoint()).containsExactly(entry("issues", 1L));
+    underTest.shutdown();
+  }
+
+  @Test
+  void it_should_not_retry_endpoint_families_configured_without_retries() {
+    sonarqubeMock.stubFor(get("/api/system/status").willReturn(aResponse().withStatus(HttpStatus.SC_SERVICE_UNAVAILABLE)));
+    var retries = new HttpRetrySettings(HttpRetrySettings.DEFAULT_MAX_RETRIES, Map.of("system", 0), Duration.ofMillis(1), Duration.ofSeconds(1));
+    var underTest = new HttpClientProvider(USER_AGENT, HttpClientSettings.defaults().withRetries(retries));
+
+    try (var response = underTest.getHttpClient("token").getAsync(sonarqubeMock.url("/api/system/status")).join()) {
+      assertThat(response.code()).isEqualTo(HttpStatus.SC_SERVICE_UNAVAILABLE);
+    }
+
+    sonarqubeMock.verify(1, getRequestedFor(urlEqualTo("/api/system/status")));
+    underTest.shutdown();
+  }
+
+  @Test
+  void it_should_pace_the_requests_beyond_the_burst() {
+    sonarqubeMock.stubFor(get("/api/issues/search?organization=org").willReturn(aResponse().withBody("ok")));
+    var underTest = new HttpClientProvider(USER_AGENT, HttpClientSettings.defaults().withRateLimit(new HttpRateLimitSettings(5, 1)));
+    var httpClient = underTest.getHttpClient("token", "org");
+
+    for (var i = 0; i < 2; i++) {
+      try (var response = httpClient.getAsync(sonarqubeMock.url("/api/issues/search?organization=org")).join()) {
+        assertThat(response.bodyAsString()).isEqualTo("ok");
+      }
+    }
+
+    assertThat(underTest.getRateLimitedRequests()).isEqualTo(1);
+    assertThat(underTest.getRateLimiterWaitMillis()).isPositive();
+    underTest.shutdown();
+  }
+
+  @Test
+  void it_should_count_the_throttled_responses() {
+    sonarqubeMock.stubFor(get("/api/issues/search").inScenario("throttled").whenScenarioStateIs(Scenario.STARTED)
+      .willReturn(aResponse().withStatus(HttpStatus.SC_TOO_MANY_REQUESTS).withHeader("Retry-After", "0")).willSetStateTo("recovered"));
+    sonarqubeMock.stubFor(get("/api/issues/search").inScenario("throttled").whenScenarioStateIs("recovered").willReturn(aResponse().withBody("ok")));
+    var underTest = new HttpClientProvider(USER_AGENT);
+
+    try (var response = underTest.getHttpClient("token").getAsync(sonarqubeMock.url("/api/issues/search")).join()) {
+      assertThat(response.bodyAsString()).isEqualTo("ok");
+    }
+
+    assertThat(underTest.getThrottledResponses()).isEqualTo(1);
+    assertThat(underTest.getRetries()).isEqualTo(1);
+    underTest.shutdown();
+  }
+
+  @Test
+  void it_should_not_pace_the_requests_when_the_rate_limit_is_disabled() {
+    sonarqubeMock.stubFor(get("/test").willReturn(aResponse().withBody("ok")));
+    var underTest = new HttpClientProvider(USER_AGENT, HttpClientSettings.defaults().withRateLimit(new HttpRateLimitSettings(0, 1)));
+    var httpClient = underTest.getHttpClient("token");
+
+    for (var i = 0; i < 3; i++) {
+      try (var ignored = httpClient.getAsync(sonarqubeMock.url("/test")).join()) {
+        // nothing
+      }
+    }
+
+    assertThat(underTest.getRateLimitedRequests()).isZero();
+    underTest.shutdown();
+  }
+
+  private static byte[] gzip(String content) throws IOException {
+    var bytes = new ByteArrayOutputStream();
+    try (var gzip = new GZIPOutputStream(bytes)) {
+      gzip.write(content.getBytes(StandardCharsets.UTF_8));
+    }
+    return bytes.toByteArray();
+  }
+
 }
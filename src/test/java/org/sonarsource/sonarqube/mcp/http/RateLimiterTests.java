@@ -0,0 +1,168 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.http;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import org.junit.jupiter.api.Test;
+import org.sonarsource.sonarqube.mcp.serverapi.exception.TooManyRequestsException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RateLimiterTests {
+
+  private final MutableClock clock = new MutableClock();
+  private final RateLimiter underTest = new RateLimiter(new HttpRateLimitSettings(10, 2), Duration.ofSeconds(10), clock);
+
+  @Test
+  void it_should_let_a_burst_through_then_space_the_requests() {
+    assertThat(underTest.reserve()).isEqualTo(Duration.ZERO);
+    assertThat(underTest.reserve()).isEqualTo(Duration.ZERO);
+    assertThat(underTest.reserve()).isEqualTo(Duration.ofMillis(100));
+    assertThat(underTest.reserve()).isEqualTo(Duration.ofMillis(200));
+
+    clock.advance(Duration.ofSeconds(1));
+
+    assertThat(underTest.reserve()).isEqualTo(Duration.ZERO);
+  }
+
+  @Test
+  void it_should_halve_the_rate_and_pause_on_too_many_requests() {
+    underTest.onResponse(response(429, "Retry-After", "2"));
+
+    assertThat(underTest.getRequestsPerSecond()).isEqualTo(5);
+    assertThat(underTest.reserve()).isEqualTo(Duration.ofMillis(2200));
+  }
+
+  @Test
+  void it_should_fail_the_requests_that_would_wait_longer_than_the_maximum_without_taking_a_permit() {
+    underTest.onResponse(response(429, "Retry-After", "10"));
+
+    assertThatThrownBy(underTest::reserve)
+      .isInstanceOf(TooManyRequestsException.class)
+      .hasMessage("Rate limit exceeded, the request would have to wait 10 seconds, please retry later");
+
+    clock.advance(Duration.ofMillis(200));
+
+    assertThat(underTest.reserve()).isEqualTo(Duration.ofSeconds(10));
+  }
+
+  @Test
+  void it_should_not_go_below_the_minimum_rate() {
+    for (var i = 0; i < 10; i++) {
+      underTest.onResponse(response(429, null, null));
+    }
+
+    assertThat(underTest.getRequestsPerSecond()).isEqualTo(RateLimiter.MIN_REQUESTS_PER_SECOND);
+  }
+
+  @Test
+  void it_should_grow_the_rate_back_while_requests_succeed() {
+    underTest.onResponse(response(429, null, null));
+    underTest.onResponse(response(200, null, null));
+
+    assertThat(underTest.getRequestsPerSecond()).isEqualTo(5.5);
+
+    for (var i = 0; i < 20; i++) {
+      underTest.onResponse(response(200, null, null));
+    }
+
+    assertThat(underTest.getRequestsPerSecond()).isEqualTo(10);
+  }
+
+  @Test
+  void it_should_pause_until_the_reset_when_no_request_is_left() {
+    var response = response(200, "X-RateLimit-Reset", "3");
+    when(response.header("X-RateLimit-Remaining")).thenReturn("0");
+
+    underTest.onResponse(response);
+
+    assertThat(underTest.reserve()).isEqualTo(Duration.ofMillis(3100));
+  }
+
+  @Test
+  void it_should_read_the_reset_as_an_epoch_second() {
+    var response = response(200, "RateLimit-Reset", Long.toString(clock.instant().plusSeconds(4).getEpochSecond()));
+    when(response.header("RateLimit-Remaining")).thenReturn("0");
+
+    underTest.onResponse(response);
+
+    assertThat(underTest.reserve()).isEqualTo(Duration.ofMillis(4100));
+  }
+
+  @Test
+  void it_should_not_pause_while_requests_are_left() {
+    var response = response(200, "X-RateLimit-Reset", "3");
+    when(response.header("X-RateLimit-Remaining")).thenReturn("12");
+
+    underTest.onResponse(response);
+
+    assertThat(underTest.reserve()).isEqualTo(Duration.ZERO);
+  }
+
+  @Test
+  void it_should_share_a_rate_limiter_by_token_and_organization() {
+    var rateLimiters = new RateLimiters(HttpRateLimitSettings.defaults(), Duration.ofSeconds(10), clock);
+
+    var limiter = rateLimiters.get("token", "org");
+
+    assertThat(rateLimiters.get("token", "org")).isSameAs(limiter);
+    assertThat(rateLimiters.get("token", "other")).isNotSameAs(limiter);
+    assertThat(rateLimiters.get("other", "org")).isNotSameAs(limiter);
+    assertThat(rateLimiters.get("token", null)).isNotSameAs(limiter);
+  }
+
+  private static HttpClient.Response response(int code, String headerName, String headerValue) {
+    var response = mock(HttpClient.Response.class);
+    when(response.code()).thenReturn(code);
+    if (headerName != null) {
+      when(response.header(headerName)).thenReturn(headerValue);
+    }
+    return response;
+  }
+
+  private static class MutableClock extends Clock {
+
+    private Instant instant = Instant.parse("2026-10-16T10:00:00Z");
+
+    void advance(Duration duration) {
+      instant = instant.plus(duration);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return instant;
+    }
+  }
+
+}
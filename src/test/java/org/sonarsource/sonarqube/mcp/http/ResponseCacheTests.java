@@ -0,0 +1,105 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.http;
+
+import java.nio.charset.StandardCharsets;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.impl.BasicEntityDetails;
+import org.apache.hc.core5.http.message.BasicHttpResponse;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResponseCacheTests {
+
+  private final ResponseCache underTest = new ResponseCache(40);
+
+  @Test
+  void it_should_evict_the_least_recently_used_entries_above_the_max_size() {
+    underTest.put(key("/a"), entry(10));
+    underTest.put(key("/b"), entry(10));
+    underTest.put(key("/c"), entry(10));
+    underTest.get(key("/a"));
+
+    underTest.put(key("/d"), entry(10));
+    underTest.put(key("/e"), entry(10));
+
+    assertThat(underTest.get(key("/a"))).isNotNull();
+    assertThat(underTest.get(key("/b"))).isNull();
+    assertThat(underTest.getEntries()).isEqualTo(4);
+    assertThat(underTest.getBytes()).isEqualTo(40);
+  }
+
+  @Test
+  void it_should_not_store_entries_larger_than_a_quarter_of_the_max_size() {
+    underTest.put(key("/a"), entry(11));
+
+    assertThat(underTest.get(key("/a"))).isNull();
+    assertThat(underTest.getBytes()).isZero();
+  }
+
+  @Test
+  void it_should_replace_an_entry_stored_for_the_same_key() {
+    underTest.put(key("/a"), entry(10));
+    underTest.put(key("/a"), entry(5));
+
+    assertThat(underTest.getEntries()).isEqualTo(1);
+    assertThat(underTest.getBytes()).isEqualTo(5);
+  }
+
+  @Test
+  void it_should_only_store_successful_responses_with_a_validator() {
+    assertThat(ResponseCache.isStorable(response(200, "ETag", "\"v1\""))).isTrue();
+    assertThat(ResponseCache.isStorable(response(200, "Last-Modified", "Wed, 21 Oct 2026 07:28:00 GMT"))).isTrue();
+    assertThat(ResponseCache.isStorable(new BasicHttpResponse(200))).isFalse();
+    assertThat(ResponseCache.isStorable(response(404, "ETag", "\"v1\""))).isFalse();
+    var noStore = response(200, "ETag", "\"v1\"");
+    noStore.addHeader("Cache-Control", "private, no-store");
+    assertThat(ResponseCache.isStorable(noStore)).isFalse();
+  }
+
+  @Test
+  void it_should_only_record_bodies_announced_small_enough_or_json_bodies_of_unknown_size() {
+    assertThat(underTest.canRecord(new BasicEntityDetails(10, ContentType.APPLICATION_OCTET_STREAM))).isTrue();
+    assertThat(underTest.canRecord(new BasicEntityDetails(11, ContentType.APPLICATION_JSON))).isFalse();
+    assertThat(underTest.canRecord(new BasicEntityDetails(-1, ContentType.APPLICATION_JSON))).isTrue();
+    assertThat(underTest.canRecord(new BasicEntityDetails(-1, ContentType.create("application/problem+json")))).isTrue();
+    assertThat(underTest.canRecord(new BasicEntityDetails(-1, ContentType.APPLICATION_OCTET_STREAM))).isFalse();
+    assertThat(underTest.canRecord(new BasicEntityDetails(-1, null))).isFalse();
+  }
+
+  @Test
+  void it_should_not_look_plugin_downloads_up() {
+    assertThat(ResponseCache.isCacheable("https://sonarqube.example.com/api/issues/search")).isTrue();
+    assertThat(ResponseCache.isCacheable("https://sonarqube.example.com/sonarqube/api/plugins/download?plugin=java")).isFalse();
+  }
+
+  private static ResponseCache.Key key(String path) {
+    return new ResponseCache.Key("token", "http://localhost" + path);
+  }
+
+  private static ResponseCache.Entry entry(int size) {
+    return new ResponseCache.Entry("\"v1\"", null, StandardCharsets.UTF_8, null, new byte[size]);
+  }
+
+  private static BasicHttpResponse response(int code, String header, String value) {
+    var response = new BasicHttpResponse(code);
+    response.addHeader(header, value);
+    return response;
+  }
+
+}
@@ -0,0 +1,86 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.http;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RetryPolicyTests {
+
+  private static final Instant NOW = Instant.parse("2026-10-16T10:00:00Z");
+
+  private final RetryPolicy underTest = new RetryPolicy(new HttpRetrySettings(3, Map.of(), Duration.ofMillis(100), Duration.ofSeconds(1)),
+    Clock.fixed(NOW, ZoneOffset.UTC));
+
+  @Test
+  void it_should_retry_transient_error_responses_within_the_exponential_bound() {
+    assertThat(retryDelay(0, response(503, null))).isBetween(Duration.ZERO, Duration.ofMillis(100));
+    assertThat(retryDelay(2, response(502, null))).isBetween(Duration.ZERO, Duration.ofMillis(400));
+    assertThat(retryDelay(10, response(504, null))).isBetween(Duration.ZERO, Duration.ofSeconds(1));
+  }
+
+  @Test
+  void it_should_not_retry_other_responses() {
+    assertThat(retryDelay(0, response(200, null))).isNull();
+    assertThat(retryDelay(0, response(500, null))).isNull();
+    assertThat(retryDelay(0, response(404, null))).isNull();
+  }
+
+  @Test
+  void it_should_honour_retry_after() {
+    assertThat(retryDelay(0, response(429, "1"))).isEqualTo(Duration.ofSeconds(1));
+    assertThat(retryDelay(0, response(503, "Fri, 16 Oct 2026 10:00:01 GMT"))).isEqualTo(Duration.ofSeconds(1));
+    assertThat(retryDelay(0, response(503, "Fri, 16 Oct 2026 09:00:00 GMT"))).isEqualTo(Duration.ZERO);
+  }
+
+  @Test
+  void it_should_not_retry_when_asked_to_wait_longer_than_the_max_backoff() {
+    assertThat(retryDelay(0, response(429, "60"))).isNull();
+  }
+
+  @Test
+  void it_should_retry_connection_failures_but_not_timeouts_nor_cancellations() {
+    assertThat(underTest.retryDelay(0, null, new ConnectException("refused"))).isNotNull();
+    assertThat(underTest.retryDelay(0, null, new IOException("reset"))).isNotNull();
+    assertThat(underTest.retryDelay(0, null, new SocketTimeoutException("timeout"))).isNull();
+    assertThat(underTest.retryDelay(0, null, new CancellationException())).isNull();
+  }
+
+  private Duration retryDelay(int retry, HttpClient.Response response) {
+    return underTest.retryDelay(retry, response, null);
+  }
+
+  private static HttpClient.Response response(int code, String retryAfter) {
+    var response = mock(HttpClient.Response.class);
+    when(response.code()).thenReturn(code);
+    when(response.header("Retry-After")).thenReturn(retryAfter);
+    return response;
+  }
+
+}
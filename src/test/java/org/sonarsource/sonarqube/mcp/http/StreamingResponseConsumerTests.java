@@ -0,0 +1,135 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.http;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.message.BasicHttpResponse;
+import org.apache.hc.core5.http.nio.entity.BasicAsyncEntityProducer;
+import org.apache.hc.core5.http.protocol.BasicHttpContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class StreamingResponseConsumerTests {
+
+  private static final int BUFFER_SIZE = 8;
+
+  private final List<Integer> capacityUpdates = new ArrayList<>();
+  private StreamingResponseConsumer underTest;
+  private HttpClient.Response response;
+
+  @BeforeEach
+  void prepare() throws Exception {
+    underTest = new StreamingResponseConsumer("http://localhost/test", BUFFER_SIZE, new HttpClientMetrics(), null);
+    var result = new AtomicReference<HttpClient.Response>();
+    underTest.consumeResponse(new BasicHttpResponse(200), new BasicAsyncEntityProducer("", ContentType.APPLICATION_JSON), new BasicHttpContext(),
+      new FutureCallback<>() {
+        @Override
+        public void completed(HttpClient.Response response) {
+          result.set(response);
+        }
+
+        @Override
+        public void failed(Exception ex) {
+          // not expected
+        }
+
+        @Override
+        public void cancelled() {
+          // not expected
+        }
+      });
+    response = result.get();
+  }
+
+  @Test
+  void it_should_complete_before_the_body_is_received() {
+    assertThat(response).isNotNull();
+    assertThat(response.code()).isEqualTo(200);
+    assertThat(response.url()).isEqualTo("http://localhost/test");
+  }
+
+  @Test
+  void it_should_stream_the_body() throws Exception {
+    underTest.consume(ByteBuffer.wrap("{\"a\":".getBytes(StandardCharsets.UTF_8)));
+    underTest.consume(ByteBuffer.wrap("\"\u00e9\"}".getBytes(StandardCharsets.UTF_8)));
+    underTest.streamEnd(null);
+
+    assertThat(response.bodyAsString()).isEqualTo("{\"a\":\"\u00e9\"}");
+  }
+
+  @Test
+  void it_should_only_request_more_data_once_the_reader_made_room() throws Exception {
+    underTest.updateCapacity(capacityUpdates::add);
+    underTest.consume(ByteBuffer.wrap(new byte[BUFFER_SIZE]));
+    underTest.updateCapacity(capacityUpdates::add);
+
+    assertThat(capacityUpdates).containsExactly(BUFFER_SIZE);
+
+    var read = response.bodyAsStream().read(new byte[3]);
+
+    assertThat(read).isEqualTo(3);
+    assertThat(capacityUpdates).containsExactly(BUFFER_SIZE, 3);
+  }
+
+  @Test
+  void it_should_fail_the_reader_when_the_exchange_fails() {
+    underTest.failed(new IOException("Connection reset"));
+
+    var exception = assertThrows(IOException.class, () -> response.bodyAsStream().read());
+    assertThat(exception).hasRootCauseMessage("Connection reset");
+  }
+
+  @Test
+  void it_should_abort_the_exchange_when_closed_before_the_end_of_the_body() throws Exception {
+    underTest.consume(ByteBuffer.wrap(new byte[BUFFER_SIZE]));
+    underTest.updateCapacity(capacityUpdates::add);
+
+    response.close();
+
+    assertThat(capacityUpdates).containsExactly(BUFFER_SIZE);
+    var nextChunk = ByteBuffer.wrap(new byte[1]);
+    assertThrows(IOException.class, () -> underTest.consume(nextChunk));
+  }
+
+  @Test
+  void it_should_refuse_to_read_the_body_on_an_io_thread() throws Exception {
+    var failure = new AtomicReference<Throwable>();
+    var ioThread = IoThreads.factory().newThread(() -> {
+      try {
+        response.bodyAsStream();
+      } catch (Throwable e) {
+        failure.set(e);
+      }
+    });
+
+    ioThread.start();
+    ioThread.join();
+
+    assertThat(failure.get()).isInstanceOf(IllegalStateException.class).hasMessageContaining("http://localhost/test");
+  }
+
+}
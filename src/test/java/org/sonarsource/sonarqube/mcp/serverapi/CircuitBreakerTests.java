@@ -0,0 +1,141 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.serverapi;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CircuitBreakerTests {
+
+  private final MutableClock clock = new MutableClock();
+  private final CircuitBreaker underTest = new CircuitBreaker("the issues endpoints of localhost", new CircuitBreakerSettings(3,
+    Duration.ofSeconds(30)), clock);
+
+  @Test
+  void it_should_open_after_consecutive_failures() {
+    underTest.onFailure();
+    underTest.onFailure();
+    assertThat(underTest.acquire()).isEqualTo(CircuitBreaker.Permit.ALLOWED);
+
+    underTest.onFailure();
+
+    assertThat(underTest.acquire()).isEqualTo(CircuitBreaker.Permit.REJECTED);
+    assertThat(underTest.remainingOpenDuration()).isEqualTo(Duration.ofSeconds(30));
+  }
+
+  @Test
+  void it_should_not_open_when_failures_are_not_consecutive() {
+    underTest.onFailure();
+    underTest.onFailure();
+    underTest.onSuccess();
+    underTest.onFailure();
+    underTest.onFailure();
+
+    assertThat(underTest.acquire()).isEqualTo(CircuitBreaker.Permit.ALLOWED);
+  }
+
+  @Test
+  void it_should_let_a_single_probe_through_once_the_open_duration_elapsed() {
+    open();
+    clock.advance(Duration.ofSeconds(30));
+
+    assertThat(underTest.acquire()).isEqualTo(CircuitBreaker.Permit.PROBE);
+    assertThat(underTest.acquire()).isEqualTo(CircuitBreaker.Permit.REJECTED);
+  }
+
+  @Test
+  void it_should_close_when_the_probe_succeeds() {
+    open();
+    clock.advance(Duration.ofSeconds(30));
+    underTest.acquire();
+
+    underTest.onProbeCompleted(true);
+
+    assertThat(underTest.acquire()).isEqualTo(CircuitBreaker.Permit.ALLOWED);
+  }
+
+  @Test
+  void it_should_open_again_when_the_probe_fails() {
+    open();
+    clock.advance(Duration.ofSeconds(30));
+    underTest.acquire();
+
+    underTest.onProbeCompleted(false);
+
+    assertThat(underTest.acquire()).isEqualTo(CircuitBreaker.Permit.REJECTED);
+    assertThat(underTest.remainingOpenDuration()).isEqualTo(Duration.ofSeconds(30));
+  }
+
+  @Test
+  void it_should_ignore_the_outcome_of_requests_sent_before_opening() {
+    open();
+    clock.advance(Duration.ofSeconds(30));
+    underTest.acquire();
+
+    underTest.onSuccess();
+
+    assertThat(underTest.acquire()).isEqualTo(CircuitBreaker.Permit.REJECTED);
+  }
+
+  @Test
+  void it_should_never_open_without_threshold() {
+    var neverOpening = new CircuitBreaker("the issues endpoints of localhost", new CircuitBreakerSettings(0, Duration.ofSeconds(30)), clock);
+
+    for (var i = 0; i < 10; i++) {
+      neverOpening.onFailure();
+    }
+
+    assertThat(neverOpening.acquire()).isEqualTo(CircuitBreaker.Permit.ALLOWED);
+  }
+
+  private void open() {
+    for (var i = 0; i < 3; i++) {
+      underTest.onFailure();
+    }
+  }
+
+  private static class MutableClock extends Clock {
+
+    private Instant instant = Instant.parse("2026-10-16T10:00:00Z");
+
+    void advance(Duration duration) {
+      instant = instant.plus(duration);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return instant;
+    }
+  }
+
+}
@@ -17,28 +17,45 @@
 package org.sonarsource.sonarqube.mcp.serverapi;
 
 import com.github.tomakehurst.wiremock.junit5.WireMockExtension;
+import com.github.tomakehurst.wiremock.stubbing.Scenario;
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import org.apache.hc.core5.http.HttpStatus;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
 import org.junit.jupiter.api.extension.RegisterExtension;
+import org.sonarsource.sonarqube.mcp.http.HttpClient;
 import org.sonarsource.sonarqube.mcp.http.HttpClientProvider;
+import org.sonarsource.sonarqube.mcp.http.HttpRetrySettings;
 import org.sonarsource.sonarqube.mcp.serverapi.exception.ForbiddenException;
 import org.sonarsource.sonarqube.mcp.serverapi.exception.NotFoundException;
 import org.sonarsource.sonarqube.mcp.serverapi.exception.ServerInternalErrorException;
+import org.sonarsource.sonarqube.mcp.serverapi.exception.ServerUnavailableException;
+import org.sonarsource.sonarqube.mcp.serverapi.exception.TooManyRequestsException;
 import org.sonarsource.sonarqube.mcp.serverapi.exception.UnauthorizedException;
+import org.sonarsource.sonarqube.mcp.serverapi.system.response.StatusResponse;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
 import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
 import static com.github.tomakehurst.wiremock.client.WireMock.jsonResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
 import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @TestInstance(TestInstance.Lifecycle.PER_CLASS)
 class ServerApiTests {
 
   private static final String USER_AGENT = "SonarQube MCP tests";
+  private HttpClient httpClient;
   private ServerApiHelper serverApiHelper;
 
   @RegisterExtension
@@ -49,11 +66,35 @@ class ServerApiTests {
   @BeforeAll
   void init() {
     var httpClientProvider = new HttpClientProvider(USER_AGENT);
-    var httpClient = httpClientProvider.getHttpClient("token");
+    httpClient = httpClientProvider.getHttpClient("token");
 
     serverApiHelper = new ServerApiHelper(new EndpointParams(sonarqubeMock.baseUrl(), "org"), httpClient);
   }
 
+  @Test
+  void it_should_abort_the_request_when_the_waiting_thread_is_interrupted() throws InterruptedException {
+    sonarqubeMock.stubFor(get("/slow").willReturn(aResponse().withStatus(HttpStatus.SC_OK).withFixedDelay(30_000)));
+    var failure = new AtomicReference<Throwable>();
+    var isInterruptPreserved = new AtomicBoolean(false);
+    var caller = new Thread(() -> {
+      try {
+        serverApiHelper.get("/slow");
+      } catch (Exception e) {
+        failure.set(e);
+        isInterruptPreserved.set(Thread.currentThread().isInterrupted());
+      }
+    });
+    caller.start();
+    await().atMost(Duration.ofSeconds(5)).until(() -> !sonarqubeMock.getAllServeEvents().isEmpty());
+
+    caller.interrupt();
+    caller.join(5_000);
+
+    assertThat(caller.isAlive()).isFalse();
+    assertThat(failure.get()).isInstanceOf(CancellationException.class);
+    assertThat(isInterruptPreserved).isTrue();
+  }
+
   @Test
   void it_should_throw_on_unauthorized_response() {
     sonarqubeMock.stubFor(get("/test").willReturn(aResponse().withStatus(HttpStatus.SC_UNAUTHORIZED)));
@@ -86,6 +127,100 @@ class ServerApiTests {
     assertThat(exception).hasMessage("SonarQube answered with Error 500 on " + sonarqubeMock.baseUrl() + "/test");
   }
 
+  @Test
+  void it_should_throw_on_too_many_requests_response_once_retries_are_exhausted() {
+    sonarqubeMock.stubFor(get("/test").willReturn(aResponse().withStatus(HttpStatus.SC_TOO_MANY_REQUESTS).withHeader("Retry-After", "0")));
+
+    var exception = assertThrows(TooManyRequestsException.class, () -> serverApiHelper.get("/test"));
+    assertThat(exception).hasMessage("SonarQube answered with Error 429 on " + sonarqubeMock.baseUrl() + "/test: rate limit exceeded, please retry later");
+    sonarqubeMock.verify(1 + HttpRetrySettings.DEFAULT_MAX_RETRIES, getRequestedFor(urlEqualTo("/test")));
+  }
+
+  @Test
+  void it_should_retry_get_requests_failing_with_a_transient_error() {
+    sonarqubeMock.stubFor(get("/test").inScenario("transient").whenScenarioStateIs(Scenario.STARTED)
+      .willReturn(aResponse().withStatus(HttpStatus.SC_SERVICE_UNAVAILABLE)).willSetStateTo("recovered"));
+    sonarqubeMock.stubFor(get("/test").inScenario("transient").whenScenarioStateIs("recovered").willReturn(aResponse().withBody("ok")));
+
+    try (var response = serverApiHelper.get("/test")) {
+      assertThat(response.bodyAsString()).isEqualTo("ok");
+    }
+  }
+
+  @Test
+  void it_should_not_retry_post_requests() {
+    sonarqubeMock.stubFor(post("/test").willReturn(aResponse().withStatus(HttpStatus.SC_SERVICE_UNAVAILABLE)));
+
+    assertThrows(ServerInternalErrorException.class, () -> serverApiHelper.post("/test", "text/plain", ""));
+    sonarqubeMock.verify(1, postRequestedFor(urlEqualTo("/test")));
+  }
+
+  @Test
+  void it_should_fail_fast_once_the_circuit_breaker_is_open() {
+    sonarqubeMock.stubFor(get("/api/issues/search").willReturn(aResponse().withStatus(HttpStatus.SC_SERVICE_UNAVAILABLE)));
+    var underTest = new ServerApiHelper(new EndpointParams(sonarqubeMock.baseUrl(), "org"), httpClient,
+      new CircuitBreakers(new CircuitBreakerSettings(2, Duration.ofMinutes(1))));
+
+    assertThrows(ServerInternalErrorException.class, () -> underTest.get("/api/issues/search"));
+    assertThrows(ServerInternalErrorException.class, () -> underTest.get("/api/issues/search"));
+    var exception = assertThrows(ServerUnavailableException.class, () -> underTest.get("/api/issues/search"));
+
+    assertThat(exception).hasMessageStartingWith("SonarQube is not answering requests to the issues endpoints of localhost:" + sonarqubeMock.getPort());
+    // each call is retried before counting as a single failure
+    sonarqubeMock.verify(2 * (1 + HttpRetrySettings.DEFAULT_MAX_RETRIES), getRequestedFor(urlEqualTo("/api/issues/search")));
+    // other endpoint families are not affected
+    sonarqubeMock.stubFor(get("/api/rules/search").willReturn(aResponse().withBody("ok")));
+    try (var response = underTest.get("/api/rules/search")) {
+      assertThat(response.bodyAsString()).isEqualTo("ok");
+    }
+  }
+
+  @Test
+  void it_should_keep_the_circuit_breaker_closed_on_internal_errors() {
+    sonarqubeMock.stubFor(get("/api/issues/search").willReturn(aResponse().withStatus(HttpStatus.SC_INTERNAL_SERVER_ERROR)));
+    var underTest = new ServerApiHelper(new EndpointParams(sonarqubeMock.baseUrl(), "org"), httpClient,
+      new CircuitBreakers(new CircuitBreakerSettings(2, Duration.ofMinutes(1))));
+
+    for (var i = 0; i < 5; i++) {
+      assertThrows(ServerInternalErrorException.class, () -> underTest.get("/api/issues/search"));
+    }
+
+    sonarqubeMock.verify(5, getRequestedFor(urlEqualTo("/api/issues/search")));
+  }
+
+  @Test
+  void it_should_close_the_circuit_breaker_once_the_server_status_is_up() {
+    sonarqubeMock.stubFor(get("/api/issues/search").willReturn(aResponse().withStatus(HttpStatus.SC_SERVICE_UNAVAILABLE)));
+    var underTest = new ServerApiHelper(new EndpointParams(sonarqubeMock.baseUrl(), "org"), httpClient,
+      new CircuitBreakers(new CircuitBreakerSettings(1, Duration.ofMillis(100))));
+    assertThrows(ServerInternalErrorException.class, () -> underTest.get("/api/issues/search"));
+
+    sonarqubeMock.stubFor(get("/api/system/status").willReturn(jsonResponse("{\"status\": \"UP\"}", HttpStatus.SC_OK)));
+    // the latest stub wins
+    sonarqubeMock.stubFor(get("/api/issues/search").willReturn(aResponse().withBody("ok")));
+
+    await().atMost(Duration.ofSeconds(5)).ignoreExceptionsInstanceOf(ServerUnavailableException.class).untilAsserted(() -> {
+      try (var response = underTest.get("/api/issues/search")) {
+        assertThat(response.bodyAsString()).isEqualTo("ok");
+      }
+    });
+    sonarqubeMock.verify(1, getRequestedFor(urlEqualTo("/api/system/status")));
+  }
+
+  @Test
+  void it_should_keep_the_circuit_breaker_open_while_the_server_status_is_not_up() {
+    sonarqubeMock.stubFor(get("/api/issues/search").willReturn(aResponse().withStatus(HttpStatus.SC_SERVICE_UNAVAILABLE)));
+    sonarqubeMock.stubFor(get("/api/system/status").willReturn(jsonResponse("{\"status\": \"STARTING\"}", HttpStatus.SC_OK)));
+    var underTest = new ServerApiHelper(new EndpointParams(sonarqubeMock.baseUrl(), "org"), httpClient,
+      new CircuitBreakers(new CircuitBreakerSettings(1, Duration.ZERO)));
+    assertThrows(ServerInternalErrorException.class, () -> underTest.get("/api/issues/search"));
+
+    var exception = assertThrows(CompletionException.class, () -> underTest.getAsync("/api/issues/search").join());
+
+    assertThat(exception).hasCauseInstanceOf(ServerUnavailableException.class);
+    sonarqubeMock.verify(1 + HttpRetrySettings.DEFAULT_MAX_RETRIES, getRequestedFor(urlEqualTo("/api/issues/search")));
+  }
+
   @Test
   void it_should_throw_on_any_other_error_response() {
     sonarqubeMock.stubFor(get("/test").willReturn(aResponse().withStatus(HttpStatus.SC_BAD_REQUEST)));
@@ -102,4 +237,44 @@ class ServerApiTests {
     assertThat(exception).hasMessage("Error 400 on " + sonarqubeMock.baseUrl() + "/test: Kaboom");
   }
 
+  @Test
+  void it_should_parse_the_response_asynchronously() {
+    sonarqubeMock.stubFor(get("/api/system/status").willReturn(jsonResponse("{\"id\": \"id\", \"version\": \"10.8\", \"status\": \"UP\"}", HttpStatus.SC_OK)));
+
+    var status = serverApiHelper.getAnonymousAsync("/api/system/status", StatusResponse.class).join();
+
+    assertThat(status.status()).isEqualTo("UP");
+  }
+
+  @Test
+  void it_should_return_the_raw_body_asynchronously() {
+    sonarqubeMock.stubFor(get("/api/system/ping").willReturn(aResponse().withStatus(HttpStatus.SC_OK).withBody("pong")));
+
+    var body = serverApiHelper.getAnonymousAsync("/api/system/ping", String.class).join();
+
+    assertThat(body).isEqualTo("pong");
+  }
+
+  @Test
+  void it_should_fail_the_future_on_error_response() {
+    sonarqubeMock.stubFor(get("/test").willReturn(aResponse().withStatus(HttpStatus.SC_NOT_FOUND)));
+
+    var future = serverApiHelper.getAsync("/test", StatusResponse.class);
+
+    var exception = assertThrows(CompletionException.class, future::join);
+    assertThat(exception).hasCauseInstanceOf(NotFoundException.class);
+    assertThat(exception.getCause()).hasMessage("SonarQube answered with Error 404 on " + sonarqubeMock.baseUrl() + "/test");
+  }
+
+  @Test
+  void it_should_abort_the_request_when_the_future_is_cancelled() {
+    sonarqubeMock.stubFor(get("/slow").willReturn(aResponse().withStatus(HttpStatus.SC_OK).withFixedDelay(30_000)));
+    var future = serverApiHelper.getAsync("/slow", StatusResponse.class);
+    await().atMost(Duration.ofSeconds(5)).until(() -> !sonarqubeMock.getAllServeEvents().isEmpty());
+
+    assertThat(future.cancel(true)).isTrue();
+
+    assertThat(future).isCancelled();
+  }
+
 }
@@ -18,6 +18,7 @@ package org.sonarsource.sonarqube.mcp.slcore;
 
 import java.net.URI;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
@@ -32,6 +33,7 @@ import org.sonarsource.sonarlint.core.rpc.client.ClientJsonRpcLauncher;
 import org.sonarsource.sonarlint.core.rpc.protocol.SonarLintRpcServer;
 import org.sonarsource.sonarlint.core.rpc.protocol.backend.analysis.AnalysisRpcService;
 import org.sonarsource.sonarlint.core.rpc.protocol.backend.analysis.AnalyzeFilesAndTrackParams;
+import org.sonarsource.sonarlint.core.rpc.protocol.backend.analysis.AnalyzeFilesResponse;
 import org.sonarsource.sonarlint.core.rpc.protocol.backend.file.DidUpdateFileSystemParams;
 import org.sonarsource.sonarlint.core.rpc.protocol.backend.file.FileRpcService;
 import org.sonarsource.sonarlint.core.rpc.protocol.backend.telemetry.TelemetryRpcService;
@@ -41,7 +43,10 @@ import org.sonarsource.sonarlint.core.rpc.protocol.common.Language;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.after;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -55,11 +60,13 @@ class BackendServiceTests {
   private AnalysisRpcService analysisRpcService;
   private TelemetryRpcService telemetryRpcService;
   private FileRpcService fileRpcService;
+  private SonarLintRpcServer backend;
 
   @BeforeEach
   void init() {
-    var backend = mock(SonarLintRpcServer.class);
+    backend = mock(SonarLintRpcServer.class);
     when(backend.initialize(any())).thenReturn(CompletableFuture.completedFuture(null));
+    when(backend.shutdown()).thenReturn(CompletableFuture.completedFuture(null));
     analysisRpcService = mock(AnalysisRpcService.class);
     telemetryRpcService = mock(TelemetryRpcService.class);
     fileRpcService = mock(FileRpcService.class);
@@ -69,7 +76,7 @@ class BackendServiceTests {
 
     var jsonRpcLauncher = mock(ClientJsonRpcLauncher.class);
     when(jsonRpcLauncher.getServerProxy()).thenReturn(backend);
-    service = new BackendService(jsonRpcLauncher, storagePath, System.getProperty("sonarqube.mcp.server.version"),
+    service = new BackendService(() -> jsonRpcLauncher, storagePath, System.getProperty("sonarqube.mcp.server.version"),
       "SonarQube MCP Server Tests");
     service.initialize(new BackendService.AnalyzersAndLanguagesEnabled(Set.of(), EnumSet.noneOf(Language.class)));
   }
@@ -136,4 +143,59 @@ class BackendServiceTests {
     ).containsExactly(List.of(clientFileDto), List.of(), List.of());
   }
 
+  @Test
+  void should_restart_a_suspended_backend_on_the_next_analysis() {
+    service.suspend();
+    verify(backend).shutdown();
+
+    service.notifyToolCalled("tool_name", true);
+    verify(telemetryRpcService, after(100).never()).toolCalled(any());
+
+    service.analyzeFilesAndTrack(UUID.randomUUID(), List.of(), System.currentTimeMillis());
+
+    verify(analysisRpcService, timeout(1000)).analyzeFilesAndTrack(any());
+    verify(backend, times(2)).initialize(any());
+    verify(telemetryRpcService, timeout(1000)).toolCalled(any());
+  }
+
+  @Test
+  void should_not_block_the_callers_while_the_backend_restarts() {
+    service.suspend();
+    var initialization = new CompletableFuture<Void>();
+    when(backend.initialize(any())).thenReturn(initialization);
+
+    var analysis = service.analyzeFilesAndTrack(UUID.randomUUID(), List.of(), System.currentTimeMillis());
+    service.suspend();
+
+    assertThat(analysis).isNotDone();
+    verify(analysisRpcService, after(100).never()).analyzeFilesAndTrack(any());
+    initialization.complete(null);
+    verify(analysisRpcService, timeout(1000)).analyzeFilesAndTrack(any());
+    verify(backend, times(1)).shutdown();
+  }
+
+  @Test
+  void should_not_suspend_the_backend_while_an_analysis_uses_it() {
+    var backendAnalysis = new CompletableFuture<AnalyzeFilesResponse>();
+    when(analysisRpcService.analyzeFilesAndTrack(any())).thenReturn(backendAnalysis);
+    var analysis = service.analyzeFilesAndTrack(UUID.randomUUID(), List.of(), System.currentTimeMillis());
+    verify(analysisRpcService, timeout(1000)).analyzeFilesAndTrack(any());
+
+    service.suspend();
+    verify(backend, never()).shutdown();
+
+    backendAnalysis.complete(mock(AnalyzeFilesResponse.class));
+    assertThat(analysis).succeedsWithin(Duration.ofSeconds(1));
+    service.suspend();
+    verify(backend).shutdown();
+  }
+
+  @Test
+  void should_suspend_the_backend_only_once() {
+    service.suspend();
+    service.suspend();
+
+    verify(backend, times(1)).shutdown();
+  }
+
 }
@@ -0,0 +1,58 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.tools;
+
+import java.util.ArrayList;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProgressReporterTest {
+
+  @Test
+  void it_should_only_forward_increasing_progress() {
+    var reported = new ArrayList<Long>();
+    var progressReporter = new ProgressReporter((progress, total, message) -> reported.add(progress));
+
+    progressReporter.progress(1, null, null);
+    progressReporter.progress(3, null, null);
+    progressReporter.progress(2, null, null);
+    progressReporter.progress(3, null, null);
+    progressReporter.progress(4, null, null);
+
+    assertThat(reported).containsExactly(1L, 3L, 4L);
+  }
+
+  @Test
+  void it_should_stop_forwarding_once_closed() {
+    var reported = new ArrayList<Long>();
+    var progressReporter = new ProgressReporter((progress, total, message) -> reported.add(progress));
+    progressReporter.progress(1, null, null);
+
+    progressReporter.close();
+    progressReporter.progress(2, null, null);
+
+    assertThat(reported).containsExactly(1L);
+    assertThat(progressReporter.isEnabled()).isFalse();
+  }
+
+  @Test
+  void it_should_be_disabled_without_listener() {
+    assertThat(ProgressReporter.NONE.isEnabled()).isFalse();
+  }
+
+}
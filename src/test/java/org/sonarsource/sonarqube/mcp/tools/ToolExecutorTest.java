@@ -17,12 +17,23 @@
 package org.sonarsource.sonarqube.mcp.tools;
 
 import io.modelcontextprotocol.spec.McpSchema;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.sonarsource.sonarqube.mcp.slcore.BackendService;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 
@@ -30,6 +41,7 @@ class ToolExecutorTest {
 
   private BackendService mockBackendService;
   private ToolExecutor toolExecutor;
+  private final CountDownLatch started = new CountDownLatch(1);
 
   @BeforeEach
   void prepare() {
@@ -37,6 +49,11 @@ class ToolExecutorTest {
     toolExecutor = new ToolExecutor(mockBackendService);
   }
 
+  @AfterEach
+  void cleanup() {
+    toolExecutor.shutdown();
+  }
+
   @Test
   void it_should_register_telemetry_after_the_tool_call_succeeds() {
     toolExecutor.execute(new Tool(new McpSchema.Tool("tool_name", null, new McpSchema.JsonSchema("object", Map.of(), List.of(), false))) {
@@ -61,4 +78,140 @@ class ToolExecutorTest {
     verify(mockBackendService).notifyToolCalled("mcp_tool_name", false);
   }
 
+  @Test
+  void it_should_fail_and_interrupt_the_tool_call_after_the_timeout() {
+    var interrupted = new CountDownLatch(1);
+    toolExecutor = new ToolExecutor(mockBackendService, new ToolExecutionSettings(1, 1, Duration.ofSeconds(10), Map.of(), Map.of("tool_name", Duration.ofSeconds(1)), false));
+
+    var result = toolExecutor.execute(blockingTool("tool_name", new CountDownLatch(1), interrupted), Map.of());
+
+    assertThat(result.isError()).isTrue();
+    assertThat(result.content()).extracting(content -> ((McpSchema.TextContent) content).text())
+      .containsExactly("An error occurred during the tool execution: the tool did not complete within 1 seconds.");
+    await().atMost(Duration.ofSeconds(5)).until(() -> interrupted.getCount() == 0);
+    verify(mockBackendService).notifyToolCalled("mcp_tool_name", false);
+  }
+
+  @Test
+  void it_should_reject_calls_when_the_tool_bulkhead_is_full() {
+    var release = new CountDownLatch(1);
+    toolExecutor = new ToolExecutor(mockBackendService, new ToolExecutionSettings(1, 1, Duration.ofSeconds(10), Map.of(), Map.of(), false));
+    var tool = blockingTool("slow_tool", release, new CountDownLatch(1));
+
+    var running = toolExecutor.executeAsync(tool, Map.of());
+    var queued = toolExecutor.executeAsync(tool, Map.of());
+    var rejected = toolExecutor.executeAsync(tool, Map.of());
+
+    assertThat(rejected).isCompleted();
+    assertThat(rejected.join().isError()).isTrue();
+    assertThat(rejected.join().content()).extracting(content -> ((McpSchema.TextContent) content).text())
+      .containsExactly("An error occurred during the tool execution: too many calls to this tool are in progress, retry later.");
+    release.countDown();
+    assertThat(running.join().isError()).isFalse();
+    assertThat(queued.join().isError()).isFalse();
+  }
+
+  @Test
+  void it_should_run_other_tools_while_a_tool_is_saturated() {
+    var release = new CountDownLatch(1);
+    toolExecutor = new ToolExecutor(mockBackendService, new ToolExecutionSettings(4, 4, Duration.ofSeconds(10), Map.of("slow_tool", 1), Map.of(), false));
+    var slowTool = blockingTool("slow_tool", release, new CountDownLatch(1));
+    var slowCalls = List.of(toolExecutor.executeAsync(slowTool, Map.of()), toolExecutor.executeAsync(slowTool, Map.of()));
+
+    var fastResult = toolExecutor.executeAsync(new Tool(new McpSchema.Tool("fast_tool", null, new McpSchema.JsonSchema("object", Map.of(), List.of(), false))) {
+      @Override
+      public Result execute(Arguments arguments) {
+        return Result.success("Success!");
+      }
+    }, Map.of()).orTimeout(5, TimeUnit.SECONDS).join();
+
+    assertThat(fastResult.isError()).isFalse();
+    assertThat(slowCalls).noneMatch(CompletableFuture::isDone);
+    release.countDown();
+    slowCalls.forEach(CompletableFuture::join);
+  }
+
+  @Test
+  void it_should_interrupt_the_tool_call_when_cancelled() {
+    var interrupted = new CountDownLatch(1);
+    var tool = blockingTool("tool_name", new CountDownLatch(1), interrupted);
+
+    var future = toolExecutor.executeAsync(tool, Map.of());
+    await().atMost(Duration.ofSeconds(5)).until(() -> started.getCount() == 0);
+    future.cancel(true);
+
+    await().atMost(Duration.ofSeconds(5)).until(() -> interrupted.getCount() == 0);
+  }
+
+  @Test
+  void it_should_forward_the_progress_of_the_tool_until_the_call_completes() {
+    var reports = new ArrayList<String>();
+    var progressReporter = new ProgressReporter((progress, total, message) -> reports.add(progress + "/" + total + " " + message));
+    var reporterOfCompletedCall = new AtomicReference<ProgressReporter>();
+
+    toolExecutor.executeAsync(new Tool(new McpSchema.Tool("tool_name", null, new McpSchema.JsonSchema("object", Map.of(), List.of(), false))) {
+      @Override
+      public Result execute(Arguments arguments) {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public Result execute(Arguments arguments, ProgressReporter reporter) {
+        reporter.progress(1, 2L, "first page");
+        reporter.progress(2, 2L, "second page");
+        reporterOfCompletedCall.set(reporter);
+        return Result.success("Success!");
+      }
+    }, Map.of(), progressReporter).join();
+    reporterOfCompletedCall.get().progress(3, 3L, "too late");
+
+    assertThat(reports).containsExactly("1/2 first page", "2/2 second page");
+    assertThat(progressReporter.isEnabled()).isFalse();
+  }
+
+  @Test
+  void it_should_run_many_blocked_calls_concurrently_on_virtual_threads() {
+    var calls = 200;
+    toolExecutor = new ToolExecutor(mockBackendService, new ToolExecutionSettings(calls, 1, Duration.ofSeconds(30), Map.of(), Map.of(), true));
+    var allStarted = new CountDownLatch(calls);
+    var isVirtual = new AtomicBoolean(true);
+    var tool = new Tool(new McpSchema.Tool("tool_name", null, new McpSchema.JsonSchema("object", Map.of(), List.of(), false))) {
+      @Override
+      public Result execute(Arguments arguments) {
+        isVirtual.compareAndSet(true, Thread.currentThread().isVirtual());
+        allStarted.countDown();
+        try {
+          // blocks until every call is running, which requires as many threads as calls
+          allStarted.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return Result.failure("Interrupted");
+        }
+        return Result.success("Success!");
+      }
+    };
+
+    var results = IntStream.range(0, calls).mapToObj(i -> toolExecutor.executeAsync(tool, Map.of())).toList().stream().map(CompletableFuture::join).toList();
+
+    assertThat(results).allMatch(result -> !result.isError());
+    assertThat(isVirtual).isTrue();
+  }
+
+  private Tool blockingTool(String name, CountDownLatch release, CountDownLatch interrupted) {
+    return new Tool(new McpSchema.Tool(name, null, new McpSchema.JsonSchema("object", Map.of(), List.of(), false))) {
+      @Override
+      public Result execute(Arguments arguments) {
+        try {
+          started.countDown();
+          release.await();
+          return Result.success("Success!");
+        } catch (InterruptedException e) {
+          interrupted.countDown();
+          Thread.currentThread().interrupt();
+          return Result.failure("Interrupted");
+        }
+      }
+    };
+  }
+
 }
@@ -0,0 +1,71 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.transport;
+
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class HistogramTests {
+
+  private final Histogram histogram = new Histogram();
+
+  @Test
+  void it_should_report_an_empty_distribution() {
+    var snapshot = histogram.snapshot();
+
+    assertThat(snapshot.getCount()).isZero();
+    assertThat(snapshot.getMean()).isZero();
+    assertThat(snapshot.getP99()).isZero();
+  }
+
+  @Test
+  void it_should_report_percentiles_within_the_bucket_precision() {
+    LongStream.rangeClosed(1, 10_000).forEach(histogram::record);
+
+    var snapshot = histogram.snapshot();
+
+    assertThat(snapshot.getCount()).isEqualTo(10_000);
+    assertThat(snapshot.getMean()).isEqualTo(5_000.5);
+    assertThat(snapshot.getMax()).isEqualTo(10_000);
+    assertThat((double) snapshot.getP50()).isCloseTo(5_000, within(5_000 * 0.125));
+    assertThat((double) snapshot.getP90()).isCloseTo(9_000, within(9_000 * 0.125));
+    assertThat((double) snapshot.getP99()).isCloseTo(9_900, within(9_900 * 0.125));
+    assertThat(snapshot.getP99()).isGreaterThanOrEqualTo(9_900);
+  }
+
+  @Test
+  void it_should_never_report_a_percentile_above_the_max() {
+    histogram.record(1_000_001);
+
+    assertThat(histogram.snapshot().getP50()).isEqualTo(1_000_001);
+  }
+
+  @Test
+  void it_should_map_every_value_into_a_bucket_containing_it() {
+    for (var value : new long[] {0, 1, 7, 8, 9, 15, 16, 17, 1023, 1024, 123_456_789, Long.MAX_VALUE}) {
+      var index = Histogram.bucketIndex(value);
+      assertThat(Histogram.bucketUpperBound(index)).isGreaterThanOrEqualTo(value);
+      if (index > 0) {
+        assertThat(Histogram.bucketUpperBound(index - 1)).isLessThan(value);
+      }
+    }
+  }
+
+}
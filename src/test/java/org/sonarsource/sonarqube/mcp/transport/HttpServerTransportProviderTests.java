@@ -0,0 +1,330 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.transport;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.spec.McpServerSession;
+import jakarta.annotation.Nullable;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+class HttpServerTransportProviderTests {
+
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+  private final HttpClient httpClient = HttpClient.newHttpClient();
+  private HttpServerTransportProvider provider;
+
+  @AfterEach
+  void cleanup() {
+    provider.closeGracefully().block();
+  }
+
+  @Test
+  void it_should_create_a_session_on_initialize_and_answer_requests_on_an_event_stream() throws Exception {
+    startProvider(HttpTransportSettings.defaults());
+
+    var initializeResponse = post(null, initializeRequest(1), "application/json, text/event-stream");
+
+    assertThat(initializeResponse.statusCode()).isEqualTo(200);
+    assertThat(initializeResponse.headers().firstValue("Content-Type")).hasValue("text/event-stream");
+    var sessionId = initializeResponse.headers().firstValue(HttpServerTransportProvider.SESSION_ID_HEADER).orElseThrow();
+    var initializeResult = (McpSchema.JSONRPCResponse) parseEvents(initializeResponse.body())[0];
+    assertThat(initializeResult.id()).isEqualTo(1);
+    assertThat((Map<String, Object>) initializeResult.result()).containsEntry("serverInfo", Map.of("name", "server", "version", "1.0"));
+
+    var initializedResponse = post(sessionId, new McpSchema.JSONRPCNotification(McpSchema.JSONRPC_VERSION, McpSchema.METHOD_NOTIFICATION_INITIALIZED, null),
+      "application/json, text/event-stream");
+    assertThat(initializedResponse.statusCode()).isEqualTo(202);
+
+    var toolCallResponse = post(sessionId, toolCallRequest(2, sessionId), "application/json, text/event-stream");
+    var toolCallResult = (McpSchema.JSONRPCResponse) parseEvents(toolCallResponse.body())[0];
+    assertThat(toolCallResult.id()).isEqualTo(2);
+    assertThat(toolCallResult.result()).isEqualTo(Map.of("session", sessionId));
+  }
+
+  @Test
+  void it_should_answer_with_json_when_the_client_does_not_accept_event_streams() throws Exception {
+    startProvider(HttpTransportSettings.defaults());
+    var sessionId = initializeSession();
+
+    var response = post(sessionId, toolCallRequest(2, sessionId), "application/json");
+
+    assertThat(response.statusCode()).isEqualTo(200);
+    assertThat(response.headers().firstValue("Content-Type")).hasValue("application/json");
+    var result = (McpSchema.JSONRPCResponse) McpSchema.deserializeJsonRpcMessage(OBJECT_MAPPER, response.body());
+    assertThat(result.result()).isEqualTo(Map.of("session", sessionId));
+  }
+
+  @Test
+  void it_should_reject_requests_without_a_known_session() throws Exception {
+    startProvider(HttpTransportSettings.defaults());
+
+    var withoutSession = post(null, toolCallRequest(1, "none"), "application/json");
+    var unknownSession = post("unknown", toolCallRequest(1, "unknown"), "application/json");
+
+    assertThat(withoutSession.statusCode()).isEqualTo(400);
+    assertThat(withoutSession.body()).contains("Missing Mcp-Session-Id header");
+    assertThat(unknownSession.statusCode()).isEqualTo(404);
+  }
+
+  @Test
+  void it_should_reject_malformed_messages() throws Exception {
+    startProvider(HttpTransportSettings.defaults());
+
+    var response = httpClient.send(HttpRequest.newBuilder(endpoint()).POST(HttpRequest.BodyPublishers.ofString("{not json")).build(),
+      HttpResponse.BodyHandlers.ofString());
+
+    assertThat(response.statusCode()).isEqualTo(400);
+    assertThat(response.body()).contains("-32700");
+  }
+
+  @Test
+  void it_should_answer_batches_with_an_invalid_request_error() throws Exception {
+    startProvider(HttpTransportSettings.defaults());
+    var batch = "[" + OBJECT_MAPPER.writeValueAsString(initializeRequest(1)) + "]";
+
+    var response = httpClient.send(HttpRequest.newBuilder(endpoint()).POST(HttpRequest.BodyPublishers.ofString(batch)).build(),
+      HttpResponse.BodyHandlers.ofString());
+
+    assertThat(response.statusCode()).isEqualTo(400);
+    var error = (McpSchema.JSONRPCResponse) McpSchema.deserializeJsonRpcMessage(OBJECT_MAPPER, response.body());
+    assertThat(error.error().code()).isEqualTo(McpSchema.ErrorCodes.INVALID_REQUEST);
+    assertThat(error.error().message()).contains("batches are not supported");
+    assertThat(provider.getSessionCount()).isZero();
+  }
+
+  @Test
+  void it_should_serve_many_sessions_concurrently() {
+    startProvider(HttpTransportSettings.defaults());
+
+    var sessionIds = IntStream.range(0, 20)
+      .mapToObj(i -> CompletableFuture.supplyAsync(() -> {
+        try {
+          var sessionId = initializeSession();
+          var response = post(sessionId, toolCallRequest(2, sessionId), "application/json, text/event-stream");
+          assertThat(((McpSchema.JSONRPCResponse) parseEvents(response.body())[0]).result()).isEqualTo(Map.of("session", sessionId));
+          return sessionId;
+        } catch (Exception e) {
+          throw new IllegalStateException(e);
+        }
+      }))
+      .map(CompletableFuture::join)
+      .toList();
+
+    assertThat(sessionIds).doesNotHaveDuplicates();
+    assertThat(provider.getSessionCount()).isEqualTo(20);
+  }
+
+  @Test
+  void it_should_reject_new_sessions_when_the_limit_is_reached() throws Exception {
+    startProvider(new HttpTransportSettings("127.0.0.1", 0, 1, HttpTransportSettings.DEFAULT_MAX_REQUESTS_PER_SESSION,
+      HttpTransportSettings.DEFAULT_SESSION_IDLE_TIMEOUT));
+    initializeSession();
+
+    var response = post(null, initializeRequest(1), "application/json");
+
+    assertThat(response.statusCode()).isEqualTo(503);
+  }
+
+  @Test
+  void it_should_terminate_the_session_on_delete() throws Exception {
+    startProvider(HttpTransportSettings.defaults());
+    var sessionId = initializeSession();
+
+    var deleteResponse = httpClient.send(HttpRequest.newBuilder(endpoint()).DELETE().header(HttpServerTransportProvider.SESSION_ID_HEADER, sessionId).build(),
+      HttpResponse.BodyHandlers.discarding());
+
+    assertThat(deleteResponse.statusCode()).isEqualTo(204);
+    assertThat(provider.getSessionCount()).isZero();
+    assertThat(post(sessionId, toolCallRequest(2, sessionId), "application/json").statusCode()).isEqualTo(404);
+  }
+
+  @Test
+  void it_should_close_idle_sessions() throws Exception {
+    startProvider(new HttpTransportSettings("127.0.0.1", 0, 10, HttpTransportSettings.DEFAULT_MAX_REQUESTS_PER_SESSION, Duration.ofMillis(200)));
+    initializeSession();
+
+    await().atMost(Duration.ofSeconds(5)).until(() -> provider.getSessionCount() == 0);
+  }
+
+  @Test
+  void it_should_send_notifications_on_the_stream_opened_by_get() throws Exception {
+    startProvider(HttpTransportSettings.defaults());
+    var sessionId = initializeSession();
+    var stream = httpClient.send(HttpRequest.newBuilder(endpoint()).GET().header("Accept", "text/event-stream")
+      .header(HttpServerTransportProvider.SESSION_ID_HEADER, sessionId).build(), HttpResponse.BodyHandlers.ofLines());
+    assertThat(stream.statusCode()).isEqualTo(200);
+
+    provider.notifyClients("notifications/message", Map.of("data", "hello")).block();
+
+    var dataLine = stream.body().filter(line -> line.startsWith("data: ")).findFirst().orElseThrow();
+    var notification = (McpSchema.JSONRPCNotification) McpSchema.deserializeJsonRpcMessage(OBJECT_MAPPER, dataLine.substring("data: ".length()));
+    assertThat(notification.method()).isEqualTo("notifications/message");
+    assertThat(notification.params()).isEqualTo(Map.of("data", "hello"));
+  }
+
+  @Test
+  void it_should_reject_cross_origin_requests() throws Exception {
+    startProvider(HttpTransportSettings.defaults());
+
+    var response = httpClient.send(HttpRequest.newBuilder(endpoint()).POST(HttpRequest.BodyPublishers.ofString(OBJECT_MAPPER.writeValueAsString(initializeRequest(1))))
+      .header("Origin", "https://attacker.example.com").build(), HttpResponse.BodyHandlers.ofString());
+
+    assertThat(response.statusCode()).isEqualTo(403);
+    assertThat(provider.getSessionCount()).isZero();
+  }
+
+  @Test
+  void it_should_end_the_response_of_a_cancelled_request() throws Exception {
+    startProvider(HttpTransportSettings.defaults());
+    var sessionId = initializeSession();
+    var hangingCall = new McpSchema.JSONRPCRequest(McpSchema.JSONRPC_VERSION, McpSchema.METHOD_TOOLS_CALL, 2, Map.of("hang", true));
+    var response = CompletableFuture.supplyAsync(() -> {
+      try {
+        return post(sessionId, hangingCall, "application/json");
+      } catch (Exception e) {
+        throw new IllegalStateException(e);
+      }
+    });
+    await().until(() -> provider.getPendingInboundRequests() == 1);
+
+    var cancellation = post(sessionId, new McpSchema.JSONRPCNotification(McpSchema.JSONRPC_VERSION, InFlightRequests.METHOD_NOTIFICATION_CANCELLED,
+      Map.of("requestId", 2)), "application/json");
+
+    assertThat(cancellation.statusCode()).isEqualTo(202);
+    assertThat(response.get(10, TimeUnit.SECONDS).statusCode()).isEqualTo(204);
+    assertThat(provider.getPendingInboundRequests()).isZero();
+  }
+
+  @Test
+  void it_should_answer_with_service_unavailable_when_too_many_requests_of_a_session_are_handled() throws Exception {
+    startProvider(new HttpTransportSettings("127.0.0.1", 0, 10, 1, HttpTransportSettings.DEFAULT_SESSION_IDLE_TIMEOUT));
+    var sessionId = initializeSession();
+    var hangingCall = new McpSchema.JSONRPCRequest(McpSchema.JSONRPC_VERSION, McpSchema.METHOD_TOOLS_CALL, 2, Map.of("hang", true));
+    CompletableFuture.runAsync(() -> {
+      try {
+        post(sessionId, hangingCall, "application/json");
+      } catch (Exception e) {
+        throw new IllegalStateException(e);
+      }
+    });
+    await().until(() -> provider.getPendingInboundRequests() == 1);
+
+    var response = post(sessionId, toolCallRequest(3, sessionId), "application/json");
+
+    assertThat(response.statusCode()).isEqualTo(503);
+    var error = (McpSchema.JSONRPCResponse) McpSchema.deserializeJsonRpcMessage(OBJECT_MAPPER, response.body());
+    assertThat(error.id()).isEqualTo(3);
+    assertThat(error.error().code()).isEqualTo(StdioServerTransportProvider.SERVER_OVERLOADED);
+  }
+
+  @Test
+  void it_should_reject_a_request_reusing_the_id_of_a_request_in_flight() throws Exception {
+    startProvider(HttpTransportSettings.defaults());
+    var sessionId = initializeSession();
+    var hangingCall = new McpSchema.JSONRPCRequest(McpSchema.JSONRPC_VERSION, McpSchema.METHOD_TOOLS_CALL, 2, Map.of("hang", true));
+    CompletableFuture.runAsync(() -> {
+      try {
+        post(sessionId, hangingCall, "application/json");
+      } catch (Exception e) {
+        throw new IllegalStateException(e);
+      }
+    });
+    await().until(() -> provider.getPendingInboundRequests() == 1);
+
+    var response = post(sessionId, toolCallRequest(2, sessionId), "application/json");
+
+    var error = (McpSchema.JSONRPCResponse) McpSchema.deserializeJsonRpcMessage(OBJECT_MAPPER, response.body());
+    assertThat(error.id()).isEqualTo(2);
+    assertThat(error.error().code()).isEqualTo(McpSchema.ErrorCodes.INVALID_REQUEST);
+    assertThat(error.error().message()).isEqualTo("Invalid request, id 2 is already in use");
+    assertThat(provider.getPendingInboundRequests()).isEqualTo(1);
+  }
+
+  private void startProvider(HttpTransportSettings httpSettings) {
+    var settings = new HttpTransportSettings(httpSettings.host(), 0, httpSettings.maxSessions(), httpSettings.maxRequestsPerSession(),
+      httpSettings.sessionIdleTimeout());
+    provider = new HttpServerTransportProvider(OBJECT_MAPPER, TransportSettings.defaults(), settings);
+    // the tool echoes its arguments, so that tests can check that responses are routed to the right client
+    provider.setSessionFactory(transport -> new McpServerSession("id", transport,
+      request -> Mono.just(new McpSchema.InitializeResult(McpSchema.LATEST_PROTOCOL_VERSION, McpSchema.ServerCapabilities.builder().build(),
+        new McpSchema.Implementation("server", "1.0"), null)),
+      Mono::empty,
+      Map.of(McpSchema.METHOD_TOOLS_CALL, (exchange, params) -> ((Map<?, ?>) params).containsKey("hang") ? Mono.never() : Mono.just(params)),
+      Map.of()));
+  }
+
+  private String initializeSession() throws IOException, InterruptedException {
+    var response = post(null, initializeRequest(1), "application/json, text/event-stream");
+    var sessionId = response.headers().firstValue(HttpServerTransportProvider.SESSION_ID_HEADER).orElseThrow();
+    post(sessionId, new McpSchema.JSONRPCNotification(McpSchema.JSONRPC_VERSION, McpSchema.METHOD_NOTIFICATION_INITIALIZED, null), "application/json");
+    return sessionId;
+  }
+
+  private HttpResponse<String> post(@Nullable String sessionId, McpSchema.JSONRPCMessage message, String accept) throws IOException, InterruptedException {
+    var request = HttpRequest.newBuilder(endpoint())
+      .POST(HttpRequest.BodyPublishers.ofString(OBJECT_MAPPER.writeValueAsString(message)))
+      .header("Content-Type", "application/json")
+      .header("Accept", accept);
+    if (sessionId != null) {
+      request.header(HttpServerTransportProvider.SESSION_ID_HEADER, sessionId);
+    }
+    return httpClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+  }
+
+  private URI endpoint() {
+    return URI.create("http://127.0.0.1:" + provider.getPort() + HttpServerTransportProvider.ENDPOINT);
+  }
+
+  private static McpSchema.JSONRPCMessage[] parseEvents(String body) {
+    return body.lines()
+      .filter(line -> line.startsWith("data: "))
+      .map(line -> {
+        try {
+          return McpSchema.deserializeJsonRpcMessage(OBJECT_MAPPER, line.substring("data: ".length()));
+        } catch (IOException e) {
+          throw new IllegalStateException(e);
+        }
+      })
+      .toArray(McpSchema.JSONRPCMessage[]::new);
+  }
+
+  private static McpSchema.JSONRPCRequest initializeRequest(int id) {
+    return new McpSchema.JSONRPCRequest(McpSchema.JSONRPC_VERSION, McpSchema.METHOD_INITIALIZE, id,
+      new McpSchema.InitializeRequest(McpSchema.LATEST_PROTOCOL_VERSION, McpSchema.ClientCapabilities.builder().build(), new McpSchema.Implementation("client", "1.0")));
+  }
+
+  private static McpSchema.JSONRPCRequest toolCallRequest(int id, String sessionId) {
+    return new McpSchema.JSONRPCRequest(McpSchema.JSONRPC_VERSION, McpSchema.METHOD_TOOLS_CALL, id, Map.of("session", sessionId));
+  }
+
+}
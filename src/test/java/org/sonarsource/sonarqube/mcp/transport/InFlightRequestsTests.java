@@ -0,0 +1,84 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.transport;
+
+import io.modelcontextprotocol.spec.McpSchema;
+import jakarta.annotation.Nullable;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InFlightRequestsTests {
+
+  private final InFlightRequests inFlightRequests = new InFlightRequests();
+
+  @Test
+  void it_should_cancel_the_handling_of_a_tracked_request() {
+    var isCancelled = new AtomicBoolean(false);
+    var handling = inFlightRequests.track(request(1), Mono.<Void>never().doOnCancel(() -> isCancelled.set(true)));
+    var isCompleted = new AtomicBoolean(false);
+    handling.subscribe(null, null, () -> isCompleted.set(true));
+
+    var cancelled = inFlightRequests.cancel(cancellation(Map.of("requestId", 1, "reason", "no longer needed")));
+
+    assertThat(cancelled).isTrue();
+    assertThat(isCancelled).isTrue();
+    assertThat(isCompleted).isTrue();
+    assertThat(inFlightRequests.size()).isZero();
+  }
+
+  @Test
+  void it_should_forget_requests_once_handled() {
+    var pendingHandling = Sinks.<Void>empty();
+    inFlightRequests.track(request("id"), pendingHandling.asMono()).subscribe();
+    assertThat(inFlightRequests.size()).isEqualTo(1);
+
+    pendingHandling.tryEmitEmpty();
+
+    assertThat(inFlightRequests.size()).isZero();
+    assertThat(inFlightRequests.cancel(cancellation(Map.of("requestId", "id")))).isFalse();
+  }
+
+  @Test
+  void it_should_ignore_unknown_or_malformed_cancellations() {
+    inFlightRequests.track(request(1), Mono.never()).subscribe();
+
+    assertThat(inFlightRequests.cancel(cancellation(Map.of("requestId", 2)))).isFalse();
+    assertThat(inFlightRequests.cancel(cancellation(Map.of("reason", "none")))).isFalse();
+    assertThat(inFlightRequests.cancel(cancellation(null))).isFalse();
+    assertThat(inFlightRequests.size()).isEqualTo(1);
+  }
+
+  @Test
+  void it_should_recognize_cancellations() {
+    assertThat(InFlightRequests.isCancellation(cancellation(Map.of("requestId", 1)))).isTrue();
+    assertThat(InFlightRequests.isCancellation(request(1))).isFalse();
+  }
+
+  private static McpSchema.JSONRPCRequest request(Object id) {
+    return new McpSchema.JSONRPCRequest(McpSchema.JSONRPC_VERSION, McpSchema.METHOD_TOOLS_CALL, id, Map.of());
+  }
+
+  private static McpSchema.JSONRPCNotification cancellation(@Nullable Object params) {
+    return new McpSchema.JSONRPCNotification(McpSchema.JSONRPC_VERSION, InFlightRequests.METHOD_NOTIFICATION_CANCELLED, params);
+  }
+
+}
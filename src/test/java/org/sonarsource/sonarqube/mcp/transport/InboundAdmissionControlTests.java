@@ -0,0 +1,72 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.transport;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InboundAdmissionControlTests {
+
+  @Test
+  void it_should_reject_requests_over_the_message_budget() {
+    var admissionControl = new InboundAdmissionControl(2, 1000);
+
+    assertThat(admissionControl.tryAdmit(10)).isTrue();
+    assertThat(admissionControl.tryAdmit(10)).isTrue();
+    assertThat(admissionControl.tryAdmit(10)).isFalse();
+
+    assertThat(admissionControl.getPendingRequests()).isEqualTo(2);
+    assertThat(admissionControl.getPendingBytes()).isEqualTo(20);
+    assertThat(admissionControl.getRejectedRequests()).isEqualTo(1);
+  }
+
+  @Test
+  void it_should_reject_requests_over_the_byte_budget() {
+    var admissionControl = new InboundAdmissionControl(10, 100);
+
+    assertThat(admissionControl.tryAdmit(60)).isTrue();
+    assertThat(admissionControl.tryAdmit(50)).isFalse();
+    assertThat(admissionControl.tryAdmit(40)).isTrue();
+
+    assertThat(admissionControl.getPendingRequests()).isEqualTo(2);
+    assertThat(admissionControl.getPendingBytes()).isEqualTo(100);
+    assertThat(admissionControl.getRejectedRequests()).isEqualTo(1);
+  }
+
+  @Test
+  void it_should_admit_a_request_bigger_than_the_byte_budget_when_nothing_else_is_pending() {
+    var admissionControl = new InboundAdmissionControl(10, 100);
+
+    assertThat(admissionControl.tryAdmit(150)).isTrue();
+    assertThat(admissionControl.tryAdmit(1)).isFalse();
+  }
+
+  @Test
+  void it_should_admit_requests_again_once_released() {
+    var admissionControl = new InboundAdmissionControl(1, 100);
+    assertThat(admissionControl.tryAdmit(10)).isTrue();
+    assertThat(admissionControl.tryAdmit(10)).isFalse();
+
+    admissionControl.release(10);
+
+    assertThat(admissionControl.getPendingRequests()).isZero();
+    assertThat(admissionControl.getPendingBytes()).isZero();
+    assertThat(admissionControl.tryAdmit(10)).isTrue();
+  }
+
+}
@@ -0,0 +1,51 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.transport;
+
+import io.modelcontextprotocol.spec.McpSchema;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InboundLaneTests {
+
+  @Test
+  void it_should_fast_track_protocol_control_requests() {
+    assertThat(InboundLane.of(request(McpSchema.METHOD_PING))).isEqualTo(InboundLane.CONTROL);
+    assertThat(InboundLane.of(request(McpSchema.METHOD_INITIALIZE))).isEqualTo(InboundLane.CONTROL);
+    assertThat(InboundLane.of(request(McpSchema.METHOD_TOOLS_LIST))).isEqualTo(InboundLane.CONTROL);
+  }
+
+  @Test
+  void it_should_fast_track_notifications_and_responses() {
+    assertThat(InboundLane.of(new McpSchema.JSONRPCNotification(McpSchema.JSONRPC_VERSION, InFlightRequests.METHOD_NOTIFICATION_CANCELLED,
+      Map.of("requestId", 1)))).isEqualTo(InboundLane.CONTROL);
+    assertThat(InboundLane.of(new McpSchema.JSONRPCResponse(McpSchema.JSONRPC_VERSION, 1, Map.of(), null))).isEqualTo(InboundLane.CONTROL);
+  }
+
+  @Test
+  void it_should_queue_tool_calls_in_the_work_lane() {
+    assertThat(InboundLane.of(request(McpSchema.METHOD_TOOLS_CALL))).isEqualTo(InboundLane.WORK);
+    assertThat(InboundLane.of(request(McpSchema.METHOD_RESOURCES_READ))).isEqualTo(InboundLane.WORK);
+  }
+
+  private static McpSchema.JSONRPCRequest request(String method) {
+    return new McpSchema.JSONRPCRequest(McpSchema.JSONRPC_VERSION, method, 1, Map.of());
+  }
+
+}
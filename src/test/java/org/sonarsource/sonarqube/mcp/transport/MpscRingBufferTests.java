@@ -0,0 +1,116 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.transport;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MpscRingBufferTests {
+
+  @Test
+  void it_should_poll_elements_in_insertion_order() {
+    var queue = new MpscRingBuffer<String>(4);
+
+    queue.offer("a");
+    queue.offer("b");
+    queue.offer("c");
+
+    assertThat(queue.size()).isEqualTo(3);
+    assertThat(queue.poll()).isEqualTo("a");
+    assertThat(queue.poll()).isEqualTo("b");
+    assertThat(queue.poll()).isEqualTo("c");
+    assertThat(queue.poll()).isNull();
+    assertThat(queue.isEmpty()).isTrue();
+  }
+
+  @Test
+  void it_should_round_capacity_and_reject_elements_when_full() {
+    var queue = new MpscRingBuffer<Integer>(3);
+
+    assertThat(queue.capacity()).isEqualTo(4);
+    for (var i = 0; i < 4; i++) {
+      assertThat(queue.offer(i)).isTrue();
+    }
+    assertThat(queue.offer(4)).isFalse();
+
+    assertThat(queue.poll()).isZero();
+    assertThat(queue.offer(4)).isTrue();
+  }
+
+  @Test
+  void it_should_reject_invalid_capacity() {
+    assertThatThrownBy(() -> new MpscRingBuffer<String>(0))
+      .isInstanceOf(IllegalArgumentException.class)
+      .hasMessage("Capacity must be positive");
+  }
+
+  @Test
+  void it_should_not_lose_elements_with_concurrent_producers() throws InterruptedException {
+    var producers = 8;
+    var elementsPerProducer = 10_000;
+    var queue = new MpscRingBuffer<Integer>(64);
+    var start = new CountDownLatch(1);
+    var executor = Executors.newFixedThreadPool(producers);
+    for (var p = 0; p < producers; p++) {
+      var producer = p;
+      executor.execute(() -> {
+        try {
+          start.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+        for (var i = 0; i < elementsPerProducer; i++) {
+          while (!queue.offer(producer * elementsPerProducer + i)) {
+            Thread.onSpinWait();
+          }
+        }
+      });
+    }
+
+    start.countDown();
+    var received = new ArrayList<Integer>();
+    var lastPerProducer = new int[producers];
+    Arrays.fill(lastPerProducer, -1);
+    while (received.size() < producers * elementsPerProducer) {
+      var element = queue.poll();
+      if (element != null) {
+        var producer = element / elementsPerProducer;
+        assertThat(element % elementsPerProducer).isGreaterThan(lastPerProducer[producer]);
+        lastPerProducer[producer] = element % elementsPerProducer;
+        received.add(element);
+      }
+    }
+    executor.shutdown();
+    assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+
+    Collections.sort(received);
+    for (var i = 0; i < received.size(); i++) {
+      assertThat(received.get(i)).isEqualTo(i);
+    }
+    assertThat(queue.isEmpty()).isTrue();
+  }
+
+}
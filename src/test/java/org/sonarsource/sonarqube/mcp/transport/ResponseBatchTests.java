@@ -0,0 +1,73 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.transport;
+
+import io.modelcontextprotocol.spec.McpSchema;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResponseBatchTests {
+
+  private final List<List<McpSchema.JSONRPCResponse>> written = new ArrayList<>();
+
+  @Test
+  void it_should_write_the_responses_once_every_element_is_done() {
+    var batch = new ResponseBatch(2, written::add);
+    batch.seal();
+
+    batch.add(response(1));
+    batch.elementDone();
+    assertThat(written).isEmpty();
+    batch.add(response(2));
+    batch.elementDone();
+
+    assertThat(written).hasSize(1);
+    assertThat(written.get(0)).extracting(McpSchema.JSONRPCResponse::id).containsExactly(1, 2);
+  }
+
+  @Test
+  void it_should_not_write_before_the_batch_is_sealed() {
+    var batch = new ResponseBatch(1, written::add);
+
+    batch.add(response(1));
+    batch.elementDone();
+    assertThat(written).isEmpty();
+
+    batch.seal();
+    assertThat(written).hasSize(1);
+  }
+
+  @Test
+  void it_should_not_write_anything_when_no_element_was_answered() {
+    var batch = new ResponseBatch(2, written::add);
+
+    batch.elementDone();
+    batch.elementDone();
+    batch.seal();
+
+    assertThat(written).isEmpty();
+  }
+
+  private static McpSchema.JSONRPCResponse response(int id) {
+    return new McpSchema.JSONRPCResponse(McpSchema.JSONRPC_VERSION, id, Map.of(), null);
+  }
+
+}
@@ -0,0 +1,113 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.transport;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.modelcontextprotocol.spec.McpSchema;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResponseCacheTests {
+
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+  private final ResponseCache responseCache = new ResponseCache(OBJECT_MAPPER);
+
+  @Test
+  void it_should_serialize_the_tool_list_like_the_original_response() throws Exception {
+    var response = toolListResponse(1, "tool");
+
+    var cachedResponse = responseCache.apply(response);
+
+    assertThat(OBJECT_MAPPER.writeValueAsString(cachedResponse)).isEqualTo(OBJECT_MAPPER.writeValueAsString(response));
+  }
+
+  @Test
+  void it_should_reuse_the_serialized_tool_list() {
+    var first = (McpSchema.JSONRPCResponse) responseCache.apply(toolListResponse(1, "tool"));
+    var second = (McpSchema.JSONRPCResponse) responseCache.apply(toolListResponse(2, "tool"));
+
+    assertThat(second.id()).isEqualTo(2);
+    assertThat(second.result()).isSameAs(first.result());
+    assertThat(responseCache.size()).isEqualTo(1);
+  }
+
+  @Test
+  void it_should_serialize_the_changed_tool_list_once_notified() throws Exception {
+    responseCache.apply(toolListResponse(1, "tool"));
+
+    responseCache.onNotification(McpSchema.METHOD_NOTIFICATION_TOOLS_LIST_CHANGED);
+    var changed = responseCache.apply(toolListResponse(2, "other_tool"));
+
+    assertThat(OBJECT_MAPPER.writeValueAsString(changed)).contains("other_tool").doesNotContain("\"tool\"");
+  }
+
+  @Test
+  void it_should_not_cache_a_page_of_the_tool_list() {
+    var response = new McpSchema.JSONRPCResponse(McpSchema.JSONRPC_VERSION, 1, new McpSchema.ListToolsResult(List.of(), "next"), null);
+
+    assertThat(responseCache.apply(response)).isSameAs(response);
+    assertThat(responseCache.size()).isZero();
+  }
+
+  @Test
+  void it_should_cache_initialize_results_per_protocol_version() throws Exception {
+    var response = initializeResponse(McpSchema.LATEST_PROTOCOL_VERSION);
+
+    var cachedResponse = responseCache.apply(response);
+    responseCache.apply(initializeResponse(McpSchema.LATEST_PROTOCOL_VERSION));
+    var olderVersionResponse = responseCache.apply(initializeResponse("2024-10-07"));
+
+    assertThat(OBJECT_MAPPER.writeValueAsString(cachedResponse)).isEqualTo(OBJECT_MAPPER.writeValueAsString(response));
+    assertThat(OBJECT_MAPPER.writeValueAsString(olderVersionResponse)).contains("2024-10-07");
+    assertThat(responseCache.size()).isEqualTo(2);
+  }
+
+  @Test
+  void it_should_leave_other_messages_untouched() {
+    var toolCallResponse = new McpSchema.JSONRPCResponse(McpSchema.JSONRPC_VERSION, 1, Map.of("content", List.of()), null);
+    var notification = new McpSchema.JSONRPCNotification(McpSchema.JSONRPC_VERSION, "notifications/message", Map.of());
+
+    assertThat(responseCache.apply(toolCallResponse)).isSameAs(toolCallResponse);
+    assertThat(responseCache.apply(notification)).isSameAs(notification);
+    assertThat(responseCache.size()).isZero();
+  }
+
+  @Test
+  void it_should_drop_the_cache_when_the_tool_list_changes() {
+    responseCache.apply(toolListResponse(1, "tool"));
+
+    responseCache.onNotification("notifications/message");
+    assertThat(responseCache.size()).isEqualTo(1);
+    responseCache.onNotification(McpSchema.METHOD_NOTIFICATION_TOOLS_LIST_CHANGED);
+
+    assertThat(responseCache.size()).isZero();
+  }
+
+  private static McpSchema.JSONRPCResponse initializeResponse(String protocolVersion) {
+    return new McpSchema.JSONRPCResponse(McpSchema.JSONRPC_VERSION, 1, new McpSchema.InitializeResult(protocolVersion,
+      McpSchema.ServerCapabilities.builder().tools(true).build(), new McpSchema.Implementation("server", "1.0"), null), null);
+  }
+
+  private static McpSchema.JSONRPCResponse toolListResponse(int id, String toolName) {
+    var tool = new McpSchema.Tool(toolName, "description", new McpSchema.JsonSchema("object", Map.of("key", Map.of("type", "string")), List.of("key"), false));
+    return new McpSchema.JSONRPCResponse(McpSchema.JSONRPC_VERSION, id, new McpSchema.ListToolsResult(List.of(tool), null), null);
+  }
+
+}
@@ -0,0 +1,152 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.transport;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.modelcontextprotocol.spec.McpSchema;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StdioFrameReaderTests {
+
+  @Test
+  void it_should_split_frames_on_newlines() throws IOException {
+    var reader = new StdioFrameReader(stream("{\"a\":1}\n{\"b\":2}\r\n\n{\"c\":3}"), 1024);
+
+    assertThat(readAll(reader)).containsExactly("{\"a\":1}", "{\"b\":2}", "{\"c\":3}");
+  }
+
+  @Test
+  void it_should_reassemble_frames_split_across_reads() throws IOException {
+    var reader = new StdioFrameReader(new OneByteAtATimeInputStream("{\"first\":\"value\"}\n{\"second\":\"value\"}\n"), 1024);
+
+    assertThat(readAll(reader)).containsExactly("{\"first\":\"value\"}", "{\"second\":\"value\"}");
+  }
+
+  @Test
+  void it_should_grow_the_buffer_for_large_frames() throws IOException {
+    var largeValue = "x".repeat(StdioFrameReader.INITIAL_BUFFER_SIZE * 3);
+    var reader = new StdioFrameReader(stream("{\"v\":\"" + largeValue + "\"}\n{}\n"), Integer.MAX_VALUE - 8);
+
+    assertThat(readAll(reader)).containsExactly("{\"v\":\"" + largeValue + "\"}", "{}");
+  }
+
+  @Test
+  void it_should_discard_frames_larger_than_the_maximum_size_and_continue() throws IOException {
+    var reader = new StdioFrameReader(stream("{\"v\":\"" + "x".repeat(200) + "\"}\n{\"ok\":true}\n"), 100);
+
+    assertThatThrownBy(reader::nextFrame)
+      .isInstanceOf(StdioFrameReader.FrameTooLargeException.class)
+      .hasMessageStartingWith("Inbound message is larger than the maximum frame size of 100 bytes");
+    assertThat(readAll(reader)).containsExactly("{\"ok\":true}");
+  }
+
+  @Test
+  void it_should_parse_messages_without_building_strings() throws IOException {
+    var bytes = "garbage{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"tools/call\",\"params\":{\"name\":\"n\"}}".getBytes(StandardCharsets.UTF_8);
+
+    var message = JsonRpcMessageParser.parse(new ObjectMapper(), bytes, 7, bytes.length - 7);
+
+    assertThat(message).isEqualTo(new McpSchema.JSONRPCRequest("2.0", "tools/call", 1, Map.of("name", "n")));
+  }
+
+  @Test
+  void it_should_parse_notifications_and_responses() throws IOException {
+    var objectMapper = new ObjectMapper();
+    var notification = "{\"jsonrpc\":\"2.0\",\"method\":\"notifications/initialized\"}".getBytes(StandardCharsets.UTF_8);
+    var response = "{\"jsonrpc\":\"2.0\",\"id\":\"a\",\"result\":{}}".getBytes(StandardCharsets.UTF_8);
+
+    assertThat(JsonRpcMessageParser.parse(objectMapper, notification, 0, notification.length))
+      .isEqualTo(new McpSchema.JSONRPCNotification("2.0", "notifications/initialized", null));
+    assertThat(JsonRpcMessageParser.parse(objectMapper, response, 0, response.length))
+      .isEqualTo(new McpSchema.JSONRPCResponse("2.0", "a", Map.of(), null));
+  }
+
+  @Test
+  void it_should_reject_unknown_message_structures() {
+    var bytes = "{\"jsonrpc\":\"2.0\"}".getBytes(StandardCharsets.UTF_8);
+    var objectMapper = new ObjectMapper();
+
+    assertThatThrownBy(() -> JsonRpcMessageParser.parse(objectMapper, bytes, 0, bytes.length))
+      .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void it_should_parse_batches_and_keep_invalid_elements_apart() throws IOException {
+    var bytes = " [{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"ping\"}, 42, {\"jsonrpc\":\"2.0\"}]".getBytes(StandardCharsets.UTF_8);
+
+    assertThat(JsonRpcMessageParser.isBatch(bytes, 0, bytes.length)).isTrue();
+    var elements = JsonRpcMessageParser.parseBatch(new ObjectMapper(), bytes, 0, bytes.length);
+
+    assertThat(elements).hasSize(3);
+    assertThat(elements.get(0).message()).isEqualTo(new McpSchema.JSONRPCRequest("2.0", "ping", 1, null));
+    assertThat(elements.get(1).message()).isNull();
+    assertThat(elements.get(1).failure()).isInstanceOf(IllegalArgumentException.class);
+    assertThat(elements.get(2).message()).isNull();
+    assertThat(elements.get(2).failure()).hasMessageContaining("unknown message structure");
+  }
+
+  @Test
+  void it_should_reject_batches_that_are_not_valid_json() {
+    var bytes = "[{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"ping\"},".getBytes(StandardCharsets.UTF_8);
+    var objectMapper = new ObjectMapper();
+
+    assertThatThrownBy(() -> JsonRpcMessageParser.parseBatch(objectMapper, bytes, 0, bytes.length))
+      .isInstanceOf(IOException.class);
+  }
+
+  private static List<String> readAll(StdioFrameReader reader) throws IOException {
+    var frames = new ArrayList<String>();
+    StdioFrameReader.Frame frame;
+    while ((frame = reader.nextFrame()) != null) {
+      frames.add(new String(frame.buffer(), frame.offset(), frame.length(), StandardCharsets.UTF_8));
+    }
+    return frames;
+  }
+
+  private static InputStream stream(String content) {
+    return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static class OneByteAtATimeInputStream extends InputStream {
+    private final InputStream delegate;
+
+    private OneByteAtATimeInputStream(String content) {
+      this.delegate = stream(content);
+    }
+
+    @Override
+    public int read() throws IOException {
+      return delegate.read();
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      return delegate.read(b, off, Math.min(len, 1));
+    }
+  }
+
+}
@@ -0,0 +1,84 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.transport;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.modelcontextprotocol.spec.McpSchema;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StdioFrameWriterTests {
+
+  @Test
+  void it_should_write_one_message_per_line_even_with_embedded_newlines() throws IOException {
+    var output = new ByteArrayOutputStream();
+    var objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    var writer = new StdioFrameWriter(objectMapper, output);
+
+    writer.write(new McpSchema.JSONRPCResponse("2.0", 1, Map.of("text", "line1\nline2\r\nline3"), null));
+    writer.write(new McpSchema.JSONRPCNotification("2.0", "notifications/message", null));
+    writer.flush();
+
+    var lines = output.toString(StandardCharsets.UTF_8).split("\n");
+    assertThat(lines).hasSize(2);
+    assertThat(objectMapper.readValue(lines[0], Map.class)).containsEntry("result", Map.of("text", "line1\nline2\r\nline3"));
+    assertThat(lines[1]).isEqualTo("{\"jsonrpc\":\"2.0\",\"method\":\"notifications/message\"}");
+  }
+
+  @Test
+  void it_should_only_write_to_the_underlying_stream_when_flushed() throws IOException {
+    var output = new ByteArrayOutputStream();
+    var writer = new StdioFrameWriter(new ObjectMapper(), output);
+
+    writer.write(new McpSchema.JSONRPCNotification("2.0", "notifications/message", null));
+
+    assertThat(output.size()).isZero();
+    writer.flush();
+    assertThat(output.toString(StandardCharsets.UTF_8)).isEqualTo("{\"jsonrpc\":\"2.0\",\"method\":\"notifications/message\"}\n");
+  }
+
+  @Test
+  void it_should_return_the_size_of_the_frame() throws IOException {
+    var output = new ByteArrayOutputStream();
+    var writer = new StdioFrameWriter(new ObjectMapper(), output);
+
+    var firstSize = writer.write(new McpSchema.JSONRPCNotification("2.0", "notifications/message", null));
+    var secondSize = writer.write(new McpSchema.JSONRPCResponse("2.0", 1, Map.of("text", "héllo ✓"), null));
+    writer.flush();
+
+    assertThat(firstSize + secondSize).isEqualTo(output.size());
+    assertThat(firstSize).isEqualTo("{\"jsonrpc\":\"2.0\",\"method\":\"notifications/message\"}\n".length());
+  }
+
+  @Test
+  void it_should_write_non_ascii_characters_as_utf8() throws IOException {
+    var output = new ByteArrayOutputStream();
+    var writer = new StdioFrameWriter(new ObjectMapper(), output);
+
+    writer.write(new McpSchema.JSONRPCResponse("2.0", 1, Map.of("text", "héllo ✓"), null));
+    writer.flush();
+
+    assertThat(output.toString(StandardCharsets.UTF_8)).contains("héllo ✓");
+  }
+
+}
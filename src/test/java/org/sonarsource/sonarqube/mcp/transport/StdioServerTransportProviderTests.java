@@ -0,0 +1,431 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.transport;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.spec.McpServerSession;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.sonarsource.sonarqube.mcp.harness.BlockingQueueInputStream;
+import org.sonarsource.sonarqube.mcp.harness.BlockingQueueOutputStream;
+import org.sonarsource.sonarqube.mcp.harness.InMemoryClientTransport;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+class StdioServerTransportProviderTests {
+
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+  private final ConcurrentLinkedQueue<McpSchema.JSONRPCMessage> received = new ConcurrentLinkedQueue<>();
+  private StdioServerTransportProvider provider;
+  private InMemoryClientTransport client;
+  private OutputStream rawInput;
+  private BufferedReader rawOutput;
+
+  @AfterEach
+  void cleanup() {
+    provider.closeGracefully().block();
+  }
+
+  @Test
+  void it_should_deliver_all_messages_sent_concurrently() throws InterruptedException {
+    var threads = 8;
+    var messagesPerThread = 500;
+    connect(new TransportSettings(TransportSettings.DEFAULT_MAX_FRAME_SIZE, 16, TransportSettings.DEFAULT_MAX_PENDING_REQUESTS,
+      TransportSettings.DEFAULT_MAX_PENDING_REQUEST_BYTES));
+
+    var executor = Executors.newFixedThreadPool(threads);
+    for (var t = 0; t < threads; t++) {
+      var thread = t;
+      executor.execute(() -> IntStream.range(0, messagesPerThread)
+        .forEach(i -> provider.notifyClients("notifications/message", Map.of("id", thread * messagesPerThread + i)).block()));
+    }
+    executor.shutdown();
+    assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+    await().atMost(Duration.ofSeconds(30)).untilAsserted(() -> assertThat(received).hasSize(threads * messagesPerThread));
+    assertThat(received)
+      .extracting(message -> ((Map<?, ?>) ((McpSchema.JSONRPCNotification) message).params()).get("id"))
+      .doesNotHaveDuplicates();
+  }
+
+  @Test
+  void it_should_drop_notifications_instead_of_blocking_a_non_blocking_thread_when_the_outbound_queue_is_full() {
+    var unblockOutput = new CountDownLatch(1);
+    var blockedOutput = new OutputStream() {
+      @Override
+      public void write(int b) {
+        awaitUninterruptibly(unblockOutput);
+      }
+    };
+    provider = new StdioServerTransportProvider(OBJECT_MAPPER, new BlockingQueueInputStream(new LinkedBlockingQueue<>()), blockedOutput,
+      new TransportSettings(TransportSettings.DEFAULT_MAX_FRAME_SIZE, 2, TransportSettings.DEFAULT_MAX_PENDING_REQUESTS,
+        TransportSettings.DEFAULT_MAX_PENDING_REQUEST_BYTES));
+    provider.setSessionFactory(transport -> new McpServerSession("id", transport, request -> Mono.empty(), Mono::empty, Map.of(), Map.of()));
+
+    var notifications = Flux.range(0, 10)
+      .concatMap(i -> provider.notifyClients("notifications/message", Map.of("id", i)))
+      .subscribeOn(Schedulers.parallel());
+
+    try {
+      assertThat(notifications.then().blockOptional(Duration.ofSeconds(5))).isEmpty();
+    } finally {
+      unblockOutput.countDown();
+    }
+  }
+
+  @Test
+  void it_should_reject_requests_over_budget_and_admit_them_again_once_released() {
+    var pendingToolCall = Sinks.<Object>one();
+    connect(new TransportSettings(TransportSettings.DEFAULT_MAX_FRAME_SIZE, TransportSettings.DEFAULT_OUTBOUND_QUEUE_CAPACITY, 1,
+      TransportSettings.DEFAULT_MAX_PENDING_REQUEST_BYTES), Map.of(McpSchema.METHOD_TOOLS_CALL, (exchange, params) -> pendingToolCall.asMono()));
+
+    client.sendMessage(new McpSchema.JSONRPCRequest(McpSchema.JSONRPC_VERSION, McpSchema.METHOD_INITIALIZE, 1, initializeRequest())).block();
+    client.sendMessage(new McpSchema.JSONRPCNotification(McpSchema.JSONRPC_VERSION, McpSchema.METHOD_NOTIFICATION_INITIALIZED, null)).block();
+    await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> assertThat(received).hasSize(1));
+    client.sendMessage(new McpSchema.JSONRPCRequest(McpSchema.JSONRPC_VERSION, McpSchema.METHOD_TOOLS_CALL, 2, Map.of())).block();
+    await().atMost(Duration.ofSeconds(5)).until(() -> provider.getPendingInboundRequests() == 1);
+    client.sendMessage(new McpSchema.JSONRPCRequest(McpSchema.JSONRPC_VERSION, McpSchema.METHOD_TOOLS_CALL, 3, Map.of())).block();
+
+    await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> assertThat(received).hasSize(2));
+    var rejection = (McpSchema.JSONRPCResponse) received.toArray()[1];
+    assertThat(rejection.id()).isEqualTo(3);
+    assertThat(rejection.error().code()).isEqualTo(StdioServerTransportProvider.SERVER_OVERLOADED);
+    assertThat(rejection.error().message()).isEqualTo("Server overloaded, retry later");
+    assertThat(provider.getRejectedInboundRequests()).isEqualTo(1);
+
+    pendingToolCall.tryEmitValue(Map.of());
+    await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> assertThat(received).hasSize(3));
+    assertThat(provider.getPendingInboundRequests()).isZero();
+    assertThat(provider.getPendingInboundBytes()).isZero();
+    client.sendMessage(new McpSchema.JSONRPCRequest(McpSchema.JSONRPC_VERSION, McpSchema.METHOD_TOOLS_CALL, 4, Map.of())).block();
+    await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> assertThat(received).hasSize(4));
+    assertThat(((McpSchema.JSONRPCResponse) received.toArray()[3]).error()).isNull();
+    assertThat(provider.getRejectedInboundRequests()).isEqualTo(1);
+  }
+
+  @Test
+  void it_should_stop_handling_a_cancelled_request_without_answering_it() {
+    var isToolCallCancelled = new AtomicBoolean(false);
+    connect(TransportSettings.defaults(), Map.of(McpSchema.METHOD_TOOLS_CALL,
+      (exchange, params) -> Mono.never().doOnCancel(() -> isToolCallCancelled.set(true))));
+    client.sendMessage(new McpSchema.JSONRPCRequest(McpSchema.JSONRPC_VERSION, McpSchema.METHOD_INITIALIZE, 1, initializeRequest())).block();
+    client.sendMessage(new McpSchema.JSONRPCNotification(McpSchema.JSONRPC_VERSION, McpSchema.METHOD_NOTIFICATION_INITIALIZED, null)).block();
+    client.sendMessage(new McpSchema.JSONRPCRequest(McpSchema.JSONRPC_VERSION, McpSchema.METHOD_TOOLS_CALL, 2, Map.of())).block();
+    await().atMost(Duration.ofSeconds(5)).until(() -> provider.getPendingInboundRequests() == 1);
+
+    client.sendMessage(new McpSchema.JSONRPCNotification(McpSchema.JSONRPC_VERSION, "notifications/cancelled", Map.of("requestId", 2, "reason", "test"))).block();
+
+    await().atMost(Duration.ofSeconds(5)).untilTrue(isToolCallCancelled);
+    await().atMost(Duration.ofSeconds(5)).until(() -> provider.getPendingInboundRequests() == 0);
+    client.sendMessage(new McpSchema.JSONRPCRequest(McpSchema.JSONRPC_VERSION, McpSchema.METHOD_PING, 3, null)).block();
+    await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> assertThat(received).hasSize(2));
+    assertThat(received).extracting(message -> ((McpSchema.JSONRPCResponse) message).id()).containsExactly(1, 3);
+  }
+
+  @Test
+  void it_should_send_progress_notifications_before_the_response_when_the_client_asks_for_them() {
+    connect(TransportSettings.defaults(), Map.of(McpSchema.METHOD_TOOLS_CALL, (exchange, params) -> Mono.deferContextual(context -> {
+      RequestProgress.from(context).ifPresent(progress -> progress.notify(1, 2L, "half way"));
+      return Mono.just(Map.of());
+    })));
+    client.sendMessage(new McpSchema.JSONRPCRequest(McpSchema.JSONRPC_VERSION, McpSchema.METHOD_INITIALIZE, 1, initializeRequest())).block();
+    client.sendMessage(new McpSchema.JSONRPCNotification(McpSchema.JSONRPC_VERSION, McpSchema.METHOD_NOTIFICATION_INITIALIZED, null)).block();
+
+    client.sendMessage(new McpSchema.JSONRPCRequest(McpSchema.JSONRPC_VERSION, McpSchema.METHOD_TOOLS_CALL, 2, Map.of())).block();
+    client.sendMessage(new McpSchema.JSONRPCRequest(McpSchema.JSONRPC_VERSION, McpSchema.METHOD_TOOLS_CALL, 3, Map.of("_meta", Map.of("progressToken", "token")))).block();
+
+    await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> assertThat(received).hasSize(4));
+    var messages = received.toArray();
+    assertThat(((McpSchema.JSONRPCResponse) messages[1]).id()).isEqualTo(2);
+    var notification = (McpSchema.JSONRPCNotification) messages[2];
+    assertThat(notification.method()).isEqualTo("notifications/progress");
+    assertThat(notification.params()).isEqualTo(Map.of("progressToken", "token", "progress", 1, "total", 2, "message", "half way"));
+    assertThat(((McpSchema.JSONRPCResponse) messages[3]).id()).isEqualTo(3);
+  }
+
+  @Test
+  void it_should_answer_pings_while_a_tool_call_blocks() throws InterruptedException {
+    var isToolCallStarted = new CountDownLatch(1);
+    var releaseToolCall = new CountDownLatch(1);
+    connect(TransportSettings.defaults(), Map.of(McpSchema.METHOD_TOOLS_CALL, (exchange, params) -> {
+      isToolCallStarted.countDown();
+      // blocks the thread starting the handling, like a tool doing its work synchronously would
+      awaitUninterruptibly(releaseToolCall);
+      return Mono.just(Map.of());
+    }));
+    client.sendMessage(new McpSchema.JSONRPCRequest(McpSchema.JSONRPC_VERSION, McpSchema.METHOD_INITIALIZE, 1, initializeRequest())).block();
+    client.sendMessage(new McpSchema.JSONRPCNotification(McpSchema.JSONRPC_VERSION, McpSchema.METHOD_NOTIFICATION_INITIALIZED, null)).block();
+    client.sendMessage(new McpSchema.JSONRPCRequest(McpSchema.JSONRPC_VERSION, McpSchema.METHOD_TOOLS_CALL, 2, Map.of())).block();
+    assertThat(isToolCallStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+    client.sendMessage(new McpSchema.JSONRPCRequest(McpSchema.JSONRPC_VERSION, McpSchema.METHOD_PING, 3, null)).block();
+    client.sendMessage(new McpSchema.JSONRPCRequest(McpSchema.JSONRPC_VERSION, McpSchema.METHOD_TOOLS_LIST, 4, null)).block();
+
+    await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> assertThat(received).hasSize(3));
+    assertThat(received).extracting(message -> ((McpSchema.JSONRPCResponse) message).id()).containsExactly(1, 3, 4);
+    releaseToolCall.countDown();
+    await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> assertThat(received).hasSize(4));
+    assertThat(((McpSchema.JSONRPCResponse) received.toArray()[3]).id()).isEqualTo(2);
+  }
+
+  @Test
+  void it_should_measure_the_traffic() throws Exception {
+    connect(TransportSettings.defaults());
+    client.sendMessage(new McpSchema.JSONRPCRequest(McpSchema.JSONRPC_VERSION, McpSchema.METHOD_INITIALIZE, 1, initializeRequest())).block();
+    await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> assertThat(received).hasSize(1));
+
+    await().atMost(Duration.ofSeconds(5)).until(() -> provider.getFlushNanos().getCount() > 0);
+    assertThat(provider.getInboundFrames()).isEqualTo(1);
+    assertThat(provider.getInboundBytes()).isEqualTo(OBJECT_MAPPER.writeValueAsBytes(
+      new McpSchema.JSONRPCRequest(McpSchema.JSONRPC_VERSION, McpSchema.METHOD_INITIALIZE, 1, initializeRequest())).length);
+    assertThat(provider.getOutboundFrames()).isEqualTo(1);
+    assertThat(provider.getOutboundFrameSizes().getMax()).isEqualTo(provider.getOutboundBytes());
+    assertThat(provider.getDeserializationNanos().getCount()).isEqualTo(1);
+    assertThat(provider.getSerializationNanos().getCount()).isEqualTo(1);
+    var mBeanServer = MBeanServerFactory.newMBeanServer();
+    var name = new ObjectName("org.sonarsource.sonarqube.mcp:type=StdioTransport");
+    mBeanServer.registerMBean(provider, name);
+    var frameSizes = (CompositeData) mBeanServer.getAttribute(name, "InboundFrameSizes");
+    assertThat(frameSizes.get("count")).isEqualTo(1L);
+  }
+
+  @Test
+  void it_should_handle_the_requests_of_a_batch_concurrently_and_answer_them_in_a_single_batch() throws IOException {
+    var release = Sinks.<Object>one();
+    connectRaw(Map.of(McpSchema.METHOD_TOOLS_CALL, (exchange, params) -> {
+      if (((Map<?, ?>) params).containsKey("release")) {
+        release.tryEmitValue(Map.of("released", true));
+        return Mono.just(Map.of());
+      }
+      // would never complete if the requests of the batch were handled one after the other
+      return release.asMono();
+    }));
+    initializeRaw();
+
+    sendRaw("[" +
+      "{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"tools/call\",\"params\":{\"wait\":true}}," +
+      "{\"jsonrpc\":\"2.0\",\"method\":\"notifications/message\",\"params\":{}}," +
+      "{\"jsonrpc\":\"2.0\",\"id\":3,\"method\":\"tools/call\",\"params\":{\"release\":true}}," +
+      "{\"jsonrpc\":\"2.0\"}" +
+      "]");
+
+    var batch = OBJECT_MAPPER.readValue(rawOutput.readLine(), new TypeReference<List<McpSchema.JSONRPCResponse>>() {
+    });
+    assertThat(batch).extracting(McpSchema.JSONRPCResponse::id).containsExactlyInAnyOrder(2, 3, null);
+    assertThat(batch).filteredOn(response -> response.id() == null)
+      .extracting(response -> response.error().code()).containsExactly(McpSchema.ErrorCodes.INVALID_REQUEST);
+    assertThat(batch).filteredOn(response -> Integer.valueOf(2).equals(response.id()))
+      .extracting(McpSchema.JSONRPCResponse::result).containsExactly(Map.of("released", true));
+    assertThat(provider.getPendingInboundRequests()).isZero();
+  }
+
+  @Test
+  void it_should_reject_a_request_reusing_the_id_of_a_request_in_flight() throws IOException {
+    var release = Sinks.<Object>one();
+    connectRaw(Map.of(McpSchema.METHOD_TOOLS_CALL, (exchange, params) -> release.asMono()));
+    initializeRaw();
+
+    sendRaw("[" +
+      "{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"tools/call\",\"params\":{}}," +
+      "{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"ping\"}" +
+      "]");
+    sendRaw("{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"ping\"}");
+
+    var standaloneResponse = (McpSchema.JSONRPCResponse) McpSchema.deserializeJsonRpcMessage(OBJECT_MAPPER, rawOutput.readLine());
+    assertThat(standaloneResponse.id()).isEqualTo(2);
+    assertThat(standaloneResponse.error().code()).isEqualTo(McpSchema.ErrorCodes.INVALID_REQUEST);
+    release.tryEmitValue(Map.of("released", true));
+    var batch = OBJECT_MAPPER.readValue(rawOutput.readLine(), new TypeReference<List<McpSchema.JSONRPCResponse>>() {
+    });
+    assertThat(batch).extracting(response -> response.error() == null ? null : response.error().code())
+      .containsExactlyInAnyOrder(null, McpSchema.ErrorCodes.INVALID_REQUEST);
+    assertThat(batch).filteredOn(response -> response.error() == null)
+      .extracting(McpSchema.JSONRPCResponse::result).containsExactly(Map.of("released", true));
+
+    sendRaw("{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"ping\"}");
+    var reusedIdResponse = (McpSchema.JSONRPCResponse) McpSchema.deserializeJsonRpcMessage(OBJECT_MAPPER, rawOutput.readLine());
+    assertThat(reusedIdResponse.error()).isNull();
+  }
+
+  @Test
+  void it_should_not_answer_a_batch_of_notifications() throws IOException {
+    connectRaw(Map.of());
+    initializeRaw();
+
+    sendRaw("[{\"jsonrpc\":\"2.0\",\"method\":\"notifications/message\",\"params\":{}}]");
+    sendRaw("{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"ping\"}");
+
+    var response = McpSchema.deserializeJsonRpcMessage(OBJECT_MAPPER, rawOutput.readLine());
+    assertThat(((McpSchema.JSONRPCResponse) response).id()).isEqualTo(2);
+  }
+
+  @Test
+  void it_should_answer_an_empty_batch_with_a_single_invalid_request_error() throws IOException {
+    connectRaw(Map.of());
+    initializeRaw();
+
+    sendRaw("[]");
+
+    var response = (McpSchema.JSONRPCResponse) McpSchema.deserializeJsonRpcMessage(OBJECT_MAPPER, rawOutput.readLine());
+    assertThat(response.id()).isNull();
+    assertThat(response.error().code()).isEqualTo(McpSchema.ErrorCodes.INVALID_REQUEST);
+  }
+
+  @Test
+  void it_should_answer_the_requests_received_before_the_end_of_the_input() throws IOException {
+    var input = String.join("\n",
+      OBJECT_MAPPER.writeValueAsString(new McpSchema.JSONRPCRequest(McpSchema.JSONRPC_VERSION, McpSchema.METHOD_INITIALIZE, 1,
+        initializeRequest())),
+      OBJECT_MAPPER.writeValueAsString(new McpSchema.JSONRPCNotification(McpSchema.JSONRPC_VERSION,
+        McpSchema.METHOD_NOTIFICATION_INITIALIZED, null)),
+      "{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"tools/call\",\"params\":{}}") + "\n";
+    var serverToClientQueue = new LinkedBlockingQueue<Integer>();
+    provider = new StdioServerTransportProvider(OBJECT_MAPPER, new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)),
+      new BlockingQueueOutputStream(serverToClientQueue), TransportSettings.defaults());
+    provider.setSessionFactory(transport -> new McpServerSession("id", transport,
+      request -> Mono.just(new McpSchema.InitializeResult(McpSchema.LATEST_PROTOCOL_VERSION, McpSchema.ServerCapabilities.builder().build(),
+        new McpSchema.Implementation("server", "1.0"), null)),
+      Mono::empty, Map.of(McpSchema.METHOD_TOOLS_CALL, (exchange, params) -> Mono.delay(Duration.ofMillis(200)).thenReturn(Map.of("done", true))),
+      Map.of()));
+    var output = new BufferedReader(new InputStreamReader(new BlockingQueueInputStream(serverToClientQueue), StandardCharsets.UTF_8));
+
+    var initializeResponse = (McpSchema.JSONRPCResponse) McpSchema.deserializeJsonRpcMessage(OBJECT_MAPPER, output.readLine());
+    var toolCallResponse = (McpSchema.JSONRPCResponse) McpSchema.deserializeJsonRpcMessage(OBJECT_MAPPER, output.readLine());
+
+    assertThat(initializeResponse.id()).isEqualTo(1);
+    assertThat(toolCallResponse.id()).isEqualTo(2);
+    assertThat(toolCallResponse.result()).isEqualTo(Map.of("done", true));
+  }
+
+  @Test
+  void it_should_not_handle_a_tool_call_before_the_initialize_request() throws IOException {
+    var isInitialized = new AtomicBoolean(false);
+    var clientToServerQueue = new LinkedBlockingQueue<Integer>();
+    var serverToClientQueue = new LinkedBlockingQueue<Integer>();
+    provider = new StdioServerTransportProvider(OBJECT_MAPPER, new BlockingQueueInputStream(clientToServerQueue),
+      new BlockingQueueOutputStream(serverToClientQueue), TransportSettings.defaults());
+    provider.setSessionFactory(transport -> new McpServerSession("id", transport,
+      request -> Mono.delay(Duration.ofMillis(200)).then(Mono.fromCallable(() -> {
+        isInitialized.set(true);
+        return new McpSchema.InitializeResult(McpSchema.LATEST_PROTOCOL_VERSION, McpSchema.ServerCapabilities.builder().build(),
+          new McpSchema.Implementation("server", "1.0"), null);
+      })),
+      Mono::empty, Map.of(McpSchema.METHOD_TOOLS_CALL, (exchange, params) -> Mono.just(Map.of("initialized", isInitialized.get()))),
+      Map.of()));
+    rawInput = new BlockingQueueOutputStream(clientToServerQueue);
+    rawOutput = new BufferedReader(new InputStreamReader(new BlockingQueueInputStream(serverToClientQueue), StandardCharsets.UTF_8));
+
+    // sent together, without waiting for the response to the initialize request
+    sendRaw(OBJECT_MAPPER.writeValueAsString(new McpSchema.JSONRPCRequest(McpSchema.JSONRPC_VERSION, McpSchema.METHOD_INITIALIZE, 1,
+      initializeRequest())) + "\n" + OBJECT_MAPPER.writeValueAsString(new McpSchema.JSONRPCNotification(McpSchema.JSONRPC_VERSION,
+        McpSchema.METHOD_NOTIFICATION_INITIALIZED, null)) + "\n{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"tools/call\",\"params\":{}}");
+
+    var initializeResponse = (McpSchema.JSONRPCResponse) McpSchema.deserializeJsonRpcMessage(OBJECT_MAPPER, rawOutput.readLine());
+    var toolCallResponse = (McpSchema.JSONRPCResponse) McpSchema.deserializeJsonRpcMessage(OBJECT_MAPPER, rawOutput.readLine());
+
+    assertThat(initializeResponse.id()).isEqualTo(1);
+    assertThat(toolCallResponse.id()).isEqualTo(2);
+    assertThat(toolCallResponse.result()).isEqualTo(Map.of("initialized", true));
+  }
+
+  private void connect(TransportSettings settings) {
+    connect(settings, Map.of());
+  }
+
+  private void connect(TransportSettings settings, Map<String, McpServerSession.RequestHandler<?>> requestHandlers) {
+    var clientToServerQueue = new LinkedBlockingQueue<Integer>();
+    var serverToClientQueue = new LinkedBlockingQueue<Integer>();
+    provider = new StdioServerTransportProvider(new ObjectMapper(), new BlockingQueueInputStream(clientToServerQueue),
+      new BlockingQueueOutputStream(serverToClientQueue), settings);
+    provider.setSessionFactory(transport -> new McpServerSession("id", transport,
+      request -> Mono.just(new McpSchema.InitializeResult(McpSchema.LATEST_PROTOCOL_VERSION, McpSchema.ServerCapabilities.builder().build(),
+        new McpSchema.Implementation("server", "1.0"), null)),
+      Mono::empty, requestHandlers, Map.of()));
+    client = new InMemoryClientTransport(new BlockingQueueInputStream(serverToClientQueue), new BlockingQueueOutputStream(clientToServerQueue));
+    client.connect(message -> message.doOnNext(received::add).then(Mono.empty())).block();
+  }
+
+  /**
+   * Connects without a client, for tests exchanging frames the SDK client cannot produce or read, e.g. batches.
+   */
+  private void connectRaw(Map<String, McpServerSession.RequestHandler<?>> requestHandlers) {
+    var clientToServerQueue = new LinkedBlockingQueue<Integer>();
+    var serverToClientQueue = new LinkedBlockingQueue<Integer>();
+    provider = new StdioServerTransportProvider(OBJECT_MAPPER, new BlockingQueueInputStream(clientToServerQueue),
+      new BlockingQueueOutputStream(serverToClientQueue), TransportSettings.defaults());
+    provider.setSessionFactory(transport -> new McpServerSession("id", transport,
+      request -> Mono.just(new McpSchema.InitializeResult(McpSchema.LATEST_PROTOCOL_VERSION, McpSchema.ServerCapabilities.builder().build(),
+        new McpSchema.Implementation("server", "1.0"), null)),
+      Mono::empty, requestHandlers, Map.of()));
+    rawInput = new BlockingQueueOutputStream(clientToServerQueue);
+    rawOutput = new BufferedReader(new InputStreamReader(new BlockingQueueInputStream(serverToClientQueue), StandardCharsets.UTF_8));
+  }
+
+  private void initializeRaw() throws IOException {
+    sendRaw(OBJECT_MAPPER.writeValueAsString(new McpSchema.JSONRPCRequest(McpSchema.JSONRPC_VERSION, McpSchema.METHOD_INITIALIZE, 1,
+      initializeRequest())));
+    rawOutput.readLine();
+    sendRaw(OBJECT_MAPPER.writeValueAsString(new McpSchema.JSONRPCNotification(McpSchema.JSONRPC_VERSION,
+      McpSchema.METHOD_NOTIFICATION_INITIALIZED, null)));
+  }
+
+  private void sendRaw(String frame) throws IOException {
+    rawInput.write((frame + "\n").getBytes(StandardCharsets.UTF_8));
+    rawInput.flush();
+  }
+
+  private static void awaitUninterruptibly(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static McpSchema.InitializeRequest initializeRequest() {
+    return new McpSchema.InitializeRequest(McpSchema.LATEST_PROTOCOL_VERSION, McpSchema.ClientCapabilities.builder().build(),
+      new McpSchema.Implementation("client", "1.0"));
+  }
+
+}
@@ -0,0 +1,203 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.transport;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.spec.McpServerSession;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.core.publisher.Mono;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+class UnixSocketServerTransportProviderTests {
+
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+  @TempDir
+  private Path tempDir;
+  private UnixSocketServerTransportProvider provider;
+
+  @AfterEach
+  void cleanup() {
+    if (provider != null) {
+      provider.closeGracefully().block();
+    }
+  }
+
+  @Test
+  void it_should_serve_one_session_per_connection() throws Exception {
+    startProvider();
+
+    try (var firstClient = new Client(socketPath()); var secondClient = new Client(socketPath())) {
+      firstClient.initialize();
+      secondClient.initialize();
+
+      firstClient.send(toolCallRequest(2, "first"));
+      secondClient.send(toolCallRequest(2, "second"));
+
+      assertThat(firstClient.receive().result()).isEqualTo(Map.of("client", "first"));
+      assertThat(secondClient.receive().result()).isEqualTo(Map.of("client", "second"));
+      assertThat(provider.getSessionCount()).isEqualTo(2);
+    }
+  }
+
+  @Test
+  void it_should_release_the_session_when_the_client_disconnects() throws Exception {
+    startProvider();
+    var remainingClient = new Client(socketPath());
+    remainingClient.initialize();
+    try (var client = new Client(socketPath())) {
+      client.initialize();
+      assertThat(provider.getSessionCount()).isEqualTo(2);
+    }
+
+    await().untilAsserted(() -> assertThat(provider.getSessionCount()).isEqualTo(1));
+    remainingClient.send(toolCallRequest(2, "remaining"));
+    assertThat(remainingClient.receive().result()).isEqualTo(Map.of("client", "remaining"));
+    remainingClient.close();
+  }
+
+  @Test
+  void it_should_refuse_to_listen_when_another_daemon_owns_the_socket() {
+    startProvider();
+    var otherProvider = new UnixSocketServerTransportProvider(OBJECT_MAPPER, socketPath(), TransportSettings.defaults());
+
+    assertThatThrownBy(() -> otherProvider.setSessionFactory(transport -> null))
+      .isInstanceOf(IllegalStateException.class)
+      .hasMessageContaining("Another daemon is already listening on " + socketPath());
+  }
+
+  @Test
+  void it_should_replace_a_socket_left_by_a_stopped_daemon() throws Exception {
+    Files.createDirectories(socketPath().getParent());
+    Files.createFile(socketPath());
+    startProvider();
+
+    try (var client = new Client(socketPath())) {
+      client.initialize();
+      client.send(toolCallRequest(2, "client"));
+      assertThat(client.receive().result()).isEqualTo(Map.of("client", "client"));
+    }
+  }
+
+  @Test
+  void it_should_only_let_the_owner_reach_the_socket() throws Exception {
+    startProvider();
+
+    assertThat(Files.getPosixFilePermissions(socketPath().getParent())).isEqualTo(PosixFilePermissions.fromString("rwx------"));
+    assertThat(Files.getPosixFilePermissions(socketPath())).isEqualTo(PosixFilePermissions.fromString("rw-------"));
+  }
+
+  @Test
+  void it_should_restrict_an_existing_socket_directory() throws Exception {
+    Files.createDirectories(socketPath().getParent(), PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwxr-xr-x")));
+
+    startProvider();
+
+    assertThat(Files.getPosixFilePermissions(socketPath().getParent())).isEqualTo(PosixFilePermissions.fromString("rwx------"));
+  }
+
+  @Test
+  void it_should_remove_the_socket_when_closed() {
+    startProvider();
+
+    provider.closeGracefully().block();
+    provider = null;
+
+    assertThat(socketPath()).doesNotExist();
+  }
+
+  @Test
+  void it_should_stop_accepting_connections_when_closed() {
+    startProvider();
+
+    provider.closeGracefully().block();
+    provider = null;
+
+    assertThat(Thread.getAllStackTraces().keySet()).extracting(Thread::getName).doesNotContain("mcp-unix-socket-acceptor");
+  }
+
+  private void startProvider() {
+    provider = new UnixSocketServerTransportProvider(OBJECT_MAPPER, socketPath(), TransportSettings.defaults());
+    // the tool echoes its arguments, so that tests can check that responses are routed to the right client
+    provider.setSessionFactory(transport -> new McpServerSession("id", transport,
+      request -> Mono.just(new McpSchema.InitializeResult(McpSchema.LATEST_PROTOCOL_VERSION, McpSchema.ServerCapabilities.builder().build(),
+        new McpSchema.Implementation("server", "1.0"), null)),
+      Mono::empty,
+      Map.of(McpSchema.METHOD_TOOLS_CALL, (exchange, params) -> Mono.just(params)),
+      Map.of()));
+  }
+
+  private Path socketPath() {
+    return tempDir.resolve("daemon").resolve("mcp.sock");
+  }
+
+  private static McpSchema.JSONRPCRequest toolCallRequest(int id, String client) {
+    return new McpSchema.JSONRPCRequest(McpSchema.JSONRPC_VERSION, McpSchema.METHOD_TOOLS_CALL, id, Map.of("client", client));
+  }
+
+  private static class Client implements AutoCloseable {
+    private final SocketChannel channel;
+    private final BufferedReader reader;
+
+    Client(Path socketPath) throws IOException {
+      channel = SocketChannel.open(StandardProtocolFamily.UNIX);
+      channel.connect(UnixDomainSocketAddress.of(socketPath));
+      reader = new BufferedReader(new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8));
+    }
+
+    void initialize() throws IOException {
+      send(new McpSchema.JSONRPCRequest(McpSchema.JSONRPC_VERSION, McpSchema.METHOD_INITIALIZE, 1,
+        new McpSchema.InitializeRequest(McpSchema.LATEST_PROTOCOL_VERSION, McpSchema.ClientCapabilities.builder().build(),
+          new McpSchema.Implementation("client", "1.0"))));
+      receive();
+      send(new McpSchema.JSONRPCNotification(McpSchema.JSONRPC_VERSION, McpSchema.METHOD_NOTIFICATION_INITIALIZED, null));
+    }
+
+    void send(McpSchema.JSONRPCMessage message) throws IOException {
+      var outputStream = Channels.newOutputStream(channel);
+      outputStream.write((OBJECT_MAPPER.writeValueAsString(message) + "\n").getBytes(StandardCharsets.UTF_8));
+      outputStream.flush();
+    }
+
+    McpSchema.JSONRPCResponse receive() throws IOException {
+      return (McpSchema.JSONRPCResponse) McpSchema.deserializeJsonRpcMessage(OBJECT_MAPPER, reader.readLine());
+    }
+
+    @Override
+    public void close() throws IOException {
+      channel.close();
+    }
+  }
+
+}